@@ -0,0 +1,30 @@
+/*
+ * AstBuilderBenchmark.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.decompiler.ast.AstBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link AstBuilder#build} for every method body in the type.
+ */
+public class AstBuilderBenchmark extends BenchmarkCorpus {
+    @Benchmark
+    public void build(final Blackhole blackhole) {
+        for (int i = 0; i < methods.size(); i++) {
+            final MethodDefinition method = methods.get(i);
+            blackhole.consume(AstBuilder.build(bodies.get(i), true, createContext(method)));
+        }
+    }
+}
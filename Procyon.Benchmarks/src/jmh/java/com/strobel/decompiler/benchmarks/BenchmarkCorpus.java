@@ -0,0 +1,133 @@
+/*
+ * BenchmarkCorpus.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.assembler.InputTypeLoader;
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.MethodBody;
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.DecompilerSettings;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base state for the decompiler pipeline benchmarks.  Each benchmark runs once per class in a fixed
+ * corpus, so results are reported per class.
+ * <p>
+ * The corpus mixes JDK classes, which exercise large, realistic method bodies, with the third party
+ * class files used by the decompiler tests, which exercise unusual bytecode.  The JDK classes are read
+ * from the JVM running the benchmarks, so results are only comparable across runs on the same JDK build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class BenchmarkCorpus {
+    @Param({
+        "java/lang/String",
+        "java/lang/Character",
+        "java/util/HashMap",
+        "java/util/concurrent/ConcurrentHashMap",
+        "java/util/regex/Pattern",
+        "java/math/BigInteger",
+        "OddsAndEnds",
+        "WhileLoops",
+        "LiteralAssignments",
+        "Java14ClassConstants"
+    })
+    public String typeName;
+
+    protected DecompilerSettings settings;
+    protected MetadataSystem metadataSystem;
+    protected TypeDefinition type;
+    protected List<MethodDefinition> methods;
+
+    //
+    // Load every method body up front and keep it reachable from here, so each iteration works on
+    // the same bodies and the class file reader never shows up in the results.
+    //
+    protected List<MethodBody> bodies;
+
+    @Setup
+    public void setUpCorpus() {
+        settings = DecompilerSettings.javaDefaults();
+        settings.setTypeLoader(new InputTypeLoader());
+
+        metadataSystem = new MetadataSystem(settings.getTypeLoader());
+
+        final TypeReference reference = metadataSystem.lookupType(typeName);
+
+        type = reference != null ? reference.resolve() : null;
+
+        if (type == null) {
+            throw new IllegalStateException("Could not resolve benchmark type: " + typeName);
+        }
+
+        methods = new ArrayList<>();
+        bodies = new ArrayList<>();
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            final MethodBody body = method.getBody();
+
+            if (body != null) {
+                methods.add(method);
+                bodies.add(body);
+            }
+        }
+    }
+
+    protected final byte[] loadClassBytes() {
+        final Buffer buffer = new Buffer();
+
+        if (!settings.getTypeLoader().tryLoadType(typeName, buffer)) {
+            throw new IllegalStateException("Could not load benchmark type: " + typeName);
+        }
+
+        return Arrays.copyOf(buffer.array(), buffer.size());
+    }
+
+    protected final DecompilerContext createContext(final MethodDefinition method) {
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        context.setCurrentType(type);
+        context.setCurrentMethod(method);
+
+        return context;
+    }
+
+    protected final DecompilerContext createContext() {
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        context.setCurrentType(type);
+
+        return context;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * ClassFileReaderBenchmark.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ClassFileReader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures {@link ClassFileReader#readClass} over the raw class file, including method bodies.
+ */
+public class ClassFileReaderBenchmark extends BenchmarkCorpus {
+    private byte[] _classBytes;
+
+    @Setup
+    public void setUp() {
+        _classBytes = loadClassBytes();
+    }
+
+    @Benchmark
+    public TypeDefinition readClass() {
+        //
+        // Use a fresh metadata system each time so referenced types aren't already cached.
+        //
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+
+        return ClassFileReader.readClass(
+            ClassFileReader.OPTIONS_DEFAULT | ClassFileReader.OPTION_PROCESS_CODE,
+            metadataSystem,
+            new Buffer(_classBytes)
+        );
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * JavaOutputVisitorBenchmark.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.decompiler.PlainTextOutput;
+import com.strobel.decompiler.languages.java.JavaOutputVisitor;
+import com.strobel.decompiler.languages.java.ast.AstBuilder;
+import com.strobel.decompiler.languages.java.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures {@link JavaOutputVisitor} writing a fully transformed type to an in-memory output.
+ */
+public class JavaOutputVisitorBenchmark extends BenchmarkCorpus {
+    private CompilationUnit _compilationUnit;
+
+    @Setup
+    public void setUp() {
+        final AstBuilder builder = new AstBuilder(createContext());
+
+        builder.addType(type);
+        builder.runTransformations();
+
+        _compilationUnit = builder.getCompilationUnit();
+    }
+
+    @Benchmark
+    public String write() {
+        final PlainTextOutput output = new PlainTextOutput();
+        _compilationUnit.acceptVisitor(new JavaOutputVisitor(output, settings), null);
+        return output.toString();
+    }
+}
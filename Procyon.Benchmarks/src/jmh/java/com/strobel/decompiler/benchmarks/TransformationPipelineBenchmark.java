@@ -0,0 +1,39 @@
+/*
+ * TransformationPipelineBenchmark.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.decompiler.languages.java.ast.AstBuilder;
+import com.strobel.decompiler.languages.java.ast.CompilationUnit;
+import com.strobel.decompiler.languages.java.ast.transforms.TransformationPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the Java AST {@link TransformationPipeline} over a whole type.  The transforms rewrite the
+ * compilation unit in place, so a fresh, untransformed AST is built before each invocation.
+ */
+public class TransformationPipelineBenchmark extends BenchmarkCorpus {
+    private AstBuilder _builder;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        _builder = new AstBuilder(createContext());
+        _builder.addType(type);
+    }
+
+    @Benchmark
+    public CompilationUnit runTransformations() {
+        _builder.runTransformations();
+        return _builder.getCompilationUnit();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * TypeAnalysisBenchmark.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.benchmarks;
+
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.ast.AstBuilder;
+import com.strobel.decompiler.ast.AstOptimizationStep;
+import com.strobel.decompiler.ast.AstOptimizer;
+import com.strobel.decompiler.ast.Block;
+import com.strobel.decompiler.ast.TypeAnalysis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the first {@link TypeAnalysis#run} pass for every method body in the type, on ASTs which
+ * have been optimized up to {@link AstOptimizationStep#TypeInference}.
+ */
+public class TypeAnalysisBenchmark extends BenchmarkCorpus {
+    private final List<DecompilerContext> _contexts = new ArrayList<>();
+    private final List<Block> _blocks = new ArrayList<>();
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        _contexts.clear();
+        _blocks.clear();
+
+        for (int i = 0; i < methods.size(); i++) {
+            final DecompilerContext context = createContext(methods.get(i));
+            final Block block = new Block();
+
+            block.getBody().addAll(AstBuilder.build(bodies.get(i), true, context));
+            AstOptimizer.optimize(context, block, AstOptimizationStep.TypeInference);
+
+            _contexts.add(context);
+            _blocks.add(block);
+        }
+    }
+
+    @Benchmark
+    public void run(final Blackhole blackhole) {
+        for (int i = 0; i < _blocks.size(); i++) {
+            final Block block = _blocks.get(i);
+            TypeAnalysis.run(_contexts.get(i), block);
+            blackhole.consume(block);
+        }
+    }
+}
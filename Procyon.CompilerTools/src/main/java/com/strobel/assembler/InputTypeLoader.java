@@ -28,9 +28,11 @@ import com.strobel.io.PathHelper;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,7 +40,7 @@ public class InputTypeLoader implements ITypeLoader {
     private final static Logger LOG = Logger.getLogger(InputTypeLoader.class.getSimpleName());
 
     private final ITypeLoader _defaultTypeLoader;
-    private final Map<String, LinkedHashSet<File>> _packageLocations;
+    private final ConcurrentMap<String, Set<File>> _packageLocations;
     private final Map<String, File> _knownFiles;
 
     public InputTypeLoader() {
@@ -47,8 +49,8 @@ public class InputTypeLoader implements ITypeLoader {
 
     public InputTypeLoader(final ITypeLoader defaultTypeLoader) {
         _defaultTypeLoader = VerifyArgument.notNull(defaultTypeLoader, "defaultTypeLoader");
-        _packageLocations = new LinkedHashMap<>();
-        _knownFiles = new LinkedHashMap<>();
+        _packageLocations = new ConcurrentHashMap<>();
+        _knownFiles = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -157,7 +159,7 @@ public class InputTypeLoader implements ITypeLoader {
         }
 
         while (true) {
-            final LinkedHashSet<File> directories = _packageLocations.get(head);
+            final Set<File> directories = _packageLocations.get(head);
 
             if (directories != null) {
                 for (final File directory : directories) {
@@ -268,11 +270,7 @@ public class InputTypeLoader implements ITypeLoader {
             return;
         }
 
-        LinkedHashSet<File> directories = _packageLocations.get(packageName);
-
-        if (directories == null) {
-            _packageLocations.put(packageName, directories = new LinkedHashSet<>());
-        }
+        Set<File> directories = getPackageLocations(packageName);
 
         if (!directories.add(directory) || !recursive) {
             return;
@@ -301,11 +299,7 @@ public class InputTypeLoader implements ITypeLoader {
                 currentPackage = currentPackage.substring(0, delimiterIndex);
                 currentDirectory = currentDirectory.getParentFile();
 
-                directories = _packageLocations.get(currentPackage);
-
-                if (directories == null) {
-                    _packageLocations.put(currentPackage, directories = new LinkedHashSet<>());
-                }
+                directories = getPackageLocations(currentPackage);
 
                 if (!directories.add(currentDirectory)) {
                     break;
@@ -316,6 +310,24 @@ public class InputTypeLoader implements ITypeLoader {
         }
     }
 
+    private Set<File> getPackageLocations(final String packageName) {
+        final Set<File> directories = _packageLocations.get(packageName);
+
+        if (directories != null) {
+            return directories;
+        }
+
+        //
+        // Package directories are probed in registration order and registered rarely,
+        // so a copy-on-write set keeps concurrent lookups lock-free.
+        //
+
+        final Set<File> newDirectories = new CopyOnWriteArraySet<>();
+        final Set<File> existingDirectories = _packageLocations.putIfAbsent(packageName, newDirectories);
+
+        return existingDirectories != null ? existingDirectories : newDirectories;
+    }
+
     private static String getInternalNameFromClassFile(final Buffer b) {
         final long magic = b.readInt() & 0xFFFFFFFFL;
 
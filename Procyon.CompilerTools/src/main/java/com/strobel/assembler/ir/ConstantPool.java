@@ -24,10 +24,13 @@ import com.strobel.core.Freezable;
 import com.strobel.core.HashUtilities;
 import com.strobel.core.StringUtilities;
 import com.strobel.core.VerifyArgument;
+import com.strobel.functions.Supplier;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,20 +38,47 @@ import java.util.Iterator;
 @SuppressWarnings({ "PublicField", "ProtectedField" })
 public final class ConstantPool extends Freezable implements Iterable<ConstantPool.Entry> {
     private final ArrayList<Entry> _pool = new ArrayList<>();
-    private final HashMap<Key, Entry> _entryMap = new HashMap<>();
     private final Key _lookupKey = new Key();
     private final Key _newKey = new Key();
 
+    private HashMap<Key, Entry> _entryMap = new HashMap<>();
     private int _size;
 
+    //
+    // Pools read from a class file start out with only the offset of each entry recorded.  Entries
+    // (including their Utf8 strings) are decoded from a private copy of the pool's bytes on first
+    // access, and the bytes are released once every entry has been decoded.  The key map used to
+    // look up existing entries by value is only built if one of the get*() lookups is used.
+    //
+    // Until every entry has been decoded, entries are only read under the pool's lock, so pools of
+    // shared (e.g., platform) types may be read by several threads.  The write to _offsets which
+    // completes decoding publishes all entries to readers which don't take the lock.
+    //
+    // If the owner of the pool can produce its class file again, the private copy may be released in
+    // favor of a soft reference to the class file; see releaseData().
+    //
+    private byte[] _data;
+    private int _dataOffset;
+    private int _dataLength;
+    private int _classFileOffset;
+    private SoftReference<byte[]> _classFile;
+    private Supplier<Buffer> _classFileSource;
+    private volatile int[] _offsets;
+    private char[] _charBuffer;
+    private int _undecodedCount;
+    private int _decodingIndex;
+
     @Override
     public Iterator<Entry> iterator() {
+        decodeAll();
         return _pool.iterator();
     }
 
     public void accept(final Visitor visitor) {
         VerifyArgument.notNull(visitor, "visitor");
 
+        decodeAll();
+
         for (final Entry entry : _pool) {
             if (entry != null) {
                 visitor.visit(entry);
@@ -63,21 +93,13 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     @SuppressWarnings("unchecked")
     public <T extends Entry> T getEntry(final int index) {
-        VerifyArgument.inRange(0, _size + 1, index, "index");
-
-        final Entry info = _pool.get(index - 1);
-
-        if (info == null) {
-            throw new IndexOutOfBoundsException();
-        }
-
-        return (T) info;
+        return (T) get(index);
     }
 
     public Entry get(final int index) {
         VerifyArgument.inRange(0, _size + 1, index, "index");
 
-        final Entry info = _pool.get(index - 1);
+        final Entry info = _offsets != null ? decode(index) : _pool.get(index - 1);
 
         if (info == null) {
             throw new IndexOutOfBoundsException();
@@ -143,7 +165,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     public Utf8StringConstantEntry getUtf8StringConstant(final String value) {
         _lookupKey.set(value);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -157,7 +179,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
     public StringConstantEntry getStringConstant(final String value) {
         final Utf8StringConstantEntry utf8Constant = getUtf8StringConstant(value);
         _lookupKey.set(Tag.StringConstant, utf8Constant.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -170,7 +192,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     public IntegerConstantEntry getIntegerConstant(final int value) {
         _lookupKey.set(value);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -183,7 +205,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     public FloatConstantEntry getFloatConstant(final float value) {
         _lookupKey.set(value);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -196,7 +218,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     public LongConstantEntry getLongConstant(final long value) {
         _lookupKey.set(value);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -209,7 +231,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     public DoubleConstantEntry getDoubleConstant(final double value) {
         _lookupKey.set(value);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -223,7 +245,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
     public TypeInfoEntry getTypeInfo(final TypeReference type) {
         final Utf8StringConstantEntry name = getUtf8StringConstant(type.getInternalName());
         _lookupKey.set(Tag.TypeInfo, name.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -241,7 +263,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             field.getErasedSignature()
         );
         _lookupKey.set(Tag.FieldReference, typeInfo.index, nameAndDescriptor.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -259,7 +281,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             method.getErasedSignature()
         );
         _lookupKey.set(Tag.MethodReference, typeInfo.index, nameAndDescriptor.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -277,7 +299,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             method.getErasedSignature()
         );
         _lookupKey.set(Tag.InterfaceMethodReference, typeInfo.index, nameAndDescriptor.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -292,7 +314,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         final Utf8StringConstantEntry utf8Name = getUtf8StringConstant(name);
         final Utf8StringConstantEntry utf8Descriptor = getUtf8StringConstant(typeDescriptor);
         _lookupKey.set(Tag.NameAndTypeDescriptor, utf8Name.index, utf8Descriptor.index);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -305,7 +327,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     MethodHandleEntry getMethodHandle(final ReferenceKind referenceKind, final int referenceIndex) {
         _lookupKey.set(Tag.MethodHandle, referenceIndex, referenceKind);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -318,7 +340,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
     MethodTypeEntry getMethodType(final int descriptorIndex) {
         _lookupKey.set(Tag.MethodType, descriptorIndex);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -333,7 +355,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         final int bootstrapMethodAttributeIndex,
         final int nameAndTypeDescriptorIndex) {
         _lookupKey.set(Tag.InvokeDynamicInfo, bootstrapMethodAttributeIndex, nameAndTypeDescriptorIndex);
-        Entry entry = _entryMap.get(_lookupKey);
+        Entry entry = entryMap().get(_lookupKey);
         if (entry == null) {
             if (isFrozen()) {
                 return null;
@@ -345,73 +367,350 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
     }
 
     public static ConstantPool read(final Buffer b) {
-        boolean skipOne = false;
-
         final ConstantPool pool = new ConstantPool();
         final int size = b.readUnsignedShort();
-        final Key key = new Key();
+        final int start = b.position();
+        final int[] offsets = new int[Math.max(size - 1, 0)];
+
+        int entryCount = 0;
 
         for (int i = 1; i < size; i++) {
-            if (skipOne) {
-                skipOne = false;
-                continue;
+            final int offset = b.position() - start;
+            final Tag tag = Tag.fromValue(b.readUnsignedByte());
+
+            offsets[i - 1] = offset;
+            entryCount++;
+
+            switch (tag) {
+                case Utf8StringConstant:
+                    b.advance(b.readUnsignedShort());
+                    break;
+                case IntegerConstant:
+                case FloatConstant:
+                    b.advance(4);
+                    break;
+                case LongConstant:
+                case DoubleConstant:
+                    b.advance(8);
+                    offsets[i++] = -1;
+                    break;
+                case TypeInfo:
+                case StringConstant:
+                case MethodType:
+                    b.advance(2);
+                    break;
+                case FieldReference:
+                case MethodReference:
+                case InterfaceMethodReference:
+                case NameAndTypeDescriptor:
+                case InvokeDynamicInfo:
+                    b.advance(4);
+                    break;
+                case MethodHandle:
+                    b.advance(3);
+                    break;
             }
+        }
 
-            key.clear();
+        final int length = b.position() - start;
+        final byte[] data = new byte[length];
 
-            final Tag tag = Tag.fromValue(b.readUnsignedByte());
+        System.arraycopy(b.array(), start, data, 0, length);
 
-            switch (tag) {
+        pool._pool.ensureCapacity(offsets.length);
+
+        for (int i = 0; i < offsets.length; i++) {
+            pool._pool.add(null);
+        }
+
+        pool._size = offsets.length;
+        pool._entryMap = null;
+
+        if (entryCount > 0) {
+            pool._data = data;
+            pool._dataLength = length;
+            pool._classFileOffset = start;
+            pool._undecodedCount = entryCount;
+            pool._offsets = offsets;
+        }
+
+        return pool;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Deferred Decoding">
+
+    private void register(final Entry entry) {
+        if (_entryMap != null) {
+            entry.fixupKey(_newKey);
+            _entryMap.put(_newKey.clone(), entry);
+            _newKey.clear();
+        }
+    }
+
+    private HashMap<Key, Entry> entryMap() {
+        HashMap<Key, Entry> entryMap = _entryMap;
+
+        if (entryMap == null) {
+            decodeAll();
+
+            _entryMap = entryMap = new HashMap<>();
+
+            for (final Entry entry : _pool) {
+                if (entry != null) {
+                    register(entry);
+                }
+            }
+        }
+
+        return entryMap;
+    }
+
+    /**
+     * Releases the private copy of the bytes of entries which have not been decoded yet.  If such an
+     * entry is needed later, it is decoded from the class file this pool was read from, which is held
+     * softly and obtained from {@code classFileSource} whenever it has been collected.  The returned
+     * buffer's array must hold the class file at the same position as the buffer this pool was read
+     * from, e.g., at the start of the array in both cases.
+     */
+    public synchronized void releaseData(final Supplier<Buffer> classFileSource) {
+        VerifyArgument.notNull(classFileSource, "classFileSource");
+
+        if (_offsets == null || _data == null) {
+            return;
+        }
+
+        _data = null;
+        _dataOffset = _classFileOffset;
+        _classFileSource = classFileSource;
+    }
+
+    private synchronized void decodeAll() {
+        if (_offsets == null) {
+            return;
+        }
+
+        for (int i = 1; i <= _size; i++) {
+            if (_pool.get(i - 1) == null) {
+                decode(i);
+            }
+        }
+    }
+
+    private byte[] data() {
+        final byte[] data = _data;
+
+        if (data != null) {
+            return data;
+        }
+
+        final SoftReference<byte[]> classFileReference = _classFile;
+        final byte[] classFile = classFileReference != null ? classFileReference.get() : null;
+
+        if (classFile != null) {
+            return classFile;
+        }
+
+        final Buffer buffer = _classFileSource.get();
+
+        if (buffer == null || buffer.array().length < _dataOffset + _dataLength) {
+            throw new IllegalStateException("The class file of this constant pool is no longer available.");
+        }
+
+        _classFile = new SoftReference<>(buffer.array());
+
+        return buffer.array();
+    }
+
+    private synchronized Entry decode(final int index) {
+        final Entry existing = _pool.get(index - 1);
+        final int[] offsets = _offsets;
+
+        if (existing != null || offsets == null || offsets[index - 1] < 0) {
+            return existing;
+        }
+
+        final byte[] data = data();
+        final int offset = _dataOffset + offsets[index - 1];
+        final int p = offset + 1;
+        final Entry entry;
+
+        _decodingIndex = index;
+
+        try {
+            switch (Tag.fromValue(data[offset] & 0xFF)) {
                 case Utf8StringConstant:
-                    new Utf8StringConstantEntry(pool, b.readUtf8());
+                    entry = new Utf8StringConstantEntry(this, decodeUtf8(data, p + 2, readUnsignedShort(data, p)));
                     break;
                 case IntegerConstant:
-                    new IntegerConstantEntry(pool, b.readInt());
+                    entry = new IntegerConstantEntry(this, readInt(data, p));
                     break;
                 case FloatConstant:
-                    new FloatConstantEntry(pool, b.readFloat());
+                    entry = new FloatConstantEntry(this, Float.intBitsToFloat(readInt(data, p)));
                     break;
                 case LongConstant:
-                    new LongConstantEntry(pool, b.readLong());
-                    skipOne = true;
+                    entry = new LongConstantEntry(this, readLong(data, p));
                     break;
                 case DoubleConstant:
-                    new DoubleConstantEntry(pool, b.readDouble());
-                    skipOne = true;
+                    entry = new DoubleConstantEntry(this, Double.longBitsToDouble(readLong(data, p)));
                     break;
                 case TypeInfo:
-                    new TypeInfoEntry(pool, b.readUnsignedShort());
+                    entry = new TypeInfoEntry(this, readUnsignedShort(data, p));
                     break;
                 case StringConstant:
-                    new StringConstantEntry(pool, b.readUnsignedShort());
+                    entry = new StringConstantEntry(this, readUnsignedShort(data, p));
                     break;
                 case FieldReference:
-                    new FieldReferenceEntry(pool, b.readUnsignedShort(), b.readUnsignedShort());
+                    entry = new FieldReferenceEntry(this, readUnsignedShort(data, p), readUnsignedShort(data, p + 2));
                     break;
                 case MethodReference:
-                    new MethodReferenceEntry(pool, b.readUnsignedShort(), b.readUnsignedShort());
+                    entry = new MethodReferenceEntry(this, readUnsignedShort(data, p), readUnsignedShort(data, p + 2));
                     break;
                 case InterfaceMethodReference:
-                    new InterfaceMethodReferenceEntry(pool, b.readUnsignedShort(), b.readUnsignedShort());
+                    entry = new InterfaceMethodReferenceEntry(this, readUnsignedShort(data, p), readUnsignedShort(data, p + 2));
                     break;
                 case NameAndTypeDescriptor:
-                    new NameAndTypeDescriptorEntry(pool, b.readUnsignedShort(), b.readUnsignedShort());
+                    entry = new NameAndTypeDescriptorEntry(this, readUnsignedShort(data, p), readUnsignedShort(data, p + 2));
                     break;
                 case MethodHandle:
-                    new MethodHandleEntry(pool, ReferenceKind.fromTag(b.readUnsignedByte()), b.readUnsignedShort());
+                    entry = new MethodHandleEntry(this, ReferenceKind.fromTag(data[p] & 0xFF), readUnsignedShort(data, p + 1));
                     break;
                 case MethodType:
-                    new MethodTypeEntry(pool, b.readUnsignedShort());
+                    entry = new MethodTypeEntry(this, readUnsignedShort(data, p));
                     break;
                 case InvokeDynamicInfo:
-                    new InvokeDynamicInfoEntry(pool, b.readUnsignedShort(), b.readUnsignedShort());
+                    entry = new InvokeDynamicInfoEntry(this, readUnsignedShort(data, p), readUnsignedShort(data, p + 2));
                     break;
+                default:
+                    return null;
             }
         }
+        finally {
+            _decodingIndex = 0;
+        }
 
-        return pool;
+        if (--_undecodedCount == 0) {
+            _data = null;
+            _classFile = null;
+            _classFileSource = null;
+            _charBuffer = null;
+            _offsets = null;
+        }
+
+        return entry;
+    }
+
+    private static int readUnsignedShort(final byte[] data, final int offset) {
+        return (data[offset] & 0xFF) << 8 | data[offset + 1] & 0xFF;
+    }
+
+    private static int readInt(final byte[] data, final int offset) {
+        return (data[offset] & 0xFF) << 24 |
+               (data[offset + 1] & 0xFF) << 16 |
+               (data[offset + 2] & 0xFF) << 8 |
+               data[offset + 3] & 0xFF;
+    }
+
+    private static long readLong(final byte[] data, final int offset) {
+        return (long) readInt(data, offset) << 32 | readInt(data, offset + 4) & 0xFFFFFFFFL;
+    }
+
+    private String decodeUtf8(final byte[] data, final int offset, final int length) {
+        final int end = offset + length;
+
+        int position = offset;
+
+        //
+        // Most strings are plain ASCII, which we can decode without a character buffer.
+        //
+        while (position < end && data[position] >= 0) {
+            position++;
+        }
+
+        if (position == end) {
+            return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        char[] chars = _charBuffer;
+
+        if (chars == null || chars.length < length) {
+            _charBuffer = chars = new char[Math.max(length, 256)];
+        }
+
+        int count = 0;
+
+        for (int i = offset; i < position; i++) {
+            chars[count++] = (char) data[i];
+        }
+
+        while (position < end) {
+            final int ch = data[position] & 0xFF;
+
+            switch (ch >> 4) {
+                case 0:
+                case 1:
+                case 2:
+                case 3:
+                case 4:
+                case 5:
+                case 6:
+                case 7: {
+                    /* 0xxxxxxx */
+                    position++;
+                    chars[count++] = (char) ch;
+                    break;
+                }
+
+                case 12:
+                case 13: {
+                    /* 110x xxxx   10xx xxxx */
+                    position += 2;
+
+                    if (position > end) {
+                        throw new IllegalStateException("malformed input: partial character at end");
+                    }
+
+                    final int ch2 = data[position - 1];
+
+                    if ((ch2 & 0xC0) != 0x80) {
+                        throw new IllegalStateException("malformed input around byte " + (position - offset));
+                    }
+
+                    chars[count++] = (char) ((ch & 0x1F) << 6 | ch2 & 0x3F);
+                    break;
+                }
+
+                case 14:
+                case 15: {
+                    /* 1110 xxxx  10xx xxxx  10xx xxxx */
+                    position += 3;
+
+                    if (position > end) {
+                        throw new IllegalStateException("malformed input: partial character at end");
+                    }
+
+                    final int ch2 = data[position - 2];
+                    final int ch3 = data[position - 1];
+
+                    if ((ch2 & 0xC0) != 0x80 || (ch3 & 0xC0) != 0x80) {
+                        throw new IllegalStateException("malformed input around byte " + (position - offset - 1));
+                    }
+
+                    chars[count++] = (char) ((ch & 0x0F) << 12 | (ch2 & 0x3F) << 6 | ch3 & 0x3F);
+                    break;
+                }
+
+                default: {
+                    /* 10xx xxxx */
+                    throw new IllegalStateException("malformed input around byte " + (position - offset));
+                }
+            }
+        }
+
+        return new String(chars, 0, count);
     }
 
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Entry Base Class">
 
     public static abstract class Entry {
@@ -421,11 +720,21 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
 
         Entry(final ConstantPool owner) {
             this.owner = owner;
-            this.index = owner._size + 1;
-            owner._pool.add(this);
-            owner._size += size();
-            for (int i = 1; i < size(); i++) {
-                owner._pool.add(null);
+
+            if (owner._decodingIndex != 0) {
+                //
+                // We're being decoded from a pool read from a class file; our slot already exists.
+                //
+                this.index = owner._decodingIndex;
+                owner._pool.set(index - 1, this);
+            }
+            else {
+                this.index = owner._size + 1;
+                owner._pool.add(this);
+                owner._size += size();
+                for (int i = 1; i < size(); i++) {
+                    owner._pool.add(null);
+                }
             }
         }
 
@@ -760,9 +1069,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public TypeInfoEntry(final ConstantPool owner, final int nameIndex) {
             super(owner);
             this.nameIndex = nameIndex;
-            owner._newKey.set(getTag(), nameIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         public String getName() {
@@ -801,9 +1108,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public MethodTypeEntry(final ConstantPool owner, final int descriptorIndex) {
             super(owner);
             this.descriptorIndex = descriptorIndex;
-            owner._newKey.set(getTag(), descriptorIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         public String getType() {
@@ -846,9 +1151,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             this.tag = tag;
             this.typeInfoIndex = typeInfoIndex;
             this.nameAndTypeDescriptorIndex = nameAndTypeDescriptorIndex;
-            owner._newKey.set(tag, typeInfoIndex, nameAndTypeDescriptorIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         public Tag getTag() {
@@ -939,9 +1242,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             super(owner);
             this.referenceKind = referenceKind;
             this.referenceIndex = referenceIndex;
-            owner._newKey.set(getTag(), referenceIndex, referenceKind);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         public ReferenceEntry getReference() {
@@ -988,9 +1289,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             super(owner);
             this.nameIndex = nameIndex;
             this.typeDescriptorIndex = typeDescriptorIndex;
-            owner._newKey.set(getTag(), nameIndex, typeDescriptorIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1037,9 +1336,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
             super(owner);
             this.bootstrapMethodAttributeIndex = bootstrapMethodAttributeIndex;
             this.nameAndTypeDescriptorIndex = nameAndTypeDescriptorIndex;
-            owner._newKey.set(getTag(), bootstrapMethodAttributeIndex, nameAndTypeDescriptorIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1079,9 +1376,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public DoubleConstantEntry(final ConstantPool owner, final double value) {
             super(owner);
             this.value = value;
-            owner._newKey.set(value);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1126,9 +1421,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public FloatConstantEntry(final ConstantPool owner, final float value) {
             super(owner);
             this.value = value;
-            owner._newKey.set(value);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1168,9 +1461,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public IntegerConstantEntry(final ConstantPool owner, final int value) {
             super(owner);
             this.value = value;
-            owner._newKey.set(value);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1210,9 +1501,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public LongConstantEntry(final ConstantPool owner, final long value) {
             super(owner);
             this.value = value;
-            owner._newKey.set(value);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -1257,9 +1546,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public StringConstantEntry(final ConstantPool owner, final int stringIndex) {
             super(owner);
             this.stringIndex = stringIndex;
-            owner._newKey.set(getTag(), stringIndex);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         public String getValue() {
@@ -1303,9 +1590,7 @@ public final class ConstantPool extends Freezable implements Iterable<ConstantPo
         public Utf8StringConstantEntry(final ConstantPool owner, final String value) {
             super(owner);
             this.value = value;
-            owner._newKey.set(getTag(), value);
-            owner._entryMap.put(owner._newKey.clone(), this);
-            owner._newKey.clear();
+            owner.register(this);
         }
 
         @Override
@@ -56,7 +56,7 @@ public final class ClasspathTypeLoader implements ITypeLoader {
             return false;
         }
 
-        try (final InputStream stream = _loader.getResourceAsStream(path)) {
+        try (final InputStream stream = resource.openStream()) {
             final byte[] temp = new byte[4096];
 
             int bytesRead;
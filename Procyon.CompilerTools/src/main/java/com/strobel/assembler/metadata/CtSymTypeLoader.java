@@ -0,0 +1,166 @@
+/*
+ * CtSymTypeLoader.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A type loader which reads the platform API of an older Java release from a JDK's {@code lib/ct.sym}
+ * file, the same data {@code javac --release} compiles against.
+ * <p>
+ * Entries in {@code ct.sym} live under directories named for the set of releases they apply to, one
+ * character per release ({@code 7}-{@code 9}, then {@code A} for 10, {@code B} for 11, and so on).  The
+ * entries for the requested release are indexed once, up front, by internal type name.  The running
+ * JDK's own release is not included in {@code ct.sym}; use {@link JrtTypeLoader} for that.
+ */
+public final class CtSymTypeLoader implements ITypeLoader {
+    private final static Logger LOG = Logger.getLogger(CtSymTypeLoader.class.getSimpleName());
+
+    private final static String SIGNATURE_EXTENSION = ".sig";
+
+    private final ZipFile _file;
+    private final int _release;
+    private final Map<String, ZipEntry> _index;
+
+    public CtSymTypeLoader(final File ctSym, final int release) throws IOException {
+        VerifyArgument.notNull(ctSym, "ctSym");
+        VerifyArgument.inRange(7, 35, release, "release");
+
+        _file = new ZipFile(ctSym);
+        _release = release;
+        _index = buildIndex(_file, releaseCode(release));
+
+        if (_index.isEmpty()) {
+            _file.close();
+            throw new IOException("Release " + release + " is not available in " + ctSym.getPath() + ".");
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Indexed " + _index.size() + " types for release " + release + " in " + _file.getName() + ".");
+        }
+    }
+
+    /**
+     * Locates {@code lib/ct.sym} in the JDK installed at {@code javaHome}.
+     */
+    public static File findCtSym(final File javaHome) {
+        VerifyArgument.notNull(javaHome, "javaHome");
+
+        final File ctSym = new File(new File(javaHome, "lib"), "ct.sym");
+
+        return ctSym.isFile() ? ctSym : null;
+    }
+
+    public final int getRelease() {
+        return _release;
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Attempting to load type: " + internalName + "...");
+        }
+
+        final ZipEntry entry = _index.get(internalName);
+
+        if (entry == null) {
+            return false;
+        }
+
+        try (final InputStream inputStream = _file.getInputStream(entry)) {
+            final int size = (int) entry.getSize();
+
+            buffer.reset(size);
+
+            int offset = 0;
+
+            while (offset < size) {
+                final int bytesRead = inputStream.read(buffer.array(), offset, size - offset);
+
+                if (bytesRead < 0) {
+                    throw new IOException("Unexpected end of entry " + entry.getName() + ".");
+                }
+
+                offset += bytesRead;
+            }
+
+            buffer.position(0);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException("Error reading " + internalName + " from " + _file.getName() + ".", e);
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Type loaded from " + _file.getName() + "!" + entry.getName() + ".");
+        }
+
+        return true;
+    }
+
+    private static char releaseCode(final int release) {
+        return release < 10 ? (char) ('0' + release)
+                            : (char) ('A' + (release - 10));
+    }
+
+    private static Map<String, ZipEntry> buildIndex(final ZipFile file, final char releaseCode) {
+        final Map<String, ZipEntry> index = new HashMap<>();
+        final Enumeration<? extends ZipEntry> entries = file.entries();
+
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (entry.isDirectory() || !name.endsWith(SIGNATURE_EXTENSION)) {
+                continue;
+            }
+
+            final int releasesEnd = name.indexOf('/');
+
+            if (releasesEnd < 0 || name.lastIndexOf(releaseCode, releasesEnd) < 0) {
+                continue;
+            }
+
+            //
+            // Newer ct.sym files place a module directory (e.g. 'java.base') between the release set
+            // and the package path.  Module names are dotted; package path segments never are.
+            //
+
+            int typeStart = releasesEnd + 1;
+
+            final int moduleEnd = name.indexOf('/', typeStart);
+
+            if (moduleEnd > 0 && name.lastIndexOf('.', moduleEnd) > typeStart) {
+                typeStart = moduleEnd + 1;
+            }
+
+            final String internalName = name.substring(typeStart, name.length() - SIGNATURE_EXTENSION.length());
+
+            if (!index.containsKey(internalName)) {
+                index.put(internalName, entry);
+            }
+        }
+
+        return Collections.unmodifiableMap(index);
+    }
+}
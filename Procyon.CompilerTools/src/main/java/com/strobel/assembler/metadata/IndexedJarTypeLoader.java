@@ -0,0 +1,315 @@
+/*
+ * IndexedJarTypeLoader.java
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.assembler.ir.ConstantPool;
+import com.strobel.core.VerifyArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A type loader which memory-maps a jar file once and resolves class entries through an index of the
+ * archive's central directory, built up front.  Stored entries are copied straight out of the mapped
+ * region; deflated entries are inflated directly into the caller's {@link Buffer}.
+ * <p>
+ * Instances are safe for use by multiple threads.  Archives which cannot be mapped in one piece
+ * (larger than 2GB, or using Zip64 extensions) are rejected with an {@link IOException}; callers may
+ * fall back to {@link JarTypeLoader} for those.
+ */
+public final class IndexedJarTypeLoader implements ITypeLoader {
+    private final static Logger LOG = Logger.getLogger(IndexedJarTypeLoader.class.getSimpleName());
+
+    private final static int END_HEADER_SIGNATURE = 0x06054B50;
+    private final static int CENTRAL_HEADER_SIGNATURE = 0x02014B50;
+    private final static int LOCAL_HEADER_SIGNATURE = 0x04034B50;
+
+    private final static int END_HEADER_SIZE = 22;
+    private final static int CENTRAL_HEADER_SIZE = 46;
+    private final static int LOCAL_HEADER_SIZE = 30;
+    private final static int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private final static int METHOD_STORED = 0;
+    private final static int METHOD_DEFLATED = 8;
+    private final static int FLAG_UTF8 = 0x0800;
+
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+    private final static Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final static ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    private final static ThreadLocal<byte[]> INPUT_BUFFER = new ThreadLocal<>();
+
+    private final String _name;
+    private final MappedByteBuffer _data;
+    private final Map<String, Integer> _index;
+    private final Map<String, String> _knownMappings;
+
+    public IndexedJarTypeLoader(final File file) throws IOException {
+        VerifyArgument.notNull(file, "file");
+
+        _name = file.getPath();
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r");
+             final FileChannel channel = raf.getChannel()) {
+
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive is too large to be memory-mapped: " + _name);
+            }
+
+            _data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        _data.order(ByteOrder.LITTLE_ENDIAN);
+        _index = buildIndex(_data, _name);
+        _knownMappings = new ConcurrentHashMap<>();
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Indexed " + _index.size() + " class entries in " + _name + ".");
+        }
+    }
+
+    /**
+     * Returns the internal names of all class entries in the archive.
+     */
+    public Set<String> getTypeNames() {
+        return Collections.unmodifiableSet(_index.keySet());
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Attempting to load type: " + internalName + "...");
+        }
+
+        final Integer centralHeaderOffset = _index.get(internalName);
+
+        if (centralHeaderOffset == null) {
+            final String mappedName = _knownMappings.get(internalName);
+
+            return mappedName != null &&
+                   !mappedName.equals(internalName) && tryLoadType(mappedName, buffer);
+        }
+
+        try {
+            readEntry(centralHeaderOffset, buffer);
+        }
+        catch (final IOException | DataFormatException e) {
+            throw new IllegalStateException("Error reading " + internalName + " from " + _name + ".", e);
+        }
+
+        final String actualName = getInternalNameFromClassFile(buffer);
+
+        if (actualName != null && !actualName.equals(internalName)) {
+            _knownMappings.put(actualName, internalName);
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Type loaded from " + _name + "!" + internalName + ".class.");
+        }
+
+        return true;
+    }
+
+    private void readEntry(final int centralHeaderOffset, final Buffer buffer) throws IOException, DataFormatException {
+        //
+        // The mapped buffer's position is shared, so every read goes through a private duplicate.
+        //
+        final ByteBuffer data = _data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        final int method = data.getShort(centralHeaderOffset + 10) & 0xFFFF;
+        final int compressedSize = data.getInt(centralHeaderOffset + 20);
+        final int uncompressedSize = data.getInt(centralHeaderOffset + 24);
+        final int localHeaderOffset = data.getInt(centralHeaderOffset + 42);
+
+        if (data.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header at offset " + localHeaderOffset + ".");
+        }
+
+        final int dataOffset = localHeaderOffset +
+                               LOCAL_HEADER_SIZE +
+                               (data.getShort(localHeaderOffset + 26) & 0xFFFF) +
+                               (data.getShort(localHeaderOffset + 28) & 0xFFFF);
+
+        buffer.reset(uncompressedSize);
+        data.position(dataOffset);
+
+        switch (method) {
+            case METHOD_STORED: {
+                data.get(buffer.array(), 0, uncompressedSize);
+                break;
+            }
+
+            case METHOD_DEFLATED: {
+                byte[] input = INPUT_BUFFER.get();
+
+                if (input == null || input.length < compressedSize) {
+                    INPUT_BUFFER.set(input = new byte[Math.max(compressedSize, 8192)]);
+                }
+
+                data.get(input, 0, compressedSize);
+
+                final Inflater inflater = INFLATER.get();
+
+                try {
+                    inflater.setInput(input, 0, compressedSize);
+
+                    int offset = 0;
+
+                    while (offset < uncompressedSize) {
+                        final int bytesInflated = inflater.inflate(buffer.array(), offset, uncompressedSize - offset);
+
+                        if (bytesInflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+
+                        offset += bytesInflated;
+                    }
+
+                    if (offset != uncompressedSize) {
+                        throw new ZipException("Unexpected end of deflated entry at offset " + localHeaderOffset + ".");
+                    }
+                }
+                finally {
+                    inflater.reset();
+                }
+
+                break;
+            }
+
+            default: {
+                throw new ZipException("Unsupported compression method: " + method + ".");
+            }
+        }
+
+        buffer.position(0);
+    }
+
+    private static Map<String, Integer> buildIndex(final ByteBuffer data, final String name) throws IOException {
+        final int endHeaderOffset = findEndHeader(data);
+
+        if (endHeaderOffset < 0) {
+            throw new ZipException("Could not find the end of central directory record in " + name + ".");
+        }
+
+        final int entryCount = data.getShort(endHeaderOffset + 10) & 0xFFFF;
+        final long directorySize = data.getInt(endHeaderOffset + 12) & 0xFFFFFFFFL;
+        final long directoryOffset = data.getInt(endHeaderOffset + 16) & 0xFFFFFFFFL;
+
+        if (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("Zip64 archives are not supported: " + name + ".");
+        }
+
+        if (directoryOffset + directorySize > endHeaderOffset) {
+            throw new ZipException("Invalid central directory in " + name + ".");
+        }
+
+        final Map<String, Integer> index = new HashMap<>(entryCount * 2);
+        final byte[] nameBuffer = new byte[0xFFFF];
+
+        int offset = (int) directoryOffset;
+
+        for (int i = 0; i < entryCount; i++) {
+            if (data.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header at offset " + offset + " in " + name + ".");
+            }
+
+            final int flags = data.getShort(offset + 8) & 0xFFFF;
+            final int nameLength = data.getShort(offset + 28) & 0xFFFF;
+            final int extraLength = data.getShort(offset + 30) & 0xFFFF;
+            final int commentLength = data.getShort(offset + 32) & 0xFFFF;
+
+            if (nameLength > 6 &&
+                data.get(offset + CENTRAL_HEADER_SIZE + nameLength - 6) == '.' &&
+                data.get(offset + CENTRAL_HEADER_SIZE + nameLength - 1) == 's') {
+
+                data.position(offset + CENTRAL_HEADER_SIZE);
+                data.get(nameBuffer, 0, nameLength);
+
+                final String entryName = new String(
+                    nameBuffer,
+                    0,
+                    nameLength,
+                    (flags & FLAG_UTF8) != 0 ? UTF_8 : ISO_8859_1
+                );
+
+                if (entryName.endsWith(".class")) {
+                    index.put(entryName.substring(0, entryName.length() - 6), offset);
+                }
+            }
+
+            offset += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return index;
+    }
+
+    private static int findEndHeader(final ByteBuffer data) {
+        final int limit = data.limit();
+        final int minimumOffset = Math.max(0, limit - END_HEADER_SIZE - MAX_COMMENT_SIZE);
+
+        for (int offset = limit - END_HEADER_SIZE; offset >= minimumOffset; offset--) {
+            if (data.getInt(offset) == END_HEADER_SIGNATURE) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String getInternalNameFromClassFile(final Buffer b) {
+        final long magic = b.readInt() & 0xFFFFFFFFL;
+
+        if (magic != 0xCAFEBABEL) {
+            return null;
+        }
+
+        b.readUnsignedShort(); // minor version
+        b.readUnsignedShort(); // major version
+
+        final ConstantPool constantPool = ConstantPool.read(b);
+
+        b.readUnsignedShort(); // access flags
+
+        final ConstantPool.TypeInfoEntry thisClass = constantPool.getEntry(b.readUnsignedShort());
+
+        b.position(0);
+
+        return thisClass.getName();
+    }
+}
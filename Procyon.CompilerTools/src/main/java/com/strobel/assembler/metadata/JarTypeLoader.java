@@ -22,8 +22,8 @@ import com.strobel.core.VerifyArgument;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -37,7 +37,7 @@ public class JarTypeLoader implements ITypeLoader {
 
     public JarTypeLoader(final JarFile jarFile) {
         _jarFile = VerifyArgument.notNull(jarFile, "jarFile");
-        _knownMappings = new HashMap<>();
+        _knownMappings = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -0,0 +1,212 @@
+/*
+ * JrtTypeLoader.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A type loader which reads platform classes from the {@code jrt:/} module image of a Java 9+ runtime.
+ * The image's package table is read once, up front, so locating a type's module costs a single
+ * hash lookup.
+ * <p>
+ * The image may belong to the running JDK or to any other JDK installation, which allows decompiling
+ * against the exact platform a class file was compiled for.  Instances are safe for use by multiple
+ * threads.
+ */
+public final class JrtTypeLoader implements ITypeLoader {
+    private final static Logger LOG = Logger.getLogger(JrtTypeLoader.class.getSimpleName());
+
+    private final static URI JRT_URI = URI.create("jrt:/");
+
+    private final String _name;
+    private final Map<String, Path> _packageRoots;
+
+    /**
+     * Creates a type loader over the module image of the running JDK.
+     */
+    public JrtTypeLoader() throws IOException {
+        this(openRuntimeImage(), "jrt:/");
+    }
+
+    /**
+     * Creates a type loader over the module image of the JDK installed at {@code javaHome}.
+     */
+    public JrtTypeLoader(final File javaHome) throws IOException {
+        this(openImage(VerifyArgument.notNull(javaHome, "javaHome")), javaHome.getPath());
+    }
+
+    private JrtTypeLoader(final FileSystem image, final String name) throws IOException {
+        _name = name;
+        _packageRoots = buildIndex(image);
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Indexed " + _packageRoots.size() + " packages in " + _name + ".");
+        }
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Attempting to load type: " + internalName + "...");
+        }
+
+        final int packageEnd = internalName.lastIndexOf('/');
+
+        if (packageEnd < 0) {
+            return false;
+        }
+
+        final Path moduleRoot = _packageRoots.get(internalName.substring(0, packageEnd));
+
+        if (moduleRoot == null) {
+            return false;
+        }
+
+        try (final SeekableByteChannel channel = Files.newByteChannel(moduleRoot.resolve(internalName + ".class"))) {
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Class file is too large: " + internalName + ".");
+            }
+
+            buffer.reset((int) size);
+
+            final ByteBuffer target = ByteBuffer.wrap(buffer.array(), 0, (int) size);
+
+            while (target.hasRemaining()) {
+                if (channel.read(target) < 0) {
+                    throw new IOException("Unexpected end of class file: " + internalName + ".");
+                }
+            }
+
+            buffer.position(0);
+        }
+        catch (final NoSuchFileException ignored) {
+            return false;
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException("Error reading " + internalName + " from " + _name + ".", e);
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Type loaded from " + _name + "!" + internalName + ".class.");
+        }
+
+        return true;
+    }
+
+    private static Map<String, Path> buildIndex(final FileSystem image) throws IOException {
+        //
+        // The image lists every package under /packages/<dotted.name>/, with one link per module
+        // that has a directory for it.  A module may appear only because it contains subpackages
+        // (e.g., 'java.instrument' under 'java.lang'), so prefer the module which holds classes.
+        //
+        final Map<String, Path> packageRoots = new HashMap<>();
+        final Path modules = image.getPath("/modules");
+        final List<Path> candidates = new ArrayList<>();
+
+        try (final DirectoryStream<Path> packages = Files.newDirectoryStream(image.getPath("/packages"))) {
+            for (final Path packageDirectory : packages) {
+                final String packageName = packageDirectory.getFileName().toString().replace('.', '/');
+
+                candidates.clear();
+
+                try (final DirectoryStream<Path> moduleLinks = Files.newDirectoryStream(packageDirectory)) {
+                    for (final Path moduleLink : moduleLinks) {
+                        candidates.add(modules.resolve(moduleLink.getFileName().toString()));
+                    }
+                }
+
+                if (candidates.size() == 1) {
+                    packageRoots.put(packageName, candidates.get(0));
+                    continue;
+                }
+
+                for (final Path moduleRoot : candidates) {
+                    if (containsClasses(moduleRoot.resolve(packageName))) {
+                        packageRoots.put(packageName, moduleRoot);
+                        break;
+                    }
+                }
+            }
+        }
+
+        return Collections.unmodifiableMap(packageRoots);
+    }
+
+    private static boolean containsClasses(final Path packageDirectory) throws IOException {
+        if (!Files.isDirectory(packageDirectory)) {
+            return false;
+        }
+
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(packageDirectory, "*.class")) {
+            return entries.iterator().hasNext();
+        }
+    }
+
+    private static FileSystem openRuntimeImage() throws IOException {
+        try {
+            return FileSystems.getFileSystem(JRT_URI);
+        }
+        catch (final ProviderNotFoundException | FileSystemNotFoundException e) {
+            throw new IOException("The running JDK does not provide a jrt:/ module image.", e);
+        }
+    }
+
+    private static FileSystem openImage(final File javaHome) throws IOException {
+        final File jrtProvider = new File(new File(javaHome, "lib"), "jrt-fs.jar");
+
+        if (!jrtProvider.isFile()) {
+            throw new IOException("Not a Java 9+ installation (missing lib/jrt-fs.jar): " + javaHome.getPath());
+        }
+
+        //
+        // A newer runtime can open an older image through its own provider, but a Java 8 runtime has
+        // no jrt:/ provider at all; the target JDK's jrt-fs.jar supplies one in that case.
+        //
+        final ClassLoader providerLoader = new URLClassLoader(new URL[] { jrtProvider.toURI().toURL() });
+
+        try {
+            return FileSystems.newFileSystem(
+                JRT_URI,
+                Collections.singletonMap("java.home", javaHome.getAbsolutePath()),
+                providerLoader
+            );
+        }
+        catch (final ProviderNotFoundException e) {
+            throw new IOException("Could not open the module image of " + javaHome.getPath() + ".", e);
+        }
+    }
+}
@@ -724,7 +724,23 @@ public final class MetadataHelper {
         VerifyArgument.notNull(subType, "t");
         VerifyArgument.notNull(type, "s");
 
-        return AS_SUPER_VISITOR.visit(subType, type);
+        final TypeRelationCache cache = TypeRelationCache.forTypes(subType, type);
+
+        if (cache == null) {
+            return AS_SUPER_VISITOR.visit(subType, type);
+        }
+
+        final TypeReference cachedResult = cache.getSuperType(subType, type);
+
+        if (cachedResult != null) {
+            return TypeRelationCache.isNoSuperType(cachedResult) ? null : cachedResult;
+        }
+
+        final TypeReference result = AS_SUPER_VISITOR.visit(subType, type);
+
+        cache.putSuperType(subType, type, result);
+
+        return result;
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -1299,7 +1315,23 @@ public final class MetadataHelper {
             return isSubType(capture ? capture(type) : type, lower, false);
         }
 
-        return IS_SUBTYPE_VISITOR.visit(capture ? capture(type) : type, baseType);
+        final TypeRelationCache cache = TypeRelationCache.forTypes(type, baseType);
+
+        if (cache == null) {
+            return IS_SUBTYPE_VISITOR.visit(capture ? capture(type) : type, baseType);
+        }
+
+        final Boolean cachedResult = cache.getSubType(type, baseType);
+
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        final boolean result = IS_SUBTYPE_VISITOR.visit(type, baseType);
+
+        cache.putSubType(type, baseType, result);
+
+        return result;
     }
 
     private static TypeReference capture(final TypeReference type) {
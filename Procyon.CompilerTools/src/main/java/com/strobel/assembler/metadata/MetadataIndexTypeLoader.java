@@ -0,0 +1,197 @@
+/*
+ * MetadataIndexTypeLoader.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A type loader which reads type headers from a metadata index written by {@link MetadataIndexWriter}.
+ * The index directory is read once, up front; the type data is memory-mapped and copied out on demand,
+ * so resolving a dependency never touches the archives the index was built from.  Indexes too large
+ * for a single mapping are mapped in several segments.
+ * <p>
+ * Indexed types carry everything needed to resolve them (flags, supertypes, members, signatures,
+ * inner class tables, and annotations) but no method bodies.  Instances are safe for use by multiple
+ * threads.
+ */
+public final class MetadataIndexTypeLoader implements ITypeLoader {
+    private final static Logger LOG = Logger.getLogger(MetadataIndexTypeLoader.class.getSimpleName());
+
+    final static int MAGIC = 0x50524958;  // 'PRIX'
+    final static int VERSION = 2;
+
+    private final String _name;
+    private final MappedByteBuffer[] _segments;
+    private final Map<String, Location> _index;
+
+    public MetadataIndexTypeLoader(final File file) throws IOException {
+        this(file, Integer.MAX_VALUE);
+    }
+
+    MetadataIndexTypeLoader(final File file, final int maximumSegmentSize) throws IOException {
+        VerifyArgument.notNull(file, "file");
+        VerifyArgument.isPositive(maximumSegmentSize, "maximumSegmentSize");
+
+        _name = file.getPath();
+
+        final long dataOffset;
+        final String[] names;
+        final long[] offsets;
+        final int[] lengths;
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a metadata index: " + _name);
+            }
+
+            final int version = in.readUnsignedShort();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported metadata index version " + version + ": " + _name);
+            }
+
+            final int typeCount = in.readInt();
+
+            if (typeCount < 0) {
+                throw new IOException("Corrupt metadata index: " + _name);
+            }
+
+            names = new String[typeCount];
+            offsets = new long[typeCount];
+            lengths = new int[typeCount];
+
+            for (int i = 0; i < typeCount; i++) {
+                names[i] = in.readUTF();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+
+            dataOffset = in.readLong();
+        }
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r");
+             final FileChannel channel = raf.getChannel()) {
+
+            final long dataSize = channel.size() - dataOffset;
+
+            if (dataOffset < 0 || dataSize < 0) {
+                throw new IOException("Corrupt metadata index: " + _name);
+            }
+
+            //
+            // Type data is laid out in directory order.  Start a new segment whenever the next type would
+            // push the current one past the mapping limit, so no type straddles two segments.
+            //
+            final List<MappedByteBuffer> segments = new ArrayList<>();
+            final Map<String, Location> index = new HashMap<>(names.length * 4 / 3 + 1);
+
+            long segmentStart = 0;
+            long expectedOffset = 0;
+
+            for (int i = 0; i < names.length; i++) {
+                final long offset = offsets[i];
+                final int length = lengths[i];
+
+                if (offset != expectedOffset || length < 0 || length > maximumSegmentSize || offset + length > dataSize) {
+                    throw new IOException("Corrupt metadata index: " + _name);
+                }
+
+                if (offset + length - segmentStart > maximumSegmentSize) {
+                    segments.add(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + segmentStart, offset - segmentStart));
+                    segmentStart = offset;
+                }
+
+                index.put(names[i], new Location(segments.size(), (int) (offset - segmentStart), length));
+                expectedOffset = offset + length;
+            }
+
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + segmentStart, expectedOffset - segmentStart));
+
+            _segments = segments.toArray(new MappedByteBuffer[segments.size()]);
+            _index = index;
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Opened metadata index " + _name + " with " + _index.size() + " types in " + _segments.length + " segment(s).");
+        }
+    }
+
+    /**
+     * Returns the internal names of all types in the index.
+     */
+    public Set<String> getTypeNames() {
+        return Collections.unmodifiableSet(_index.keySet());
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Attempting to load type: " + internalName + "...");
+        }
+
+        final Location location = _index.get(internalName);
+
+        if (location == null) {
+            return false;
+        }
+
+        //
+        // The mapped buffer's position is shared, so every read goes through a private duplicate.
+        //
+        final ByteBuffer data = _segments[location.segment].duplicate();
+
+        buffer.reset(location.length);
+        data.position(location.offset);
+        data.get(buffer.array(), 0, location.length);
+        buffer.position(0);
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Type loaded from " + _name + "!" + internalName + ".");
+        }
+
+        return true;
+    }
+
+    int getSegmentCount() {
+        return _segments.length;
+    }
+
+    private final static class Location {
+        final int segment;
+        final int offset;
+        final int length;
+
+        Location(final int segment, final int offset, final int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * MetadataIndexWriter.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a metadata index which can be read back with {@link MetadataIndexTypeLoader}.
+ * <p>
+ * Each type is stored as its class file with all method bodies ({@code Code} attributes) and
+ * {@code SourceDebugExtension} attributes removed, leaving the header information a {@link MetadataSystem}
+ * needs to resolve the type: flags, supertypes, fields, methods, signatures, inner class tables, and
+ * annotations.  Because the stored data is still a well-formed class file, the regular class file
+ * reader consumes it directly.
+ * <p>
+ * Most of the cost of reading a type header lies in turning descriptors and signatures into type
+ * references and building the definition, which any stored format would still have to do; decoding
+ * the class file bytes is a small part of it.  What the index saves is locating and inflating archive
+ * entries, and the reader's work on every {@code Code} attribute, which is copied out and has its
+ * exception table and debug tables read even when method bodies are never requested.
+ * <p>
+ * The index layout is:
+ * <pre>
+ *     u4      magic ('PRIX')
+ *     u2      version
+ *     u4      type count
+ *     entry[] directory (modified UTF-8 internal name, u8 data offset, u4 data length)
+ *     u8      file offset of the data region
+ *     u1[]    data region
+ * </pre>
+ */
+public final class MetadataIndexWriter {
+    private final static int CONSTANT_UTF8 = 1;
+    private final static int CONSTANT_LONG = 5;
+    private final static int CONSTANT_DOUBLE = 6;
+
+    private final Map<String, byte[]> _types = new LinkedHashMap<>();
+
+    /**
+     * Adds a type to the index.  If a type with the same name was already added, the first one wins,
+     * mirroring class path lookup order.
+     *
+     * @return {@code true} if the type was added.
+     */
+    public boolean add(final String internalName, final byte[] classFile) {
+        VerifyArgument.notNullOrWhitespace(internalName, "internalName");
+        VerifyArgument.notNull(classFile, "classFile");
+
+        if (_types.containsKey(internalName)) {
+            return false;
+        }
+
+        _types.put(internalName, stripClassFile(classFile));
+        return true;
+    }
+
+    public int getTypeCount() {
+        return _types.size();
+    }
+
+    public void writeTo(final File file) throws IOException {
+        VerifyArgument.notNull(file, "file");
+
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    public void writeTo(final OutputStream out) throws IOException {
+        VerifyArgument.notNull(out, "out");
+
+        final ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+        final DataOutputStream directory = new DataOutputStream(directoryBytes);
+
+        long dataOffset = 0;
+
+        for (final Map.Entry<String, byte[]> entry : _types.entrySet()) {
+            final int length = entry.getValue().length;
+
+            directory.writeUTF(entry.getKey());
+            directory.writeLong(dataOffset);
+            directory.writeInt(length);
+
+            dataOffset += length;
+        }
+
+        directory.flush();
+
+        final DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(MetadataIndexTypeLoader.MAGIC);
+        data.writeShort(MetadataIndexTypeLoader.VERSION);
+        data.writeInt(_types.size());
+        directoryBytes.writeTo(data);
+        data.writeLong(data.size() + 8L);
+
+        for (final byte[] classFile : _types.values()) {
+            data.write(classFile);
+        }
+
+        data.flush();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Class File Stripping">
+
+    /**
+     * Returns a copy of {@code classFile} without method bodies or source debug extensions.
+     */
+    static byte[] stripClassFile(final byte[] classFile) {
+        final ByteBuffer in = ByteBuffer.wrap(classFile);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(classFile.length);
+
+        //
+        // Magic, version, and the constant pool are copied verbatim; the pool is only scanned to
+        // find the names of the attributes we drop.
+        //
+        in.position(8);
+
+        final int constantCount = in.getShort() & 0xFFFF;
+
+        int codeIndex = -1;
+        int sourceDebugIndex = -1;
+
+        for (int i = 1; i < constantCount; i++) {
+            final int tag = in.get() & 0xFF;
+
+            switch (tag) {
+                case CONSTANT_UTF8: {
+                    final int length = in.getShort() & 0xFFFF;
+                    final String value = new String(classFile, in.position(), length, StandardCharsets.UTF_8);
+
+                    if ("Code".equals(value)) {
+                        codeIndex = i;
+                    }
+                    else if ("SourceDebugExtension".equals(value)) {
+                        sourceDebugIndex = i;
+                    }
+
+                    in.position(in.position() + length);
+                    break;
+                }
+
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.position(in.position() + 8);
+                    ++i;
+                    break;
+
+                case 3:   // Integer
+                case 4:   // Float
+                case 9:   // Fieldref
+                case 10:  // Methodref
+                case 11:  // InterfaceMethodref
+                case 12:  // NameAndType
+                case 17:  // Dynamic
+                case 18:  // InvokeDynamic
+                    in.position(in.position() + 4);
+                    break;
+
+                case 15:  // MethodHandle
+                    in.position(in.position() + 3);
+                    break;
+
+                case 7:   // Class
+                case 8:   // String
+                case 16:  // MethodType
+                case 19:  // Module
+                case 20:  // Package
+                    in.position(in.position() + 2);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Invalid constant pool tag " + tag + " at index " + i + ".");
+            }
+        }
+
+        if (codeIndex < 0 && sourceDebugIndex < 0) {
+            return classFile;
+        }
+
+        //
+        // Access flags, this and super class.
+        //
+        in.position(in.position() + 6);
+
+        final int interfaceCount = in.getShort() & 0xFFFF;
+
+        in.position(in.position() + interfaceCount * 2);
+        out.write(classFile, 0, in.position());
+
+        copyMembers(classFile, in, out, -1, -1);
+        copyMembers(classFile, in, out, codeIndex, -1);
+        copyAttributes(classFile, in, out, -1, sourceDebugIndex);
+
+        return out.toByteArray();
+    }
+
+    private static void copyMembers(
+        final byte[] classFile,
+        final ByteBuffer in,
+        final ByteArrayOutputStream out,
+        final int excludedName1,
+        final int excludedName2) {
+
+        final int memberCount = in.getShort() & 0xFFFF;
+
+        writeShort(out, memberCount);
+
+        for (int i = 0; i < memberCount; i++) {
+            //
+            // Access flags, name, and descriptor.
+            //
+            out.write(classFile, in.position(), 6);
+            in.position(in.position() + 6);
+            copyAttributes(classFile, in, out, excludedName1, excludedName2);
+        }
+    }
+
+    private static void copyAttributes(
+        final byte[] classFile,
+        final ByteBuffer in,
+        final ByteArrayOutputStream out,
+        final int excludedName1,
+        final int excludedName2) {
+
+        final int attributeCount = in.getShort() & 0xFFFF;
+        final List<int[]> retained = new ArrayList<>(attributeCount);
+
+        for (int i = 0; i < attributeCount; i++) {
+            final int start = in.position();
+            final int name = in.getShort() & 0xFFFF;
+            final int length = in.getInt();
+
+            in.position(in.position() + length);
+
+            if (name != excludedName1 && name != excludedName2) {
+                retained.add(new int[] { start, in.position() - start });
+            }
+        }
+
+        writeShort(out, retained.size());
+
+        for (final int[] range : retained) {
+            out.write(classFile, range[0], range[1]);
+        }
+    }
+
+    private static void writeShort(final ByteArrayOutputStream out, final int value) {
+        out.write((value >>> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    // </editor-fold>
+}
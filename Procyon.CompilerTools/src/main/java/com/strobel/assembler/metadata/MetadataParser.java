@@ -27,7 +27,9 @@ import com.strobel.util.EmptyArrayCache;
 import java.util.Collections;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Mike Strobel
@@ -122,13 +124,36 @@ public final class MetadataParser {
             return parseTypeSignature(descriptor);
         }
 
-        return parseTypeSignature("L" + descriptor + ";");
+        TypeSignature typeSignature = TYPE_DESCRIPTOR_CACHE.get(descriptor);
+
+        if (typeSignature != null) {
+            SIGNATURE_CACHE_HITS.incrementAndGet();
+        }
+        else {
+            SIGNATURE_CACHE_MISSES.incrementAndGet();
+            typeSignature = cache(TYPE_DESCRIPTOR_CACHE, descriptor, _signatureParser.parseTypeSignature("L" + descriptor + ";"));
+        }
+
+        return reifyTypeSignature(typeSignature);
     }
 
     public TypeReference parseTypeSignature(final String signature) {
         VerifyArgument.notNull(signature, "signature");
 
-        final TypeSignature typeSignature = _signatureParser.parseTypeSignature(signature);
+        TypeSignature typeSignature = TYPE_SIGNATURE_CACHE.get(signature);
+
+        if (typeSignature != null) {
+            SIGNATURE_CACHE_HITS.incrementAndGet();
+        }
+        else {
+            SIGNATURE_CACHE_MISSES.incrementAndGet();
+            typeSignature = cache(TYPE_SIGNATURE_CACHE, signature, _signatureParser.parseTypeSignature(signature));
+        }
+
+        return reifyTypeSignature(typeSignature);
+    }
+
+    private TypeReference reifyTypeSignature(final TypeSignature typeSignature) {
         final Reifier reifier = Reifier.make(_factory);
 
         typeSignature.accept(reifier);
@@ -231,7 +256,16 @@ public final class MetadataParser {
     public IMethodSignature parseMethodSignature(final String signature) {
         VerifyArgument.notNull(signature, "signature");
 
-        final MethodTypeSignature methodTypeSignature = _signatureParser.parseMethodSignature(signature);
+        MethodTypeSignature methodTypeSignature = METHOD_SIGNATURE_CACHE.get(signature);
+
+        if (methodTypeSignature != null) {
+            SIGNATURE_CACHE_HITS.incrementAndGet();
+        }
+        else {
+            SIGNATURE_CACHE_MISSES.incrementAndGet();
+            methodTypeSignature = cache(METHOD_SIGNATURE_CACHE, signature, _signatureParser.parseMethodSignature(signature));
+        }
+
         final Reifier reifier = Reifier.make(_factory);
 
         final TypeReference returnType;
@@ -339,7 +373,16 @@ public final class MetadataParser {
     public IClassSignature parseClassSignature(final String signature) {
         VerifyArgument.notNull(signature, "signature");
 
-        final ClassSignature classSignature = _signatureParser.parseClassSignature(signature);
+        ClassSignature classSignature = CLASS_SIGNATURE_CACHE.get(signature);
+
+        if (classSignature != null) {
+            SIGNATURE_CACHE_HITS.incrementAndGet();
+        }
+        else {
+            SIGNATURE_CACHE_MISSES.incrementAndGet();
+            classSignature = cache(CLASS_SIGNATURE_CACHE, signature, _signatureParser.parseClassSignature(signature));
+        }
+
         final Reifier reifier = Reifier.make(_factory);
 
         final TypeReference baseType;
@@ -445,6 +488,77 @@ public final class MetadataParser {
         return reference;
     }
 
+    // <editor-fold defaultstate="collapsed" desc="Signature Cache">
+
+    //
+    // Parsed signature trees carry no generic context or owner information; type variables and
+    // nested type names are only bound when a tree is reified.  The trees can therefore be shared
+    // by every parser, while reification still happens against each caller's own context.
+    //
+
+    public final static int DEFAULT_MAXIMUM_CACHED_SIGNATURES = 16384;
+
+    private final static ConcurrentHashMap<String, TypeSignature> TYPE_DESCRIPTOR_CACHE = new ConcurrentHashMap<>();
+    private final static ConcurrentHashMap<String, TypeSignature> TYPE_SIGNATURE_CACHE = new ConcurrentHashMap<>();
+    private final static ConcurrentHashMap<String, MethodTypeSignature> METHOD_SIGNATURE_CACHE = new ConcurrentHashMap<>();
+    private final static ConcurrentHashMap<String, ClassSignature> CLASS_SIGNATURE_CACHE = new ConcurrentHashMap<>();
+
+    private final static AtomicLong SIGNATURE_CACHE_HITS = new AtomicLong();
+    private final static AtomicLong SIGNATURE_CACHE_MISSES = new AtomicLong();
+
+    private static volatile int _maximumCachedSignatures = DEFAULT_MAXIMUM_CACHED_SIGNATURES;
+
+    public static long getSignatureCacheHitCount() {
+        return SIGNATURE_CACHE_HITS.get();
+    }
+
+    public static long getSignatureCacheMissCount() {
+        return SIGNATURE_CACHE_MISSES.get();
+    }
+
+    public static int getMaximumCachedSignatures() {
+        return _maximumCachedSignatures;
+    }
+
+    /**
+     * Sets the maximum number of parsed signatures retained per signature kind.  A value of {@code 0}
+     * disables caching.
+     */
+    public static void setMaximumCachedSignatures(final int value) {
+        _maximumCachedSignatures = VerifyArgument.isNonNegative(value, "value");
+        clearSignatureCache();
+    }
+
+    public static void clearSignatureCache() {
+        TYPE_DESCRIPTOR_CACHE.clear();
+        TYPE_SIGNATURE_CACHE.clear();
+        METHOD_SIGNATURE_CACHE.clear();
+        CLASS_SIGNATURE_CACHE.clear();
+    }
+
+    private static <T> T cache(final ConcurrentHashMap<String, T> cache, final String key, final T value) {
+        final int maximumCachedSignatures = _maximumCachedSignatures;
+
+        if (maximumCachedSignatures == 0) {
+            return value;
+        }
+
+        //
+        // Signatures are cheap to re-parse, so rather than tracking recency we simply start over
+        // once a cache fills up.  This keeps lookups lock-free.
+        //
+
+        if (cache.size() >= maximumCachedSignatures) {
+            cache.clear();
+        }
+
+        final T existing = cache.putIfAbsent(key, value);
+
+        return existing != null ? existing : value;
+    }
+
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Primitive Lookup">
 
     @SuppressWarnings("MismatchedReadAndWriteOfArray")
@@ -27,16 +27,28 @@ import java.util.Stack;
  * @author Mike Strobel
  */
 public abstract class MetadataResolver implements IMetadataResolver, IGenericContext {
-    private final Stack<IResolverFrame> _frames;
+    //
+    // Frames are pushed while a class file is being read, and describe the type being read.  They are
+    // kept per thread, so a resolver shared by several threads never hands one thread the half-read
+    // type of another.
+    //
+    private final ThreadLocal<Stack<IResolverFrame>> _frames;
 
     protected MetadataResolver() {
-        _frames = new Stack<>();
+        _frames = new ThreadLocal<Stack<IResolverFrame>>() {
+            @Override
+            protected Stack<IResolverFrame> initialValue() {
+                return new Stack<>();
+            }
+        };
     }
 
     @Override
     public final TypeReference lookupType(final String descriptor) {
-        for (int i = _frames.size() - 1; i >= 0; i--) {
-            final TypeReference type = _frames.get(i).findType(descriptor);
+        final Stack<IResolverFrame> frames = _frames.get();
+
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            final TypeReference type = frames.get(i).findType(descriptor);
 
             if (type != null) {
                 return type;
@@ -48,8 +60,10 @@ public abstract class MetadataResolver implements IMetadataResolver, IGenericCon
 
     @Override
     public final GenericParameter findTypeVariable(final String name) {
-        for (int i = _frames.size() - 1; i >= 0; i--) {
-            final GenericParameter type = _frames.get(i).findTypeVariable(name);
+        final Stack<IResolverFrame> frames = _frames.get();
+
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            final GenericParameter type = frames.get(i).findTypeVariable(name);
 
             if (type != null) {
                 return type;
@@ -63,23 +77,24 @@ public abstract class MetadataResolver implements IMetadataResolver, IGenericCon
 
     @Override
     public void pushFrame(final IResolverFrame frame) {
-        _frames.push(VerifyArgument.notNull(frame, "frame"));
+        _frames.get().push(VerifyArgument.notNull(frame, "frame"));
     }
 
     @Override
     public void popFrame() {
-        _frames.pop();
+        _frames.get().pop();
     }
 
     @Override
     public TypeDefinition resolve(final TypeReference type) {
         final TypeReference t = VerifyArgument.notNull(type, "type").getUnderlyingType();
+        final Stack<IResolverFrame> frames = _frames.get();
 
-        if (!_frames.isEmpty()) {
+        if (!frames.isEmpty()) {
             final String descriptor = type.getInternalName();
 
-            for (int i = _frames.size() - 1; i >= 0; i--) {
-                final TypeReference resolved = _frames.get(i).findType(descriptor);
+            for (int i = frames.size() - 1; i >= 0; i--) {
+                final TypeReference resolved = frames.get(i).findType(descriptor);
 
                 if (resolved instanceof TypeDefinition) {
                     return (TypeDefinition) resolved;
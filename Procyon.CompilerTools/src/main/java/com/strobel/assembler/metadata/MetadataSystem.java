@@ -20,6 +20,8 @@ import com.strobel.compilerservices.RuntimeHelpers;
 import com.strobel.core.Fences;
 import com.strobel.core.VerifyArgument;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -28,8 +30,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MetadataSystem extends MetadataResolver {
     private static MetadataSystem _instance;
 
+    private final static String[] PINNED_PACKAGE_PREFIXES = { "java/lang/", "java/util/", "java/io/" };
+
     private final ConcurrentHashMap<String, TypeDefinition> _types;
+    private final EvictableTypeCache _evictableTypes;
     private final ITypeLoader _typeLoader;
+    private final MetadataSystem _platform;
+    private final TypeRelationCache _typeRelationCache;
 
     private boolean _isEagerMethodLoadingEnabled;
 
@@ -58,8 +65,21 @@ public class MetadataSystem extends MetadataResolver {
 //    }
 
     public MetadataSystem(final ITypeLoader typeLoader) {
+        this(typeLoader, null);
+    }
+
+    /**
+     * Creates a metadata system which falls back to {@code platform} for types {@code typeLoader} cannot
+     * find.  Types found in the platform layer are shared rather than read again, so many short-lived
+     * metadata systems can sit on top of one {@link PlatformMetadataSystem}; for that to pay off,
+     * {@code typeLoader} should not load platform types itself.
+     */
+    public MetadataSystem(final ITypeLoader typeLoader, final MetadataSystem platform) {
         _typeLoader = VerifyArgument.notNull(typeLoader, "typeLoader");
+        _platform = platform;
         _types = new ConcurrentHashMap<>();
+        _typeRelationCache = new TypeRelationCache(this);
+        _evictableTypes = new EvictableTypeCache();
     }
 
     public final boolean isEagerMethodLoadingEnabled() {
@@ -70,6 +90,38 @@ public class MetadataSystem extends MetadataResolver {
         _isEagerMethodLoadingEnabled = value;
     }
 
+    public final int getMaximumCachedTypes() {
+        return _evictableTypes.getMaximumSize();
+    }
+
+    /**
+     * Bounds the number of resolved types this metadata system keeps cached.  When the limit is
+     * exceeded, the least recently used type is evicted and will be read again from the type loader
+     * if it is requested later.  Types from core JDK packages and types registered via
+     * {@link #addTypeDefinition(TypeDefinition)} are pinned and do not count toward the limit.
+     * <p>
+     * The limit only bounds what this cache retains.  Other definitions keep referring to an evicted
+     * type (as a base type, or in member signatures) for as long as they are reachable themselves,
+     * so the heap is not bounded by this setting alone.  A type which is requested again after it
+     * has been evicted is a fresh definition read from the type loader; it does not carry changes
+     * made to the evicted definition (e.g., renamed members), and it is not the same instance other
+     * definitions still refer to.  Only enable a limit if no such changes are made, and if type
+     * identity need only hold among recently used types.
+     *
+     * @param value the maximum number of evictable types to retain, or {@code 0} for no limit (the default)
+     */
+    public final void setMaximumCachedTypes(final int value) {
+        _evictableTypes.setMaximumSize(VerifyArgument.isNonNegative(value, "value"));
+    }
+
+    public final MetadataSystem getPlatform() {
+        return _platform;
+    }
+
+    final TypeRelationCache getTypeRelationCache() {
+        return _typeRelationCache;
+    }
+
     public void addTypeDefinition(final TypeDefinition type) {
         VerifyArgument.notNull(type, "type");
         _types.putIfAbsent(type.getInternalName(), type);
@@ -114,16 +166,18 @@ public class MetadataSystem extends MetadataResolver {
             }
         }
 
-        TypeDefinition cachedDefinition = _types.get(descriptor);
+        final TypeDefinition cachedDefinition = findCachedType(descriptor);
 
         if (cachedDefinition != null) {
             return cachedDefinition;
         }
 
+        checkLoadingAllowed();
+
         final Buffer buffer = new Buffer(0);
 
         if (!_typeLoader.tryLoadType(descriptor, buffer)) {
-            return null;
+            return resolvePlatformType(descriptor);
         }
 
         final TypeDefinition typeDefinition = ClassFileReader.readClass(
@@ -133,16 +187,158 @@ public class MetadataSystem extends MetadataResolver {
             buffer
         );
 
-        cachedDefinition = _types.putIfAbsent(descriptor, typeDefinition);
         typeDefinition.setTypeLoader(_typeLoader);
 
-        if (cachedDefinition != null) {
-            return cachedDefinition;
+        if (!_isEagerMethodLoadingEnabled) {
+            //
+            // Method bodies will be read on demand; keep the class file around (softly) so we don't
+            // have to go back to the type loader for every method.
+            //
+            typeDefinition.retainClassFile(buffer);
+        }
+
+        //
+        // The class file can now be loaded again, so the constant pool need not keep its own copy.
+        //
+        typeDefinition.releaseConstantPoolData();
+
+        return cacheType(descriptor, typeDefinition);
+    }
+
+    private TypeDefinition resolvePlatformType(final String internalName) {
+        if (_platform == null) {
+            return null;
+        }
+
+        final TypeDefinition platformType = _platform.resolveType(internalName, false);
+
+        if (platformType == null) {
+            return null;
+        }
+
+        //
+        // Remember where we found it so we don't consult our own type loader again.  The definition
+        // belongs to the platform layer, so it never counts toward our own cache limit.
+        //
+        final TypeDefinition existingType = _types.putIfAbsent(internalName, platformType);
+
+        return existingType != null ? existingType : platformType;
+    }
+
+    protected boolean isPinnedType(final String internalName) {
+        for (final String prefix : PINNED_PACKAGE_PREFIXES) {
+            if (internalName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Loading Guard">
+
+    private final static ThreadLocal<LoadingGuard> LOADING_GUARD = new ThreadLocal<>();
+
+    private final static class LoadingGuard {
+        boolean loadAttempted;
+    }
+
+    /**
+     * Makes the current thread fail with an {@link IllegalStateException} whenever it would read a type
+     * or a method body which has not been loaded yet, until {@link #allowLoading()} is called.  Work run
+     * under this guard can only observe metadata which was loaded beforehand, so it cannot depend on
+     * which thread happened to load something first.
+     */
+    public static void disallowLoading() {
+        LOADING_GUARD.set(new LoadingGuard());
+    }
+
+    /**
+     * Lifts the guard set up by {@link #disallowLoading()} for the current thread.
+     *
+     * @return {@code true} if the current thread tried to load anything while the guard was in place,
+     *         even if the resulting exception was caught along the way
+     */
+    public static boolean allowLoading() {
+        final LoadingGuard guard = LOADING_GUARD.get();
+
+        LOADING_GUARD.remove();
+
+        return guard != null && guard.loadAttempted;
+    }
+
+    static void checkLoadingAllowed() {
+        final LoadingGuard guard = LOADING_GUARD.get();
+
+        if (guard != null) {
+            guard.loadAttempted = true;
+            throw new IllegalStateException("Metadata may not be loaded on this thread.");
         }
+    }
 
-        return typeDefinition;
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Type Cache">
+
+    private TypeDefinition findCachedType(final String internalName) {
+        final TypeDefinition pinnedType = _types.get(internalName);
+
+        if (pinnedType != null) {
+            return pinnedType;
+        }
+
+        synchronized (_evictableTypes) {
+            return _evictableTypes.isEmpty() ? null : _evictableTypes.get(internalName);
+        }
     }
 
+    private TypeDefinition cacheType(final String internalName, final TypeDefinition type) {
+        if (_evictableTypes.getMaximumSize() <= 0 || isPinnedType(internalName)) {
+            final TypeDefinition existingType = _types.putIfAbsent(internalName, type);
+            return existingType != null ? existingType : type;
+        }
+
+        synchronized (_evictableTypes) {
+            final TypeDefinition existingType = _evictableTypes.get(internalName);
+
+            if (existingType != null) {
+                return existingType;
+            }
+
+            _evictableTypes.put(internalName, type);
+            return type;
+        }
+    }
+
+    /**
+     * Types ordered from least to most recently used; the eldest is dropped once the cache grows past
+     * its maximum size.  Callers synchronize on the cache itself.
+     */
+    private final static class EvictableTypeCache extends LinkedHashMap<String, TypeDefinition> {
+        private static final long serialVersionUID = 4316237485726937340L;
+
+        private volatile int _maximumSize;
+
+        EvictableTypeCache() {
+            super(16, 0.75f, true);
+        }
+
+        int getMaximumSize() {
+            return _maximumSize;
+        }
+
+        void setMaximumSize(final int maximumSize) {
+            _maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, TypeDefinition> eldest) {
+            final int maximumSize = _maximumSize;
+            return maximumSize > 0 && size() > maximumSize;
+        }
+    }
+
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Primitive Lookup">
 
     private final static TypeDefinition[] PRIMITIVE_TYPES_BY_NAME = new TypeDefinition['Z' - 'B' + 1];
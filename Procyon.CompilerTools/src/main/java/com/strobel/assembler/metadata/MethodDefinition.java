@@ -655,7 +655,18 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
 
     // <editor-fold defaultstate="collapsed" desc="Deferred Method Body Loading">
 
-    private MethodBody tryLoadBody() {
+    private synchronized MethodBody tryLoadBody() {
+        //
+        // Definitions in a shared platform layer may be read by several threads; the code attribute is
+        // swapped out temporarily below, so only one thread may load the body at a time.
+        //
+        final SoftReference<MethodBody> cachedBody = _body;
+        final MethodBody existingBody = cachedBody != null ? cachedBody.get() : null;
+
+        if (existingBody != null) {
+            return existingBody;
+        }
+
         if (Flags.testAny(_flags, Flags.LOAD_BODY_FAILED)) {
             return null;
         }
@@ -666,22 +677,17 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
             return null;
         }
 
+        MetadataSystem.checkLoadingAllowed();
+
         final int codeAttributeIndex = _sourceAttributes.indexOf(codeAttribute);
 
         Buffer code = codeAttribute.getCode();
         ConstantPool constantPool = _declaringType.getConstantPool();
 
         if (code == null) {
-            final ITypeLoader typeLoader = _declaringType.getTypeLoader();
-
-            if (typeLoader == null) {
-                _flags |= Flags.LOAD_BODY_FAILED;
-                return null;
-            }
+            code = _declaringType.loadClassFile();
 
-            code = new Buffer();
-
-            if (!typeLoader.tryLoadType(_declaringType.getInternalName(), code)) {
+            if (code == null) {
                 _flags |= Flags.LOAD_BODY_FAILED;
                 return null;
             }
@@ -726,10 +732,20 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
         final MetadataParser parser = new MetadataParser(_declaringType);
         final IMetadataScope scope = new ClassFileReader.Scope(parser, _declaringType, constantPool);
 
-        final MethodBody body = new MethodReader(this, scope).readBody();
+        final MethodBody body;
+
+        try {
+            body = new MethodReader(this, scope).readBody();
+        }
+        finally {
+            //
+            // Restore the original attribute even if reading fails, so another attempt starts over
+            // exactly like this one did.
+            //
+            _sourceAttributes.set(codeAttributeIndex, codeAttribute);
+        }
 
         _body = new SoftReference<>(body);
-        _sourceAttributes.set(codeAttributeIndex, codeAttribute);
 
         body.tryFreeze();
 
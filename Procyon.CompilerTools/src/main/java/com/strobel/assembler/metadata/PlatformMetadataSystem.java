@@ -0,0 +1,157 @@
+/*
+ * PlatformMetadataSystem.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.Fences;
+import com.strobel.core.VerifyArgument;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A metadata system holding only platform (JDK) types, meant to be shared by every other
+ * {@link MetadataSystem} in the process via {@link MetadataSystem#MetadataSystem(ITypeLoader, MetadataSystem)}.
+ * Platform types are read once and never evicted, and no types may be registered from outside.
+ * Platform types only ever refer to other platform types, so definitions resolved here never see
+ * the types of the code being decompiled.
+ * <p>
+ * Types may be resolved by several threads at once, and the parts of a definition which are loaded
+ * on demand (constant pool entries, method bodies) are loaded safely.  The definitions are not
+ * frozen, however: they are the same mutable definitions any metadata system produces, and they are
+ * shared by every metadata system built on this layer.  Changes made to them, e.g., by
+ * {@link DeobfuscationUtilities} when a platform type is itself decompiled,
+ * are seen everywhere and are not synchronized.
+ */
+public final class PlatformMetadataSystem extends MetadataSystem {
+    private final static Logger LOG = Logger.getLogger(PlatformMetadataSystem.class.getSimpleName());
+
+    private final static String[] PLATFORM_PACKAGE_PREFIXES = {
+        "java/", "javax/", "jdk/", "sun/", "com/sun/", "org/ietf/jgss/", "org/omg/", "org/w3c/dom/", "org/xml/sax/"
+    };
+
+    private static PlatformMetadataSystem _runtime;
+
+    private final ITypeLoader _typeLoader;
+    private final String _identity;
+    private final ConcurrentHashMap<String, Boolean> _containedTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the platform layer of the running JDK, creating it on first use.
+     */
+    public static PlatformMetadataSystem runtime() {
+        if (_runtime == null) {
+            synchronized (PlatformMetadataSystem.class) {
+                if (_runtime == null) {
+                    _runtime = Fences.orderWrites(
+                        new PlatformMetadataSystem(
+                            createRuntimeTypeLoader(),
+                            System.getProperty("java.home") + ";" + System.getProperty("java.runtime.version")
+                        )
+                    );
+                }
+            }
+        }
+        return _runtime;
+    }
+
+    /**
+     * Creates a platform layer over {@code typeLoader}, which should load nothing but platform types,
+     * e.g., a {@link JrtTypeLoader} or {@link CtSymTypeLoader}.  The {@code identity} names the platform
+     * (e.g., the JDK location, version, and target release); it must differ between platforms whose
+     * types may differ.
+     */
+    public PlatformMetadataSystem(final ITypeLoader typeLoader, final String identity) {
+        super(VerifyArgument.notNull(typeLoader, "typeLoader"));
+        _typeLoader = typeLoader;
+        _identity = VerifyArgument.notNull(identity, "identity");
+    }
+
+    /**
+     * Returns the type loader platform types are read from.
+     */
+    public final ITypeLoader getTypeLoader() {
+        return _typeLoader;
+    }
+
+    /**
+     * Returns a string naming this platform, suitable for keying data derived from platform types.
+     */
+    public final String getIdentity() {
+        return _identity;
+    }
+
+    @Override
+    public void addTypeDefinition(final TypeDefinition type) {
+        throw new UnsupportedOperationException("Types cannot be added to a platform metadata system.");
+    }
+
+    @Override
+    protected boolean isPinnedType(final String internalName) {
+        return true;
+    }
+
+    /**
+     * Returns whether {@code internalName} names a type provided by this platform.  The type loader is
+     * asked once per name, and the type is not read into this metadata system.
+     */
+    public boolean containsType(final String internalName) {
+        VerifyArgument.notNull(internalName, "internalName");
+
+        final Boolean cachedResult = _containedTypes.get(internalName);
+
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        final boolean result = _typeLoader.tryLoadType(internalName, new Buffer(0));
+
+        _containedTypes.putIfAbsent(internalName, result);
+
+        return result;
+    }
+
+    static boolean isPlatformType(final String internalName) {
+        for (final String prefix : PLATFORM_PACKAGE_PREFIXES) {
+            if (internalName.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ITypeLoader createRuntimeTypeLoader() {
+        try {
+            return new JrtTypeLoader();
+        }
+        catch (final IOException e) {
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("No jrt:/ image available; reading platform types from the class path.");
+            }
+        }
+
+        //
+        // Before Java 9, platform types share the class path with everything else, so filter by package.
+        //
+
+        final ITypeLoader classpathTypeLoader = new ClasspathTypeLoader();
+
+        return new ITypeLoader() {
+            @Override
+            public boolean tryLoadType(final String internalName, final Buffer buffer) {
+                return isPlatformType(internalName) && classpathTypeLoader.tryLoadType(internalName, buffer);
+            }
+        };
+    }
+}
@@ -23,7 +23,10 @@ import com.strobel.assembler.metadata.annotations.CustomAnnotation;
 import com.strobel.core.ArrayUtilities;
 import com.strobel.core.StringUtilities;
 import com.strobel.core.VerifyArgument;
+import com.strobel.functions.Supplier;
 
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -58,6 +61,7 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
     private MethodReference _declaringMethod;
     private ConstantPool _constantPool;
     private ITypeLoader _typeLoader;
+    private SoftReference<byte[]> _classFile;
 
     public TypeDefinition() {
         _genericParameters = new GenericParameterCollection(this);
@@ -89,6 +93,70 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
         _typeLoader = typeLoader;
     }
 
+    /**
+     * Keeps a soft reference to the class file this type was read from, so method bodies which are
+     * loaded lazily (or whose cached bodies have been collected) can be rebuilt without going back
+     * to the type loader.
+     */
+    final void retainClassFile(final Buffer buffer) {
+        final byte[] data = buffer.array();
+        final int size = buffer.size();
+
+        _classFile = new SoftReference<>(data.length == size ? data : Arrays.copyOf(data, size));
+    }
+
+    /**
+     * Returns a buffer positioned at the start of this type's class file, using the retained bytes
+     * if they are still reachable, and otherwise reloading them through the type loader.  Returns
+     * {@code null} if the class file is no longer available.
+     */
+    final Buffer loadClassFile() {
+        final SoftReference<byte[]> classFile = _classFile;
+        final byte[] data = classFile != null ? classFile.get() : null;
+
+        if (data != null) {
+            return new Buffer(data);
+        }
+
+        final ITypeLoader typeLoader = _typeLoader;
+
+        if (typeLoader == null) {
+            return null;
+        }
+
+        final Buffer buffer = new Buffer();
+
+        if (!typeLoader.tryLoadType(getInternalName(), buffer)) {
+            return null;
+        }
+
+        retainClassFile(buffer);
+        buffer.position(0);
+
+        return buffer;
+    }
+
+    /**
+     * Lets the constant pool drop its private copy of the entries it has not decoded yet; they are
+     * decoded from the class file instead, as returned by {@link #loadClassFile()}.  Only call this
+     * once the class file can be loaded again, i.e., once it has been retained or the type loader
+     * has been set.
+     */
+    final void releaseConstantPoolData() {
+        final ConstantPool constantPool = _constantPool;
+
+        if (constantPool != null) {
+            constantPool.releaseData(
+                new Supplier<Buffer>() {
+                    @Override
+                    public Buffer get() {
+                        return loadClassFile();
+                    }
+                }
+            );
+        }
+    }
+
     public final CompilerTarget getCompilerTarget() {
         return CompilerTarget.lookup(getCompilerMajorVersion(), getCompilerMinorVersion());
     }
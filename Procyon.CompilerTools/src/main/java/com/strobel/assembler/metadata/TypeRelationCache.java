@@ -0,0 +1,209 @@
+/*
+ * TypeRelationCache.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.StringUtilities;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes subtype relations between non-generic class types resolved by a single
+ * {@link MetadataSystem} and the platform layer beneath it, if any.  Relations are keyed by
+ * internal name, so they survive type eviction and are discarded along with the metadata system
+ * that owns them.  Super types are recorded by internal name as well, and resolved through the
+ * owning metadata system on every hit: the cache never keeps a definition alive, and never hands
+ * out one which has since been evicted.
+ */
+final class TypeRelationCache {
+    private final static int MAXIMUM_SIZE = 65536;
+
+    //
+    // Recorded in place of a super type's name when there is no such super type.
+    //
+    private final static String NO_SUPER_TYPE = "";
+
+    private final MetadataSystem _metadataSystem;
+    private final ConcurrentHashMap<Key, Boolean> _subTypes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, String> _superTypes = new ConcurrentHashMap<>();
+    private final AtomicLong _hitCount = new AtomicLong();
+    private final AtomicLong _missCount = new AtomicLong();
+
+    TypeRelationCache(final MetadataSystem metadataSystem) {
+        _metadataSystem = metadataSystem;
+    }
+
+    final long getHitCount() {
+        return _hitCount.get();
+    }
+
+    final long getMissCount() {
+        return _missCount.get();
+    }
+
+    static TypeRelationCache forTypes(final TypeReference t, final TypeReference s) {
+        if (!isCacheable(s) || !isCacheable(t)) {
+            return null;
+        }
+
+        final TypeDefinition resolvedT = t.resolve();
+
+        if (!isCacheable(t, resolvedT) || !(resolvedT.getResolver() instanceof MetadataSystem)) {
+            return null;
+        }
+
+        final TypeDefinition resolvedS = s.resolve();
+
+        if (!isCacheable(s, resolvedS) || !(resolvedS.getResolver() instanceof MetadataSystem)) {
+            return null;
+        }
+
+        final MetadataSystem systemT = (MetadataSystem) resolvedT.getResolver();
+        final MetadataSystem systemS = (MetadataSystem) resolvedS.getResolver();
+
+        //
+        // When one type comes from a shared platform layer, the relation belongs to the metadata
+        // system stacked on top of it.
+        //
+
+        if (systemT == systemS || systemT.getPlatform() == systemS) {
+            return systemT.getTypeRelationCache();
+        }
+
+        if (systemS.getPlatform() == systemT) {
+            return systemS.getTypeRelationCache();
+        }
+
+        return null;
+    }
+
+    private static boolean isCacheable(final TypeReference t, final TypeDefinition resolvedType) {
+        //
+        // Subtype checks also compare declaring types, so a nested type reference that lacks its
+        // declaring type must not share results with its definition.
+        //
+        return resolvedType != null &&
+               !resolvedType.isGenericType() &&
+               StringUtilities.equals(resolvedType.getInternalName(), t.getInternalName()) &&
+               (t.getDeclaringType() == null) == (resolvedType.getDeclaringType() == null);
+    }
+
+    private static boolean isCacheable(final TypeReference t) {
+        //
+        // Only plain class and interface types qualify: their relations depend solely on the
+        // declared hierarchy, never on type arguments, bounds, or capture.
+        //
+        return t.getSimpleType() == JvmType.Object &&
+               !t.isArray() &&
+               !t.isGenericParameter() &&
+               !t.isGenericType() &&
+               !t.isWildcardType() &&
+               !t.isCompoundType() &&
+               !(t instanceof ICapturedType) &&
+               t != BuiltinTypes.Null &&
+               t != BuiltinTypes.Bottom;
+    }
+
+    final Boolean getSubType(final TypeReference t, final TypeReference s) {
+        final Boolean result = _subTypes.get(new Key(t, s));
+
+        if (result != null) {
+            _hitCount.incrementAndGet();
+        }
+        else {
+            _missCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    final void putSubType(final TypeReference t, final TypeReference s, final boolean result) {
+        ensureCapacity(_subTypes);
+        _subTypes.put(new Key(t, s), result);
+    }
+
+    /**
+     * Returns the cached result of {@code asSuper(s, t)} as currently resolved by the owning metadata
+     * system, the bottom type if {@code t} is known to have no such super type, or {@code null} if the
+     * relation has not been cached.
+     */
+    final TypeReference getSuperType(final TypeReference t, final TypeReference s) {
+        final String result = _superTypes.get(new Key(t, s));
+
+        if (result == null) {
+            _missCount.incrementAndGet();
+            return null;
+        }
+
+        if (result == NO_SUPER_TYPE) {
+            _hitCount.incrementAndGet();
+            return BuiltinTypes.Bottom;
+        }
+
+        final TypeDefinition resolvedResult = _metadataSystem.resolveType(result, false);
+
+        if (resolvedResult == null) {
+            _missCount.incrementAndGet();
+            return null;
+        }
+
+        _hitCount.incrementAndGet();
+        return resolvedResult;
+    }
+
+    final void putSuperType(final TypeReference t, final TypeReference s, final TypeReference result) {
+        ensureCapacity(_superTypes);
+        _superTypes.put(new Key(t, s), result != null ? result.getInternalName() : NO_SUPER_TYPE);
+    }
+
+    static boolean isNoSuperType(final TypeReference t) {
+        return t == BuiltinTypes.Bottom;
+    }
+
+    private static void ensureCapacity(final ConcurrentHashMap<Key, ?> map) {
+        if (map.size() >= MAXIMUM_SIZE) {
+            map.clear();
+        }
+    }
+
+    private final static class Key {
+        private final String _t;
+        private final String _s;
+        private final int _hashCode;
+
+        Key(final TypeReference t, final TypeReference s) {
+            _t = t.getInternalName();
+            _s = s.getInternalName();
+            _hashCode = 31 * _t.hashCode() + _s.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) o;
+
+            return _t.equals(key._t) && _s.equals(key._s);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+}
@@ -0,0 +1,620 @@
+/*
+ * DecompilationCache.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.Procyon;
+import com.strobel.assembler.ir.ConstantPool;
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.PlatformMetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.core.VerifyArgument;
+import com.strobel.decompiler.languages.Language;
+import com.strobel.decompiler.languages.LineNumberPosition;
+import com.strobel.decompiler.languages.TypeDecompilationResults;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An opt-in, persistent cache of decompiled output.  Entries are keyed by a hash of the class file
+ * (and the class files of its nested types), the decompiler version, a fingerprint of the
+ * {@link DecompilerSettings}, and the identity of the platform types are resolved against.  Each
+ * entry also records a hash of every type the class references, and of their supertypes; an entry
+ * is only reused if none of those types have changed.
+ * <p>
+ * Looking up an entry reads and hashes the class files of the type and its nested types.  The hash
+ * of each referenced type is computed once per type loader and then remembered for the lifetime of
+ * the cache, so referenced class files are assumed not to change while a cache is in use; create a
+ * new cache to pick up such changes.
+ * <p>
+ * Cached output is only used for plain text targets, since other outputs (e.g., ANSI-colored
+ * console output) carry more than the rendered text.  Instances are safe for use by multiple threads.
+ */
+public final class DecompilationCache {
+    private final static Logger LOG = Logger.getLogger(DecompilationCache.class.getSimpleName());
+
+    private final static int MAGIC = 0x50524F43;
+    private final static int FORMAT_VERSION = 2;
+
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+    private final static Pattern DESCRIPTOR_TYPE = Pattern.compile("L([^;<>:\\[\\.]+)[;<]");
+    private final static String MISSING_TYPE_HASH = "-";
+
+    private final File _directory;
+    private final PlatformMetadataSystem _platform;
+    private final AtomicInteger _hitCount = new AtomicInteger();
+    private final AtomicInteger _missCount = new AtomicInteger();
+    private final Map<ITypeLoader, ConcurrentHashMap<String, DependencyInfo>> _dependencies = new WeakHashMap<>();
+
+    /**
+     * Creates a cache for output decompiled against the running JDK.
+     */
+    public DecompilationCache(final File directory) {
+        this(directory, PlatformMetadataSystem.runtime());
+    }
+
+    /**
+     * Creates a cache for output decompiled against {@code platform}, i.e., using a type loader which
+     * falls back to {@code platform} for platform types.
+     */
+    public DecompilationCache(final File directory, final PlatformMetadataSystem platform) {
+        _directory = VerifyArgument.notNull(directory, "directory");
+        _platform = VerifyArgument.notNull(platform, "platform");
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    public int getHitCount() {
+        return _hitCount.get();
+    }
+
+    public int getMissCount() {
+        return _missCount.get();
+    }
+
+    /**
+     * Decompiles {@code type} using the language specified in the decompilation settings, serving
+     * the result from the cache if the type and everything it references are unchanged.
+     */
+    public TypeDecompilationResults decompileType(
+        final TypeDefinition type,
+        final PlainTextOutput output,
+        final DecompilationOptions options) {
+
+        VerifyArgument.notNull(type, "type");
+        VerifyArgument.notNull(output, "output");
+        VerifyArgument.notNull(options, "options");
+
+        final DecompilerSettings settings = options.getSettings();
+        final Language language = settings.getLanguage();
+        final ITypeLoader typeLoader = settings.getTypeLoader();
+
+        if (typeLoader == null ||
+            output.getClass() != PlainTextOutput.class ||
+            output.getRow() != 1 ||
+            output.getColumn() != 1) {
+
+            return language.decompileType(type, output, options);
+        }
+
+        final Set<String> dependencies = new TreeSet<>();
+        final String key = computeKey(type, output, settings, typeLoader, _platform, dependencies);
+
+        if (key == null) {
+            return language.decompileType(type, output, options);
+        }
+
+        final File entryFile = new File(new File(_directory, key.substring(0, 2)), key);
+        final CacheEntry cachedEntry = tryReadEntry(entryFile, typeLoader);
+
+        if (cachedEntry != null) {
+            _hitCount.incrementAndGet();
+            output.writeRaw(cachedEntry.text);
+            return new TypeDecompilationResults(cachedEntry.lineNumberPositions);
+        }
+
+        _missCount.incrementAndGet();
+
+        final PlainTextOutput capture = new PlainTextOutput();
+
+        capture.setIndentToken(output.getIndentToken());
+        capture.setUnicodeOutputEnabled(output.isUnicodeOutputEnabled());
+
+        final TypeDecompilationResults results = language.decompileType(type, capture, options);
+        final String text = capture.toString();
+
+        output.writeRaw(text);
+
+        //
+        // Stubs for timed-out methods depend on timing, so they must not outlive this decompilation.
+        //
+        if (!results.hasTimedOutMethods()) {
+            tryWriteEntry(
+                entryFile,
+                new CacheEntry(text, results.getLineNumberPositions(), hashDependencies(dependencies, typeLoader))
+            );
+        }
+
+        return results;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Keys and Dependencies">
+
+    private static String computeKey(
+        final TypeDefinition type,
+        final PlainTextOutput output,
+        final DecompilerSettings settings,
+        final ITypeLoader typeLoader,
+        final PlatformMetadataSystem platform,
+        final Set<String> dependencies) {
+
+        final MessageDigest digest = createDigest();
+
+        update(digest, String.valueOf(FORMAT_VERSION));
+        update(digest, Procyon.version());
+        update(digest, settings.getLanguage().getName());
+        update(digest, output.getIndentToken());
+        update(digest, String.valueOf(output.isUnicodeOutputEnabled()));
+        update(digest, fingerprint(settings));
+        update(digest, platform.getIdentity());
+
+        //
+        // Nested and anonymous types are rendered as part of their outermost type, so their
+        // class files feed into the key as well.  Everything else they reference is a dependency.
+        //
+
+        final String rootName = type.getInternalName();
+        final String nestedPrefix = rootName + "$";
+        final Set<String> sources = new LinkedHashSet<>();
+        final Deque<String> pending = new ArrayDeque<>();
+
+        pending.add(rootName);
+        sources.add(rootName);
+
+        while (!pending.isEmpty()) {
+            final String name = pending.removeFirst();
+            final byte[] classBytes = loadClassBytes(typeLoader, platform, name);
+
+            if (classBytes == null) {
+                if (name.equals(rootName)) {
+                    return null;
+                }
+                dependencies.add(name);
+                continue;
+            }
+
+            update(digest, name);
+            digest.update(classBytes);
+
+            for (final String reference : collectReferencedTypes(classBytes)) {
+                if (reference.startsWith(nestedPrefix)) {
+                    if (sources.add(reference)) {
+                        pending.add(reference);
+                    }
+                }
+                else if (!reference.equals(rootName)) {
+                    dependencies.add(reference);
+                }
+            }
+        }
+
+        return toHexString(digest.digest());
+    }
+
+    private List<String> hashDependencies(final Set<String> dependencies, final ITypeLoader typeLoader) {
+        //
+        // How a type is rendered also depends on what its dependencies inherit (e.g., when resolving
+        // overloads or deciding whether a cast is redundant), so their supertypes count as well.
+        //
+
+        final Set<String> closure = new TreeSet<>(dependencies);
+        final Deque<String> pending = new ArrayDeque<>(dependencies);
+
+        while (!pending.isEmpty()) {
+            for (final String supertype : getDependencyInfo(pending.removeFirst(), typeLoader).supertypes) {
+                if (closure.add(supertype)) {
+                    pending.add(supertype);
+                }
+            }
+        }
+
+        final List<String> result = new ArrayList<>(closure.size() * 2);
+
+        for (final String dependency : closure) {
+            result.add(dependency);
+            result.add(getDependencyInfo(dependency, typeLoader).hash);
+        }
+
+        return result;
+    }
+
+    private DependencyInfo getDependencyInfo(final String internalName, final ITypeLoader typeLoader) {
+        ConcurrentHashMap<String, DependencyInfo> dependencies;
+
+        synchronized (_dependencies) {
+            dependencies = _dependencies.get(typeLoader);
+
+            if (dependencies == null) {
+                _dependencies.put(typeLoader, dependencies = new ConcurrentHashMap<>());
+            }
+        }
+
+        final DependencyInfo cachedInfo = dependencies.get(internalName);
+
+        if (cachedInfo != null) {
+            return cachedInfo;
+        }
+
+        final byte[] classBytes = loadClassBytes(typeLoader, _platform, internalName);
+        final DependencyInfo info;
+
+        if (classBytes == null) {
+            info = new DependencyInfo(MISSING_TYPE_HASH, Collections.<String>emptyList());
+        }
+        else {
+            final MessageDigest digest = createDigest();
+
+            digest.update(classBytes);
+
+            info = new DependencyInfo(toHexString(digest.digest()), readSupertypes(classBytes));
+        }
+
+        final DependencyInfo existingInfo = dependencies.putIfAbsent(internalName, info);
+
+        return existingInfo != null ? existingInfo : info;
+    }
+
+    private final static class DependencyInfo {
+        final String hash;
+        final List<String> supertypes;
+
+        DependencyInfo(final String hash, final List<String> supertypes) {
+            this.hash = hash;
+            this.supertypes = supertypes;
+        }
+    }
+
+    private static List<String> readSupertypes(final byte[] classBytes) {
+        final Buffer buffer = new Buffer(classBytes);
+
+        try {
+            buffer.readInt();           // magic
+            buffer.readUnsignedShort(); // minor version
+            buffer.readUnsignedShort(); // major version
+
+            final ConstantPool constantPool = ConstantPool.read(buffer);
+
+            buffer.readUnsignedShort(); // access flags
+            buffer.readUnsignedShort(); // this class
+
+            final int superClassIndex = buffer.readUnsignedShort();
+            final int interfaceCount = buffer.readUnsignedShort();
+            final List<String> supertypes = new ArrayList<>(interfaceCount + 1);
+
+            if (superClassIndex != 0) {
+                supertypes.add(((ConstantPool.TypeInfoEntry) constantPool.get(superClassIndex)).getName());
+            }
+
+            for (int i = 0; i < interfaceCount; i++) {
+                supertypes.add(((ConstantPool.TypeInfoEntry) constantPool.get(buffer.readUnsignedShort())).getName());
+            }
+
+            return supertypes;
+        }
+        catch (final RuntimeException e) {
+            //
+            // A malformed class file still has a hash; it just contributes no supertypes.
+            //
+            return Collections.emptyList();
+        }
+    }
+
+    static Set<String> collectReferencedTypes(final byte[] classBytes) {
+        final Set<String> references = new LinkedHashSet<>();
+        final Buffer buffer = new Buffer(classBytes);
+
+        buffer.readInt();           // magic
+        buffer.readUnsignedShort(); // minor version
+        buffer.readUnsignedShort(); // major version
+
+        final ConstantPool constantPool = ConstantPool.read(buffer);
+
+        for (final ConstantPool.Entry entry : constantPool) {
+            if (entry instanceof ConstantPool.TypeInfoEntry) {
+                final String name = ((ConstantPool.TypeInfoEntry) entry).getName();
+
+                if (name.startsWith("[")) {
+                    addDescriptorTypes(name, references);
+                }
+                else {
+                    references.add(name);
+                }
+            }
+            else if (entry instanceof ConstantPool.Utf8StringConstantEntry) {
+                //
+                // Over-approximate: anything that looks like a descriptor or signature counts.
+                //
+                addDescriptorTypes(((ConstantPool.Utf8StringConstantEntry) entry).value, references);
+            }
+        }
+
+        return references;
+    }
+
+    private static void addDescriptorTypes(final String descriptor, final Set<String> references) {
+        if (descriptor.indexOf('L') < 0) {
+            return;
+        }
+
+        final Matcher matcher = DESCRIPTOR_TYPE.matcher(descriptor);
+
+        while (matcher.find()) {
+            references.add(matcher.group(1));
+        }
+    }
+
+    private static byte[] loadClassBytes(
+        final ITypeLoader typeLoader,
+        final PlatformMetadataSystem platform,
+        final String internalName) {
+
+        //
+        // Resolve the way the decompiler does: the type loader first, then the platform.
+        //
+        final byte[] classBytes = loadClassBytes(typeLoader, internalName);
+
+        return classBytes != null ? classBytes : loadClassBytes(platform.getTypeLoader(), internalName);
+    }
+
+    private static byte[] loadClassBytes(final ITypeLoader typeLoader, final String internalName) {
+        final Buffer buffer = new Buffer();
+
+        try {
+            if (!typeLoader.tryLoadType(internalName, buffer)) {
+                return null;
+            }
+        }
+        catch (final RuntimeException e) {
+            return null;
+        }
+
+        final byte[] classBytes = new byte[buffer.size()];
+
+        System.arraycopy(buffer.array(), 0, classBytes, 0, classBytes.length);
+
+        return classBytes;
+    }
+
+    static String fingerprint(final DecompilerSettings settings) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(settings.getIncludeLineNumbersInBytecode()).append(';')
+          .append(settings.getShowSyntheticMembers()).append(';')
+          .append(settings.getAlwaysGenerateExceptionVariableForCatchBlocks()).append(';')
+          .append(settings.getForceFullyQualifiedReferences()).append(';')
+          .append(settings.getForceExplicitImports()).append(';')
+          .append(settings.getForceExplicitTypeArguments()).append(';')
+          .append(settings.getFlattenSwitchBlocks()).append(';')
+          .append(settings.getExcludeNestedTypes()).append(';')
+          .append(settings.getRetainRedundantCasts()).append(';')
+          .append(settings.getRetainPointlessSwitches()).append(';')
+          .append(settings.isUnicodeOutputEnabled()).append(';')
+          .append(settings.getIncludeErrorDiagnostics()).append(';')
+          .append(settings.getMergeVariables()).append(';')
+          .append(settings.getDisableForEachTransforms()).append(';')
+          .append(settings.getShowDebugLineNumbers()).append(';')
+          .append(settings.getSimplifyMemberReferences()).append(';')
+          .append(settings.getMethodTimeout()).append(';')
+          .append(settings.getOutputFileHeaderText()).append(';');
+
+        appendPublicFields(sb, settings.getJavaFormattingOptions());
+        appendPublicFields(sb, settings.getBytecodeOutputOptions());
+
+        return sb.toString();
+    }
+
+    private static void appendPublicFields(final StringBuilder sb, final Object options) {
+        if (options == null) {
+            sb.append("null;");
+            return;
+        }
+
+        //
+        // Formatting options are plain bags of public fields; pick them all up so new options
+        // invalidate the cache without anyone having to remember to update this method.
+        //
+
+        for (final Field field : options.getClass().getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+
+            try {
+                sb.append(field.getName()).append('=').append(field.get(options)).append(';');
+            }
+            catch (final IllegalAccessException ignored) {
+            }
+        }
+    }
+
+    static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void update(final MessageDigest digest, final String value) {
+        digest.update(String.valueOf(value).getBytes(UTF_8));
+        digest.update((byte) 0);
+    }
+
+    static String toHexString(final byte[] bytes) {
+        final char[] digits = "0123456789abcdef".toCharArray();
+        final char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = digits[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = digits[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Entry Storage">
+
+    private final static class CacheEntry {
+        final String text;
+        final List<LineNumberPosition> lineNumberPositions;
+        final List<String> dependencyHashes;
+
+        CacheEntry(final String text, final List<LineNumberPosition> lineNumberPositions, final List<String> dependencyHashes) {
+            this.text = text;
+            this.lineNumberPositions = lineNumberPositions;
+            this.dependencyHashes = dependencyHashes;
+        }
+    }
+
+    private CacheEntry tryReadEntry(final File file, final ITypeLoader typeLoader) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            final int dependencyCount = in.readInt();
+
+            for (int i = 0; i < dependencyCount; i++) {
+                final String dependency = in.readUTF();
+                final String expectedHash = in.readUTF();
+
+                if (!expectedHash.equals(getDependencyInfo(dependency, typeLoader).hash)) {
+                    if (LOG.isLoggable(Level.FINE)) {
+                        LOG.fine("Cache entry " + file.getName() + " is stale; " + dependency + " has changed.");
+                    }
+                    return null;
+                }
+            }
+
+            final int positionCount = in.readInt();
+            final List<LineNumberPosition> positions = new ArrayList<>(positionCount);
+
+            for (int i = 0; i < positionCount; i++) {
+                positions.add(new LineNumberPosition(in.readInt(), in.readInt(), in.readInt()));
+            }
+
+            final byte[] text = new byte[in.readInt()];
+
+            in.readFully(text);
+
+            return new CacheEntry(new String(text, UTF_8), positions, Collections.<String>emptyList());
+        }
+        catch (final IOException e) {
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Could not read cache entry " + file.getPath() + ".", e);
+            }
+            return null;
+        }
+    }
+
+    private static void tryWriteEntry(final File file, final CacheEntry entry) {
+        final File directory = file.getParentFile();
+
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            return;
+        }
+
+        File tempFile = null;
+
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entry.dependencyHashes.size() / 2);
+
+                for (final String value : entry.dependencyHashes) {
+                    out.writeUTF(value);
+                }
+
+                out.writeInt(entry.lineNumberPositions.size());
+
+                for (final LineNumberPosition position : entry.lineNumberPositions) {
+                    out.writeInt(position.getOriginalLine());
+                    out.writeInt(position.getEmittedLine());
+                    out.writeInt(position.getEmittedColumn());
+                }
+
+                final byte[] text = entry.text.getBytes(UTF_8);
+
+                out.writeInt(text.length);
+                out.write(text);
+            }
+
+            //
+            // Write-then-rename, so concurrent readers never observe a partially written entry.
+            //
+            if (!tempFile.renameTo(file) && (!file.delete() || !tempFile.renameTo(file))) {
+                tempFile.delete();
+            }
+        }
+        catch (final IOException e) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Could not write cache entry " + file.getPath() + ".", e);
+            }
+        }
+    }
+
+    // </editor-fold>
+}
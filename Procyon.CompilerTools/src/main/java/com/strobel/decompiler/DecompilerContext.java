@@ -23,17 +23,24 @@ import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.componentmodel.UserDataStoreBase;
 import com.strobel.core.BooleanBox;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 public final class DecompilerContext extends UserDataStoreBase {
     private final List<String> _reservedVariableNames = new Collection<>();
     private final Set<IMemberDefinition> _forcedVisibleMembers = new LinkedHashSet<>();
+    private final Map<MethodDefinition, Long> _remainingMethodTime = new IdentityHashMap<>();
+    private final Set<MethodDefinition> _timedOutMethods = Collections.newSetFromMap(new IdentityHashMap<MethodDefinition, Boolean>());
     private DecompilerSettings _settings = new DecompilerSettings();
     private BooleanBox _isCanceled;
     private TypeDefinition _currentType;
     private MethodDefinition _currentMethod;
+    private long _methodDeadline;
 
     public DecompilerContext() {
     }
@@ -74,6 +81,110 @@ public final class DecompilerContext extends UserDataStoreBase {
         _currentMethod = currentMethod;
     }
 
+    /**
+     * Returns the {@link System#nanoTime()} value by which the method currently being decompiled must
+     * be finished, or {@code 0} if no time limit applies.
+     */
+    public long getMethodDeadline() {
+        return _methodDeadline;
+    }
+
+    public void setMethodDeadline(final long methodDeadline) {
+        _methodDeadline = methodDeadline;
+    }
+
+    /**
+     * Starts or resumes the time budget for decompiling the current method, as configured by
+     * {@link DecompilerSettings#getMethodTimeout()}.  Each method has a single budget, shared by every
+     * pass over it: time spent on the method in earlier passes is deducted, so a method resumed after
+     * its budget ran out times out at its first checkpoint.  A deadline already in effect for an
+     * enclosing method is never extended, and methods which have already timed out get no deadline.
+     * Returns the previous deadline, which the caller must pass to {@link #endMethodTimeout(long)}
+     * before changing the current method.
+     */
+    public long startMethodTimeout() {
+        final long oldDeadline = _methodDeadline;
+        final long timeout = _settings != null ? _settings.getMethodTimeout() : 0L;
+
+        if (timeout > 0L && !_timedOutMethods.contains(_currentMethod)) {
+            final Long remainingTime = _currentMethod != null ? _remainingMethodTime.get(_currentMethod) : null;
+            final long deadline = System.nanoTime() + (remainingTime != null ? remainingTime : timeout * 1000000L);
+
+            if (oldDeadline == 0L || deadline - oldDeadline < 0L) {
+                _methodDeadline = deadline;
+            }
+        }
+
+        return oldDeadline;
+    }
+
+    /**
+     * Pauses the time budget of the current method, remembering how much of it is left, and restores
+     * the deadline returned by the matching {@link #startMethodTimeout()}.
+     */
+    public void endMethodTimeout(final long oldDeadline) {
+        final long deadline = _methodDeadline;
+
+        if (deadline != 0L && _currentMethod != null) {
+            _remainingMethodTime.put(_currentMethod, Math.max(deadline - System.nanoTime(), 0L));
+        }
+
+        _methodDeadline = oldDeadline;
+    }
+
+    /**
+     * Creates a context for working on {@code method} on another thread.  The new context shares this
+     * context's settings and cancellation flag, and starts from the method's remaining time budget and
+     * the deadline currently in effect.  Nothing else is carried over.  Once the work is done, pass the
+     * new context to {@link #joinMethodContext(DecompilerContext)} so the time it spent is deducted here.
+     */
+    public DecompilerContext forkMethodContext(final MethodDefinition method) {
+        final DecompilerContext context = new DecompilerContext(_settings);
+
+        context._isCanceled = _isCanceled;
+        context._currentType = method.getDeclaringType();
+        context._currentMethod = method;
+        context._methodDeadline = _methodDeadline;
+
+        final Long remainingTime = _remainingMethodTime.get(method);
+
+        if (remainingTime != null) {
+            context._remainingMethodTime.put(method, remainingTime);
+        }
+
+        if (_timedOutMethods.contains(method)) {
+            context._timedOutMethods.add(method);
+        }
+
+        return context;
+    }
+
+    /**
+     * Takes over the time budgets left in a context created by {@link #forkMethodContext(MethodDefinition)}.
+     */
+    public void joinMethodContext(final DecompilerContext context) {
+        _remainingMethodTime.putAll(context._remainingMethodTime);
+    }
+
+    /**
+     * Cooperative cancellation point for long-running decompiler passes.  Throws a
+     * {@link CancellationException} if decompilation has been canceled, or a
+     * {@link MethodTimeoutException} if the current method has exceeded its time budget.
+     */
+    public void checkCanceled() {
+        final BooleanBox canceled = _isCanceled;
+
+        if (canceled != null && canceled.get()) {
+            throw new CancellationException();
+        }
+
+        final long deadline = _methodDeadline;
+
+        if (deadline != 0L && System.nanoTime() - deadline >= 0L) {
+            throw new MethodTimeoutException(_currentMethod, _settings.getMethodTimeout());
+        }
+    }
+
     public List<String> getReservedVariableNames() {
         return _reservedVariableNames;
     }
@@ -81,4 +192,12 @@ public final class DecompilerContext extends UserDataStoreBase {
     public Set<IMemberDefinition> getForcedVisibleMembers() {
         return _forcedVisibleMembers;
     }
+
+    /**
+     * Returns the methods which were replaced with a stub because they exceeded their time budget.
+     * Output containing such stubs depends on timing, and should not be treated as reproducible.
+     */
+    public Set<MethodDefinition> getTimedOutMethods() {
+        return _timedOutMethods;
+    }
 }
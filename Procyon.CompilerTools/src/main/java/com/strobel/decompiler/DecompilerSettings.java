@@ -17,11 +17,14 @@
 package com.strobel.decompiler;
 
 import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.decompiler.ast.AstOptimizationMetrics;
 import com.strobel.decompiler.languages.BytecodeOutputOptions;
 import com.strobel.decompiler.languages.Language;
 import com.strobel.decompiler.languages.Languages;
 import com.strobel.decompiler.languages.java.JavaFormattingOptions;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class DecompilerSettings {
     private ITypeLoader _typeLoader;
     private boolean _includeLineNumbersInBytecode = true;
@@ -45,6 +48,9 @@ public class DecompilerSettings {
     private String _outputDirectory;
     private boolean _showDebugLineNumbers;
     private boolean _simplifyMemberReferences;
+    private AstOptimizationMetrics _optimizationMetrics;
+    private long _methodTimeout;
+    private ForkJoinPool _methodBodyPool;
 
     public DecompilerSettings() {
     }
@@ -221,6 +227,42 @@ public class DecompilerSettings {
         _forceFullyQualifiedReferences = forceFullyQualifiedReferences;
     }
 
+    public final AstOptimizationMetrics getOptimizationMetrics() {
+        return _optimizationMetrics;
+    }
+
+    public final void setOptimizationMetrics(final AstOptimizationMetrics optimizationMetrics) {
+        _optimizationMetrics = optimizationMetrics;
+    }
+
+    /**
+     * Returns the time, in milliseconds, allowed for decompiling a single method before it is replaced
+     * with a stub showing its bytecode.  Zero, the default, means there is no limit.
+     */
+    public final long getMethodTimeout() {
+        return _methodTimeout;
+    }
+
+    public final void setMethodTimeout(final long methodTimeout) {
+        _methodTimeout = methodTimeout;
+    }
+
+    /**
+     * Returns the pool on which the method bodies of a type are built and optimized in parallel, or
+     * {@code null}, the default, if method bodies are built one after another on the calling thread.
+     * Bodies are loaded up front and prepared without loading anything else; a method which cannot be
+     * prepared that way is built on the calling thread in its turn, so the decompiled output is the same
+     * either way.  Types resolved by a metadata system with a bounded type cache are always decompiled
+     * on the calling thread.
+     */
+    public final ForkJoinPool getMethodBodyPool() {
+        return _methodBodyPool;
+    }
+
+    public final void setMethodBodyPool(final ForkJoinPool methodBodyPool) {
+        _methodBodyPool = methodBodyPool;
+    }
+
     public static DecompilerSettings javaDefaults() {
         final DecompilerSettings settings = new DecompilerSettings();
         settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
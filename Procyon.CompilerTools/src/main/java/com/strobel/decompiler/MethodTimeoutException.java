@@ -0,0 +1,42 @@
+/*
+ * MethodTimeoutException.java
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.MethodDefinition;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown by {@link DecompilerContext#checkCanceled()} when a method exceeds the time budget set by
+ * {@link DecompilerSettings#setMethodTimeout(long)}.  The method is replaced with a stub, and the rest
+ * of the type is decompiled as usual.
+ */
+public class MethodTimeoutException extends CancellationException {
+    private static final long serialVersionUID = 2938696768410563170L;
+
+    private final MethodDefinition _method;
+
+    public MethodTimeoutException(final MethodDefinition method, final long timeout) {
+        super(
+            "Decompilation of " + (method != null ? method.getFullName() : "method") +
+            " exceeded the time limit of " + timeout + " ms."
+        );
+        _method = method;
+    }
+
+    public final MethodDefinition getMethod() {
+        return _method;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * OutputManifest.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.Procyon;
+import com.strobel.assembler.metadata.PlatformMetadataSystem;
+import com.strobel.core.VerifyArgument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the class files an output directory was decompiled from, so a later run over a new version
+ * of the same archive can re-decompile only what changed.
+ * <p>
+ * Output is produced per top-level type, with nested types rendered inside their outermost type, so
+ * a changed nested type makes its top-level type outdated.  The output of a type also depends on the
+ * types it references (e.g., through synthetic accessors, enum switch maps, or the signatures of
+ * members it calls), so any type which directly references a changed or removed type is outdated as
+ * well.  A manifest is only comparable to one written for the same decompiler version, settings, and
+ * platform types.
+ */
+public final class OutputManifest {
+    private final static Logger LOG = Logger.getLogger(OutputManifest.class.getSimpleName());
+
+    private final static int MAGIC = 0x50524F4D;  // 'PROM'
+    private final static int FORMAT_VERSION = 1;
+
+    private final String _fingerprint;
+    private final Map<String, String> _hashes = new LinkedHashMap<>();
+    private final Map<String, Set<String>> _references = new HashMap<>();
+
+    /**
+     * Creates a manifest for output decompiled against the running JDK.
+     */
+    public OutputManifest(final DecompilerSettings settings) {
+        this(settings, PlatformMetadataSystem.runtime());
+    }
+
+    /**
+     * Creates a manifest for output decompiled against {@code platform}, i.e., using a type loader which
+     * falls back to {@code platform} for platform types.
+     */
+    public OutputManifest(final DecompilerSettings settings, final PlatformMetadataSystem platform) {
+        this(
+            computeFingerprint(
+                VerifyArgument.notNull(settings, "settings"),
+                VerifyArgument.notNull(platform, "platform")
+            )
+        );
+    }
+
+    private OutputManifest(final String fingerprint) {
+        _fingerprint = fingerprint;
+    }
+
+    /**
+     * Records a class file.  The type's references are only retained in memory, for comparing
+     * against a previous manifest; they are not persisted.
+     */
+    public void addType(final String internalName, final byte[] classFile) {
+        VerifyArgument.notNullOrWhitespace(internalName, "internalName");
+        VerifyArgument.notNull(classFile, "classFile");
+
+        final MessageDigest digest = DecompilationCache.createDigest();
+
+        digest.update(classFile);
+
+        _hashes.put(internalName, DecompilationCache.toHexString(digest.digest()));
+        _references.put(internalName, DecompilationCache.collectReferencedTypes(classFile));
+    }
+
+    /**
+     * Forgets a type, e.g., because decompiling it failed; the next comparison will treat it as new.
+     */
+    public void removeType(final String internalName) {
+        _hashes.remove(internalName);
+        _references.remove(internalName);
+    }
+
+    public Set<String> getTypeNames() {
+        return Collections.unmodifiableSet(_hashes.keySet());
+    }
+
+    /**
+     * Returns the internal name of the top-level type whose output contains {@code internalName}.
+     */
+    public String getTopLevelType(final String internalName) {
+        return getTopLevelType(internalName, _hashes.keySet());
+    }
+
+    /**
+     * Returns the top-level types in this manifest whose output may differ from the output recorded
+     * by {@code previous}.  If {@code previous} is {@code null} or was written for different settings,
+     * every top-level type is outdated.
+     */
+    public Set<String> getOutdatedTypes(final OutputManifest previous) {
+        final Set<String> outdated = new TreeSet<>();
+
+        if (!isComparableTo(previous)) {
+            for (final String internalName : _hashes.keySet()) {
+                outdated.add(getTopLevelType(internalName));
+            }
+            return outdated;
+        }
+
+        final Set<String> changed = new TreeSet<>();
+
+        for (final Map.Entry<String, String> entry : _hashes.entrySet()) {
+            if (!entry.getValue().equals(previous._hashes.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+
+        for (final String internalName : previous._hashes.keySet()) {
+            if (!_hashes.containsKey(internalName)) {
+                changed.add(internalName);
+
+                //
+                // A removed nested type still changes the output of its surviving outer type.
+                //
+                final String topLevelType = getTopLevelType(internalName, previous._hashes.keySet());
+
+                if (_hashes.containsKey(topLevelType)) {
+                    outdated.add(topLevelType);
+                }
+            }
+        }
+
+        for (final String internalName : _hashes.keySet()) {
+            if (changed.contains(internalName) || referencesAny(internalName, changed)) {
+                outdated.add(getTopLevelType(internalName));
+            }
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine(changed.size() + " class files changed; " + outdated.size() + " top-level types are outdated.");
+        }
+
+        return outdated;
+    }
+
+    /**
+     * Returns the top-level types recorded by {@code previous} which no longer exist, and whose output
+     * should therefore be removed.
+     */
+    public Set<String> getRemovedTypes(final OutputManifest previous) {
+        final Set<String> removed = new TreeSet<>();
+
+        if (previous == null) {
+            return removed;
+        }
+
+        for (final String internalName : previous._hashes.keySet()) {
+            final String topLevelType = getTopLevelType(internalName, previous._hashes.keySet());
+
+            if (!_hashes.containsKey(topLevelType)) {
+                removed.add(topLevelType);
+            }
+        }
+
+        return removed;
+    }
+
+    private boolean isComparableTo(final OutputManifest previous) {
+        return previous != null && _fingerprint.equals(previous._fingerprint);
+    }
+
+    private boolean referencesAny(final String internalName, final Set<String> types) {
+        final Set<String> references = _references.get(internalName);
+
+        if (references == null) {
+            return false;
+        }
+
+        for (final String reference : references) {
+            if (types.contains(reference)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String getTopLevelType(final String internalName, final Set<String> typeNames) {
+        //
+        // Only treat '$' as a nesting separator when the would-be outer type exists; otherwise it is
+        // part of the type's name.
+        //
+        String current = internalName;
+        int separator;
+
+        while ((separator = current.lastIndexOf('$')) > current.lastIndexOf('/') + 1) {
+            final String outer = current.substring(0, separator);
+
+            if (!typeNames.contains(outer)) {
+                break;
+            }
+
+            current = outer;
+        }
+
+        return current;
+    }
+
+    private static String computeFingerprint(final DecompilerSettings settings, final PlatformMetadataSystem platform) {
+        final MessageDigest digest = DecompilationCache.createDigest();
+
+        DecompilationCache.update(digest, String.valueOf(FORMAT_VERSION));
+        DecompilationCache.update(digest, Procyon.version());
+        DecompilationCache.update(digest, platform.getIdentity());
+        DecompilationCache.update(digest, settings.getLanguage().getName());
+        DecompilationCache.update(digest, DecompilationCache.fingerprint(settings));
+
+        return DecompilationCache.toHexString(digest.digest());
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Storage">
+
+    /**
+     * Reads a manifest written by {@link #write(File)}, or returns {@code null} if there is no
+     * readable manifest at {@code file}.
+     */
+    public static OutputManifest read(final File file) {
+        VerifyArgument.notNull(file, "file");
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            final OutputManifest manifest = new OutputManifest(in.readUTF());
+            final int typeCount = in.readInt();
+
+            for (int i = 0; i < typeCount; i++) {
+                final String internalName = in.readUTF();
+                manifest._hashes.put(internalName, in.readUTF());
+            }
+
+            return manifest;
+        }
+        catch (final IOException e) {
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Could not read output manifest " + file.getPath() + ".", e);
+            }
+            return null;
+        }
+    }
+
+    public void write(final File file) throws IOException {
+        VerifyArgument.notNull(file, "file");
+
+        final File directory = file.getAbsoluteFile().getParentFile();
+        final File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(_fingerprint);
+                out.writeInt(_hashes.size());
+
+                for (final Map.Entry<String, String> entry : _hashes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+
+            //
+            // Write-then-rename, so an interrupted run never leaves a truncated manifest behind.
+            //
+            if (!tempFile.renameTo(file) && (!file.delete() || !tempFile.renameTo(file))) {
+                throw new IOException("Could not write output manifest " + file.getPath() + ".");
+            }
+        }
+        finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    // </editor-fold>
+}
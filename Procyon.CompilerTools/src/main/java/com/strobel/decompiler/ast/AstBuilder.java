@@ -97,8 +97,12 @@ public final class AstBuilder {
         builder.pruneExceptionHandlers();
         builder.inlineSubroutines();
 
+        context.checkCanceled();
+
         FinallyInlining.run(builder._body, builder._instructions, builder._exceptionHandlers, builder._removed);
 
+        context.checkCanceled();
+
         builder._cfg = ControlFlowGraphBuilder.build(builder._instructions, builder._exceptionHandlers);
         builder._cfg.computeDominance();
         builder._cfg.computeDominanceFrontier();
@@ -107,6 +111,8 @@ public final class AstBuilder {
 
         final List<ByteCode> byteCode = builder.performStackAnalysis();
 
+        context.checkCanceled();
+
         LOG.fine("Creating bytecode AST...");
 
         @SuppressWarnings("UnnecessaryLocalVariable")
@@ -2020,6 +2026,8 @@ public final class AstBuilder {
         // Process agenda.
         //
         while (!(agenda.isEmpty() && handlerAgenda.isEmpty())) {
+            _context.checkCanceled();
+
             final ByteCode byteCode = agenda.isEmpty() ? handlerAgenda.removeFirst() : agenda.removeFirst();
 
             //
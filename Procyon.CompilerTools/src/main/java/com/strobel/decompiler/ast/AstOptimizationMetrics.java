@@ -0,0 +1,419 @@
+/*
+ * AstOptimizationMetrics.java
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.ast;
+
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.core.VerifyArgument;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects per-step statistics from {@link AstOptimizer}: wall time, invocation count, how often a
+ * block-level step reported that it modified the AST, and (optionally) the bytes allocated by the
+ * optimizing thread.  The slowest methods seen are retained so pathological inputs can be found.
+ * <p>
+ * Install an instance with {@link com.strobel.decompiler.DecompilerSettings#setOptimizationMetrics}.
+ * Instances are thread-safe, so one may be shared by all threads decompiling with the same settings.
+ */
+public final class AstOptimizationMetrics {
+    private final static int DEFAULT_SLOWEST_METHOD_COUNT = 10;
+    private final static ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final static Recorder NULL_RECORDER = new Recorder(null, null);
+
+    private final boolean _trackAllocations;
+    private final int _slowestMethodCount;
+    private final StepMetrics[] _steps;
+    private final AtomicLong _methodCount = new AtomicLong();
+    private final AtomicLong _totalNanos = new AtomicLong();
+    private final PriorityQueue<MethodMetrics> _slowestMethods;
+
+    public AstOptimizationMetrics() {
+        this(false);
+    }
+
+    public AstOptimizationMetrics(final boolean trackAllocations) {
+        this(trackAllocations, DEFAULT_SLOWEST_METHOD_COUNT);
+    }
+
+    public AstOptimizationMetrics(final boolean trackAllocations, final int slowestMethodCount) {
+        _trackAllocations = trackAllocations && isAllocationTrackingSupported();
+        _slowestMethodCount = VerifyArgument.isNonNegative(slowestMethodCount, "slowestMethodCount");
+
+        final AstOptimizationStep[] steps = AstOptimizationStep.values();
+
+        _steps = new StepMetrics[steps.length];
+
+        for (final AstOptimizationStep step : steps) {
+            _steps[step.ordinal()] = new StepMetrics(step);
+        }
+
+        _slowestMethods = new PriorityQueue<>(
+            Math.max(slowestMethodCount, 1),
+            new Comparator<MethodMetrics>() {
+                @Override
+                public int compare(final MethodMetrics o1, final MethodMetrics o2) {
+                    return Long.compare(o1.getNanos(), o2.getNanos());
+                }
+            }
+        );
+    }
+
+    /**
+     * Returns whether allocated bytes are being recorded.  This is only possible on JVMs which support
+     * thread allocation accounting.
+     */
+    public final boolean isTrackingAllocations() {
+        return _trackAllocations;
+    }
+
+    public final long getMethodCount() {
+        return _methodCount.get();
+    }
+
+    public final long getTotalNanos() {
+        return _totalNanos.get();
+    }
+
+    public final StepMetrics getStepMetrics(final AstOptimizationStep step) {
+        return _steps[VerifyArgument.notNull(step, "step").ordinal()];
+    }
+
+    /**
+     * Returns the slowest methods optimized so far, slowest first.
+     */
+    public final List<MethodMetrics> getSlowestMethods() {
+        final List<MethodMetrics> methods;
+
+        synchronized (_slowestMethods) {
+            methods = new ArrayList<>(_slowestMethods);
+        }
+
+        Collections.sort(
+            methods,
+            new Comparator<MethodMetrics>() {
+                @Override
+                public int compare(final MethodMetrics o1, final MethodMetrics o2) {
+                    return Long.compare(o2.getNanos(), o1.getNanos());
+                }
+            }
+        );
+
+        return methods;
+    }
+
+    /**
+     * Writes a table of the recorded steps, most expensive first, followed by the slowest methods.
+     */
+    public final void writeSummary(final Appendable output) {
+        VerifyArgument.notNull(output, "output");
+
+        final StepMetrics[] steps = Arrays.copyOf(_steps, _steps.length);
+
+        Arrays.sort(
+            steps,
+            new Comparator<StepMetrics>() {
+                @Override
+                public int compare(final StepMetrics o1, final StepMetrics o2) {
+                    return Long.compare(o2.getNanos(), o1.getNanos());
+                }
+            }
+        );
+
+        final Formatter formatter = new Formatter(output);
+
+        formatter.format(
+            "Bytecode AST optimization: %d methods, %.1f ms.%n",
+            getMethodCount(),
+            getTotalNanos() / 1e6
+        );
+
+        formatter.format(
+            "%-36s %10s %10s %12s %10s %9s%s%n",
+            "Step",
+            "Runs",
+            "Skipped",
+            "Total (ms)",
+            "Avg (us)",
+            "Modified",
+            _trackAllocations ? String.format(" %14s", "Allocated (KB)") : ""
+        );
+
+        for (final StepMetrics step : steps) {
+            if (step.getInvocations() == 0 && step.getSkippedInvocations() == 0) {
+                continue;
+            }
+
+            formatter.format(
+                "%-36s %10d %10d %12.1f %10.1f %9s%s%n",
+                step.getStep(),
+                step.getInvocations(),
+                step.getSkippedInvocations(),
+                step.getNanos() / 1e6,
+                step.getInvocations() == 0 ? 0d : step.getNanos() / 1e3 / step.getInvocations(),
+                step.getReportingInvocations() == 0 ? "-"
+                                                    : String.format("%.1f%%", step.getModifiedRate() * 100),
+                _trackAllocations ? String.format(" %14d", step.getAllocatedBytes() / 1024) : ""
+            );
+        }
+
+        final List<MethodMetrics> slowestMethods = getSlowestMethods();
+
+        if (!slowestMethods.isEmpty()) {
+            formatter.format("Slowest methods:%n");
+
+            for (final MethodMetrics method : slowestMethods) {
+                formatter.format("%12.1f ms  %s%n", method.getNanos() / 1e6, method.getMethodName());
+            }
+        }
+
+        formatter.flush();
+    }
+
+    static Recorder startRecording(final AstOptimizationMetrics metrics, final MethodDefinition method) {
+        if (metrics == null) {
+            return NULL_RECORDER;
+        }
+        return new Recorder(metrics, method);
+    }
+
+    private void recordMethod(final MethodDefinition method, final long nanos) {
+        _methodCount.incrementAndGet();
+        _totalNanos.addAndGet(nanos);
+
+        if (_slowestMethodCount == 0) {
+            return;
+        }
+
+        synchronized (_slowestMethods) {
+            if (_slowestMethods.size() < _slowestMethodCount) {
+                _slowestMethods.add(new MethodMetrics(describe(method), nanos));
+            }
+            else if (nanos > _slowestMethods.peek().getNanos()) {
+                _slowestMethods.poll();
+                _slowestMethods.add(new MethodMetrics(describe(method), nanos));
+            }
+        }
+    }
+
+    private static String describe(final MethodDefinition method) {
+        if (method == null) {
+            return "<unknown method>";
+        }
+
+        final String declaringType = method.getDeclaringType() != null ? method.getDeclaringType().getInternalName()
+                                                                       : "<unknown type>";
+
+        return declaringType + "." + method.getName() + ":" + method.getErasedSignature();
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private static boolean isAllocationTrackingSupported() {
+        try {
+            return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean &&
+                   ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported() &&
+                   ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemoryEnabled();
+        }
+        catch (final Throwable ignored) {
+            return false;
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="StepMetrics Class">
+
+    public final static class StepMetrics {
+        private final AstOptimizationStep _step;
+        private final AtomicLong _invocations = new AtomicLong();
+        private final AtomicLong _nanos = new AtomicLong();
+        private final AtomicLong _allocatedBytes = new AtomicLong();
+        private final AtomicLong _reportingInvocations = new AtomicLong();
+        private final AtomicLong _modifyingInvocations = new AtomicLong();
+        private final AtomicLong _skippedInvocations = new AtomicLong();
+
+        StepMetrics(final AstOptimizationStep step) {
+            _step = step;
+        }
+
+        public final AstOptimizationStep getStep() {
+            return _step;
+        }
+
+        public final long getInvocations() {
+            return _invocations.get();
+        }
+
+        public final long getNanos() {
+            return _nanos.get();
+        }
+
+        public final long getAllocatedBytes() {
+            return _allocatedBytes.get();
+        }
+
+        /**
+         * Returns the number of invocations which reported whether they modified the AST.  Only the
+         * block-level steps report this.
+         */
+        public final long getReportingInvocations() {
+            return _reportingInvocations.get();
+        }
+
+        public final long getModifyingInvocations() {
+            return _modifyingInvocations.get();
+        }
+
+        /**
+         * Returns the number of times a block-level step was skipped because nothing it depends on had
+         * changed since it last ran.
+         */
+        public final long getSkippedInvocations() {
+            return _skippedInvocations.get();
+        }
+
+        public final double getModifiedRate() {
+            final long reportingInvocations = getReportingInvocations();
+
+            return reportingInvocations == 0 ? 0d
+                                             : (double) getModifyingInvocations() / reportingInvocations;
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="MethodMetrics Class">
+
+    public final static class MethodMetrics {
+        private final String _methodName;
+        private final long _nanos;
+
+        MethodMetrics(final String methodName, final long nanos) {
+            _methodName = methodName;
+            _nanos = nanos;
+        }
+
+        public final String getMethodName() {
+            return _methodName;
+        }
+
+        public final long getNanos() {
+            return _nanos;
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Recorder Class">
+
+    /**
+     * Tracks a single {@link AstOptimizer#optimize} call.  Each step runs from the point it is begun
+     * until the next step begins, or until recording finishes.
+     */
+    final static class Recorder {
+        private final static int MODIFIED_UNKNOWN = -1;
+
+        private final AstOptimizationMetrics _metrics;
+        private final MethodDefinition _method;
+        private final long _startTime;
+
+        private StepMetrics _currentStep;
+        private long _stepStartTime;
+        private long _stepStartAllocatedBytes;
+        private int _stepModified = MODIFIED_UNKNOWN;
+
+        Recorder(final AstOptimizationMetrics metrics, final MethodDefinition method) {
+            _metrics = metrics;
+            _method = method;
+            _startTime = metrics != null ? System.nanoTime() : 0L;
+        }
+
+        final void beginStep(final AstOptimizationStep step) {
+            if (_metrics == null) {
+                return;
+            }
+
+            endStep();
+
+            _currentStep = _metrics._steps[step.ordinal()];
+            _stepModified = MODIFIED_UNKNOWN;
+            _stepStartAllocatedBytes = _metrics._trackAllocations ? currentThreadAllocatedBytes() : 0L;
+            _stepStartTime = System.nanoTime();
+        }
+
+        final void skipStep() {
+            final StepMetrics step = _currentStep;
+
+            if (step != null) {
+                step._skippedInvocations.incrementAndGet();
+                _currentStep = null;
+            }
+        }
+
+        final boolean reportModified(final boolean modified) {
+            if (_metrics != null && _currentStep != null) {
+                _stepModified = modified || _stepModified == 1 ? 1 : 0;
+            }
+            return modified;
+        }
+
+        final void finish() {
+            if (_metrics == null) {
+                return;
+            }
+
+            endStep();
+            _metrics.recordMethod(_method, System.nanoTime() - _startTime);
+        }
+
+        private void endStep() {
+            final StepMetrics step = _currentStep;
+
+            if (step == null) {
+                return;
+            }
+
+            step._nanos.addAndGet(System.nanoTime() - _stepStartTime);
+            step._invocations.incrementAndGet();
+
+            if (_metrics._trackAllocations) {
+                step._allocatedBytes.addAndGet(currentThreadAllocatedBytes() - _stepStartAllocatedBytes);
+            }
+
+            if (_stepModified != MODIFIED_UNKNOWN) {
+                step._reportingInvocations.incrementAndGet();
+
+                if (_stepModified == 1) {
+                    step._modifyingInvocations.incrementAndGet();
+                }
+            }
+
+            _currentStep = null;
+        }
+    }
+
+    // </editor-fold>
+}
@@ -43,12 +43,45 @@ public final class AstOptimizer {
     }
 
     public static void optimize(final DecompilerContext context, final Block method, final AstOptimizationStep abortBeforeStep) {
+        optimize(context, method, abortBeforeStep, true);
+    }
+
+    /**
+     * With {@code skipIdleSteps} off, every block-level step runs in every round, as it did before
+     * steps were scheduled, so tests can check that scheduling does not change the result.
+     */
+    static void optimize(
+        final DecompilerContext context,
+        final Block method,
+        final AstOptimizationStep abortBeforeStep,
+        final boolean skipIdleSteps) {
+
         VerifyArgument.notNull(context, "context");
         VerifyArgument.notNull(method, "method");
 
+        final AstOptimizationMetrics.Recorder recorder = AstOptimizationMetrics.startRecording(
+            context.getSettings() != null ? context.getSettings().getOptimizationMetrics() : null,
+            context.getCurrentMethod()
+        );
+
+        try {
+            optimize(context, method, abortBeforeStep, recorder, skipIdleSteps);
+        }
+        finally {
+            recorder.finish();
+        }
+    }
+
+    private static void optimize(
+        final DecompilerContext context,
+        final Block method,
+        final AstOptimizationStep abortBeforeStep,
+        final AstOptimizationMetrics.Recorder recorder,
+        final boolean skipIdleSteps) {
+
         LOG.fine("Beginning bytecode AST optimization...");
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode, recorder)) {
             return;
         }
 
@@ -56,7 +89,7 @@ public final class AstOptimizer {
 
         removeRedundantCode(method, context.getSettings());
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceBranchInstructionSet)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceBranchInstructionSet, recorder)) {
             return;
         }
 
@@ -66,7 +99,7 @@ public final class AstOptimizer {
             reduceBranchInstructionSet(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables, recorder)) {
             return;
         }
 
@@ -76,19 +109,19 @@ public final class AstOptimizer {
             inliningPhase1.analyzeMethod();
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.CopyPropagation)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.CopyPropagation, recorder)) {
             return;
         }
 
         inliningPhase1.copyPropagation();
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RewriteFinallyBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RewriteFinallyBlocks, recorder)) {
             return;
         }
 
         rewriteFinallyBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SplitToMovableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SplitToMovableBlocks, recorder)) {
             return;
         }
 
@@ -96,13 +129,13 @@ public final class AstOptimizer {
             optimizer.splitToMovableBlocks(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveUnreachableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveUnreachableBlocks, recorder)) {
             return;
         }
 
         removeUnreachableBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TypeInference)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TypeInference, recorder)) {
             return;
         }
 
@@ -115,6 +148,8 @@ public final class AstOptimizer {
         int blockNumber = 0;
 
         for (final Block block : method.getSelfAndChildrenRecursive(Block.class)) {
+            final StepSchedule schedule = new StepSchedule(recorder, skipIdleSteps);
+
             boolean modified;
             int blockRound = 0;
 
@@ -127,112 +162,154 @@ public final class AstOptimizer {
 
                 modified = false;
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveInnerClassInitSecurityChecks)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveInnerClassInitSecurityChecks, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new RemoveInnerClassInitSecurityChecksOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.RemoveInnerClassInitSecurityChecks)) {
+                    modified |= schedule.completed(runOptimization(block, new RemoveInnerClassInitSecurityChecksOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.PreProcessShortCircuitAssignments)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.PreProcessShortCircuitAssignments, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new PreProcessShortCircuitAssignmentsOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.PreProcessShortCircuitAssignments)) {
+                    modified |= schedule.completed(runOptimization(block, new PreProcessShortCircuitAssignmentsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyShortCircuit)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyShortCircuit, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyShortCircuitOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.SimplifyShortCircuit)) {
+                    modified |= schedule.completed(runOptimization(block, new SimplifyShortCircuitOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.JoinBranchConditions)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.JoinBranchConditions, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new JoinBranchConditionsOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.JoinBranchConditions)) {
+                    modified |= schedule.completed(runOptimization(block, new JoinBranchConditionsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyTernaryOperator)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyTernaryOperator, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyTernaryOperatorOptimization(context, method));
-                modified |= runOptimization(block, new SimplifyTernaryOperatorRoundTwoOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.SimplifyTernaryOperator)) {
+                    modified |= schedule.completed(
+                        runOptimization(block, new SimplifyTernaryOperatorOptimization(context, method)) |
+                        runOptimization(block, new SimplifyTernaryOperatorRoundTwoOptimization(context, method))
+                    );
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.JoinBasicBlocks)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.JoinBasicBlocks, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new JoinBasicBlocksOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.JoinBasicBlocks)) {
+                    modified |= schedule.completed(runOptimization(block, new JoinBasicBlocksOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyLogicalNot)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyLogicalNot, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyLogicalNotOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.SimplifyLogicalNot)) {
+                    modified |= schedule.completed(runOptimization(block, new SimplifyLogicalNotOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TransformObjectInitializers)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TransformObjectInitializers, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new TransformObjectInitializersOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.TransformObjectInitializers)) {
+                    modified |= schedule.completed(runOptimization(block, new TransformObjectInitializersOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TransformArrayInitializers)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TransformArrayInitializers, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= new Inlining(context, method, true).inlineAllInBlock(block);
-                modified |= runOptimization(block, new TransformArrayInitializersOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.TransformArrayInitializers)) {
+                    modified |= schedule.completed(
+                        new Inlining(context, method, true).inlineAllInBlock(block) |
+                        runOptimization(block, new TransformArrayInitializersOptimization(context, method))
+                    );
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.IntroducePostIncrement)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.IntroducePostIncrement, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new IntroducePostIncrementOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.IntroducePostIncrement)) {
+                    modified |= schedule.completed(runOptimization(block, new IntroducePostIncrementOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineConditionalAssignments)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineConditionalAssignments, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new InlineConditionalAssignmentsOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.InlineConditionalAssignments)) {
+                    modified |= schedule.completed(runOptimization(block, new InlineConditionalAssignmentsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.MakeAssignmentExpressions)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.MakeAssignmentExpressions, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new MakeAssignmentExpressionsOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.MakeAssignmentExpressions)) {
+                    modified |= schedule.completed(runOptimization(block, new MakeAssignmentExpressionsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineLambdas)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineLambdas, recorder)) {
                     return;
                 }
 
-                modified |= runOptimization(block, new InlineLambdasOptimization(context, method));
+                if (schedule.needsRun(AstOptimizationStep.InlineLambdas)) {
+                    modified |= schedule.completed(runOptimization(block, new InlineLambdasOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables2)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables2, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= new Inlining(context, method, true).inlineAllInBlock(block);
-                new Inlining(context, method).copyPropagation();
+                if (schedule.needsRun(AstOptimizationStep.InlineVariables2)) {
+                    final boolean inlined = new Inlining(context, method, true).inlineAllInBlock(block);
+
+                    //
+                    // Copy propagation never triggers another round by itself, but the other steps
+                    // still need to see what it changed.
+                    //
+                    final boolean propagated = new Inlining(context, method).copyPropagation();
+
+                    schedule.completed(inlined | propagated);
+                    modified |= inlined;
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.MergeDisparateObjectInitializations)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.MergeDisparateObjectInitializations, recorder)) {
                     done = true;
                     break;
                 }
 
-                modified |= mergeDisparateObjectInitializations(context, block);
+                if (schedule.needsRun(AstOptimizationStep.MergeDisparateObjectInitializations)) {
+                    modified |= schedule.completed(mergeDisparateObjectInitializations(context, block));
+                }
             }
             while (modified);
         }
@@ -241,7 +318,7 @@ public final class AstOptimizer {
             return;
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FindLoops)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FindLoops, recorder)) {
             return;
         }
 
@@ -249,7 +326,7 @@ public final class AstOptimizer {
             new LoopsAndConditions(context).findLoops(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FindConditions)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FindConditions, recorder)) {
             return;
         }
 
@@ -257,57 +334,57 @@ public final class AstOptimizer {
             new LoopsAndConditions(context).findConditions(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FlattenNestedMovableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FlattenNestedMovableBlocks, recorder)) {
             return;
         }
 
         flattenBasicBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode2, recorder)) {
             return;
         }
 
         removeRedundantCode(method, context.getSettings());
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.GotoRemoval)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.GotoRemoval, recorder)) {
             return;
         }
 
-        new GotoRemoval().removeGotos(method);
+        new GotoRemoval(context).removeGotos(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.DuplicateReturns)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.DuplicateReturns, recorder)) {
             return;
         }
 
         duplicateReturnStatements(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceIfNesting)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceIfNesting, recorder)) {
             return;
         }
 
         reduceIfNesting(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.GotoRemoval2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.GotoRemoval2, recorder)) {
             return;
         }
 
-        new GotoRemoval().removeGotos(method);
+        new GotoRemoval(context).removeGotos(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceComparisonInstructionSet)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceComparisonInstructionSet, recorder)) {
             return;
         }
 
-        for (final Expression e : method.getChildrenAndSelfRecursive(Expression.class)) {
+        for (final Expression e : method.childrenAndSelfRecursive(Expression.class)) {
             reduceComparisonInstructionSet(e);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RecombineVariables)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RecombineVariables, recorder)) {
             return;
         }
 
         recombineVariables(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode3)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode3, recorder)) {
             return;
         }
 
@@ -317,7 +394,7 @@ public final class AstOptimizer {
             GotoRemoval.OPTION_REMOVE_REDUNDANT_RETURNS
         );
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.CleanUpTryBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.CleanUpTryBlocks, recorder)) {
             return;
         }
 
@@ -328,7 +405,7 @@ public final class AstOptimizer {
         // introduction of ternary operators may open up additional inlining possibilities.
         //
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables3)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables3, recorder)) {
             return;
         }
 
@@ -336,7 +413,7 @@ public final class AstOptimizer {
 
         inliningPhase3.inlineAllVariables();
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TypeInference2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TypeInference2, recorder)) {
             return;
         }
 
@@ -346,11 +423,18 @@ public final class AstOptimizer {
         LOG.fine("Finished bytecode AST optimization.");
     }
 
-    private static boolean shouldPerformStep(final AstOptimizationStep abortBeforeStep, final AstOptimizationStep nextStep) {
+    private static boolean shouldPerformStep(
+        final DecompilerContext context,
+        final AstOptimizationStep abortBeforeStep,
+        final AstOptimizationStep nextStep,
+        final AstOptimizationMetrics.Recorder recorder) {
+
         if (abortBeforeStep == nextStep) {
             return false;
         }
 
+        context.checkCanceled();
+
         if (nextStep.isBlockLevelOptimization()) {
             if (LOG.isLoggable(Level.FINER)) {
                 LOG.finer("Performing block-level optimization: " + nextStep + ".");
@@ -362,6 +446,7 @@ public final class AstOptimizer {
             }
         }
 
+        recorder.beginStep(nextStep);
         return true;
     }
 
@@ -386,13 +471,13 @@ public final class AstOptimizer {
             }
         );
 
-        for (final BasicBlock basicBlock : method.getChildrenAndSelfRecursive(BasicBlock.class)) {
-            for (final Label label : basicBlock.getChildrenAndSelfRecursive(Label.class)) {
+        for (final BasicBlock basicBlock : method.childrenAndSelfRecursive(BasicBlock.class)) {
+            for (final Label label : basicBlock.childrenAndSelfRecursive(Label.class)) {
                 embeddedLabels.get(basicBlock).add(label);
             }
         }
 
-        for (final Expression e : method.getChildrenAndSelfRecursive(Expression.class)) {
+        for (final Expression e : method.childrenAndSelfRecursive(Expression.class)) {
             if (e.getOperand() instanceof Label) {
                 liveLabels.add((Label) e.getOperand());
             }
@@ -580,7 +665,7 @@ public final class AstOptimizer {
                                     lockCopies.add(lockInfo.lockCopy);
                                 }
 
-                                for (final Expression e : tryCatch.getChildrenAndSelfRecursive(Expression.class)) {
+                                for (final Expression e : tryCatch.childrenAndSelfRecursive(Expression.class)) {
                                     if (matchLoadAny(e, lockCopies)) {
                                         e.setOperand(lockInfo.lock);
                                     }
@@ -735,7 +820,7 @@ public final class AstOptimizer {
         final List<Expression> lockAccesses = new ArrayList<>();
         final Set<Expression> lockAccessLoads = new HashSet<>();
 
-        for (final Expression e : owner.getSelfAndChildrenRecursive(Expression.class)) {
+        for (final Expression e : owner.selfAndChildrenRecursive(Expression.class)) {
             if (matchLoad(e, lockInfo.lock) && !lockAccessLoads.contains(e)) {
 
                 //
@@ -779,17 +864,11 @@ public final class AstOptimizer {
     static void removeRedundantCode(final Block method, final DecompilerSettings settings) {
         final Map<Label, MutableInteger> labelReferenceCount = new IdentityHashMap<>();
 
-        final List<Expression> branchExpressions = method.getSelfAndChildrenRecursive(
-            Expression.class,
-            new Predicate<Expression>() {
-                @Override
-                public boolean test(final Expression e) {
-                    return e.isBranch();
-                }
+        for (final Expression e : method.selfAndChildrenRecursive(Expression.class)) {
+            if (!e.isBranch()) {
+                continue;
             }
-        );
 
-        for (final Expression e : branchExpressions) {
             for (final Label branchTarget : e.getBranchTargets()) {
                 final MutableInteger referenceCount = labelReferenceCount.get(branchTarget);
 
@@ -2584,14 +2663,16 @@ public final class AstOptimizer {
 
         parentLookup.put(method, Node.NULL);
 
-        for (final Node node : method.getSelfAndChildrenRecursive(Node.class)) {
+        for (final Node node : method.selfAndChildrenRecursive(Node.class)) {
             if (matchStore(node, variable, args) &&
                 match(single(args), AstCode.__New)) {
 
                 newExpressions.put(variable.get(), (Expression) node);
             }
 
-            for (final Node child : node.getChildren()) {
+            for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                final Node child = node.getChild(i);
+
                 if (parentLookup.containsKey(child)) {
                     throw Error.expressionLinkedFromMultipleLocations(child);
                 }
@@ -2783,6 +2864,8 @@ public final class AstOptimizer {
             final List<Expression> a = new ArrayList<>();
             final StrongBox<TypeReference> arrayType = new StrongBox<>();
 
+            boolean modified = false;
+
             if (matchGetArguments(head, AstCode.Store, v, a) &&
                 matchGetArguments(a.get(0), AstCode.InitArray, arrayType, a)) {
 
@@ -2804,6 +2887,7 @@ public final class AstOptimizer {
 
                         initializers.set(arrayPosition.get(), a.get(2));
                         body.remove(j--);
+                        modified = true;
                     }
                     else {
                         break;
@@ -2811,7 +2895,10 @@ public final class AstOptimizer {
                 }
             }
 
-            return false;
+            //
+            // Report the refinement; the step schedule relies on it to know that later steps need to run again.
+            //
+            return modified;
         }
     }
 
@@ -3483,7 +3570,7 @@ public final class AstOptimizer {
 
             boolean modified = false;
 
-            for (final Expression e : head.getChildrenAndSelfRecursive(Expression.class)) {
+            for (final Expression e : head.childrenAndSelfRecursive(Expression.class)) {
                 if (matchGetArguments(e, AstCode.InvokeDynamic, c, a)) {
                     final Lambda lambda = tryInlineLambda(e, c.value);
 
@@ -3600,7 +3687,7 @@ public final class AstOptimizer {
                 nodes.addAll(AstBuilder.build(methodBody, true, innerContext));
                 body.getBody().addAll(nodes);
 
-                for (final Expression e : body.getSelfAndChildrenRecursive(Expression.class)) {
+                for (final Expression e : body.selfAndChildrenRecursive(Expression.class)) {
                     final Object operand = e.getOperand();
 
                     if (operand instanceof Variable) {
@@ -3623,7 +3710,7 @@ public final class AstOptimizer {
                 final int lambdaId = _lambdaCount.increment().getValue();
                 final Set<Label> renamedLabels = new HashSet<>();
 
-                for (final Node n : body.getSelfAndChildrenRecursive()) {
+                for (final Node n : body.selfAndChildrenRecursive(Node.class)) {
                     if (n instanceof Label) {
                         final Label label = (Label) n;
                         if (renamedLabels.add(label)) {
@@ -3663,7 +3750,7 @@ public final class AstOptimizer {
 
                 final List<Range> ranges = site.getRanges();
 
-                for (final Expression e : lambda.getSelfAndChildrenRecursive(Expression.class)) {
+                for (final Expression e : lambda.selfAndChildrenRecursive(Expression.class)) {
                     ranges.addAll(e.getRanges());
                 }
 
@@ -3813,7 +3900,7 @@ public final class AstOptimizer {
             this.resolver = context.getCurrentType().getResolver();
             this.method = VerifyArgument.notNull(method, "method");
 
-            for (final Expression e : method.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : method.selfAndChildrenRecursive(Expression.class)) {
                 if (e.isBranch()) {
                     for (final Label target : e.getBranchTargets()) {
                         labelGlobalRefCount.get(target).increment();
@@ -3821,8 +3908,8 @@ public final class AstOptimizer {
                 }
             }
 
-            for (final BasicBlock basicBlock : method.getSelfAndChildrenRecursive(BasicBlock.class)) {
-                for (final Node child : basicBlock.getChildren()) {
+            for (final BasicBlock basicBlock : method.selfAndChildrenRecursive(BasicBlock.class)) {
+                for (final Node child : basicBlock.getBody()) {
                     if (child instanceof Label) {
                         labelToBasicBlock.put((Label) child, basicBlock);
                     }
@@ -3844,6 +3931,50 @@ public final class AstOptimizer {
         }
     }
 
+    /**
+     * Decides which block-level steps need to run in the next round.  Every step is a deterministic
+     * function of the method's AST, so a step which last ran without changing anything will not change
+     * anything now, unless some other step has modified the AST since.  Skipping those steps avoids
+     * re-running every pass over the whole method just to confirm that a fixed point was reached.
+     */
+    final static class StepSchedule {
+        private final AstOptimizationMetrics.Recorder _recorder;
+        private final boolean _skipIdleSteps;
+        private final int[] _idleVersions;
+
+        private int _version;
+        private AstOptimizationStep _currentStep;
+
+        StepSchedule(final AstOptimizationMetrics.Recorder recorder, final boolean skipIdleSteps) {
+            _recorder = recorder;
+            _skipIdleSteps = skipIdleSteps;
+            _idleVersions = new int[AstOptimizationStep.values().length];
+
+            Arrays.fill(_idleVersions, -1);
+        }
+
+        final boolean needsRun(final AstOptimizationStep step) {
+            if (_skipIdleSteps && _idleVersions[step.ordinal()] == _version) {
+                _recorder.skipStep();
+                return false;
+            }
+
+            _currentStep = step;
+            return true;
+        }
+
+        final boolean completed(final boolean modified) {
+            if (modified) {
+                ++_version;
+            }
+            else {
+                _idleVersions[_currentStep.ordinal()] = _version;
+            }
+
+            return _recorder.reportModified(modified);
+        }
+    }
+
     private static boolean runOptimization(final Block block, final BasicBlockOptimization optimization) {
         boolean modified = false;
 
@@ -4176,7 +4307,7 @@ public final class AstOptimizer {
     }
 
     static boolean references(final Node node, final Variable v) {
-        for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
+        for (final Expression e : node.selfAndChildrenRecursive(Expression.class)) {
             if (matchLoad(e, v)) {
                 return true;
             }
@@ -4185,7 +4316,7 @@ public final class AstOptimizer {
     }
 
     private static boolean containsMatch(final Node node, final Expression pattern) {
-        for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
+        for (final Expression e : node.selfAndChildrenRecursive(Expression.class)) {
             if (e.isEquivalentTo(pattern)) {
                 return true;
             }
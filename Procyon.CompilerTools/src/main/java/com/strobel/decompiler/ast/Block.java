@@ -71,6 +71,20 @@ public class Block extends Node {
         return childrenCopy;
     }
 
+    @Override
+    public final int getChildCount() {
+        return _body.size() + (_entryGoto != null ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        if (_entryGoto != null) {
+            return index == 0 ? _entryGoto : _body.get(index - 1);
+        }
+
+        return _body.get(index);
+    }
+
     @Override
     public void writeTo(final ITextOutput output) {
         final List<Node> children = getChildren();
@@ -75,6 +75,32 @@ public final class Condition extends Node {
         return ArrayUtilities.asUnmodifiableList(children);
     }
 
+    @Override
+    public final int getChildCount() {
+        return (_condition != null ? 1 : 0) +
+               (_trueBlock != null ? 1 : 0) +
+               (_falseBlock != null ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        int i = index;
+
+        if (_condition != null && i-- == 0) {
+            return _condition;
+        }
+
+        if (_trueBlock != null && i-- == 0) {
+            return _trueBlock;
+        }
+
+        if (_falseBlock != null && i == 0) {
+            return _falseBlock;
+        }
+
+        throw new IndexOutOfBoundsException("index");
+    }
+
     @Override
     public final void writeTo(final ITextOutput output) {
         output.writeKeyword("if");
@@ -170,6 +170,26 @@ public final class Expression extends Node implements Cloneable, UserDataStore {
         return childrenCopy;
     }
 
+    @Override
+    public final int getChildCount() {
+        return _arguments.size() + (_operand instanceof Lambda ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        final int argumentCount = _arguments.size();
+
+        if (index < argumentCount) {
+            return _arguments.get(index);
+        }
+
+        if (index == argumentCount && _operand instanceof Lambda) {
+            return (Node) _operand;
+        }
+
+        throw new IndexOutOfBoundsException("index");
+    }
+
     public final boolean containsReferenceTo(final Variable variable) {
         if (_operand == variable) {
             return true;
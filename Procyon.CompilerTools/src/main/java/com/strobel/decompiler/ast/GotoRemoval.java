@@ -20,6 +20,7 @@ import com.strobel.annotations.NotNull;
 import com.strobel.core.CollectionUtilities;
 import com.strobel.core.StrongBox;
 import com.strobel.core.VerifyArgument;
+import com.strobel.decompiler.DecompilerContext;
 import com.strobel.util.ContractUtils;
 
 import java.util.*;
@@ -38,13 +39,23 @@ final class GotoRemoval {
     final Map<Node, Node> parentLookup = new IdentityHashMap<>();
     final Map<Node, Node> nextSibling = new IdentityHashMap<>();
 
+    final DecompilerContext context;
     final int options;
 
     GotoRemoval() {
-        this(0);
+        this(null, 0);
+    }
+
+    GotoRemoval(final DecompilerContext context) {
+        this(context, 0);
     }
 
     GotoRemoval(final int options) {
+        this(null, options);
+    }
+
+    GotoRemoval(final DecompilerContext context, final int options) {
+        this.context = context;
         this.options = options;
     }
 
@@ -63,6 +74,7 @@ final class GotoRemoval {
 
             for (final Expression e : method.getSelfAndChildrenRecursive(Expression.class)) {
                 if (e.getCode() == AstCode.Goto) {
+                    checkCanceled();
                     modified |= trySimplifyGoto(e);
                 }
             }
@@ -72,6 +84,12 @@ final class GotoRemoval {
         removeRedundantCodeCore(method);
     }
 
+    private void checkCanceled() {
+        if (context != null) {
+            context.checkCanceled();
+        }
+    }
+
     private void traverseGraph(final Block method) {
         labels.clear();
         labelLookup.clear();
@@ -80,10 +98,12 @@ final class GotoRemoval {
 
         parentLookup.put(method, Node.NULL);
 
-        for (final Node node : method.getSelfAndChildrenRecursive(Node.class)) {
+        for (final Node node : method.selfAndChildrenRecursive(Node.class)) {
             Node previousChild = null;
 
-            for (final Node child : node.getChildren()) {
+            for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                final Node child = node.getChild(i);
+
                 if (parentLookup.containsKey(child)) {
                     throw Error.expressionLinkedFromMultipleLocations(child);
                 }
@@ -20,7 +20,6 @@ import com.strobel.annotations.NotNull;
 import com.strobel.assembler.metadata.MetadataHelper;
 import com.strobel.core.CollectionUtilities;
 import com.strobel.core.MutableInteger;
-import com.strobel.core.Predicate;
 import com.strobel.core.StrongBox;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.util.ContractUtils;
@@ -302,29 +301,23 @@ final class Inlining {
             final List<Expression> parentArguments = parent.get().getArguments();
             final Map<Expression, Expression> parentLookup = new IdentityHashMap<>();
 
-            for (final Expression node : next.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression node : next.selfAndChildrenRecursive(Expression.class)) {
                 for (final Expression child : node.getArguments()) {
                     parentLookup.put(child, node);
                 }
             }
 
-            final List<Expression> nestedAssignments = inlinedExpression.getSelfAndChildrenRecursive(
-                Expression.class,
-                new Predicate<Expression>() {
-                    @Override
-                    public boolean test(final Expression node) {
-                        return node.getCode() == AstCode.Store;
-                    }
-                }
-            );
-
             //
             // Make sure we do not inline an initialization expression into the left-hand side of an assignment
             // whose value references the initialized variable.  For example, do not allow inlining in this case:
             //
             //     v = (x = y); v.f = x.f - 1 => (x = y).f = x.f - 1
             //
-            for (final Expression assignment : nestedAssignments) {
+            for (final Expression assignment : inlinedExpression.selfAndChildrenRecursive(Expression.class)) {
+                if (assignment.getCode() != AstCode.Store) {
+                    continue;
+                }
+
                 Expression lastParent = parentArguments.get(position.getValue());
 
                 for (final Expression e : getParents((Expression) n, parentLookup, parentArguments.get(position.getValue()))) {
@@ -473,7 +466,7 @@ final class Inlining {
             case Load: {
                 final Variable loadedVariable = (Variable) expression.getOperand();
 
-                for (final Expression potentialStore : expressionBeingMoved.getSelfAndChildrenRecursive(Expression.class)) {
+                for (final Expression potentialStore : expressionBeingMoved.selfAndChildrenRecursive(Expression.class)) {
                     if (matchVariableMutation(potentialStore, loadedVariable)) {
                         return false;
                     }
@@ -633,7 +626,9 @@ final class Inlining {
     // <editor-fold defaultstate="collapsed" desc="Copy Propagation">
 
     @SuppressWarnings("ConstantConditions")
-    final void copyPropagation() {
+    final boolean copyPropagation() {
+        boolean modified = false;
+
         for (final Block block : _method.getSelfAndChildrenRecursive(Block.class)) {
             final List<Node> body = block.getBody();
 
@@ -668,7 +663,7 @@ final class Inlining {
                     // Perform copy propagation.
                     //
 
-                    for (final Expression expression : _method.getSelfAndChildrenRecursive(Expression.class)) {
+                    for (final Expression expression : _method.selfAndChildrenRecursive(Expression.class)) {
                         if (expression.getCode().isLoad() &&
                             expression.getOperand() == variable.get()) {
 
@@ -696,9 +691,12 @@ final class Inlining {
                     inlineInto(body, i, _aggressive);
 
                     i -= uninlinedArgs.length + 1;
+                    modified = true;
                 }
             }
         }
+
+        return modified;
     }
 
     final boolean canPerformCopyPropagation(final Expression expr, final Variable copyVariable) {
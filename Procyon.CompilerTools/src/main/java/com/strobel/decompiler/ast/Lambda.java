@@ -108,6 +108,20 @@ public class Lambda extends Node {
                              : Collections.<Node>emptyList();
     }
 
+    @Override
+    public int getChildCount() {
+        return _body != null ? 1 : 0;
+    }
+
+    @Override
+    public Node getChild(final int index) {
+        if (index == 0 && _body != null) {
+            return _body;
+        }
+
+        throw new IndexOutOfBoundsException("index");
+    }
+
     @Override
     public final void writeTo(final ITextOutput output) {
         output.write("(");
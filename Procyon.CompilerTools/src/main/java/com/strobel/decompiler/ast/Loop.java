@@ -67,6 +67,28 @@ public final class Loop extends Node {
         return ArrayUtilities.asUnmodifiableList(_condition, _body);
     }
 
+    @Override
+    public final int getChildCount() {
+        return (_condition != null ? 1 : 0) + (_body != null ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        if (_condition != null) {
+            if (index == 0) {
+                return _condition;
+            }
+            if (index == 1 && _body != null) {
+                return _body;
+            }
+        }
+        else if (index == 0 && _body != null) {
+            return _body;
+        }
+
+        throw new IndexOutOfBoundsException("index");
+    }
+
     @Override
     public final void writeTo(final ITextOutput output) {
         if (_condition != null) {
@@ -37,7 +37,6 @@ import static com.strobel.decompiler.ast.PatternMatching.*;
 
 final class LoopsAndConditions {
     private final Map<Label, ControlFlowNode> labelsToNodes = new IdentityHashMap<>();
-    @SuppressWarnings({ "FieldCanBeLocal", "UnusedDeclaration" })
     private final DecompilerContext context;
 
     private int _nextLabelIndex;
@@ -127,7 +126,7 @@ final class LoopsAndConditions {
             //
             // Find all contained labels.
             //
-            for (final Label label : node.getSelfAndChildrenRecursive(Label.class)) {
+            for (final Label label : node.selfAndChildrenRecursive(Label.class)) {
                 labelsToNodes.put(label, cfNode);
             }
         }
@@ -149,7 +148,7 @@ final class LoopsAndConditions {
             // Find all branches.
             //
 
-            for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : node.selfAndChildrenRecursive(Expression.class)) {
                 if (!e.isBranch()) {
                     continue;
                 }
@@ -253,6 +252,8 @@ final class LoopsAndConditions {
         agenda.addLast(entryPoint);
 
         while (!agenda.isEmpty()) {
+            context.checkCanceled();
+
             final ControlFlowNode node = agenda.pollFirst();
 
             //
@@ -592,7 +593,7 @@ final class LoopsAndConditions {
         for (final ControlFlowNode node : contents) {
             final BasicBlock basicBlock = (BasicBlock) node.getUserData();
 
-            for (final Expression e : basicBlock.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : basicBlock.selfAndChildrenRecursive(Expression.class)) {
                 for (final Label target : e.getBranchTargets()) {
                     final ControlFlowNode targetNode = labelsToNodes.get(target);
 
@@ -631,7 +632,7 @@ final class LoopsAndConditions {
         for (final ControlFlowNode node : nodes) {
             final BasicBlock basicBlock = (BasicBlock) node.getUserData();
 
-            for (final Expression e : basicBlock.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : basicBlock.selfAndChildrenRecursive(Expression.class)) {
                 if (e != ignore && e.getBranchTargets().contains(target)) {
                     ++jumpCount;
                 }
@@ -700,6 +701,8 @@ final class LoopsAndConditions {
         agenda.push(entryNode);
 
         while (!agenda.isEmpty()) {
+            context.checkCanceled();
+
             final ControlFlowNode node = agenda.pop();
 
             if (node == null) {
@@ -57,6 +57,39 @@ public abstract class Node {
         return Collections.emptyList();
     }
 
+    /**
+     * Returns the number of children of this node.  Together with {@link #getChild(int)}, this allows
+     * the children to be enumerated without copying them into a new list, as {@link #getChildren()} does.
+     */
+    public int getChildCount() {
+        return getChildren().size();
+    }
+
+    public Node getChild(final int index) {
+        return getChildren().get(index);
+    }
+
+    /**
+     * Returns a cursor over this node and its descendants of the given type, in pre-order.  Unlike
+     * {@link #getSelfAndChildrenRecursive(Class)}, no result list is built; nodes are found as the
+     * cursor advances, so breaking out of a loop early skips the rest of the traversal.
+     *
+     * @see NodeCursor
+     */
+    public final <T extends Node> NodeCursor<T> selfAndChildrenRecursive(final Class<T> type) {
+        return new NodeCursor<>(this, type, false);
+    }
+
+    /**
+     * Returns a cursor over this node and its descendants of the given type, in post-order.  Unlike
+     * {@link #getChildrenAndSelfRecursive(Class)}, no result list is built.
+     *
+     * @see NodeCursor
+     */
+    public final <T extends Node> NodeCursor<T> childrenAndSelfRecursive(final Class<T> type) {
+        return new NodeCursor<>(this, type, true);
+    }
+
     public final List<Node> getSelfAndChildrenRecursive() {
         final ArrayList<Node> results = new ArrayList<>();
         accumulateSelfAndChildrenRecursive(results, Node.class, null, false);
@@ -118,8 +151,8 @@ public abstract class Node {
             }
         }
 
-        for (final Node child : getChildren()) {
-            child.accumulateSelfAndChildrenRecursive(list, type, predicate, childrenFirst);
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            getChild(i).accumulateSelfAndChildrenRecursive(list, type, predicate, childrenFirst);
         }
 
         if (childrenFirst) {
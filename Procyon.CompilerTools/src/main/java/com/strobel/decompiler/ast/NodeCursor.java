@@ -0,0 +1,152 @@
+/*
+ * NodeCursor.java
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.ast;
+
+import com.strobel.core.VerifyArgument;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An incremental, depth-first traversal of a node and its descendants, yielding only nodes of a given
+ * type.  The cursor keeps an explicit stack of the nodes being visited and walks their children through
+ * {@link Node#getChildCount()} and {@link Node#getChild(int)}, so no intermediate lists are allocated.
+ * <p>
+ * The traversal is live: a node's children are read only once the cursor moves past that node.  Callers
+ * may update the attributes of the nodes they are given (inferred types, operands, and so on), but must
+ * not add or remove children of nodes which are still being traversed; use
+ * {@link Node#getSelfAndChildrenRecursive(Class)} for passes which restructure the tree.
+ * <p>
+ * A cursor may only be enumerated once.
+ */
+public final class NodeCursor<T extends Node> implements Iterator<T>, Iterable<T> {
+    private final static int INITIAL_DEPTH = 16;
+
+    private final Class<T> _type;
+    private final boolean _childrenFirst;
+
+    private Node[] _nodes;
+    private int[] _indices;
+    private int _depth;
+    private T _next;
+    private boolean _enumerated;
+
+    NodeCursor(final Node root, final Class<T> type, final boolean childrenFirst) {
+        VerifyArgument.notNull(root, "root");
+
+        _type = VerifyArgument.notNull(type, "type");
+        _childrenFirst = childrenFirst;
+        _nodes = new Node[INITIAL_DEPTH];
+        _indices = new int[INITIAL_DEPTH];
+
+        push(root);
+    }
+
+    /**
+     * Returns the first remaining node of the requested type, or {@code null} if there is none.
+     */
+    public final T firstOrDefault() {
+        return hasNext() ? next() : null;
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        if (_enumerated) {
+            throw new IllegalStateException("A NodeCursor may only be enumerated once.");
+        }
+
+        _enumerated = true;
+        return this;
+    }
+
+    @Override
+    public final boolean hasNext() {
+        if (_next == null) {
+            _next = advance();
+        }
+        return _next != null;
+    }
+
+    @Override
+    public final T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final T next = _next;
+
+        _next = null;
+        return next;
+    }
+
+    @Override
+    public final void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T advance() {
+        while (_depth > 0) {
+            final int top = _depth - 1;
+            final Node node = _nodes[top];
+            final int index = _indices[top];
+
+            if (index < 0) {
+                //
+                // First visit to this node; yield it now if we're traversing in pre-order.
+                //
+                _indices[top] = 0;
+
+                if (!_childrenFirst && _type.isInstance(node)) {
+                    return (T) node;
+                }
+
+                continue;
+            }
+
+            if (index < node.getChildCount()) {
+                _indices[top] = index + 1;
+                push(node.getChild(index));
+                continue;
+            }
+
+            _nodes[--_depth] = null;
+
+            if (_childrenFirst && _type.isInstance(node)) {
+                return (T) node;
+            }
+        }
+
+        return null;
+    }
+
+    private void push(final Node node) {
+        if (_depth == _nodes.length) {
+            final int newLength = _depth * 2;
+            final Node[] nodes = new Node[newLength];
+            final int[] indices = new int[newLength];
+
+            System.arraycopy(_nodes, 0, nodes, 0, _depth);
+            System.arraycopy(_indices, 0, indices, 0, _depth);
+
+            _nodes = nodes;
+            _indices = indices;
+        }
+
+        _nodes[_depth] = node;
+        _indices[_depth] = -1;
+        _depth++;
+    }
+}
@@ -110,7 +110,7 @@ public final class TypeAnalysis {
         final boolean preserveTypesFromMetadata = localVariableTable != null;
         final boolean preserveGenericTypesFromMetadata = localVariableTypeTable != null;
 
-        for (final Expression e : method.getSelfAndChildrenRecursive(Expression.class)) {
+        for (final Expression e : method.selfAndChildrenRecursive(Expression.class)) {
             e.setInferredType(null);
             e.setExpectedType(null);
 
@@ -305,7 +305,7 @@ public final class TypeAnalysis {
             if (expressions.size() == 1) {
                 int references = 0;
 
-                for (final Expression expression : expressions.get(0).expression.getSelfAndChildrenRecursive(Expression.class)) {
+                for (final Expression expression : expressions.get(0).expression.selfAndChildrenRecursive(Expression.class)) {
                     if (expression.getOperand() == variable &&
                         ++references > 1) {
 
@@ -355,6 +355,8 @@ public final class TypeAnalysis {
         };
 
         while (numberOfExpressionsAlreadyInferred < _allExpressions.size()) {
+            _context.checkCanceled();
+
             final int oldCount = numberOfExpressionsAlreadyInferred;
 
             for (final ExpressionToInfer e : _allExpressions) {
@@ -564,7 +566,7 @@ public final class TypeAnalysis {
 
                         boolean invalidate = false;
 
-                        for (final Expression c : e.expression.getSelfAndChildrenRecursive(Expression.class)) {
+                        for (final Expression c : e.expression.selfAndChildrenRecursive(Expression.class)) {
                             if (_stack.contains(c)) {
                                 continue;
                             }
@@ -733,7 +735,7 @@ public final class TypeAnalysis {
 
                 boolean invalidate = false;
 
-                for (final Expression c : e.expression.getSelfAndChildrenRecursive(Expression.class)) {
+                for (final Expression c : e.expression.selfAndChildrenRecursive(Expression.class)) {
                     if (_stack.contains(c)) {
                         continue;
                     }
@@ -16,6 +16,11 @@ public class TypeDecompilationResults {
      */
     private final List<LineNumberPosition> _lineNumberPositions;
 
+    /**
+     * whether any method was replaced with a stub after exceeding its time budget
+     */
+    private final boolean _hasTimedOutMethods;
+
     /**
      * Constructs decompilation results.
      *
@@ -24,7 +29,32 @@ public class TypeDecompilationResults {
      *     decompilation target language does not support line numbers.
      */
     public TypeDecompilationResults(@Nullable final List<LineNumberPosition> lineNumberPositions) {
+        this(lineNumberPositions, false);
+    }
+
+    /**
+     * Constructs decompilation results.
+     *
+     * @param lineNumberPositions
+     *     the mapping of original to decompiled line numbers, or <code>null</code> if the
+     *     decompilation target language does not support line numbers.
+     * @param hasTimedOutMethods
+     *     whether any method was replaced with a stub after exceeding its time budget.
+     */
+    public TypeDecompilationResults(
+        @Nullable final List<LineNumberPosition> lineNumberPositions,
+        final boolean hasTimedOutMethods) {
+
         _lineNumberPositions = lineNumberPositions;
+        _hasTimedOutMethods = hasTimedOutMethods;
+    }
+
+    /**
+     * Returns whether any method was replaced with a stub after exceeding its time budget.  Such
+     * output depends on timing, so it may differ from one decompilation to the next.
+     */
+    public boolean hasTimedOutMethods() {
+        return _hasTimedOutMethods;
     }
 
     /**
@@ -59,7 +59,10 @@ public class JavaLanguage extends Language {
         final AstBuilder astBuilder = buildAst(type, options);
         final List<LineNumberPosition> lineNumberPositions = astBuilder.generateCode(output);
 
-        return new TypeDecompilationResults(lineNumberPositions);
+        return new TypeDecompilationResults(
+            lineNumberPositions,
+            !astBuilder.getContext().getTimedOutMethods().isEmpty()
+        );
     }
 
     public CompilationUnit decompileTypeToAst(final TypeDefinition type, final DecompilationOptions options) {
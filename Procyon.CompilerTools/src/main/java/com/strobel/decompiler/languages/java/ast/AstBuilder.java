@@ -43,13 +43,20 @@ import javax.lang.model.element.Modifier;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public final class AstBuilder {
+    private final static int MIN_PARALLEL_METHOD_BODIES = 4;
+
     private final DecompilerContext _context;
     private final CompilationUnit _compileUnit = new CompilationUnit();
     private final Map<String, Reference<TypeDeclaration>> _typeDeclarations = new LinkedHashMap<>();
     private final Map<String, String> _unqualifiedTypeNames = new LinkedHashMap<>();
     private final TextNode _packagePlaceholder;
+    private final Map<MethodDefinition, AstMethodBodyBuilder.PreparedMethodBody> _preparedMethodBodies = new IdentityHashMap<>();
 
     private boolean _decompileMethodBodies = true;
     private boolean _haveTransformationsRun;
@@ -78,7 +85,7 @@ public final class AstBuilder {
         }
     }
 
-    final DecompilerContext getContext() {
+    public final DecompilerContext getContext() {
         return _context;
     }
 
@@ -544,14 +551,24 @@ public final class AstBuilder {
             astType.addChild(createField(field), Roles.TYPE_MEMBER);
         }
 
-        for (final MethodDefinition method : type.getDeclaredMethods()) {
-            if (method.isConstructor()) {
-                astType.addChild(createConstructor(method), Roles.TYPE_MEMBER);
-            }
-            else {
-                astType.addChild(createMethod(method), Roles.TYPE_MEMBER);
+        prepareMethodBodies(type);
+
+        try {
+            for (final MethodDefinition method : type.getDeclaredMethods()) {
+                if (method.isConstructor()) {
+                    astType.addChild(createConstructor(method), Roles.TYPE_MEMBER);
+                }
+                else {
+                    astType.addChild(createMethod(method), Roles.TYPE_MEMBER);
+                }
             }
         }
+        finally {
+            //
+            // Drop bodies which were never picked up (e.g., because building the type failed).
+            //
+            _preparedMethodBodies.keySet().removeAll(type.getDeclaredMethods());
+        }
 
         final List<TypeDefinition> nestedTypes = new ArrayList<>();
 
@@ -577,6 +594,101 @@ public final class AstBuilder {
         }
     }
 
+    /**
+     * If a method body pool is configured, builds and optimizes the bytecode ASTs of the type's method
+     * bodies on that pool before any of them is converted to a Java AST.  The conversion still happens
+     * one method at a time, in declaration order, as {@link AstMethodBodyBuilder} picks up each prepared
+     * body.  Bodies are loaded here, up front, so the tasks need not load anything; a method whose task
+     * would have had to load metadata, or failed for any other reason, is built from scratch when its
+     * turn comes, so the output is the same as without a pool.
+     */
+    private void prepareMethodBodies(final TypeDefinition type) {
+        final ForkJoinPool pool = _context.getSettings().getMethodBodyPool();
+
+        if (pool == null || !_decompileMethodBodies || hasEvictingResolver(type)) {
+            return;
+        }
+
+        final List<Callable<AstMethodBodyBuilder.PreparedMethodBody>> tasks = new ArrayList<>();
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            if (!hasMethodBody(method)) {
+                continue;
+            }
+
+            final MethodBody body;
+
+            try {
+                body = method.getBody();
+            }
+            catch (final Throwable ignored) {
+                //
+                // Leave it to the serial pass to report the failure.
+                //
+                continue;
+            }
+
+            if (body != null) {
+                tasks.add(AstMethodBodyBuilder.createPrepareTask(method, body, _context));
+            }
+        }
+
+        //
+        // Forking isn't worth it for the handful of methods most types have.
+        //
+        if (tasks.size() < MIN_PARALLEL_METHOD_BODIES) {
+            return;
+        }
+
+        for (final Future<AstMethodBodyBuilder.PreparedMethodBody> future : pool.invokeAll(tasks)) {
+            final AstMethodBodyBuilder.PreparedMethodBody preparedBody;
+
+            try {
+                preparedBody = future.get();
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                continue;
+            }
+            catch (final ExecutionException e) {
+                continue;
+            }
+
+            if (preparedBody.ast != null) {
+                _context.joinMethodContext(preparedBody.context);
+                _preparedMethodBodies.put(preparedBody.context.getCurrentMethod(), preparedBody);
+            }
+        }
+    }
+
+    /**
+     * Returns whether {@code type} was resolved by a metadata system which may evict cached types.  Which
+     * types are cached then depends on the order they were used in, which parallel work cannot preserve.
+     */
+    private static boolean hasEvictingResolver(final TypeDefinition type) {
+        for (IMetadataResolver resolver = type.getResolver(); resolver instanceof MetadataSystem; ) {
+            final MetadataSystem metadataSystem = (MetadataSystem) resolver;
+
+            if (metadataSystem.getMaximumCachedTypes() > 0) {
+                return true;
+            }
+
+            resolver = metadataSystem.getPlatform();
+        }
+        return false;
+    }
+
+    final AstMethodBodyBuilder.PreparedMethodBody takePreparedMethodBody(final MethodDefinition method) {
+        return _preparedMethodBodies.remove(method);
+    }
+
+    private static boolean hasMethodBody(final MethodDefinition method) {
+        return method.isConstructor() ||
+               !method.getDeclaringType().isInterface() ||
+               method.isTypeInitializer() ||
+               method.isDefault();
+    }
+
     private static void sortNestedTypes(final List<TypeDefinition> types) {
         final IdentityHashMap<TypeDefinition, Integer> minOffsets = new IdentityHashMap<>();
 
@@ -671,7 +783,7 @@ public final class AstBuilder {
             }
         }
 
-        if (!method.getDeclaringType().isInterface() || method.isTypeInitializer() || method.isDefault()) {
+        if (hasMethodBody(method)) {
             astMethod.setBody(createMethodBody(method, astMethod.getParameters()));
         }
 
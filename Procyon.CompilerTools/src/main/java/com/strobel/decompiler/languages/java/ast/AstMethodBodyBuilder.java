@@ -27,6 +27,7 @@ import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.DecompilationOptions;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.decompiler.DecompilerHelpers;
+import com.strobel.decompiler.MethodTimeoutException;
 import com.strobel.decompiler.PlainTextOutput;
 import com.strobel.decompiler.ast.*;
 import com.strobel.decompiler.ast.Label;
@@ -46,6 +47,8 @@ import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 
 import static com.strobel.core.CollectionUtilities.*;
 
@@ -94,20 +97,120 @@ public class AstMethodBodyBuilder {
 
         context.setCurrentMethod(method);
 
+        final PreparedMethodBody preparedBody = astBuilder.takePreparedMethodBody(method);
+        final long oldDeadline = context.startMethodTimeout();
+
         try {
             final AstMethodBodyBuilder builder = new AstMethodBodyBuilder(astBuilder, method, context);
-            return builder.createMethodBody(parameters);
+            return builder.createMethodBody(parameters, preparedBody);
         }
         catch (Throwable t) {
+            if (t instanceof CancellationException && !(t instanceof MethodTimeoutException)) {
+                throw (CancellationException) t;
+            }
             return createErrorBlock(astBuilder, context, method, t);
         }
         finally {
+            context.endMethodTimeout(oldDeadline);
             context.setCurrentMethod(oldCurrentMethod);
         }
     }
 
+    /**
+     * The bytecode AST of a method, built and optimized ahead of time by a task from
+     * {@link #createPrepareTask}.  The {@code ast} is {@code null} if the task could not build it.
+     */
+    final static class PreparedMethodBody {
+        final MethodBody body;
+        final DecompilerContext context;
+        Block ast;
+
+        PreparedMethodBody(final MethodBody body, final DecompilerContext context) {
+            this.body = body;
+            this.context = context;
+        }
+    }
+
+    /**
+     * Creates a task which builds and optimizes the bytecode AST of {@code method} from its already loaded
+     * {@code body}, on a context forked from {@code context}, so that it may run in parallel with other
+     * methods of the current type.  The task must not load any metadata, as what gets loaded first would
+     * then depend on thread timing.  If it would, or if it fails or times out for any other reason, no AST
+     * is prepared, and the method is built from scratch when its turn comes, exactly as it would have
+     * been without a pool.
+     */
+    static Callable<PreparedMethodBody> createPrepareTask(
+        final MethodDefinition method,
+        final MethodBody body,
+        final DecompilerContext context) {
+
+        final PreparedMethodBody preparedBody = new PreparedMethodBody(body, context.forkMethodContext(method));
+
+        return new Callable<PreparedMethodBody>() {
+            @Override
+            public PreparedMethodBody call() {
+                final DecompilerContext taskContext = preparedBody.context;
+
+                MetadataSystem.disallowLoading();
+
+                final long oldDeadline = taskContext.startMethodTimeout();
+
+                Block ast = null;
+
+                try {
+                    ast = buildBytecodeAst(body, taskContext);
+                }
+                catch (final Throwable ignored) {
+                    //
+                    // The serial pass will run into the same problem and report it.
+                    //
+                }
+                finally {
+                    taskContext.endMethodTimeout(oldDeadline);
+
+                    if (MetadataSystem.allowLoading()) {
+                        ast = null;
+                    }
+                }
+
+                preparedBody.ast = ast;
+                return preparedBody;
+            }
+        };
+    }
+
+    private static Block buildBytecodeAst(final MethodBody body, final DecompilerContext context) {
+        final Block method = new Block();
+
+        method.getBody().addAll(
+            com.strobel.decompiler.ast.AstBuilder.build(body, true, context)
+        );
+
+        AstOptimizer.optimize(context, method);
+
+        return method;
+    }
+
+    /**
+     * Creates the stub which replaces the body of the current method after a pass over it exceeded the
+     * method's time budget.  Whatever the pass left behind is discarded.
+     */
+    public static BlockStatement createTimeoutBlock(final DecompilerContext context, final MethodTimeoutException e) {
+        VerifyArgument.notNull(context, "context");
+        VerifyArgument.notNull(e, "e");
+
+        final AstBuilder astBuilder = context.getUserData(Keys.AST_BUILDER);
+        final MethodDefinition method = context.getCurrentMethod();
+
+        if (astBuilder == null || method == null) {
+            throw e;
+        }
+
+        return createErrorBlock(astBuilder, context, method, e);
+    }
+
     @SuppressWarnings("ConstantConditions")
-    private static BlockStatement createErrorBlock(
+    static BlockStatement createErrorBlock(
         final AstBuilder astBuilder,
         final DecompilerContext context,
         final MethodDefinition method,
@@ -115,6 +218,10 @@ public class AstMethodBodyBuilder {
 
         final BlockStatement block = new BlockStatement();
 
+        if (t instanceof MethodTimeoutException) {
+            context.getTimedOutMethods().add(method);
+        }
+
         final List<String> lines = StringUtilities.split(
             ExceptionUtilities.getStackTraceString(t),
             true,
@@ -123,7 +230,14 @@ public class AstMethodBodyBuilder {
         );
 
         block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
-        block.addChild(new Comment(" This method could not be decompiled.", CommentType.SingleLine), Roles.COMMENT);
+        block.addChild(
+            new Comment(
+                t instanceof MethodTimeoutException ? " This method could not be decompiled within the time limit."
+                                                    : " This method could not be decompiled.",
+                CommentType.SingleLine
+            ),
+            Roles.COMMENT
+        );
         block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
 
         try {
@@ -198,30 +312,20 @@ public class AstMethodBodyBuilder {
     }
 
     @SuppressWarnings("ConstantConditions")
-    private BlockStatement createMethodBody(final Iterable<ParameterDeclaration> parameters) {
-        final MethodBody body = _method.getBody();
+    private BlockStatement createMethodBody(final Iterable<ParameterDeclaration> parameters, final PreparedMethodBody preparedBody) {
+        final MethodBody body = preparedBody != null ? preparedBody.body : _method.getBody();
 
         if (body == null) {
             return null;
         }
 
-        final Block method = new Block();
-
-        method.getBody().addAll(
-            com.strobel.decompiler.ast.AstBuilder.build(body, true, _context)
-        );
-
-        AstOptimizer.optimize(_context, method);
+        final Block method = preparedBody != null ? preparedBody.ast : buildBytecodeAst(body, _context);
 
         final Set<ParameterDefinition> unmatchedParameters = new LinkedHashSet<>(_method.getParameters());
         final Set<Variable> methodParameters = new LinkedHashSet<>();
         final Set<Variable> localVariables = new LinkedHashSet<>();
 
-        final List<com.strobel.decompiler.ast.Expression> expressions = method.getSelfAndChildrenRecursive(
-            com.strobel.decompiler.ast.Expression.class
-        );
-
-        for (final com.strobel.decompiler.ast.Expression e : expressions) {
+        for (final com.strobel.decompiler.ast.Expression e : method.selfAndChildrenRecursive(com.strobel.decompiler.ast.Expression.class)) {
             final Object operand = e.getOperand();
 
             if (operand instanceof Variable) {
@@ -261,11 +365,7 @@ public class AstMethodBodyBuilder {
             }
         );
 
-        final List<CatchBlock> catchBlocks = method.getSelfAndChildrenRecursive(
-            CatchBlock.class
-        );
-
-        for (final CatchBlock catchBlock : catchBlocks) {
+        for (final CatchBlock catchBlock : method.selfAndChildrenRecursive(CatchBlock.class)) {
             final Variable exceptionVariable = catchBlock.getExceptionVariable();
 
             if (exceptionVariable != null) {
@@ -379,11 +479,7 @@ public class AstMethodBodyBuilder {
 
             final List<Range> ranges = new ArrayList<>();
 
-            final List<com.strobel.decompiler.ast.Expression> childExpressions = node.getSelfAndChildrenRecursive(
-                com.strobel.decompiler.ast.Expression.class
-            );
-
-            for (final com.strobel.decompiler.ast.Expression e : childExpressions) {
+            for (final com.strobel.decompiler.ast.Expression e : node.selfAndChildrenRecursive(com.strobel.decompiler.ast.Expression.class)) {
                 ranges.addAll(e.getRanges());
             }
 
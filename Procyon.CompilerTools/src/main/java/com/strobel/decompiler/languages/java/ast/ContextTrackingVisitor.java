@@ -20,6 +20,7 @@ import com.strobel.assembler.metadata.MethodDefinition;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.MethodTimeoutException;
 import com.strobel.decompiler.languages.java.ast.transforms.IAstTransform;
 
 /// <summary>
@@ -59,26 +60,52 @@ public abstract class ContextTrackingVisitor<TResult> extends DepthFirstAstVisit
 
     public TResult visitMethodDeclaration(final MethodDeclaration node, final Void p) {
         assert context.getCurrentMethod() == null;
+        context.setCurrentMethod(node.getUserData(Keys.METHOD_DEFINITION));
+        final long oldDeadline = context.startMethodTimeout();
         try {
-            context.setCurrentMethod(node.getUserData(Keys.METHOD_DEFINITION));
             return super.visitMethodDeclaration(node, p);
         }
+        catch (final MethodTimeoutException e) {
+            node.setBody(createTimeoutBlock(e));
+            return null;
+        }
         finally {
+            context.endMethodTimeout(oldDeadline);
             context.setCurrentMethod(null);
         }
     }
 
     public TResult visitConstructorDeclaration(final ConstructorDeclaration node, final Void p) {
         assert (context.getCurrentMethod() == null);
+        context.setCurrentMethod(node.getUserData(Keys.METHOD_DEFINITION));
+        final long oldDeadline = context.startMethodTimeout();
         try {
-            context.setCurrentMethod(node.getUserData(Keys.METHOD_DEFINITION));
             return super.visitConstructorDeclaration(node, p);
         }
+        catch (final MethodTimeoutException e) {
+            node.setBody(createTimeoutBlock(e));
+            return null;
+        }
         finally {
+            context.endMethodTimeout(oldDeadline);
             context.setCurrentMethod(null);
         }
     }
 
+    @Override
+    protected TResult visitChildren(final AstNode node, final Void data) {
+        context.checkCanceled();
+        return super.visitChildren(node, data);
+    }
+
+    private BlockStatement createTimeoutBlock(final MethodTimeoutException e) {
+        //
+        // The transform gave up part way through the method, so whatever it left behind is discarded
+        // in favor of the same stub used when building the method body times out.
+        //
+        return AstMethodBodyBuilder.createTimeoutBlock(context, e);
+    }
+
     @Override
     public void run(final AstNode compilationUnit) {
         compilationUnit.acceptVisitor(this, null);
@@ -265,7 +265,7 @@ public class NameVariables {
             boolean isLoopCounter = false;
 
         loopSearch:
-            for (final Loop loop : methodBody.getSelfAndChildrenRecursive(Loop.class)) {
+            for (final Loop loop : methodBody.selfAndChildrenRecursive(Loop.class)) {
                 Expression e = loop.getCondition();
 
                 while (e != null && e.getCode() == AstCode.LogicalNot) {
@@ -308,7 +308,7 @@ public class NameVariables {
         if (StringUtilities.isNullOrEmpty(proposedName)) {
             String proposedNameForStore = null;
 
-            for (final Expression e : methodBody.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : methodBody.selfAndChildrenRecursive(Expression.class)) {
                 if (e.getCode() == AstCode.Store && e.getOperand() == variable) {
                     final String name = getNameFromExpression(e.getArguments().get(0));
 
@@ -331,7 +331,7 @@ public class NameVariables {
         if (StringUtilities.isNullOrEmpty(proposedName)) {
             String proposedNameForLoad = null;
 
-            for (final Expression e : methodBody.getSelfAndChildrenRecursive(Expression.class)) {
+            for (final Expression e : methodBody.selfAndChildrenRecursive(Expression.class)) {
                 final List<Expression> arguments = e.getArguments();
 
                 for (int i = 0; i < arguments.size(); i++) {
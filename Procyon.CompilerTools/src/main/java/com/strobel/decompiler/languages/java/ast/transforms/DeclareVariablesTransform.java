@@ -25,6 +25,7 @@ import com.strobel.core.StringUtilities;
 import com.strobel.core.StrongBox;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.MethodTimeoutException;
 import com.strobel.decompiler.ast.Variable;
 import com.strobel.decompiler.languages.java.ast.*;
 
@@ -171,6 +172,19 @@ public class DeclareVariablesTransform implements IAstTransform {
     }
 
     private void run(final AstNode node, final DefiniteAssignmentAnalysis daa) {
+        if ((node instanceof MethodDeclaration || node instanceof ConstructorDeclaration) &&
+            context.getCurrentMethod() == null) {
+
+            final MethodDefinition method = node.getUserData(Keys.METHOD_DEFINITION);
+
+            if (method != null) {
+                runInMethod(node, method, daa);
+                return;
+            }
+        }
+
+        context.checkCanceled();
+
         DefiniteAssignmentAnalysis analysis = daa;
 
         if (node instanceof BlockStatement) {
@@ -259,6 +273,37 @@ public class DeclareVariablesTransform implements IAstTransform {
         }
     }
 
+    private void runInMethod(final AstNode node, final MethodDefinition method, final DefiniteAssignmentAnalysis daa) {
+        //
+        // Time spent here counts against the method's budget, as in any other pass.  If the budget runs
+        // out, the method becomes a stub, and the declarations collected for it so far are dropped.
+        //
+        final int declarationCount = variablesToDeclare.size();
+
+        context.setCurrentMethod(method);
+        final long oldDeadline = context.startMethodTimeout();
+
+        try {
+            run(node, daa);
+        }
+        catch (final MethodTimeoutException e) {
+            final BlockStatement timeoutBlock = AstMethodBodyBuilder.createTimeoutBlock(context, e);
+
+            variablesToDeclare.subList(declarationCount, variablesToDeclare.size()).clear();
+
+            if (node instanceof MethodDeclaration) {
+                ((MethodDeclaration) node).setBody(timeoutBlock);
+            }
+            else {
+                ((ConstructorDeclaration) node).setBody(timeoutBlock);
+            }
+        }
+        finally {
+            context.endMethodTimeout(oldDeadline);
+            context.setCurrentMethod(null);
+        }
+    }
+
     @SuppressWarnings("ConstantConditions")
     private void declareVariableInBlock(
         final DefiniteAssignmentAnalysis analysis,
@@ -86,6 +86,8 @@ public final class TransformationPipeline {
                 return;
             }
 
+            context.checkCanceled();
+
             if (LOG.isLoggable(Level.FINE)) {
                 LOG.fine("Running Java AST transform: " + transform.getClass().getSimpleName() + "...");
             }
@@ -0,0 +1,185 @@
+package com.strobel.assembler.ir;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.functions.Supplier;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConstantPoolTests {
+    @SuppressWarnings("unused")
+    private static class Constants {
+        static String text() {
+            return "h\u00e9llo \u20ac\u0000";
+        }
+
+        static long longValue() {
+            return 0x123456789ABCDEFL;
+        }
+
+        static double doubleValue() {
+            return 3.25d;
+        }
+    }
+
+    private static Buffer loadConstants() {
+        final Buffer buffer = new Buffer();
+
+        assertTrue(new ClasspathTypeLoader().tryLoadType(Constants.class.getName().replace('.', '/'), buffer));
+
+        return buffer;
+    }
+
+    private static ConstantPool readPool(final Buffer buffer) {
+        buffer.readInt();            // magic
+        buffer.readUnsignedShort();  // minor version
+        buffer.readUnsignedShort();  // major version
+
+        return ConstantPool.read(buffer);
+    }
+
+    @Test
+    public void testEntriesAreDecodedOnDemand() throws Throwable {
+        final String internalName = Constants.class.getName().replace('.', '/');
+        final Buffer buffer = loadConstants();
+        final ConstantPool pool = readPool(buffer);
+
+        buffer.readUnsignedShort();  // access flags
+
+        final ConstantPool.TypeInfoEntry thisClass = pool.getEntry(buffer.readUnsignedShort());
+
+        assertEquals(internalName, thisClass.getName());
+
+        //
+        // Clobber the caller's buffer; the pool must not depend on it after reading.
+        //
+        Arrays.fill(buffer.array(), (byte) 0);
+
+        boolean foundText = false;
+        boolean foundLong = false;
+        boolean foundDouble = false;
+
+        for (final ConstantPool.Entry entry : pool) {
+            if (entry instanceof ConstantPool.StringConstantEntry) {
+                foundText |= "h\u00e9llo \u20ac\u0000".equals(((ConstantPool.StringConstantEntry) entry).getValue());
+            }
+            else if (entry instanceof ConstantPool.LongConstantEntry) {
+                foundLong |= ((ConstantPool.LongConstantEntry) entry).value == 0x123456789ABCDEFL;
+            }
+            else if (entry instanceof ConstantPool.DoubleConstantEntry) {
+                foundDouble |= ((ConstantPool.DoubleConstantEntry) entry).value == 3.25d;
+            }
+        }
+
+        assertTrue(foundText);
+        assertTrue(foundLong);
+        assertTrue(foundDouble);
+
+        final ConstantPool.Utf8StringConstantEntry name = pool.getUtf8StringConstant(internalName);
+
+        assertNotNull(name);
+        assertSame(name, pool.get(thisClass.nameIndex));
+    }
+
+    @Test
+    public void testReleasedEntriesAreDecodedFromClassFile() throws Throwable {
+        final Buffer buffer = loadConstants();
+        final byte[] classFile = Arrays.copyOf(buffer.array(), buffer.size());
+        final ConstantPool pool = readPool(buffer);
+        final AtomicInteger loadCount = new AtomicInteger();
+
+        pool.releaseData(
+            new Supplier<Buffer>() {
+                @Override
+                public Buffer get() {
+                    loadCount.incrementAndGet();
+                    return new Buffer(classFile);
+                }
+            }
+        );
+
+        boolean foundText = false;
+
+        for (final ConstantPool.Entry entry : pool) {
+            if (entry instanceof ConstantPool.StringConstantEntry) {
+                foundText |= "h\u00e9llo \u20ac\u0000".equals(((ConstantPool.StringConstantEntry) entry).getValue());
+            }
+        }
+
+        assertTrue(foundText);
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testConcurrentReadersSeeDecodedEntries() throws Throwable {
+        final Buffer buffer = loadConstants();
+        final byte[] classFile = Arrays.copyOf(buffer.array(), buffer.size());
+        final ConstantPool expectedPool = readPool(new Buffer(classFile));
+
+        int size = 0;
+
+        for (final ConstantPool.Entry ignored : expectedPool) {
+            size++;
+        }
+
+        final int poolSize = size;
+        final List<String> expected = describeEntries(expectedPool, poolSize);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                final ConstantPool pool = readPool(new Buffer(classFile));
+                final List<Future<List<String>>> results = new ArrayList<>();
+
+                for (int i = 0; i < 4; i++) {
+                    results.add(
+                        executor.submit(
+                            new Callable<List<String>>() {
+                                @Override
+                                public List<String> call() {
+                                    return describeEntries(pool, poolSize);
+                                }
+                            }
+                        )
+                    );
+                }
+
+                for (final Future<List<String>> result : results) {
+                    assertEquals(expected, result.get());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> describeEntries(final ConstantPool pool, final int size) {
+        final List<String> entries = new ArrayList<>();
+
+        //
+        // Read by index rather than by iterating, so that readers race on individual entries.
+        //
+        for (int i = 1; i <= size; i++) {
+            try {
+                final ConstantPool.Entry entry = pool.get(i);
+                entries.add(entry.getTag() + ":" + entry);
+            }
+            catch (final IndexOutOfBoundsException e) {
+                entries.add("-"); // unused slot after a long or double constant
+            }
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,98 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.*;
+
+public class IndexedJarTypeLoaderTests {
+    @Test
+    public void testLoadsStoredAndDeflatedEntries() throws Throwable {
+        final String storedName = StoredEntry.class.getName().replace('.', '/');
+        final String deflatedName = DeflatedEntry.class.getName().replace('.', '/');
+
+        final byte[] storedBytes = readClassBytes(storedName);
+        final byte[] deflatedBytes = readClassBytes(deflatedName);
+
+        final File jarFile = File.createTempFile("procyon-indexed", ".jar");
+
+        jarFile.deleteOnExit();
+
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+            final ZipEntry storedEntry = new ZipEntry(storedName + ".class");
+            final CRC32 crc = new CRC32();
+
+            crc.update(storedBytes);
+
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(storedBytes.length);
+            storedEntry.setCompressedSize(storedBytes.length);
+            storedEntry.setCrc(crc.getValue());
+
+            out.putNextEntry(storedEntry);
+            out.write(storedBytes);
+            out.closeEntry();
+
+            out.putNextEntry(new ZipEntry(deflatedName + ".class"));
+            out.write(deflatedBytes);
+            out.closeEntry();
+
+            out.putNextEntry(new ZipEntry("META-INF/resource.txt"));
+            out.write(new byte[] { 1, 2, 3 });
+            out.closeEntry();
+        }
+
+        final IndexedJarTypeLoader loader = new IndexedJarTypeLoader(jarFile);
+        final Buffer buffer = new Buffer();
+
+        assertEquals(2, loader.getTypeNames().size());
+
+        assertTrue(loader.tryLoadType(storedName, buffer));
+        assertEquals(0, buffer.position());
+        assertArrayEquals(storedBytes, Arrays.copyOf(buffer.array(), buffer.size()));
+
+        assertTrue(loader.tryLoadType(deflatedName, buffer));
+        assertEquals(0, buffer.position());
+        assertArrayEquals(deflatedBytes, Arrays.copyOf(buffer.array(), buffer.size()));
+
+        assertFalse(loader.tryLoadType("META-INF/resource", buffer));
+        assertFalse(loader.tryLoadType("java/lang/Object", buffer));
+    }
+
+    private static byte[] readClassBytes(final String internalName) throws Throwable {
+        try (final InputStream in = IndexedJarTypeLoaderTests.class.getClassLoader().getResourceAsStream(internalName + ".class")) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] temp = new byte[4096];
+
+            int bytesRead;
+
+            while ((bytesRead = in.read(temp)) > 0) {
+                out.write(temp, 0, bytesRead);
+            }
+
+            return out.toByteArray();
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Helper Classes">
+
+    @SuppressWarnings("unused")
+    private static final class StoredEntry {
+        int value;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class DeflatedEntry {
+        String value;
+    }
+
+    // </editor-fold>
+}
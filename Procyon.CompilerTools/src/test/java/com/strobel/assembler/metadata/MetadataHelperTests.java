@@ -274,4 +274,56 @@ public class MetadataHelperTests {
         assertSameType(genericArrayList, t8);
         assertSameType(rawArrayList, t9);
     }
+
+    @Test
+    public void testNonGenericSubTypeRelationsAreCachedPerMetadataSystem() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeRelationCache cache = metadataSystem.getTypeRelationCache();
+
+        final TypeReference fileNotFound = metadataSystem.lookupType("java/io/FileNotFoundException");
+        final TypeReference ioException = metadataSystem.lookupType("java/io/IOException");
+        final TypeReference runtimeException = metadataSystem.lookupType("java/lang/RuntimeException");
+
+        assertTrue(MetadataHelper.isSubType(fileNotFound, ioException));
+        assertFalse(MetadataHelper.isSubType(fileNotFound, runtimeException));
+
+        final long hits = cache.getHitCount();
+
+        assertTrue(MetadataHelper.isSubType(fileNotFound, ioException));
+        assertFalse(MetadataHelper.isSubType(fileNotFound, runtimeException));
+        assertTrue(isAssignableFrom(ioException, fileNotFound));
+
+        assertTrue(cache.getHitCount() >= hits + 3);
+        assertSameType(ioException, MetadataHelper.asSuper(ioException, fileNotFound));
+        assertNull(MetadataHelper.asSuper(runtimeException, fileNotFound));
+        assertNull(MetadataHelper.asSuper(runtimeException, fileNotFound));
+
+        final long misses = cache.getMissCount();
+
+        assertTrue(MetadataHelper.isSubType(arrayList(), list()));
+        assertEquals(misses, cache.getMissCount());
+    }
+
+    @Test
+    public void testCachedSuperTypesAreResolvedAfterEviction() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+
+        metadataSystem.setMaximumCachedTypes(2);
+
+        final TypeReference connectException = metadataSystem.lookupType("java/net/ConnectException");
+        final TypeReference socketException = metadataSystem.lookupType("java/net/SocketException");
+
+        assertSameType(socketException, MetadataHelper.asSuper(socketException, connectException));
+
+        metadataSystem.lookupType("java/net/URISyntaxException");
+        metadataSystem.lookupType("java/net/MalformedURLException");
+        metadataSystem.lookupType("java/net/UnknownHostException");
+
+        final TypeReference reloaded = metadataSystem.lookupType("java/net/SocketException");
+        final long hits = metadataSystem.getTypeRelationCache().getHitCount();
+
+        assertNotSame(socketException, reloaded);
+        assertSame(reloaded, MetadataHelper.asSuper(reloaded, connectException));
+        assertEquals(hits + 1, metadataSystem.getTypeRelationCache().getHitCount());
+    }
 }
@@ -0,0 +1,138 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetadataIndexTests {
+    private final static List<String> INDEXED_TYPES = Arrays.asList(
+        "java/util/ArrayList",
+        "java/util/HashMap",
+        "java/util/Map$Entry"
+    );
+
+    private static byte[] readClassFile(final String internalName) {
+        final Buffer buffer = new Buffer();
+
+        assertTrue(new ClasspathTypeLoader().tryLoadType(internalName, buffer));
+
+        return Arrays.copyOf(buffer.array(), buffer.size());
+    }
+
+    @Test
+    public void testStrippedClassFilesRetainTypeHeaders() throws Throwable {
+        final File file = File.createTempFile("procyon", ".idx");
+
+        try {
+            final MetadataSystem original = new MetadataSystem();
+            final MetadataIndexWriter writer = new MetadataIndexWriter();
+
+            //
+            // Nested types are resolved through the same loader, so they must be indexed alongside their
+            // declaring types.
+            //
+            int typeCount = 0;
+
+            for (final String internalName : INDEXED_TYPES) {
+                assertTrue(writer.add(internalName, readClassFile(internalName)));
+                ++typeCount;
+
+                for (final TypeDefinition nestedType : original.lookupType(internalName).resolve().getDeclaredTypes()) {
+                    assertTrue(writer.add(nestedType.getInternalName(), readClassFile(nestedType.getInternalName())));
+                    ++typeCount;
+                }
+            }
+
+            assertFalse(writer.add("java/util/ArrayList", readClassFile("java/util/ArrayList")));
+            assertEquals(typeCount, writer.getTypeCount());
+
+            writer.writeTo(file);
+
+            final MetadataIndexTypeLoader loader = new MetadataIndexTypeLoader(file);
+            final Buffer buffer = new Buffer();
+
+            assertEquals(typeCount, loader.getTypeNames().size());
+            assertFalse(loader.tryLoadType("java/util/LinkedList", buffer));
+            assertTrue(loader.tryLoadType("java/util/HashMap", buffer));
+            assertEquals(0xCAFEBABE, buffer.readInt());
+            assertTrue(buffer.size() < readClassFile("java/util/HashMap").length);
+
+            final MetadataSystem indexed = new MetadataSystem(loader);
+
+            for (final String internalName : INDEXED_TYPES) {
+                final TypeDefinition expected = original.lookupType(internalName).resolve();
+                final TypeDefinition actual = indexed.lookupType(internalName).resolve();
+
+                assertNotNull(actual);
+                assertEquals(expected.getFlags(), actual.getFlags());
+                assertEquals(expected.getSignature(), actual.getSignature());
+                assertEquals(expected.getExplicitInterfaces().size(), actual.getExplicitInterfaces().size());
+                assertEquals(expected.getDeclaredFields().size(), actual.getDeclaredFields().size());
+                assertEquals(expected.getDeclaredMethods().size(), actual.getDeclaredMethods().size());
+                assertEquals(expected.getDeclaredTypes().size(), actual.getDeclaredTypes().size());
+
+                for (int i = 0; i < expected.getDeclaredMethods().size(); i++) {
+                    final MethodDefinition expectedMethod = expected.getDeclaredMethods().get(i);
+                    final MethodDefinition actualMethod = actual.getDeclaredMethods().get(i);
+
+                    assertEquals(expectedMethod.getFullName(), actualMethod.getFullName());
+                    assertEquals(expectedMethod.getSignature(), actualMethod.getSignature());
+                    assertEquals(expectedMethod.getFlags(), actualMethod.getFlags());
+                    assertNull(actualMethod.getBody());
+                }
+            }
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testIndexesLargerThanOneMappingAreSegmented() throws Throwable {
+        final File file = File.createTempFile("procyon", ".idx");
+
+        try {
+            final MetadataIndexWriter writer = new MetadataIndexWriter();
+
+            for (final String internalName : INDEXED_TYPES) {
+                writer.add(internalName, readClassFile(internalName));
+            }
+
+            writer.writeTo(file);
+
+            //
+            // Cap segments at the size of the largest type so every type lands in a segment of its own.
+            //
+            final MetadataIndexTypeLoader unsegmented = new MetadataIndexTypeLoader(file);
+            final Buffer buffer = new Buffer();
+
+            int largestType = 0;
+
+            for (final String internalName : INDEXED_TYPES) {
+                assertTrue(unsegmented.tryLoadType(internalName, buffer));
+                largestType = Math.max(largestType, buffer.size());
+            }
+
+            final MetadataIndexTypeLoader segmented = new MetadataIndexTypeLoader(file, largestType);
+
+            assertEquals(1, unsegmented.getSegmentCount());
+            assertEquals(INDEXED_TYPES.size(), segmented.getSegmentCount());
+
+            for (final String internalName : INDEXED_TYPES) {
+                assertTrue(unsegmented.tryLoadType(internalName, buffer));
+
+                final byte[] expected = Arrays.copyOf(buffer.array(), buffer.size());
+
+                assertTrue(segmented.tryLoadType(internalName, buffer));
+                assertArrayEquals(expected, Arrays.copyOf(buffer.array(), buffer.size()));
+            }
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.strobel.reflection.Type;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -41,4 +42,51 @@ public class MetadataParserTests {
 
         assertNotNull(method2);
     }
+
+    @Test
+    public void testCachedSignaturesAreReifiedAgainstCurrentGenericContext() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeDefinition list = metadataSystem.lookupType("java/util/ArrayList").resolve();
+        final TypeDefinition linkedList = metadataSystem.lookupType("java/util/LinkedList").resolve();
+
+        assertNotNull(list);
+        assertNotNull(linkedList);
+
+        final MetadataParser listParser = new MetadataParser(list);
+        final MetadataParser linkedListParser = new MetadataParser(linkedList);
+
+        listParser.pushGenericContext(list);
+        linkedListParser.pushGenericContext(linkedList);
+
+        try {
+            final long misses = MetadataParser.getSignatureCacheMissCount();
+
+            final IMethodSignature first = listParser.parseMethodSignature("(TE;Ljava/lang/String;)TE;");
+            final long hits = MetadataParser.getSignatureCacheHitCount();
+            final IMethodSignature second = linkedListParser.parseMethodSignature("(TE;Ljava/lang/String;)TE;");
+
+            assertTrue(MetadataParser.getSignatureCacheMissCount() > misses);
+            assertTrue(MetadataParser.getSignatureCacheHitCount() > hits);
+
+            final List<GenericParameter> linkedListParameters = linkedList.getGenericParameters();
+
+            assertSame(list.getGenericParameters().get(0), first.getReturnType());
+            assertSame(linkedListParameters.get(0), second.getReturnType());
+            assertNotSame(first.getParameters().get(0), second.getParameters().get(0));
+            assertEquals("java/lang/String", second.getParameters().get(1).getParameterType().getInternalName());
+        }
+        finally {
+            listParser.popGenericContext();
+            linkedListParser.popGenericContext();
+        }
+    }
+
+    @Test
+    public void testDescriptorsAndSignaturesAreCachedSeparately() throws Throwable {
+        final MetadataParser parser = new MetadataParser(new MetadataSystem());
+
+        assertSame(BuiltinTypes.Integer, parser.parseTypeSignature("I"));
+        assertEquals("I", parser.parseTypeDescriptor("I").getInternalName());
+        assertSame(BuiltinTypes.Integer, parser.parseTypeSignature("I"));
+    }
 }
@@ -0,0 +1,245 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MetadataSystemTests {
+    @Test
+    public void testBoundedTypeCacheEvictsLeastRecentlyUsedTypes() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+
+        metadataSystem.setMaximumCachedTypes(2);
+
+        final TypeReference first = metadataSystem.lookupType("java/net/URISyntaxException");
+        final TypeReference second = metadataSystem.lookupType("java/net/MalformedURLException");
+
+        assertSame(first, metadataSystem.lookupType("java/net/URISyntaxException"));
+
+        metadataSystem.lookupType("java/net/UnknownHostException");
+
+        assertSame(first, metadataSystem.lookupType("java/net/URISyntaxException"));
+
+        final TypeReference reloaded = metadataSystem.lookupType("java/net/MalformedURLException");
+
+        assertNotNull(reloaded);
+        assertNotSame(second, reloaded);
+        assertEquals(second.getInternalName(), reloaded.getInternalName());
+    }
+
+    @Test
+    public void testCoreTypesArePinned() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+
+        metadataSystem.setMaximumCachedTypes(1);
+
+        final TypeReference string = metadataSystem.lookupType("java/lang/String");
+
+        metadataSystem.lookupType("java/net/URISyntaxException");
+        metadataSystem.lookupType("java/net/MalformedURLException");
+
+        assertSame(string, metadataSystem.lookupType("java/lang/String"));
+    }
+
+    @Test
+    public void testLazyMethodBodiesAreReadFromRetainedClassFile() throws Throwable {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final ITypeLoader classpathLoader = new ClasspathTypeLoader();
+
+        final MetadataSystem metadataSystem = new MetadataSystem(
+            new ITypeLoader() {
+                @Override
+                public boolean tryLoadType(final String internalName, final Buffer buffer) {
+                    if ("java/util/ArrayList".equals(internalName)) {
+                        loadCount.incrementAndGet();
+                    }
+                    return classpathLoader.tryLoadType(internalName, buffer);
+                }
+            }
+        );
+
+        final TypeDefinition type = metadataSystem.lookupType("java/util/ArrayList").resolve();
+
+        assertNotNull(type);
+        assertEquals(1, loadCount.get());
+
+        int bodyCount = 0;
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            if (!method.isAbstract() && method.getBody() != null) {
+                ++bodyCount;
+            }
+        }
+
+        assertTrue(bodyCount > 1);
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testPlatformTypesAreSharedAcrossMetadataSystems() throws Throwable {
+        final PlatformMetadataSystem platform = new PlatformMetadataSystem(new ClasspathTypeLoader(), "test");
+        final ITypeLoader classpathLoader = new ClasspathTypeLoader();
+
+        final ITypeLoader applicationLoader = new ITypeLoader() {
+            @Override
+            public boolean tryLoadType(final String internalName, final Buffer buffer) {
+                return !internalName.startsWith("java/") && classpathLoader.tryLoadType(internalName, buffer);
+            }
+        };
+
+        final MetadataSystem first = new MetadataSystem(applicationLoader, platform);
+        final MetadataSystem second = new MetadataSystem(applicationLoader, platform);
+
+        final TypeDefinition firstString = first.lookupType("java/lang/String").resolve();
+        final TypeDefinition secondString = second.lookupType("java/lang/String").resolve();
+
+        assertNotNull(firstString);
+        assertSame(firstString, secondString);
+        assertSame(platform, firstString.getResolver());
+
+        final String testTypeName = MetadataSystemTests.class.getName().replace('.', '/');
+        final TypeDefinition firstTest = first.lookupType(testTypeName).resolve();
+        final TypeDefinition secondTest = second.lookupType(testTypeName).resolve();
+
+        assertNotNull(firstTest);
+        assertNotSame(firstTest, secondTest);
+        assertSame(first, firstTest.getResolver());
+        assertTrue(MetadataHelper.isSubType(firstTest, first.lookupType("java/lang/Object")));
+
+        try {
+            platform.addTypeDefinition(firstTest);
+            fail("Expected the platform metadata system to reject new types.");
+        }
+        catch (final UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test
+    public void testPlatformContainsTypeAsksTypeLoaderOncePerName() throws Throwable {
+        final ITypeLoader classpathLoader = new ClasspathTypeLoader();
+        final AtomicInteger loadCount = new AtomicInteger();
+
+        final PlatformMetadataSystem platform = new PlatformMetadataSystem(
+            new ITypeLoader() {
+                @Override
+                public boolean tryLoadType(final String internalName, final Buffer buffer) {
+                    loadCount.incrementAndGet();
+                    return internalName.startsWith("java/") && classpathLoader.tryLoadType(internalName, buffer);
+                }
+            },
+            "test"
+        );
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(platform.containsType("java/lang/String"));
+            assertFalse(platform.containsType("com/example/Missing"));
+        }
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testPlatformTypesResolveConcurrently() throws Throwable {
+        final String[] typeNames = {
+            "java/util/HashMap", "java/util/TreeMap", "java/util/ArrayList", "java/util/LinkedList",
+            "java/util/concurrent/ConcurrentHashMap", "java/util/concurrent/ForkJoinPool",
+            "java/util/stream/Collectors", "java/util/stream/ReferencePipeline", "java/lang/invoke/MethodHandles",
+            "java/util/regex/Pattern", "java/net/URI", "java/io/ObjectInputStream"
+        };
+
+        final List<String> expected = describeTypes(new PlatformMetadataSystem(new ClasspathTypeLoader(), "test"), typeNames);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            for (int round = 0; round < 5; round++) {
+                final PlatformMetadataSystem platform = new PlatformMetadataSystem(new ClasspathTypeLoader(), "test");
+                final List<Future<List<String>>> results = new ArrayList<>();
+
+                for (int i = 0; i < 4; i++) {
+                    results.add(
+                        executor.submit(
+                            new Callable<List<String>>() {
+                                @Override
+                                public List<String> call() {
+                                    return describeTypes(platform, typeNames);
+                                }
+                            }
+                        )
+                    );
+                }
+
+                for (final Future<List<String>> result : results) {
+                    assertEquals(expected, result.get());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadingCanBeDisallowedOnTheCurrentThread() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeDefinition loadedType = metadataSystem.lookupType("java/util/ArrayList").resolve();
+
+        assertNotNull(loadedType);
+
+        MetadataSystem.disallowLoading();
+
+        try {
+            assertSame(loadedType, metadataSystem.lookupType("java/util/ArrayList").resolve());
+
+            for (final MethodDefinition method : loadedType.getDeclaredMethods()) {
+                try {
+                    method.getBody();
+                    fail("Expected reading a method body to be rejected.");
+                }
+                catch (final IllegalStateException ignored) {
+                }
+            }
+
+            try {
+                metadataSystem.lookupType("java/net/URISyntaxException");
+                fail("Expected loading a type to be rejected.");
+            }
+            catch (final IllegalStateException ignored) {
+            }
+        }
+        finally {
+            assertTrue(MetadataSystem.allowLoading());
+        }
+
+        assertFalse(MetadataSystem.allowLoading());
+        assertNotNull(metadataSystem.lookupType("java/net/URISyntaxException"));
+        assertNotNull(loadedType.getDeclaredMethods().get(0).getBody());
+    }
+
+    private static List<String> describeTypes(final MetadataSystem metadataSystem, final String[] typeNames) {
+        final List<String> descriptions = new ArrayList<>();
+
+        for (final String typeName : typeNames) {
+            final TypeDefinition type = metadataSystem.lookupType(typeName).resolve();
+
+            descriptions.add(type.getSignature() + " extends " + type.getBaseType() + " " + type.getExplicitInterfaces());
+
+            for (final MethodDefinition method : type.getDeclaredMethods()) {
+                descriptions.add(method.getFullName() + method.getSignature());
+            }
+
+            for (final FieldDefinition field : type.getDeclaredFields()) {
+                descriptions.add(field.getFullName() + ":" + field.getFieldType().getSignature());
+            }
+        }
+
+        return descriptions;
+    }
+}
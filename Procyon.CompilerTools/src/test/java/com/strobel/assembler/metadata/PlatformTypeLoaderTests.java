@@ -0,0 +1,61 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class PlatformTypeLoaderTests {
+    private static File javaHome() {
+        return new File(System.getProperty("java.home"));
+    }
+
+    @Test
+    public void testJrtTypeLoaderResolvesPlatformTypes() throws Throwable {
+        if (!new File(new File(javaHome(), "lib"), "jrt-fs.jar").isFile()) {
+            return;
+        }
+
+        final JrtTypeLoader loader = new JrtTypeLoader(javaHome());
+        final Buffer buffer = new Buffer();
+
+        assertTrue(loader.tryLoadType("java/lang/String", buffer));
+        assertEquals(0xCAFEBABE, buffer.readInt());
+
+        assertTrue(loader.tryLoadType("java/util/concurrent/ConcurrentHashMap$Node", new Buffer()));
+        assertFalse(loader.tryLoadType("java/lang/NoSuchType", new Buffer()));
+        assertFalse(loader.tryLoadType("com/example/NoSuchType", new Buffer()));
+        assertFalse(loader.tryLoadType("NoPackage", new Buffer()));
+
+        final MetadataSystem metadataSystem = new MetadataSystem(loader);
+        final TypeDefinition list = metadataSystem.lookupType("java/util/ArrayList").resolve();
+
+        assertNotNull(list);
+        assertEquals("java/util/AbstractList", list.getBaseType().getInternalName());
+    }
+
+    @Test
+    public void testCtSymTypeLoaderReadsRequestedRelease() throws Throwable {
+        final File ctSym = CtSymTypeLoader.findCtSym(javaHome());
+
+        if (ctSym == null) {
+            return;
+        }
+
+        final CtSymTypeLoader java8 = new CtSymTypeLoader(ctSym, 8);
+
+        assertTrue(java8.tryLoadType("java/lang/Object", new Buffer()));
+        assertTrue(java8.tryLoadType("java/util/function/Function", new Buffer()));
+        assertFalse(java8.tryLoadType("java/lang/Module", new Buffer()));
+
+        final CtSymTypeLoader java9 = new CtSymTypeLoader(ctSym, 9);
+
+        assertTrue(java9.tryLoadType("java/lang/Module", new Buffer()));
+
+        final TypeDefinition string = new MetadataSystem(java8).lookupType("java/lang/String").resolve();
+
+        assertNotNull(string);
+        assertTrue(string.getDeclaredMethods().size() > 10);
+    }
+}
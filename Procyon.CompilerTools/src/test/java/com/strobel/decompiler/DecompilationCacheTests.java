@@ -0,0 +1,212 @@
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.PlatformMetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.languages.TypeDecompilationResults;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class DecompilationCacheTests extends DecompilerTest {
+    @SuppressWarnings("unused")
+    private static class A {
+        public int test(final int x) {
+            return x > 0 ? x * 2 : -x;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Base {
+        public int value() {
+            return 1;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class HelperBase {
+        public int base() {
+            return 2;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Helper extends HelperBase {
+    }
+
+    @SuppressWarnings("unused")
+    private static class B extends Base {
+        public int test(final Helper h) {
+            return value() + h.base();
+        }
+    }
+
+    @Test
+    public void testCachedOutputMatchesDecompiledOutput() throws Throwable {
+        final File directory = File.createTempFile("procyon-cache", "");
+
+        assertTrue(directory.delete() && directory.mkdirs());
+
+        try {
+            testCachedOutputMatchesDecompiledOutput(directory);
+        }
+        finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void testCachedOutputMatchesDecompiledOutput(final File directory) throws Throwable {
+        final DecompilationCache cache = new DecompilationCache(directory);
+        final DecompilerSettings settings = defaultSettings();
+        final DecompilationOptions options = new DecompilationOptions();
+
+        settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        options.setSettings(settings);
+
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+        final TypeDefinition type = metadataSystem.lookupType(A.class.getName().replace('.', '/')).resolve();
+
+        final PlainTextOutput expected = new PlainTextOutput();
+        final PlainTextOutput first = new PlainTextOutput();
+        final PlainTextOutput second = new PlainTextOutput();
+
+        final TypeDecompilationResults expectedResults = settings.getLanguage().decompileType(type, expected, options);
+        final TypeDecompilationResults firstResults = cache.decompileType(type, first, options);
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        final TypeDecompilationResults secondResults = cache.decompileType(type, second, options);
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertEquals(expected.toString(), first.toString());
+        assertEquals(expected.toString(), second.toString());
+        assertEquals(expected.getRow(), second.getRow());
+        assertEquals(expectedResults.getLineNumberPositions().size(), firstResults.getLineNumberPositions().size());
+        assertEquals(expectedResults.getLineNumberPositions().size(), secondResults.getLineNumberPositions().size());
+
+        final PlatformMetadataSystem runtime = PlatformMetadataSystem.runtime();
+        final DecompilationCache otherPlatformCache = new DecompilationCache(
+            directory,
+            new PlatformMetadataSystem(runtime.getTypeLoader(), runtime.getIdentity() + ";other")
+        );
+
+        otherPlatformCache.decompileType(type, new PlainTextOutput(), options);
+
+        assertEquals(1, otherPlatformCache.getMissCount());
+
+        settings.setRetainRedundantCasts(true);
+        cache.decompileType(type, new PlainTextOutput(), options);
+
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testChangedDependenciesInvalidateEntries() throws Throwable {
+        //
+        // B extends Base and references Helper; HelperBase is only reached as Helper's supertype.
+        //
+        final String[] dependencies = {
+            Base.class.getName().replace('.', '/'),
+            Helper.class.getName().replace('.', '/'),
+            HelperBase.class.getName().replace('.', '/')
+        };
+
+        for (final String dependency : dependencies) {
+            final File directory = File.createTempFile("procyon-cache", "");
+
+            assertTrue(directory.delete() && directory.mkdirs());
+
+            try {
+                final DecompilerSettings settings = defaultSettings();
+                final ITypeLoader typeLoader = settings.getTypeLoader();
+                final TypeDefinition type = new MetadataSystem(typeLoader).lookupType(B.class.getName().replace('.', '/')).resolve();
+
+                final String original = decompileWithCache(directory, type, settings, typeLoader, 0);
+
+                assertEquals(original, decompileWithCache(directory, type, settings, typeLoader, 1));
+
+                //
+                // Hashes of dependencies are remembered for the lifetime of a cache, so each lookup uses a new cache.
+                //
+                final ITypeLoader changedTypeLoader = new ChangedTypeLoader(typeLoader, dependency);
+
+                assertEquals(dependency, original, decompileWithCache(directory, type, settings, changedTypeLoader, 0));
+                assertEquals(dependency, original, decompileWithCache(directory, type, settings, changedTypeLoader, 1));
+            }
+            finally {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static String decompileWithCache(
+        final File directory,
+        final TypeDefinition type,
+        final DecompilerSettings settings,
+        final ITypeLoader typeLoader,
+        final int expectedHitCount) {
+
+        final DecompilationCache cache = new DecompilationCache(directory);
+        final DecompilationOptions options = new DecompilationOptions();
+        final PlainTextOutput output = new PlainTextOutput();
+
+        settings.setTypeLoader(typeLoader);
+        settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        options.setSettings(settings);
+
+        cache.decompileType(type, output, options);
+
+        assertEquals(expectedHitCount, cache.getHitCount());
+        assertEquals(1 - expectedHitCount, cache.getMissCount());
+
+        return output.toString();
+    }
+
+    /**
+     * Appends a byte to one class file, which changes its hash without changing what it declares.
+     */
+    private final static class ChangedTypeLoader implements ITypeLoader {
+        private final ITypeLoader _typeLoader;
+        private final String _changedType;
+
+        ChangedTypeLoader(final ITypeLoader typeLoader, final String changedType) {
+            _typeLoader = typeLoader;
+            _changedType = changedType;
+        }
+
+        @Override
+        public boolean tryLoadType(final String internalName, final Buffer buffer) {
+            if (!_typeLoader.tryLoadType(internalName, buffer)) {
+                return false;
+            }
+
+            if (internalName.equals(_changedType)) {
+                buffer.position(buffer.size());
+                buffer.writeByte(0);
+                buffer.flip();
+            }
+
+            return true;
+        }
+    }
+
+    private static void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        assertTrue(file.delete());
+    }
+}
@@ -0,0 +1,136 @@
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.core.BooleanBox;
+import com.strobel.decompiler.languages.java.ast.AstBuilder;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class MethodTimeoutTests extends DecompilerTest {
+    @SuppressWarnings("unused")
+    private static class A {
+        public int test(final int x) {
+            int sum = 0;
+
+            for (int i = 0; i < x; i++) {
+                sum += i;
+            }
+
+            return sum;
+        }
+    }
+
+    @Test
+    public void testEnclosingDeadlineIsNotExtended() throws Throwable {
+        final DecompilerSettings settings = defaultSettings();
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        settings.setMethodTimeout(60000L);
+
+        final long expiredDeadline = System.nanoTime();
+
+        context.setMethodDeadline(expiredDeadline);
+
+        assertEquals(expiredDeadline, context.startMethodTimeout());
+        assertEquals(expiredDeadline, context.getMethodDeadline());
+
+        try {
+            context.checkCanceled();
+            fail("Expected MethodTimeoutException.");
+        }
+        catch (final MethodTimeoutException ignored) {
+        }
+
+        context.setMethodDeadline(0L);
+        context.startMethodTimeout();
+        context.checkCanceled();
+    }
+
+    @Test
+    public void testMethodBudgetIsSharedAcrossPasses() throws Throwable {
+        final DecompilerSettings settings = defaultSettings();
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+        final TypeDefinition type = metadataSystem.lookupType(A.class.getName().replace('.', '/')).resolve();
+        final MethodDefinition method = type.getDeclaredMethods().get(0);
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        settings.setMethodTimeout(60000L);
+        context.setCurrentMethod(method);
+
+        //
+        // Use up the whole budget in one pass; the next pass over the same method must not get a new one.
+        //
+        long oldDeadline = context.startMethodTimeout();
+
+        context.setMethodDeadline(System.nanoTime());
+        context.endMethodTimeout(oldDeadline);
+
+        assertEquals(0L, context.getMethodDeadline());
+
+        oldDeadline = context.startMethodTimeout();
+
+        try {
+            context.checkCanceled();
+            fail("Expected MethodTimeoutException.");
+        }
+        catch (final MethodTimeoutException ignored) {
+        }
+        finally {
+            context.endMethodTimeout(oldDeadline);
+        }
+
+        //
+        // Other methods still get a budget of their own.
+        //
+        context.setCurrentMethod(type.getDeclaredMethods().get(1));
+        oldDeadline = context.startMethodTimeout();
+        context.checkCanceled();
+        context.endMethodTimeout(oldDeadline);
+    }
+
+    @Test
+    public void testExternalCancellationIsNotATimeout() throws Throwable {
+        final DecompilerContext context = new DecompilerContext(defaultSettings());
+
+        context.setCanceled(new BooleanBox(true));
+
+        try {
+            context.checkCanceled();
+            fail("Expected CancellationException.");
+        }
+        catch (final CancellationException e) {
+            assertFalse(e instanceof MethodTimeoutException);
+        }
+    }
+
+    @Test
+    public void testTimedOutMethodIsReplacedWithStub() throws Throwable {
+        final DecompilerSettings settings = defaultSettings();
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+        final TypeDefinition type = metadataSystem.lookupType(A.class.getName().replace('.', '/')).resolve();
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        settings.setMethodTimeout(60000L);
+        context.setCurrentType(type);
+
+        //
+        // An expired deadline is never extended, so every method body times out at its first checkpoint.
+        //
+        context.setMethodDeadline(System.nanoTime());
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+
+        final String text = builder.getCompilationUnit().getText();
+
+        assertTrue(text.contains("could not be decompiled within the time limit"));
+        assertTrue(text.contains("public int test("));
+        assertFalse(context.getTimedOutMethods().isEmpty());
+    }
+}
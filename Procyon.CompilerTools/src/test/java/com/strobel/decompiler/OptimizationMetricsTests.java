@@ -0,0 +1,61 @@
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.ast.AstOptimizationMetrics;
+import com.strobel.decompiler.ast.AstOptimizationStep;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OptimizationMetricsTests extends DecompilerTest {
+    @SuppressWarnings("unused")
+    private static class A {
+        public int test(final int[] values) {
+            int sum = 0;
+            for (final int value : values) {
+                sum += value > 0 ? value : -value;
+            }
+            return sum;
+        }
+    }
+
+    @Test
+    public void testOptimizerStepsAreRecorded() throws Throwable {
+        final AstOptimizationMetrics metrics = new AstOptimizationMetrics();
+        final DecompilerSettings settings = defaultSettings();
+        final DecompilationOptions options = new DecompilationOptions();
+
+        settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        settings.setOptimizationMetrics(metrics);
+        options.setSettings(settings);
+
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+        final TypeDefinition type = metadataSystem.lookupType(A.class.getName().replace('.', '/')).resolve();
+
+        settings.getLanguage().decompileType(type, new PlainTextOutput(), options);
+
+        //
+        // The constructor and test(int[]) are both optimized.
+        //
+        assertEquals(2, metrics.getMethodCount());
+        assertEquals(2, metrics.getStepMetrics(AstOptimizationStep.TypeInference).getInvocations());
+        assertEquals(2, metrics.getStepMetrics(AstOptimizationStep.GotoRemoval).getInvocations());
+        assertEquals(0, metrics.getStepMetrics(AstOptimizationStep.None).getInvocations());
+
+        final AstOptimizationMetrics.StepMetrics joinBasicBlocks = metrics.getStepMetrics(AstOptimizationStep.JoinBasicBlocks);
+
+        assertTrue(joinBasicBlocks.getInvocations() > 0);
+        assertEquals(joinBasicBlocks.getInvocations(), joinBasicBlocks.getReportingInvocations());
+        assertEquals(0, metrics.getStepMetrics(AstOptimizationStep.GotoRemoval).getReportingInvocations());
+        assertEquals(2, metrics.getSlowestMethods().size());
+
+        final StringBuilder summary = new StringBuilder();
+
+        metrics.writeSummary(summary);
+
+        assertTrue(summary.toString().contains("TypeInference"));
+        assertTrue(summary.toString().contains(A.class.getName().replace('.', '/') + ".test:([I)I"));
+    }
+}
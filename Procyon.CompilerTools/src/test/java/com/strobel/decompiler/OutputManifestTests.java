@@ -0,0 +1,139 @@
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.assembler.metadata.PlatformMetadataSystem;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class OutputManifestTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        static class Inner {
+            int value() {
+                return 42;
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class B {
+        int test() {
+            return new A.Inner().value();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class C {
+        int test(final int x) {
+            return x + 1;
+        }
+    }
+
+    private final static String A_NAME = internalName(A.class);
+    private final static String INNER_NAME = internalName(A.Inner.class);
+    private final static String B_NAME = internalName(B.class);
+    private final static String C_NAME = internalName(C.class);
+
+    private static String internalName(final Class<?> c) {
+        return c.getName().replace('.', '/');
+    }
+
+    private static byte[] readClassFile(final String internalName) {
+        final Buffer buffer = new Buffer();
+
+        assertTrue(new ClasspathTypeLoader().tryLoadType(internalName, buffer));
+
+        return Arrays.copyOf(buffer.array(), buffer.size());
+    }
+
+    private static OutputManifest createManifest(final DecompilerSettings settings, final String... typeNames) {
+        return createManifest(settings, PlatformMetadataSystem.runtime(), typeNames);
+    }
+
+    private static OutputManifest createManifest(
+        final DecompilerSettings settings,
+        final PlatformMetadataSystem platform,
+        final String... typeNames) {
+
+        final OutputManifest manifest = new OutputManifest(settings, platform);
+
+        for (final String typeName : typeNames) {
+            manifest.addType(typeName, readClassFile(typeName));
+        }
+
+        return manifest;
+    }
+
+    @Test
+    public void testOutdatedTypesFollowNestingAndReferences() throws Throwable {
+        final DecompilerSettings settings = DecompilerTest.defaultSettings();
+        final OutputManifest written = createManifest(settings, A_NAME, INNER_NAME, B_NAME, C_NAME);
+        final File file = File.createTempFile("procyon", ".manifest");
+
+        final OutputManifest previous;
+
+        try {
+            written.write(file);
+            previous = OutputManifest.read(file);
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+
+        assertNotNull(previous);
+        assertEquals(A_NAME, written.getTopLevelType(INNER_NAME));
+        assertEquals(A_NAME, written.getTopLevelType(A_NAME));
+
+        final OutputManifest unchanged = createManifest(settings, A_NAME, INNER_NAME, B_NAME, C_NAME);
+
+        assertEquals(Collections.<String>emptySet(), unchanged.getOutdatedTypes(previous));
+        assertEquals(Collections.<String>emptySet(), unchanged.getRemovedTypes(previous));
+
+        //
+        // A changed nested type outdates its outer type, and every type which references it.
+        //
+        final OutputManifest changed = createManifest(settings, A_NAME, B_NAME);
+
+        changed.addType(INNER_NAME, readClassFile(C_NAME));
+
+        assertEquals(
+            new HashSet<>(Arrays.asList(A_NAME, B_NAME)),
+            changed.getOutdatedTypes(previous)
+        );
+
+        assertEquals(Collections.singleton(C_NAME), changed.getRemovedTypes(previous));
+    }
+
+    @Test
+    public void testEverythingIsOutdatedWithoutComparableManifest() {
+        final DecompilerSettings settings = DecompilerTest.defaultSettings();
+        final OutputManifest previous = createManifest(settings, A_NAME, INNER_NAME, C_NAME);
+
+        settings.setRetainRedundantCasts(!settings.getRetainRedundantCasts());
+
+        final OutputManifest current = createManifest(settings, A_NAME, INNER_NAME, C_NAME);
+        final HashSet<String> all = new HashSet<>(Arrays.asList(A_NAME, C_NAME));
+
+        assertEquals(all, current.getOutdatedTypes(null));
+        assertEquals(all, current.getOutdatedTypes(previous));
+    }
+
+    @Test
+    public void testEverythingIsOutdatedForDifferentPlatform() {
+        final DecompilerSettings settings = DecompilerTest.defaultSettings();
+        final PlatformMetadataSystem otherPlatform = new PlatformMetadataSystem(new ClasspathTypeLoader(), "other");
+
+        final OutputManifest previous = createManifest(settings, A_NAME, INNER_NAME, C_NAME);
+        final OutputManifest current = createManifest(settings, otherPlatform, A_NAME, INNER_NAME, C_NAME);
+
+        assertEquals(Collections.<String>emptySet(), createManifest(settings, A_NAME, INNER_NAME, C_NAME).getOutdatedTypes(previous));
+        assertEquals(new HashSet<>(Arrays.asList(A_NAME, C_NAME)), current.getOutdatedTypes(previous));
+    }
+}
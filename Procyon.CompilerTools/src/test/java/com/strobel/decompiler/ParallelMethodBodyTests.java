@@ -0,0 +1,136 @@
+package com.strobel.decompiler;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelMethodBodyTests extends DecompilerTest {
+    @SuppressWarnings("unused")
+    private static class A {
+        private int _value;
+
+        public A(final int value) {
+            _value = value;
+        }
+
+        public int sum(final int x) {
+            int sum = 0;
+
+            for (int i = 0; i < x; i++) {
+                sum += i * _value;
+            }
+
+            return sum;
+        }
+
+        public String describe(final Object o) {
+            if (o instanceof String) {
+                return "string: " + o;
+            }
+            return o != null ? o.toString() : "null";
+        }
+
+        public List<String> repeat(final String s, final int count) {
+            final List<String> result = new ArrayList<>();
+
+            while (result.size() < count) {
+                result.add(s);
+            }
+
+            return result;
+        }
+
+        public int parse(final String s) {
+            try {
+                return Integer.parseInt(s);
+            }
+            catch (final NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        public Runnable task() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    _value++;
+                }
+            };
+        }
+
+        public int select(final int i) {
+            switch (i) {
+                case 0:
+                    return _value;
+                case 1:
+                    return -_value;
+                default:
+                    return i;
+            }
+        }
+    }
+
+    //
+    // Types with many method bodies, lambdas, and anonymous classes, whose output used to differ when their
+    // method bodies were built in parallel.
+    //
+    private final static String[] TYPE_NAMES = {
+        A.class.getName().replace('.', '/'),
+        "java/util/ArrayList",
+        "java/util/stream/AbstractPipeline",
+        "java/util/stream/MatchOps",
+        "java/util/stream/StreamSpliterators",
+        "java/lang/invoke/CallSite",
+        "java/net/Inet4AddressImpl"
+    };
+
+    private static String decompile(final String typeName, final DecompilerSettings settings) {
+        final PlainTextOutput output = new PlainTextOutput();
+
+        //
+        // Every call reads the type into a new metadata system, so each run starts from a cold cache.
+        //
+        Decompiler.decompile(typeName, output, settings);
+
+        return output.toString();
+    }
+
+    @Test
+    public void testParallelOutputMatchesSerialOutput() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            final DecompilerSettings parallelSettings = defaultSettings();
+
+            parallelSettings.setMethodBodyPool(pool);
+
+            //
+            // Error stubs include a stack trace, so both kinds of run must decompile from the same call site.
+            //
+            final DecompilerSettings[] runs = { defaultSettings(), parallelSettings, parallelSettings, parallelSettings };
+
+            for (final String typeName : TYPE_NAMES) {
+                final String[] outputs = new String[runs.length];
+
+                for (int i = 0; i < runs.length; i++) {
+                    outputs[i] = decompile(typeName, runs[i]);
+                }
+
+                assertFalse(outputs[0].contains("!!! ERROR"));
+
+                for (int i = 1; i < runs.length; i++) {
+                    assertEquals(typeName, outputs[0], outputs[i]);
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        assertFalse(decompile(TYPE_NAMES[0], defaultSettings()).contains("could not be decompiled"));
+    }
+}
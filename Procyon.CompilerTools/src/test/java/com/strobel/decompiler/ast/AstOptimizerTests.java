@@ -0,0 +1,188 @@
+package com.strobel.decompiler.ast;
+
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.DecompilerSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AstOptimizerTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        private int _value;
+        private final List<String> _names = new ArrayList<>();
+
+        public int test(final int[] values, final boolean flag) {
+            int sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += values[i] > 0 && flag || values[i] < -10 ? values[i] : -values[i];
+            }
+            return sum;
+        }
+
+        public int[] create(final int x) {
+            final int[] values = { x, x + 1, x * 2, _value++ };
+            _value = x > 0 ? (x > 10 ? 10 : x) : 0;
+            return values;
+        }
+
+        public String describe(final Object o) {
+            final StringBuilder sb = new StringBuilder().append(o != null && !(o instanceof String) ? o : "null");
+            _names.add(sb.toString());
+            return _names.isEmpty() || !_names.contains("x") ? sb.toString() : null;
+        }
+    }
+
+    private final static String[] TYPE_NAMES = {
+        A.class.getName().replace('.', '/'),
+        "java/util/ArrayList",
+        "java/util/HashMap"
+    };
+
+    @Test
+    public void testOnlyStepsRunSinceAModificationAreRepeated() {
+        final List<AstOptimizationStep> steps = getBlockLevelSteps();
+
+        for (int modifyingIndex = 0; modifyingIndex < steps.size(); modifyingIndex++) {
+            final AstOptimizationStep modifyingStep = steps.get(modifyingIndex);
+            final AstOptimizationMetrics metrics = runRounds(steps, modifyingStep, true);
+
+            //
+            // The second round repeats every step up to and including the one which modified the AST.  The
+            // steps after it already ran against the modified AST, so the second round skips them.
+            //
+            for (int i = 0; i < steps.size(); i++) {
+                final AstOptimizationMetrics.StepMetrics stepMetrics = metrics.getStepMetrics(steps.get(i));
+                final String message = steps.get(i) + " after " + modifyingStep;
+
+                assertEquals(message, i <= modifyingIndex ? 2 : 1, stepMetrics.getInvocations());
+                assertEquals(message, i <= modifyingIndex ? 0 : 1, stepMetrics.getSkippedInvocations());
+                assertEquals(message, stepMetrics.getInvocations(), stepMetrics.getReportingInvocations());
+                assertEquals(message, i == modifyingIndex ? 1 : 0, stepMetrics.getModifyingInvocations());
+            }
+
+            final AstOptimizationMetrics unscheduled = runRounds(steps, modifyingStep, false);
+
+            for (final AstOptimizationStep step : steps) {
+                assertEquals(step.toString(), 2, unscheduled.getStepMetrics(step).getInvocations());
+                assertEquals(step.toString(), 0, unscheduled.getStepMetrics(step).getSkippedInvocations());
+            }
+        }
+    }
+
+    @Test
+    public void testScheduledStepsProduceTheSameAstAsRunningEveryStep() {
+        final AstOptimizationMetrics scheduled = new AstOptimizationMetrics();
+        final AstOptimizationMetrics unscheduled = new AstOptimizationMetrics();
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader());
+
+        for (final String typeName : TYPE_NAMES) {
+            final TypeDefinition type = metadataSystem.lookupType(typeName).resolve();
+
+            for (final MethodDefinition method : type.getDeclaredMethods()) {
+                if (method.getBody() == null) {
+                    continue;
+                }
+
+                final String expected = optimize(method, unscheduled, false);
+                final String actual = optimize(method, scheduled, true);
+
+                assertEquals(typeName + "." + method.getName() + method.getErasedSignature(), expected, actual);
+            }
+        }
+
+        long skippedInvocations = 0;
+
+        for (final AstOptimizationStep step : getBlockLevelSteps()) {
+            final AstOptimizationMetrics.StepMetrics expected = unscheduled.getStepMetrics(step);
+            final AstOptimizationMetrics.StepMetrics actual = scheduled.getStepMetrics(step);
+
+            //
+            // A skipped step would not have modified anything, so the same rounds run and every
+            // modification still happens.
+            //
+            assertEquals(step.toString(), 0, expected.getSkippedInvocations());
+            assertEquals(step.toString(), expected.getInvocations(), actual.getInvocations() + actual.getSkippedInvocations());
+            assertEquals(step.toString(), expected.getModifyingInvocations(), actual.getModifyingInvocations());
+
+            skippedInvocations += actual.getSkippedInvocations();
+        }
+
+        assertTrue(skippedInvocations > 0);
+    }
+
+    private static List<AstOptimizationStep> getBlockLevelSteps() {
+        final List<AstOptimizationStep> steps = new ArrayList<>();
+
+        for (final AstOptimizationStep step : AstOptimizationStep.values()) {
+            if (step.isBlockLevelOptimization()) {
+                steps.add(step);
+            }
+        }
+
+        return steps;
+    }
+
+    /**
+     * Drives a schedule the way {@link AstOptimizer} does, with {@code modifyingStep} reporting a
+     * modification in the first round only.
+     */
+    private static AstOptimizationMetrics runRounds(
+        final List<AstOptimizationStep> steps,
+        final AstOptimizationStep modifyingStep,
+        final boolean skipIdleSteps) {
+
+        final AstOptimizationMetrics metrics = new AstOptimizationMetrics();
+        final AstOptimizationMetrics.Recorder recorder = AstOptimizationMetrics.startRecording(metrics, null);
+        final AstOptimizer.StepSchedule schedule = new AstOptimizer.StepSchedule(recorder, skipIdleSteps);
+
+        boolean modified;
+        int round = 0;
+
+        do {
+            modified = false;
+            ++round;
+
+            for (final AstOptimizationStep step : steps) {
+                recorder.beginStep(step);
+
+                if (schedule.needsRun(step)) {
+                    modified |= schedule.completed(step == modifyingStep && round == 1);
+                }
+            }
+        }
+        while (modified);
+
+        recorder.finish();
+
+        assertEquals(2, round);
+
+        return metrics;
+    }
+
+    private static String optimize(final MethodDefinition method, final AstOptimizationMetrics metrics, final boolean skipIdleSteps) {
+        final DecompilerSettings settings = DecompilerSettings.javaDefaults();
+
+        settings.setOptimizationMetrics(metrics);
+
+        final DecompilerContext context = new DecompilerContext(settings);
+
+        context.setCurrentType(method.getDeclaringType());
+        context.setCurrentMethod(method);
+
+        final Block block = new Block();
+
+        block.getBody().addAll(AstBuilder.build(method.getBody(), true, context));
+
+        AstOptimizer.optimize(context, block, AstOptimizationStep.None, skipIdleSteps);
+
+        return block.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.strobel.decompiler.ast;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NodeCursorTests {
+    @Test
+    public void testCursorMatchesRecursiveLists() {
+        final Block method = createTree();
+
+        assertEquals(method.getSelfAndChildrenRecursive(Node.class), toList(method.selfAndChildrenRecursive(Node.class)));
+        assertEquals(method.getChildrenAndSelfRecursive(Node.class), toList(method.childrenAndSelfRecursive(Node.class)));
+        assertEquals(method.getSelfAndChildrenRecursive(Expression.class), toList(method.selfAndChildrenRecursive(Expression.class)));
+        assertEquals(method.getChildrenAndSelfRecursive(Block.class), toList(method.childrenAndSelfRecursive(Block.class)));
+        assertEquals(method.getSelfAndChildrenRecursive(Label.class), toList(method.selfAndChildrenRecursive(Label.class)));
+    }
+
+    @Test
+    public void testChildAccessMatchesChildren() {
+        for (final Node node : createTree().getSelfAndChildrenRecursive(Node.class)) {
+            final List<Node> children = node.getChildren();
+
+            assertEquals(children.size(), node.getChildCount());
+
+            for (int i = 0; i < children.size(); i++) {
+                assertSame(children.get(i), node.getChild(i));
+            }
+        }
+    }
+
+    @Test
+    public void testCursorStopsEarly() {
+        final Block method = createTree();
+        final NodeCursor<Loop> cursor = method.selfAndChildrenRecursive(Loop.class);
+
+        assertNotNull(cursor.firstOrDefault());
+        assertNull(cursor.firstOrDefault());
+        assertNull(method.selfAndChildrenRecursive(Switch.class).firstOrDefault());
+    }
+
+    private static <T extends Node> List<T> toList(final Iterable<T> nodes) {
+        final List<T> list = new ArrayList<>();
+
+        for (final T node : nodes) {
+            list.add(node);
+        }
+
+        return list;
+    }
+
+    private static Block createTree() {
+        final Label label = new Label("L1");
+        final Variable variable = new Variable();
+
+        final Condition condition = new Condition();
+
+        condition.setCondition(
+            new Expression(
+                AstCode.CmpEq,
+                null,
+                Expression.MYSTERY_OFFSET,
+                new Expression(AstCode.Load, variable, Expression.MYSTERY_OFFSET),
+                new Expression(AstCode.AConstNull, null, Expression.MYSTERY_OFFSET)
+            )
+        );
+
+        condition.setTrueBlock(new Block(new Expression(AstCode.Goto, label, Expression.MYSTERY_OFFSET)));
+        condition.setFalseBlock(new Block());
+
+        final Loop loop = new Loop();
+
+        loop.setBody(new Block(new Expression(AstCode.Nop, null, Expression.MYSTERY_OFFSET), label));
+
+        final Block method = new Block(
+            new Expression(
+                AstCode.Store,
+                variable,
+                Expression.MYSTERY_OFFSET,
+                new Expression(AstCode.AConstNull, null, Expression.MYSTERY_OFFSET)
+            ),
+            condition,
+            loop
+        );
+
+        method.setEntryGoto(new Expression(AstCode.Goto, label, Expression.MYSTERY_OFFSET));
+
+        return method;
+    }
+}
@@ -114,6 +114,24 @@ public class CommandLineOptions {
         description = "Write decompiled results to specified directory instead of the console.")
     private String _outputDirectory;
 
+    @Parameter(
+        names = { "-oa", "--output-archive" },
+        description = "Write decompiled results straight into the specified zip or -sources.jar file instead of " +
+                      "the console (cannot be combined with -o).")
+    private String _outputArchive;
+
+    @Parameter(
+        names = { "-cd", "--cache-directory" },
+        description = "Cache decompiled output in the specified directory, and reuse it for classes whose bytecode " +
+                      "and referenced types are unchanged (only in combination with -o or -oa).")
+    private String _cacheDirectory;
+
+    @Parameter(
+        names = { "-inc", "--incremental" },
+        description = "When decompiling a jar file, only decompile classes which changed since the last incremental " +
+                      "run into the same output directory, plus the classes whose output they affect (requires -o).")
+    private boolean _incremental;
+
     @Parameter(
         names = { "-jar", "--jar-file" },
         description = "[DEPRECATED] Decompile all classes in the specified jar file (disables -ent and -s).")
@@ -160,6 +178,60 @@ public class CommandLineOptions {
         description = "Enable eager loading of method bodies (may speed up decompilation of larger archives).")
     private boolean _isEagerMethodLoadingEnabled;
 
+    @Parameter(
+        names = { "-th", "--threads" },
+        description = "Decompile the classes of a jar file on the specified number of worker threads (requires -o).",
+        arity = 1)
+    private int _threadCount;
+
+    @Parameter(
+        names = { "-mp", "--method-parallelism" },
+        description = "Build the method bodies of each type in parallel on the specified number of worker threads.  " +
+                      "Helps most with types which have very many methods.",
+        arity = 1)
+    private int _methodParallelism;
+
+    @Parameter(
+        names = { "-tcs", "--type-cache-size" },
+        description = "Resolve all classes of a jar against one metadata cache holding at most the specified number " +
+                      "of types; core JDK types are always retained.  By default, the cache is discarded every " +
+                      "100 classes instead.",
+        arity = 1)
+    private int _typeCacheSize;
+
+    @Parameter(
+        names = { "-mt", "--method-timeout" },
+        description = "Give up on any method which takes longer than the specified number of milliseconds to " +
+                      "decompile, and show its bytecode instead.  Use 0 for no limit.",
+        arity = 1)
+    private long _methodTimeout;
+
+    @Parameter(
+        names = { "-jdk", "--jdk-home" },
+        description = "Resolve platform types from the JDK installed in the specified directory instead of the " +
+                      "running JDK (requires a Java 9+ installation), or from a metadata index of a JDK's classes " +
+                      "created with the 'index' command.")
+    private String _jdkHome;
+
+    @Parameter(
+        names = { "-rel", "--release" },
+        description = "Resolve platform types against the API of the specified Java release, as recorded in the " +
+                      "JDK's ct.sym file.",
+        arity = 1)
+    private int _release;
+
+    @Parameter(
+        names = { "-mi", "--metadata-index" },
+        description = "Resolve dependency types which cannot be found on the class path from a metadata index " +
+                      "created with the 'index' command.  Platform types are not taken from this index; pass a " +
+                      "JDK index with -jdk instead.")
+    private String _metadataIndex;
+
+    @Parameter(
+        names = { "-om", "--optimizer-metrics" },
+        description = "Print per-step bytecode AST optimizer statistics, and the slowest methods, when finished.")
+    private boolean _printOptimizerMetrics;
+
     @Parameter(
         names = { "-sm", "--simplify-member-references" },
         description = "Simplify type-qualified member references in Java output [EXPERIMENTAL].")
@@ -295,6 +367,30 @@ public class CommandLineOptions {
         _outputDirectory = outputDirectory;
     }
 
+    public final String getOutputArchive() {
+        return _outputArchive;
+    }
+
+    public final void setOutputArchive(final String outputArchive) {
+        _outputArchive = outputArchive;
+    }
+
+    public final String getCacheDirectory() {
+        return _cacheDirectory;
+    }
+
+    public final void setCacheDirectory(final String cacheDirectory) {
+        _cacheDirectory = cacheDirectory;
+    }
+
+    public final boolean isIncremental() {
+        return _incremental;
+    }
+
+    public final void setIncremental(final boolean incremental) {
+        _incremental = incremental;
+    }
+
     public final String getJarFile() {
         return _jarFile;
     }
@@ -375,6 +471,70 @@ public class CommandLineOptions {
         _isEagerMethodLoadingEnabled = isEagerMethodLoadingEnabled;
     }
 
+    public final int getThreadCount() {
+        return _threadCount;
+    }
+
+    public final void setThreadCount(final int threadCount) {
+        _threadCount = threadCount;
+    }
+
+    public final int getMethodParallelism() {
+        return _methodParallelism;
+    }
+
+    public final void setMethodParallelism(final int methodParallelism) {
+        _methodParallelism = methodParallelism;
+    }
+
+    public final int getTypeCacheSize() {
+        return _typeCacheSize;
+    }
+
+    public final void setTypeCacheSize(final int typeCacheSize) {
+        _typeCacheSize = typeCacheSize;
+    }
+
+    public final long getMethodTimeout() {
+        return _methodTimeout;
+    }
+
+    public final void setMethodTimeout(final long methodTimeout) {
+        _methodTimeout = methodTimeout;
+    }
+
+    public final String getJdkHome() {
+        return _jdkHome;
+    }
+
+    public final void setJdkHome(final String jdkHome) {
+        _jdkHome = jdkHome;
+    }
+
+    public final int getRelease() {
+        return _release;
+    }
+
+    public final void setRelease(final int release) {
+        _release = release;
+    }
+
+    public final String getMetadataIndex() {
+        return _metadataIndex;
+    }
+
+    public final void setMetadataIndex(final String metadataIndex) {
+        _metadataIndex = metadataIndex;
+    }
+
+    public final boolean getPrintOptimizerMetrics() {
+        return _printOptimizerMetrics;
+    }
+
+    public final void setPrintOptimizerMetrics(final boolean printOptimizerMetrics) {
+        _printOptimizerMetrics = printOptimizerMetrics;
+    }
+
     public final boolean getSimplifyMemberReferences() {
         return _simplifyMemberReferences;
     }
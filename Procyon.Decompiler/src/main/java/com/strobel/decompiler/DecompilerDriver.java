@@ -4,10 +4,13 @@ import com.beust.jcommander.JCommander;
 import com.strobel.Procyon;
 import com.strobel.annotations.NotNull;
 import com.strobel.assembler.InputTypeLoader;
+import com.strobel.assembler.ir.attributes.AttributeNames;
+import com.strobel.assembler.ir.attributes.SourceAttribute;
 import com.strobel.assembler.metadata.*;
 import com.strobel.core.ExceptionUtilities;
 import com.strobel.core.StringUtilities;
 import com.strobel.decompiler.LineNumberFormatter.LineNumberOption;
+import com.strobel.decompiler.ast.AstOptimizationMetrics;
 import com.strobel.decompiler.languages.BytecodeOutputOptions;
 import com.strobel.decompiler.languages.BytecodeLanguage;
 import com.strobel.decompiler.languages.Languages;
@@ -16,21 +19,37 @@ import com.strobel.decompiler.languages.TypeDecompilationResults;
 import com.strobel.decompiler.languages.java.JavaFormattingOptions;
 import com.strobel.io.PathHelper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.ConsoleHandler;
@@ -41,7 +60,33 @@ import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 public class DecompilerDriver {
+    private final static int INITIAL_TEXT_BUFFER_SIZE = 64 * 1024;
+    private final static int MAX_POOLED_TEXT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final static ThreadLocal<StringWriter> TEXT_BUFFER = new ThreadLocal<StringWriter>() {
+        @Override
+        protected StringWriter initialValue() {
+            return new StringWriter(INITIAL_TEXT_BUFFER_SIZE);
+        }
+    };
+
+    //
+    // Platform types are read once into this shared layer; every metadata system we create
+    // resolves them from here instead of reading the JDK again.
+    //
+    private static PlatformMetadataSystem _platform;
+
+    //
+    // When set, decompiled sources are written into this archive instead of the output directory.
+    //
+    private static SourceArchiveWriter _outputArchive;
+
     public static void main(final String[] args) {
+        if (args.length > 0 && "index".equals(args[0])) {
+            runIndexCommand(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         final CommandLineOptions options = new CommandLineOptions();
         final JCommander jCommander;
         final List<String> typeNames;
@@ -78,6 +123,14 @@ public class DecompilerDriver {
             return;
         }
 
+        if (!StringUtilities.isNullOrWhitespace(options.getOutputDirectory()) &&
+            !StringUtilities.isNullOrWhitespace(options.getOutputArchive())) {
+
+            System.err.println("Options -o and -oa cannot be combined.");
+            System.exit(-1);
+            return;
+        }
+
         final DecompilerSettings settings = new DecompilerSettings();
 
         settings.setFlattenSwitchBlocks(options.getFlattenSwitchBlocks());
@@ -95,7 +148,41 @@ public class DecompilerDriver {
         settings.setSimplifyMemberReferences(options.getSimplifyMemberReferences());
         settings.setForceFullyQualifiedReferences(options.getForceFullyQualifiedReferences());
         settings.setDisableForEachTransforms(options.getDisableForEachTransforms());
-        settings.setTypeLoader(new InputTypeLoader());
+        settings.setMethodTimeout(Math.max(options.getMethodTimeout(), 0L));
+
+        final MetadataIndexTypeLoader metadataIndex;
+
+        try {
+            _platform = createPlatformMetadataSystem(options);
+
+            metadataIndex = StringUtilities.isNullOrWhitespace(options.getMetadataIndex())
+                            ? null
+                            : new MetadataIndexTypeLoader(new File(options.getMetadataIndex()));
+        }
+        catch (final IOException | IllegalArgumentException e) {
+            System.err.println(ExceptionUtilities.getMessage(e));
+            System.exit(-1);
+            return;
+        }
+
+        final ITypeLoader inputTypeLoader = new InputTypeLoader(excludePlatformTypes(_platform, new ClasspathTypeLoader()));
+
+        //
+        // The index only fills in what cannot be found elsewhere; it holds no method bodies, so it must never
+        // stand in for a class file we could decompile.
+        //
+        settings.setTypeLoader(
+            metadataIndex != null ? new CompositeTypeLoader(inputTypeLoader, excludePlatformTypes(_platform, metadataIndex))
+                                  : inputTypeLoader
+        );
+
+        if (options.getPrintOptimizerMetrics()) {
+            settings.setOptimizationMetrics(new AstOptimizationMetrics(true));
+        }
+
+        if (options.getMethodParallelism() > 1) {
+            settings.setMethodBodyPool(new ForkJoinPool(options.getMethodParallelism()));
+        }
 
         if (!options.getSuppressBanner()) {
             settings.setOutputFileHeaderText("\nDecompiled by Procyon v" + Procyon.version() + "\n");
@@ -121,34 +208,114 @@ public class DecompilerDriver {
             settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
         }
 
-        if (decompileJar) {
+        final DecompilationCache cache;
+
+        if (!StringUtilities.isNullOrWhitespace(options.getCacheDirectory()) &&
+            (!StringUtilities.isNullOrWhitespace(settings.getOutputDirectory()) ||
+             !StringUtilities.isNullOrWhitespace(options.getOutputArchive()))) {
+
+            cache = new DecompilationCache(new File(options.getCacheDirectory()), _platform);
+        }
+        else {
+            cache = null;
+        }
+
+        if (!StringUtilities.isNullOrWhitespace(options.getOutputArchive())) {
             try {
-                decompileJar(jarFile, options, decompilationOptions);
+                _outputArchive = new SourceArchiveWriter(
+                    new File(options.getOutputArchive()),
+                    settings.isUnicodeOutputEnabled() ? Charset.forName("UTF-8")
+                                                      : Charset.defaultCharset()
+                );
             }
-            catch (final Throwable t) {
-                System.err.println(ExceptionUtilities.getMessage(t));
+            catch (final IOException e) {
+                System.err.println(ExceptionUtilities.getMessage(e));
                 System.exit(-1);
+                return;
             }
         }
-        else {
-            final MetadataSystem metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
 
-            metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+        boolean failed = false;
 
-            for (final String typeName : typeNames) {
+        try {
+            if (decompileJar) {
                 try {
-                    if (typeName.endsWith(".jar")) {
-                        decompileJar(typeName, options, decompilationOptions);
-                    }
-                    else {
-                        decompileType(metadataSystem, typeName, options, decompilationOptions, true);
-                    }
+                    decompileJar(jarFile, options, decompilationOptions, cache);
                 }
                 catch (final Throwable t) {
-                    t.printStackTrace();
+                    System.err.println(ExceptionUtilities.getMessage(t));
+                    failed = true;
+                }
+            }
+            else {
+                final MetadataSystem metadataSystem = createMetadataSystem(settings, options);
+
+                for (final String typeName : typeNames) {
+                    try {
+                        if (typeName.endsWith(".jar")) {
+                            decompileJar(typeName, options, decompilationOptions, cache);
+                        }
+                        else {
+                            decompileType(metadataSystem, typeName, options, decompilationOptions, cache, true);
+                        }
+                    }
+                    catch (final Throwable t) {
+                        t.printStackTrace();
+                    }
                 }
             }
         }
+        finally {
+            //
+            // Finish the archive even if decompilation failed; without its central directory, none of the
+            // entries written so far could be read.
+            //
+            if (_outputArchive != null && !closeOutputArchive()) {
+                failed = true;
+            }
+
+            if (settings.getMethodBodyPool() != null) {
+                settings.getMethodBodyPool().shutdown();
+            }
+        }
+
+        if (failed) {
+            System.exit(-1);
+            return;
+        }
+
+        if (cache != null) {
+            System.out.printf(
+                "Decompilation cache: %d hits, %d misses.\n",
+                cache.getHitCount(),
+                cache.getMissCount()
+            );
+        }
+
+        if (settings.getOptimizationMetrics() != null) {
+            settings.getOptimizationMetrics().writeSummary(System.out);
+        }
+    }
+
+    private static boolean closeOutputArchive() {
+        final SourceArchiveWriter archive = _outputArchive;
+
+        _outputArchive = null;
+
+        try {
+            archive.close();
+        }
+        catch (final IOException e) {
+            System.err.println(ExceptionUtilities.getMessage(e));
+            return false;
+        }
+
+        System.out.printf("Wrote %d files to %s.\n", archive.getEntryCount(), archive.getFile().getPath());
+        return true;
+    }
+
+    private static boolean isWritingToFiles(final DecompilerSettings settings) {
+        return _outputArchive != null || !StringUtilities.isNullOrWhitespace(settings.getOutputDirectory());
     }
 
     private static BytecodeOutputOptions createBytecodeFormattingOptions(final CommandLineOptions options) {
@@ -212,7 +379,8 @@ public class DecompilerDriver {
     private static void decompileJar(
         final String jarFilePath,
         final CommandLineOptions options,
-        final DecompilationOptions decompilationOptions) throws IOException {
+        final DecompilationOptions decompilationOptions,
+        final DecompilationCache cache) throws IOException {
 
         final File jarFile = new File(jarFilePath);
 
@@ -228,48 +396,524 @@ public class DecompilerDriver {
         final ITypeLoader oldTypeLoader = settings.getTypeLoader();
 
         settings.setShowSyntheticMembers(false);
-        settings.setTypeLoader(new CompositeTypeLoader(new JarTypeLoader(jar), oldTypeLoader));
+        settings.setTypeLoader(new CompositeTypeLoader(createJarTypeLoader(jarFile, jar), oldTypeLoader));
+
+        final OutputManifest manifest;
+        final File manifestFile;
+        final Set<String> outdatedTypes;
+        final Set<String> failedTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        if (options.isIncremental() && !StringUtilities.isNullOrWhitespace(settings.getOutputDirectory())) {
+            manifest = createOutputManifest(jar, settings);
+            manifestFile = new File(settings.getOutputDirectory(), ".procyon-" + jarFile.getName() + ".manifest");
+            outdatedTypes = prepareIncrementalOutput(manifest, OutputManifest.read(manifestFile), settings);
+        }
+        else {
+            manifest = null;
+            manifestFile = null;
+            outdatedTypes = null;
+        }
 
         try {
-            MetadataSystem metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
+            if (options.getThreadCount() > 1 && isWritingToFiles(settings)) {
+                decompileJarInParallel(jar, options, decompilationOptions, cache, outdatedTypes, failedTypes);
+            }
+            else {
+                MetadataSystem metadataSystem = createMetadataSystem(settings, options);
+                int classesDecompiled = 0;
+
+                while (entries.hasMoreElements()) {
+                    final JarEntry entry = entries.nextElement();
+                    final String name = entry.getName();
+
+                    if (!name.endsWith(".class")) {
+                        continue;
+                    }
+
+                    final String internalName = StringUtilities.removeRight(name, ".class");
 
-            metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+                    if (outdatedTypes != null && !outdatedTypes.contains(internalName)) {
+                        continue;
+                    }
 
-            int classesDecompiled = 0;
+                    try {
+                        if (!decompileType(metadataSystem, internalName, options, decompilationOptions, cache, false)) {
+                            failedTypes.add(internalName);
+                        }
+
+                        if (++classesDecompiled % 100 == 0 && options.getTypeCacheSize() <= 0) {
+                            metadataSystem = createMetadataSystem(settings, options);
+                        }
+                    }
+                    catch (final Throwable t) {
+                        failedTypes.add(internalName);
+                        t.printStackTrace();
+                    }
+                }
+            }
+
+            if (manifest != null) {
+                //
+                // Leave failed types out of the manifest so the next run tries them again.
+                //
+                for (final String failedType : failedTypes) {
+                    manifest.removeType(failedType);
+                }
+
+                manifest.write(manifestFile);
+            }
+        }
+        finally {
+            settings.setShowSyntheticMembers(oldShowSyntheticMembers);
+            settings.setTypeLoader(oldTypeLoader);
+        }
+    }
+
+    private static void decompileJarInParallel(
+        final JarFile jar,
+        final CommandLineOptions options,
+        final DecompilationOptions decompilationOptions,
+        final DecompilationCache cache,
+        final Set<String> outdatedTypes,
+        final Set<String> failedTypes) throws IOException {
+
+        final DecompilerSettings settings = decompilationOptions.getSettings();
+        final List<String> typeNames = new ArrayList<>();
+        final Enumeration<JarEntry> entries = jar.entries();
+
+        while (entries.hasMoreElements()) {
+            final String name = entries.nextElement().getName();
+
+            if (name.endsWith(".class")) {
+                final String internalName = StringUtilities.removeRight(name, ".class");
+
+                if (outdatedTypes == null || outdatedTypes.contains(internalName)) {
+                    typeNames.add(internalName);
+                }
+            }
+        }
+
+        final int threadCount = Math.min(options.getThreadCount(), Math.max(typeNames.size(), 1));
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<?>> workers = new ArrayList<>(threadCount);
+        final AtomicInteger nextType = new AtomicInteger();
+
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                workers.add(
+                    executor.submit(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                //
+                                // Type definitions are populated lazily and get rewritten during decompilation,
+                                // so every worker resolves into its own metadata system.  Only the type loader
+                                // (and the jar behind it) is shared between workers.
+                                //
+                                MetadataSystem metadataSystem = createMetadataSystem(settings, options);
+
+                                int classesDecompiled = 0;
+                                int index;
+
+                                while ((index = nextType.getAndIncrement()) < typeNames.size()) {
+                                    try {
+                                        if (!decompileType(metadataSystem, typeNames.get(index), options, decompilationOptions, cache, false)) {
+                                            failedTypes.add(typeNames.get(index));
+                                        }
+
+                                        if (++classesDecompiled % 100 == 0 && options.getTypeCacheSize() <= 0) {
+                                            metadataSystem = createMetadataSystem(settings, options);
+                                        }
+                                    }
+                                    catch (final Throwable t) {
+                                        failedTypes.add(typeNames.get(index));
+                                        t.printStackTrace();
+                                    }
+                                }
+                            }
+                        }
+                    )
+                );
+            }
+
+            for (final Future<?> worker : workers) {
+                try {
+                    worker.get();
+                }
+                catch (final ExecutionException e) {
+                    throw ExceptionUtilities.asRuntimeException(e.getCause());
+                }
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decompilation of " + jar.getName() + " was interrupted.");
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OutputManifest createOutputManifest(final JarFile jar, final DecompilerSettings settings) throws IOException {
+        final OutputManifest manifest = new OutputManifest(settings, _platform);
+        final Enumeration<JarEntry> entries = jar.entries();
+
+        while (entries.hasMoreElements()) {
+            final JarEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (entry.isDirectory() || !name.endsWith(".class")) {
+                continue;
+            }
+
+            try (final InputStream stream = jar.getInputStream(entry)) {
+                manifest.addType(StringUtilities.removeRight(name, ".class"), readAll(stream, entry.getSize()));
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Removes the output of types which no longer exist, and returns the top-level types which must be
+     * decompiled again: those the manifest considers outdated, and those whose output has gone missing.
+     */
+    private static Set<String> prepareIncrementalOutput(
+        final OutputManifest manifest,
+        final OutputManifest previous,
+        final DecompilerSettings settings) {
+
+        final Set<String> outdatedTypes = new HashSet<>(manifest.getOutdatedTypes(previous));
+
+        for (final String removedType : manifest.getRemovedTypes(previous)) {
+            final File outputFile = getOutputFile(removedType, settings);
+
+            if (outputFile.isFile() && !outputFile.delete()) {
+                System.err.printf("!!! ERROR: Failed to delete stale output file %s.\n", outputFile.getPath());
+            }
+        }
+
+        int topLevelTypeCount = 0;
+
+        for (final String internalName : manifest.getTypeNames()) {
+            if (!internalName.equals(manifest.getTopLevelType(internalName))) {
+                continue;
+            }
+
+            ++topLevelTypeCount;
+
+            if (!outdatedTypes.contains(internalName) && !getOutputFile(internalName, settings).isFile()) {
+                outdatedTypes.add(internalName);
+            }
+        }
+
+        System.out.printf(
+            "Incremental decompilation: %d of %d top-level types are outdated.\n",
+            outdatedTypes.size(),
+            topLevelTypeCount
+        );
+
+        return outdatedTypes;
+    }
+
+    private static File getOutputFile(final String topLevelType, final DecompilerSettings settings) {
+        return new File(
+            PathHelper.combine(
+                settings.getOutputDirectory(),
+                topLevelType.replace('/', PathHelper.DirectorySeparator) + settings.getLanguage().getFileExtension()
+            )
+        );
+    }
+
+    private static ITypeLoader createJarTypeLoader(final File file, final JarFile jar) {
+        try {
+            return new IndexedJarTypeLoader(file);
+        }
+        catch (final IOException e) {
+            //
+            // Archives we cannot map and index (e.g., Zip64 or > 2GB) go through the JarFile API.
+            //
+            return new JarTypeLoader(jar);
+        }
+    }
+
+    private static ITypeLoader excludePlatformTypes(final PlatformMetadataSystem platform, final ITypeLoader typeLoader) {
+        return new ITypeLoader() {
+            @Override
+            public boolean tryLoadType(final String internalName, final Buffer buffer) {
+                //
+                // Leave platform types to the platform layer so they are not read into every metadata system.
+                //
+                return !platform.containsType(internalName) &&
+                       typeLoader.tryLoadType(internalName, buffer);
+            }
+        };
+    }
+
+    private static void runIndexCommand(final String[] args) {
+        final IndexCommandOptions options = new IndexCommandOptions();
+        final JCommander jCommander;
+
+        try {
+            jCommander = new JCommander(options);
+            jCommander.setAllowAbbreviatedOptions(false);
+            jCommander.setProgramName("procyon index");
+            jCommander.parse(args);
+        }
+        catch (final Throwable t) {
+            System.err.println(ExceptionUtilities.getMessage(t));
+            System.exit(-1);
+            return;
+        }
+
+        if (options.getPrintUsage() ||
+            options.getInputs().isEmpty() ||
+            StringUtilities.isNullOrWhitespace(options.getOutputFile())) {
+
+            jCommander.usage();
+            return;
+        }
+
+        final MetadataIndexWriter writer = new MetadataIndexWriter();
+        final File outputFile = new File(options.getOutputFile());
+
+        try {
+            for (final String input : options.getInputs()) {
+                final File file = new File(input);
+
+                if (file.isDirectory()) {
+                    indexDirectory(writer, file, "");
+                }
+                else if (file.isFile()) {
+                    indexJar(writer, file);
+                }
+                else {
+                    throw new FileNotFoundException("File not found: " + input);
+                }
+            }
+
+            writer.writeTo(outputFile);
+        }
+        catch (final IOException | IllegalArgumentException e) {
+            System.err.println(ExceptionUtilities.getMessage(e));
+            System.exit(-1);
+            return;
+        }
+
+        System.out.printf("Indexed %d types to %s (%d bytes).\n", writer.getTypeCount(), outputFile.getPath(), outputFile.length());
+    }
+
+    private static void indexJar(final MetadataIndexWriter writer, final File jarFile) throws IOException {
+        try (final JarFile jar = new JarFile(jarFile)) {
+            final Enumeration<JarEntry> entries = jar.entries();
 
             while (entries.hasMoreElements()) {
                 final JarEntry entry = entries.nextElement();
                 final String name = entry.getName();
 
-                if (!name.endsWith(".class")) {
+                if (entry.isDirectory() || !isIndexedClassFile(name)) {
                     continue;
                 }
 
-                final String internalName = StringUtilities.removeRight(name, ".class");
+                try (final InputStream stream = jar.getInputStream(entry)) {
+                    writer.add(name.substring(0, name.length() - ".class".length()), readAll(stream, entry.getSize()));
+                }
+            }
+        }
+    }
 
-                try {
-                    decompileType(metadataSystem, internalName, options, decompilationOptions, false);
+    private static void indexDirectory(final MetadataIndexWriter writer, final File directory, final String prefix) throws IOException {
+        final File[] files = directory.listFiles();
 
-                    if (++classesDecompiled % 100 == 0) {
-                        metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
-                    }
-                }
-                catch (final Throwable t) {
-                    t.printStackTrace();
+        if (files == null) {
+            throw new IOException("Could not list directory: " + directory.getPath());
+        }
+
+        //
+        // Sort so the index is reproducible regardless of file system ordering.
+        //
+        Arrays.sort(files);
+
+        for (final File file : files) {
+            final String name = prefix + file.getName();
+
+            if (file.isDirectory()) {
+                indexDirectory(writer, file, name + "/");
+            }
+            else if (isIndexedClassFile(name)) {
+                try (final InputStream stream = new FileInputStream(file)) {
+                    writer.add(name.substring(0, name.length() - ".class".length()), readAll(stream, file.length()));
                 }
             }
         }
-        finally {
-            settings.setShowSyntheticMembers(oldShowSyntheticMembers);
-            settings.setTypeLoader(oldTypeLoader);
+    }
+
+    private static boolean isIndexedClassFile(final String name) {
+        //
+        // Multi-release and module descriptors are not types we can resolve by name.
+        //
+        return StringUtilities.endsWithIgnoreCase(name, ".class") &&
+               !name.startsWith("META-INF/") &&
+               !name.endsWith("module-info.class");
+    }
+
+    private static byte[] readAll(final InputStream stream, final long sizeHint) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint > 0 ? (int) sizeHint : 4096);
+        final byte[] buffer = new byte[8192];
+
+        int bytesRead;
+
+        while ((bytesRead = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, bytesRead);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static boolean hasMethodBodies(final TypeDefinition type) {
+        //
+        // Types resolved from a metadata index or ct.sym keep their signatures but lose their code.  A class
+        // file always has code for a concrete method, so one without it tells us where the type came from.
+        //
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            if (!method.isAbstract() &&
+                !Flags.testAny(method.getFlags(), Flags.NATIVE) &&
+                !method.hasBody() &&
+                SourceAttribute.find(AttributeNames.Code, method.getSourceAttributes()) == null) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static TypeReference lookupPlatformType(final MetadataSystem metadataSystem, final String typeName) {
+        //
+        // The input type loader accepts dotted and nested names like 'java.util.Map.Entry', but platform
+        // types are left to the platform layer, which only understands internal names.  Try the same
+        // candidate names the input type loader would.
+        //
+        if (_platform == null || StringUtilities.endsWithIgnoreCase(typeName, ".class") || PathHelper.isPathRooted(typeName)) {
+            return null;
+        }
+
+        String internalName = typeName.replace('.', '/');
+
+        while (true) {
+            if (_platform.containsType(internalName)) {
+                return metadataSystem.lookupType(internalName);
+            }
+
+            final int lastDelimiter = internalName.lastIndexOf('/');
+
+            if (lastDelimiter < 0) {
+                return null;
+            }
+
+            internalName = internalName.substring(0, lastDelimiter) + "$" + internalName.substring(lastDelimiter + 1);
+        }
+    }
+
+    private static PlatformMetadataSystem createPlatformMetadataSystem(final CommandLineOptions options) throws IOException {
+        final String jdkHome = options.getJdkHome();
+        final int release = options.getRelease();
+
+        if (StringUtilities.isNullOrWhitespace(jdkHome) && release <= 0) {
+            return PlatformMetadataSystem.runtime();
+        }
+
+        final File javaHome = StringUtilities.isNullOrWhitespace(jdkHome) ? new File(System.getProperty("java.home"))
+                                                                          : new File(jdkHome);
+
+        if (javaHome.isFile()) {
+            //
+            // A metadata index built from a JDK's classes stands in for the JDK itself.
+            //
+            if (release > 0) {
+                throw new IllegalArgumentException("A release cannot be selected when platform types come from a metadata index.");
+            }
+
+            return new PlatformMetadataSystem(
+                new MetadataIndexTypeLoader(javaHome),
+                javaHome.getAbsolutePath() + ";" + javaHome.length() + ";" + javaHome.lastModified()
+            );
+        }
+
+        final String javaVersion = getJavaVersion(javaHome);
+        final String identity = javaHome.getAbsolutePath() + ";" + javaVersion;
+
+        if (release <= 0 || release == getFeatureVersion(javaVersion)) {
+            return new PlatformMetadataSystem(new JrtTypeLoader(javaHome), identity);
         }
+
+        final File ctSym = CtSymTypeLoader.findCtSym(javaHome);
+
+        if (ctSym == null) {
+            throw new FileNotFoundException("Could not find lib/ct.sym in " + javaHome.getPath() + ".");
+        }
+
+        return new PlatformMetadataSystem(new CtSymTypeLoader(ctSym, release), identity + ";release=" + release);
     }
 
-    private static void decompileType(
+    private static String getJavaVersion(final File javaHome) {
+        //
+        // JDK images record their version in a 'release' file, e.g. JAVA_VERSION="17.0.9".
+        //
+        final File releaseFile = new File(javaHome, "release");
+
+        if (!releaseFile.isFile()) {
+            return "";
+        }
+
+        try (final FileInputStream stream = new FileInputStream(releaseFile)) {
+            final Properties properties = new Properties();
+
+            properties.load(stream);
+
+            return properties.getProperty("JAVA_VERSION", "").replace("\"", "").trim();
+        }
+        catch (final IOException ignored) {
+            return "";
+        }
+    }
+
+    private static int getFeatureVersion(final String javaVersion) {
+        final String feature = javaVersion.startsWith("1.") ? javaVersion.substring(2) : javaVersion;
+
+        int end = 0;
+
+        while (end < feature.length() && Character.isDigit(feature.charAt(end))) {
+            end++;
+        }
+
+        try {
+            return Integer.parseInt(feature.substring(0, end));
+        }
+        catch (final NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    private static MetadataSystem createMetadataSystem(final DecompilerSettings settings, final CommandLineOptions options) {
+        final MetadataSystem metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader(), _platform);
+
+        metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+        metadataSystem.setMaximumCachedTypes(Math.max(options.getTypeCacheSize(), 0));
+
+        return metadataSystem;
+    }
+
+    /**
+     * @return {@code false} if the type could not be loaded; decompilation errors within the type are
+     * rendered into its output instead.
+     */
+    private static boolean decompileType(
         final MetadataSystem metadataSystem,
         final String typeName,
         final CommandLineOptions commandLineOptions,
         final DecompilationOptions options,
+        final DecompilationCache cache,
         final boolean includeNested) throws IOException {
 
         final TypeReference type;
@@ -286,28 +930,52 @@ public class DecompilerDriver {
             type = metadataSystem.resolve(reference);
         }
         else {
-            type = metadataSystem.lookupType(typeName);
+            final TypeReference inputType = metadataSystem.lookupType(typeName);
+            type = inputType != null ? inputType : lookupPlatformType(metadataSystem, typeName);
         }
 
         final TypeDefinition resolvedType;
 
         if (type == null || (resolvedType = type.resolve()) == null) {
             System.err.printf("!!! ERROR: Failed to load class %s.\n", typeName);
-            return;
+            return false;
+        }
+
+        if (!hasMethodBodies(resolvedType)) {
+            System.err.printf("!!! ERROR: Failed to load class %s: only its metadata was found, without method bodies.\n", typeName);
+            return false;
         }
 
         DeobfuscationUtilities.processType(resolvedType);
 
         if (!includeNested && (resolvedType.isNested() || resolvedType.isAnonymous() || resolvedType.isSynthetic())) {
-            return;
+            return true;
         }
 
         final Writer writer = createWriter(resolvedType, settings);
-        final boolean writeToFile = writer instanceof FileOutputWriter;
+        final boolean writeToFile = isWritingToFiles(settings);
         final PlainTextOutput output;
 
+        //
+        // Line number positions are only known once the type has been decompiled, so when we need them,
+        // we render into a pooled in-memory buffer and format on the way to disk rather than writing the
+        // file once and rewriting it afterward.
+        //
+        final boolean formatLineNumbers = writeToFile &&
+                                          (commandLineOptions.getIncludeLineNumbers() || commandLineOptions.getStretchLines());
+
+        final StringWriter textBuffer;
+
+        if (formatLineNumbers) {
+            textBuffer = TEXT_BUFFER.get();
+            textBuffer.getBuffer().setLength(0);
+        }
+        else {
+            textBuffer = null;
+        }
+
         if (writeToFile) {
-            output = new PlainTextOutput(writer);
+            output = new PlainTextOutput(formatLineNumbers ? textBuffer : writer);
         }
         else {
             output = new AnsiTextOutput(
@@ -327,41 +995,77 @@ public class DecompilerDriver {
             System.out.printf("Decompiling %s...\n", typeName);
         }
 
-        final TypeDecompilationResults results = settings.getLanguage().decompileType(resolvedType, output, options);
+        try {
+            final TypeDecompilationResults results;
 
-        writer.flush();
+            if (cache != null && writeToFile) {
+                results = cache.decompileType(resolvedType, output, options);
+            }
+            else {
+                results = settings.getLanguage().decompileType(resolvedType, output, options);
+            }
 
-        if (writeToFile) {
-            writer.close();
-        }
+            // If we're writing to a file and we were asked to include line numbers in any way,
+            // then format the buffered text to include that line number information.
+            if (formatLineNumbers) {
+                final List<LineNumberPosition> lineNumberPositions = results.getLineNumberPositions();
+                final EnumSet<LineNumberOption> lineNumberOptions = EnumSet.noneOf(LineNumberOption.class);
 
-        // If we're writing to a file and we were asked to include line numbers in any way,
-        // then reformat the file to include that line number information.
-        final List<LineNumberPosition> lineNumberPositions = results.getLineNumberPositions();
+                if (commandLineOptions.getIncludeLineNumbers()) {
+                    lineNumberOptions.add(LineNumberOption.LEADING_COMMENTS);
+                }
+
+                if (commandLineOptions.getStretchLines()) {
+                    lineNumberOptions.add(LineNumberOption.STRETCHED);
+                }
 
-        if ((commandLineOptions.getIncludeLineNumbers() || commandLineOptions.getStretchLines()) && (writer instanceof FileOutputWriter)) {
-            final EnumSet<LineNumberOption> lineNumberOptions = EnumSet.noneOf(LineNumberOption.class);
+                final LineNumberFormatter lineFormatter = new LineNumberFormatter(lineNumberPositions, lineNumberOptions);
 
-            if (commandLineOptions.getIncludeLineNumbers()) {
-                lineNumberOptions.add(LineNumberOption.LEADING_COMMENTS);
+                lineFormatter.reformat(new StringReader(textBuffer.toString()), writer);
             }
 
-            if (commandLineOptions.getStretchLines()) {
-                lineNumberOptions.add(LineNumberOption.STRETCHED);
+            writer.flush();
+        }
+        finally {
+            if (writeToFile) {
+                writer.close();
             }
 
-            final LineNumberFormatter lineFormatter = new LineNumberFormatter(
-                ((FileOutputWriter) writer).getFile(),
-                lineNumberPositions,
-                lineNumberOptions
-            );
+            if (textBuffer != null) {
+                trimTextBuffer(textBuffer);
+            }
+        }
 
-            lineFormatter.reformatFile();
+        return true;
+    }
+
+    private static void trimTextBuffer(final StringWriter textBuffer) {
+        final StringBuffer buffer = textBuffer.getBuffer();
+
+        buffer.setLength(0);
+
+        //
+        // Don't let one huge type pin its buffer for the lifetime of the thread.
+        //
+        if (buffer.capacity() > MAX_POOLED_TEXT_BUFFER_SIZE) {
+            buffer.trimToSize();
+            buffer.ensureCapacity(INITIAL_TEXT_BUFFER_SIZE);
         }
     }
 
     private static Writer createWriter(final TypeDefinition type, final DecompilerSettings settings) throws IOException {
         final String outputDirectory = settings.getOutputDirectory();
+        final SourceArchiveWriter archive = _outputArchive;
+
+        if (archive != null) {
+            final String fileName = type.getName() + settings.getLanguage().getFileExtension();
+            final String packageName = type.getPackageName();
+
+            return archive.createEntryWriter(
+                StringUtilities.isNullOrWhitespace(packageName) ? fileName
+                                                                : packageName.replace('.', '/') + "/" + fileName
+            );
+        }
 
         if (StringUtilities.isNullOrWhitespace(outputDirectory)) {
             return new OutputStreamWriter(
@@ -389,7 +1093,7 @@ public class DecompilerDriver {
         final File outputFile = new File(outputPath);
         final File parentFile = outputFile.getParentFile();
 
-        if (parentFile != null && !parentFile.exists() && !parentFile.mkdirs()) {
+        if (parentFile != null && !parentFile.mkdirs() && !parentFile.isDirectory()) {
             throw new IllegalStateException(
                 String.format(
                     "Could not create output directory for file \"%s\".",
@@ -398,38 +1102,11 @@ public class DecompilerDriver {
             );
         }
 
-        if (!outputFile.exists() && !outputFile.createNewFile()) {
-            throw new IllegalStateException(
-                String.format(
-                    "Could not create output file \"%s\".",
-                    outputPath
-                )
-            );
-        }
-
-        return new FileOutputWriter(outputFile, settings);
-    }
-}
-
-final class FileOutputWriter extends OutputStreamWriter {
-    private final File file;
-
-    FileOutputWriter(final File file, final DecompilerSettings settings) throws IOException {
-        super(
-            new FileOutputStream(file),
+        return new FileOutputWriter(
+            outputFile,
             settings.isUnicodeOutputEnabled() ? Charset.forName("UTF-8")
                                               : Charset.defaultCharset()
         );
-        this.file = file;
-    }
-
-    /**
-     * Returns the file to which 'this' is writing.
-     *
-     * @return the file to which 'this' is writing
-     */
-    public File getFile() {
-        return this.file;
     }
 }
 
@@ -467,6 +1144,10 @@ final class NoRetryMetadataSystem extends MetadataSystem {
         super(typeLoader);
     }
 
+    NoRetryMetadataSystem(final ITypeLoader typeLoader, final MetadataSystem platform) {
+        super(typeLoader, platform);
+    }
+
     @Override
     protected TypeDefinition resolveType(final String descriptor, final boolean mightBePrimitive) {
         if (_failedTypes.contains(descriptor)) {
@@ -0,0 +1,219 @@
+/*
+ * FileOutputWriter.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link Writer} which encodes text straight into a {@link FileChannel}.
+ * <p>
+ * Characters and encoded bytes are staged in large buffers which are pooled per thread and reused
+ * by every file that thread writes, so emitting tens of thousands of small source files neither
+ * allocates fresh buffers nor pays for a stream stack per file.  Consequently, a thread may only
+ * have one open {@code FileOutputWriter} at a time.
+ */
+final class FileOutputWriter extends Writer {
+    private final static int CHAR_BUFFER_SIZE = 64 * 1024;
+    private final static int BYTE_BUFFER_SIZE = 256 * 1024;
+
+    private final static ThreadLocal<CharBuffer> CHAR_BUFFER = new ThreadLocal<CharBuffer>() {
+        @Override
+        protected CharBuffer initialValue() {
+            return CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        }
+    };
+
+    private final static ThreadLocal<ByteBuffer> BYTE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+        }
+    };
+
+    private final File _file;
+    private final FileChannel _channel;
+    private final CharsetEncoder _encoder;
+    private final CharBuffer _chars;
+    private final ByteBuffer _bytes;
+
+    private boolean _closed;
+
+    FileOutputWriter(final File file, final Charset charset) throws IOException {
+        _file = VerifyArgument.notNull(file, "file");
+
+        _encoder = VerifyArgument.notNull(charset, "charset").newEncoder()
+                                                             .onMalformedInput(CodingErrorAction.REPLACE)
+                                                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        _channel = FileChannel.open(
+            file.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+
+        //
+        // A previous writer on this thread may have failed part way through; never inherit its leftovers.
+        //
+        _chars = CHAR_BUFFER.get();
+        _bytes = BYTE_BUFFER.get();
+        _chars.clear();
+        _bytes.clear();
+    }
+
+    /**
+     * Returns the file to which 'this' is writing.
+     *
+     * @return the file to which 'this' is writing
+     */
+    public File getFile() {
+        return _file;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        ensureOpen();
+
+        if (!_chars.hasRemaining()) {
+            encode(false);
+        }
+
+        _chars.put((char) c);
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) throws IOException {
+        ensureOpen();
+
+        int position = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+            if (!_chars.hasRemaining()) {
+                encode(false);
+            }
+
+            final int count = Math.min(remaining, _chars.remaining());
+
+            _chars.put(buffer, position, count);
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void write(final String text, final int offset, final int length) throws IOException {
+        ensureOpen();
+
+        int position = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+            if (!_chars.hasRemaining()) {
+                encode(false);
+            }
+
+            final int count = Math.min(remaining, _chars.remaining());
+
+            _chars.put(text, position, position + count);
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+
+        _closed = true;
+
+        try {
+            encode(true);
+
+            while (_encoder.flush(_bytes) == CoderResult.OVERFLOW) {
+                drain();
+            }
+
+            drain();
+        }
+        finally {
+            _chars.clear();
+            _bytes.clear();
+            _channel.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (_closed) {
+            throw new IOException("Stream closed: " + _file.getPath());
+        }
+    }
+
+    /**
+     * Encodes the staged characters, writing to the channel whenever the byte buffer fills.  Unless
+     * {@code endOfInput} is set, a trailing high surrogate is kept back until its partner arrives.
+     */
+    private void encode(final boolean endOfInput) throws IOException {
+        _chars.flip();
+
+        try {
+            while (true) {
+                final CoderResult result = _encoder.encode(_chars, _bytes, endOfInput);
+
+                if (result.isOverflow()) {
+                    drain();
+                    continue;
+                }
+
+                if (result.isError()) {
+                    result.throwException();
+                }
+
+                break;
+            }
+        }
+        finally {
+            _chars.compact();
+        }
+    }
+
+    private void drain() throws IOException {
+        _bytes.flip();
+
+        while (_bytes.hasRemaining()) {
+            _channel.write(_bytes);
+        }
+
+        _bytes.clear();
+    }
+}
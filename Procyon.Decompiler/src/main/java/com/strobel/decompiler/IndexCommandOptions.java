@@ -0,0 +1,57 @@
+/*
+ * IndexCommandOptions.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.beust.jcommander.Parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options for the {@code index} command, which writes a metadata index of one or more jar files
+ * or class directories for use with {@code --metadata-index}.
+ */
+public class IndexCommandOptions {
+    @Parameter(description = "<jar files or class directories>")
+    private final List<String> _inputs = new ArrayList<>();
+
+    @Parameter(
+        names = { "-?", "--help" },
+        help = true,
+        description = "Display this usage information and exit.")
+    private boolean _printUsage;
+
+    @Parameter(
+        names = { "-o", "--output" },
+        description = "The metadata index file to write.")
+    private String _outputFile;
+
+    public final List<String> getInputs() {
+        return _inputs;
+    }
+
+    public final boolean getPrintUsage() {
+        return _printUsage;
+    }
+
+    public final void setPrintUsage(final boolean printUsage) {
+        _printUsage = printUsage;
+    }
+
+    public final String getOutputFile() {
+        return _outputFile;
+    }
+
+    public final void setOutputFile(final String outputFile) {
+        _outputFile = outputFile;
+    }
+}
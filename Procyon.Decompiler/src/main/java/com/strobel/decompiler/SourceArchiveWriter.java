@@ -0,0 +1,358 @@
+/*
+ * SourceArchiveWriter.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes decompiled sources straight into a zip archive (e.g., a {@code -sources.jar}).
+ * <p>
+ * Each entry is encoded and deflated by the thread which decompiled it, using buffers pooled per
+ * thread; only appending the finished bytes to the archive is serialized.  This keeps multi-threaded
+ * runs from queueing up on file system metadata operations for thousands of tiny files, and avoids
+ * writing the sources to disk only to read them back for archiving.
+ * <p>
+ * Archives are written without Zip64 extensions, so they are limited to 65535 entries and 4 GB.
+ */
+final class SourceArchiveWriter implements Closeable {
+    private final static Logger LOG = Logger.getLogger(SourceArchiveWriter.class.getSimpleName());
+
+    private final static int LOCAL_HEADER_SIGNATURE = 0x04034B50;
+    private final static int CENTRAL_HEADER_SIGNATURE = 0x02014B50;
+    private final static int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054B50;
+
+    private final static int VERSION_NEEDED = 20;
+    private final static int FLAG_UTF8_NAMES = 0x0800;
+    private final static int METHOD_STORED = 0;
+    private final static int METHOD_DEFLATED = 8;
+
+    private final static int MAX_ENTRIES = 0xFFFF;
+    private final static long MAX_SIZE = 0xFFFFFFFFL;
+
+    private final static int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final static ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    };
+
+    private final static ThreadLocal<StringBuilder> TEXT_BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_BUFFER_SIZE);
+        }
+    };
+
+    private final static ThreadLocal<byte[]> OUTPUT_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[INITIAL_BUFFER_SIZE];
+        }
+    };
+
+    private final File _file;
+    private final Charset _charset;
+    private final OutputStream _output;
+    private final ByteArrayOutputStream _centralDirectory = new ByteArrayOutputStream();
+    private final Set<String> _entryNames = new HashSet<>();
+    private final int _dosTime;
+    private final int _dosDate;
+    private final int _maximumEntries;
+    private final long _maximumSize;
+
+    private long _offset;
+    private boolean _closed;
+
+    SourceArchiveWriter(final File file, final Charset charset) throws IOException {
+        this(file, charset, MAX_ENTRIES, MAX_SIZE);
+    }
+
+    SourceArchiveWriter(final File file, final Charset charset, final int maximumEntries, final long maximumSize) throws IOException {
+        _file = VerifyArgument.notNull(file, "file");
+        _charset = VerifyArgument.notNull(charset, "charset");
+        _maximumEntries = maximumEntries;
+        _maximumSize = maximumSize;
+
+        final File parentFile = file.getAbsoluteFile().getParentFile();
+
+        if (parentFile != null && !parentFile.mkdirs() && !parentFile.isDirectory()) {
+            throw new IOException("Could not create output directory for archive: " + file.getPath());
+        }
+
+        _output = new BufferedOutputStream(new FileOutputStream(file), 256 * 1024);
+
+        //
+        // Every entry gets the archive's creation time; the sources have no meaningful timestamp of their own.
+        //
+        final Calendar now = Calendar.getInstance();
+
+        _dosTime = (now.get(Calendar.HOUR_OF_DAY) << 11) | (now.get(Calendar.MINUTE) << 5) | (now.get(Calendar.SECOND) >> 1);
+        _dosDate = ((Math.max(now.get(Calendar.YEAR), 1980) - 1980) << 9) | ((now.get(Calendar.MONTH) + 1) << 5) | now.get(Calendar.DAY_OF_MONTH);
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    public synchronized int getEntryCount() {
+        return _entryNames.size();
+    }
+
+    /**
+     * Returns a writer for a new entry.  The entry is compressed on the calling thread and added to
+     * the archive when the writer is closed.  A thread may only have one entry writer open at a time.
+     */
+    public Writer createEntryWriter(final String entryName) {
+        VerifyArgument.notNullOrWhitespace(entryName, "entryName");
+        return new EntryWriter(entryName);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+
+        _closed = true;
+
+        try {
+            final long centralDirectoryOffset = _offset;
+            final int centralDirectorySize = _centralDirectory.size();
+
+            if (centralDirectoryOffset + centralDirectorySize > _maximumSize) {
+                throw new IOException("Archive exceeds 4 GB, which requires Zip64: " + _file.getPath());
+            }
+
+            _centralDirectory.writeTo(_output);
+
+            writeInt(_output, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            writeShort(_output, 0);                         // number of this disk
+            writeShort(_output, 0);                         // disk where central directory starts
+            writeShort(_output, _entryNames.size());        // entries on this disk
+            writeShort(_output, _entryNames.size());        // total entries
+            writeInt(_output, centralDirectorySize);
+            writeInt(_output, (int) centralDirectoryOffset);
+            writeShort(_output, 0);                         // comment length
+        }
+        finally {
+            _output.close();
+        }
+    }
+
+    private synchronized void appendEntry(
+        final String entryName,
+        final int method,
+        final int crc,
+        final int uncompressedSize,
+        final byte[] data,
+        final int length) throws IOException {
+
+        if (_closed) {
+            throw new IOException("Archive has already been closed: " + _file.getPath());
+        }
+
+        if (_entryNames.contains(entryName)) {
+            //
+            // Zip entries cannot be replaced once appended, so the first writer of a path wins.
+            //
+            LOG.warning("Skipping duplicate archive entry: " + entryName);
+            return;
+        }
+
+        if (_entryNames.size() >= _maximumEntries) {
+            throw new IOException("Archive exceeds " + MAX_ENTRIES + " entries, which requires Zip64: " + _file.getPath());
+        }
+
+        final byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        final long headerOffset = _offset;
+
+        if (headerOffset + 30 + name.length + length > _maximumSize) {
+            throw new IOException("Archive exceeds 4 GB, which requires Zip64: " + _file.getPath());
+        }
+
+        _entryNames.add(entryName);
+
+        writeInt(_output, LOCAL_HEADER_SIGNATURE);
+        writeShort(_output, VERSION_NEEDED);
+        writeEntryInfo(_output, method, crc, length, uncompressedSize, name.length);
+        writeShort(_output, 0);                             // extra field length
+        _output.write(name);
+        _output.write(data, 0, length);
+
+        _offset += 30 + name.length + length;
+
+        writeInt(_centralDirectory, CENTRAL_HEADER_SIGNATURE);
+        writeShort(_centralDirectory, VERSION_NEEDED);      // version made by
+        writeShort(_centralDirectory, VERSION_NEEDED);
+        writeEntryInfo(_centralDirectory, method, crc, length, uncompressedSize, name.length);
+        writeShort(_centralDirectory, 0);                   // extra field length
+        writeShort(_centralDirectory, 0);                   // comment length
+        writeShort(_centralDirectory, 0);                   // disk number start
+        writeShort(_centralDirectory, 0);                   // internal attributes
+        writeInt(_centralDirectory, 0);                     // external attributes
+        writeInt(_centralDirectory, (int) headerOffset);
+        _centralDirectory.write(name);
+    }
+
+    private void writeEntryInfo(
+        final OutputStream out,
+        final int method,
+        final int crc,
+        final int compressedSize,
+        final int uncompressedSize,
+        final int nameLength) throws IOException {
+
+        writeShort(out, FLAG_UTF8_NAMES);
+        writeShort(out, method);
+        writeShort(out, _dosTime);
+        writeShort(out, _dosDate);
+        writeInt(out, crc);
+        writeInt(out, compressedSize);
+        writeInt(out, uncompressedSize);
+        writeShort(out, nameLength);
+    }
+
+    private static void writeShort(final OutputStream out, final int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(final OutputStream out, final int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+    }
+
+    private final class EntryWriter extends Writer {
+        private final String _entryName;
+        private final StringBuilder _text;
+        private boolean _closed;
+
+        EntryWriter(final String entryName) {
+            _entryName = entryName;
+            _text = TEXT_BUFFER.get();
+            _text.setLength(0);
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            ensureOpen();
+            _text.append((char) c);
+        }
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            ensureOpen();
+            _text.append(buffer, offset, length);
+        }
+
+        @Override
+        public void write(final String text, final int offset, final int length) throws IOException {
+            ensureOpen();
+            _text.append(text, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (_closed) {
+                return;
+            }
+
+            _closed = true;
+
+            try {
+                final ByteBuffer encoded = _charset.encode(CharBuffer.wrap(_text));
+                final byte[] input = encoded.array();
+                final int inputLength = encoded.limit();
+                final CRC32 crc = new CRC32();
+
+                crc.update(input, 0, inputLength);
+
+                final Deflater deflater = DEFLATER.get();
+
+                byte[] output = OUTPUT_BUFFER.get();
+                int outputLength = 0;
+
+                deflater.reset();
+                deflater.setInput(input, 0, inputLength);
+                deflater.finish();
+
+                while (!deflater.finished()) {
+                    if (outputLength == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                        OUTPUT_BUFFER.set(output);
+                    }
+
+                    outputLength += deflater.deflate(output, outputLength, output.length - outputLength);
+                }
+
+                if (outputLength < inputLength) {
+                    appendEntry(_entryName, METHOD_DEFLATED, (int) crc.getValue(), inputLength, output, outputLength);
+                }
+                else {
+                    appendEntry(_entryName, METHOD_STORED, (int) crc.getValue(), inputLength, input, inputLength);
+                }
+            }
+            finally {
+                trimBuffers();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (_closed) {
+                throw new IOException("Archive entry has already been closed: " + _entryName);
+            }
+        }
+
+        private void trimBuffers() {
+            //
+            // Don't let one huge type pin its buffers for the lifetime of the thread.
+            //
+            _text.setLength(0);
+
+            if (_text.capacity() > 16 * INITIAL_BUFFER_SIZE) {
+                TEXT_BUFFER.remove();
+            }
+
+            if (OUTPUT_BUFFER.get().length > 16 * INITIAL_BUFFER_SIZE) {
+                OUTPUT_BUFFER.remove();
+            }
+        }
+    }
+}
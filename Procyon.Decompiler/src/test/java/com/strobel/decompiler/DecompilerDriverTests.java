@@ -0,0 +1,295 @@
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.assembler.metadata.DeobfuscationUtilities;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.LineNumberFormatter.LineNumberOption;
+import com.strobel.decompiler.languages.LineNumberPosition;
+import com.strobel.decompiler.languages.TypeDecompilationResults;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+public class DecompilerDriverTests {
+    @SuppressWarnings("unused")
+    private static class LineNumberFixture {
+        private int _value;
+
+        public int sum(final int x) { int sum = 0; for (int i = 0; i < x; i++) { sum += i * _value; } return sum; }
+
+        public String describe(final Object o) {
+
+
+            if (o instanceof String) {
+                return "string: " + o;
+            }
+
+
+
+            return o != null ? o.toString()
+                             : "null";
+        }
+
+        public void update(final int value) {
+            _value = value;
+            _value++; _value *= 2;
+        }
+    }
+
+    private final static String[] LINE_NUMBER_TYPES = {
+        LineNumberFixture.class.getName().replace('.', '/'),
+        "java/util/ArrayList"
+    };
+
+    //
+    // Top-level types for the jar tests; their member types go into the jar with them.
+    //
+    private final static Class<?>[] JAR_TYPES = {
+        CommandLineOptions.class,
+        DecompilationCache.class,
+        FileOutputWriter.class,
+        LineNumberFormatter.class,
+        LineNumberPrintWriter.class,
+        MethodTimeoutException.class,
+        NoRetryMetadataSystem.class,
+        OutputManifest.class,
+        SourceArchiveWriter.class
+    };
+
+    @Test
+    public void testThreadedJarOutputMatchesSerialOutput() throws Throwable {
+        final File directory = Files.createTempDirectory("procyon-output").toFile();
+
+        try {
+            final File jarFile = new File(directory, "fixture.jar");
+            final File serialDirectory = new File(directory, "serial");
+            final File threadedDirectory = new File(directory, "threaded");
+
+            createJar(jarFile, JAR_TYPES);
+
+            DecompilerDriver.main(
+                new String[] { "--suppress-banner", "-jar", jarFile.getPath(), "-o", serialDirectory.getPath() }
+            );
+
+            final Map<String, byte[]> serialOutput = readFiles(serialDirectory);
+
+            assertEquals(JAR_TYPES.length, serialOutput.size());
+
+            for (final Map.Entry<String, byte[]> file : serialOutput.entrySet()) {
+                assertFalse(file.getKey(), new String(file.getValue(), Charset.defaultCharset()).contains("could not be decompiled"));
+            }
+
+            for (final String threadCount : new String[] { "2", "4" }) {
+                DecompilerDriver.main(
+                    new String[] {
+                        "--suppress-banner", "-jar", jarFile.getPath(), "-o", threadedDirectory.getPath(), "-th", threadCount
+                    }
+                );
+
+                final Map<String, byte[]> threadedOutput = readFiles(threadedDirectory);
+
+                assertEquals(serialOutput.keySet(), threadedOutput.keySet());
+
+                for (final String fileName : serialOutput.keySet()) {
+                    assertArrayEquals(fileName + " with " + threadCount + " threads", serialOutput.get(fileName), threadedOutput.get(fileName));
+                }
+
+                deleteRecursively(threadedDirectory);
+            }
+        }
+        finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    public void testLineNumberOutputMatchesRewrittenFile() throws Throwable {
+        final File directory = Files.createTempDirectory("procyon-output").toFile();
+
+        try {
+            for (final String typeName : LINE_NUMBER_TYPES) {
+                final File plainFile = decompileWithDriver(typeName, new File(directory, "plain"));
+                final StringWriter text = new StringWriter();
+                final List<LineNumberPosition> positions = decompile(typeName, text);
+
+                //
+                // Make sure the text we reformat below is exactly what the driver decompiled.
+                //
+                assertArrayEquals(typeName, Files.readAllBytes(plainFile.toPath()), encode(text.toString()));
+                assertFalse(typeName, positions.isEmpty());
+
+                assertLineNumberOutputMatches(typeName, text.toString(), positions, new File(directory, "ln"), "-ln");
+                assertLineNumberOutputMatches(typeName, text.toString(), positions, new File(directory, "sl"), "-sl");
+                assertLineNumberOutputMatches(typeName, text.toString(), positions, new File(directory, "lnsl"), "-ln", "-sl");
+            }
+        }
+        finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void assertLineNumberOutputMatches(
+        final String typeName,
+        final String text,
+        final List<LineNumberPosition> positions,
+        final File outputDirectory,
+        final String... options) throws Throwable {
+
+        final File actual = decompileWithDriver(typeName, outputDirectory, options);
+        final File expected = new File(outputDirectory, "expected.java");
+        final EnumSet<LineNumberOption> lineNumberOptions = EnumSet.noneOf(LineNumberOption.class);
+
+        if (Arrays.asList(options).contains("-ln")) {
+            lineNumberOptions.add(LineNumberOption.LEADING_COMMENTS);
+        }
+
+        if (Arrays.asList(options).contains("-sl")) {
+            lineNumberOptions.add(LineNumberOption.STRETCHED);
+        }
+
+        //
+        // This is how the driver used to do it: write the plain text to disk, then rewrite the file in place.
+        //
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(expected), Charset.defaultCharset())) {
+            writer.write(text);
+        }
+
+        new LineNumberFormatter(expected, positions, lineNumberOptions).reformatFile();
+
+        final byte[] expectedBytes = Files.readAllBytes(expected.toPath());
+
+        assertFalse(Arrays.equals(expectedBytes, encode(text)));
+        assertArrayEquals(typeName + " " + Arrays.toString(options), expectedBytes, Files.readAllBytes(actual.toPath()));
+    }
+
+    private static File decompileWithDriver(final String typeName, final File outputDirectory, final String... options) {
+        final List<String> args = new ArrayList<>();
+
+        args.add("--suppress-banner");
+        args.add("-o");
+        args.add(outputDirectory.getPath());
+        args.addAll(Arrays.asList(options));
+        args.add(typeName);
+
+        DecompilerDriver.main(args.toArray(new String[args.size()]));
+
+        final String packageName = typeName.substring(0, typeName.lastIndexOf('/'));
+        final File[] files = new File(outputDirectory, packageName).listFiles();
+
+        assertNotNull(typeName, files);
+        assertEquals(typeName, 1, files.length);
+
+        return files[0];
+    }
+
+    private static List<LineNumberPosition> decompile(final String typeName, final Writer writer) {
+        final DecompilerSettings settings = new DecompilerSettings();
+
+        settings.setForceExplicitImports(true);
+        settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        settings.setTypeLoader(new ClasspathTypeLoader());
+
+        final DecompilationOptions options = new DecompilationOptions();
+
+        options.setSettings(settings);
+        options.setFullDecompilation(true);
+
+        final MetadataSystem metadataSystem = new MetadataSystem(settings.getTypeLoader());
+        final TypeDefinition type = metadataSystem.lookupType(typeName).resolve();
+
+        DeobfuscationUtilities.processType(type);
+
+        final TypeDecompilationResults results = settings.getLanguage().decompileType(type, new PlainTextOutput(writer), options);
+
+        return results.getLineNumberPositions();
+    }
+
+    private static void createJar(final File jarFile, final Class<?>... types) throws Throwable {
+        try (final JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            for (final Class<?> type : types) {
+                addClass(jar, type);
+            }
+        }
+    }
+
+    private static void addClass(final JarOutputStream jar, final Class<?> type) throws Throwable {
+        final String name = type.getName().replace('.', '/') + ".class";
+        final byte[] buffer = new byte[8192];
+
+        jar.putNextEntry(new JarEntry(name));
+
+        try (final InputStream stream = type.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(name, stream);
+
+            int count;
+
+            while ((count = stream.read(buffer)) > 0) {
+                jar.write(buffer, 0, count);
+            }
+        }
+
+        jar.closeEntry();
+
+        for (final Class<?> memberType : type.getDeclaredClasses()) {
+            addClass(jar, memberType);
+        }
+    }
+
+    private static Map<String, byte[]> readFiles(final File directory) throws Throwable {
+        final Map<String, byte[]> files = new TreeMap<>();
+
+        readFiles(directory, "", files);
+
+        return files;
+    }
+
+    private static void readFiles(final File directory, final String prefix, final Map<String, byte[]> files) throws Throwable {
+        final File[] children = directory.listFiles();
+
+        assertNotNull(directory.getPath(), children);
+
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                readFiles(child, prefix + child.getName() + "/", files);
+            }
+            else {
+                files.put(prefix + child.getName(), Files.readAllBytes(child.toPath()));
+            }
+        }
+    }
+
+    private static byte[] encode(final String text) {
+        return text.getBytes(Charset.defaultCharset());
+    }
+
+    private static void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        assertTrue(file.getPath(), file.delete());
+    }
+}
@@ -0,0 +1,163 @@
+package com.strobel.decompiler;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class FileOutputWriterTests {
+    @Test
+    public void testOutputMatchesOutputStreamWriterInUtf8() throws Throwable {
+        assertOutputMatchesOutputStreamWriter(Charset.forName("UTF-8"));
+    }
+
+    @Test
+    public void testOutputMatchesOutputStreamWriterInLatin1() throws Throwable {
+        //
+        // Most of the text cannot be mapped, so this also covers the replacement of unmappable characters.
+        //
+        assertOutputMatchesOutputStreamWriter(Charset.forName("ISO-8859-1"));
+    }
+
+    @Test
+    public void testOutputMatchesOutputStreamWriterInDefaultCharset() throws Throwable {
+        assertOutputMatchesOutputStreamWriter(Charset.defaultCharset());
+    }
+
+    @Test
+    public void testBuffersAreNotSharedBetweenConsecutiveWriters() throws Throwable {
+        final File first = File.createTempFile("procyon-output", ".java");
+        final File second = File.createTempFile("procyon-output", ".java");
+        final Charset charset = Charset.forName("UTF-8");
+
+        try {
+            final FileOutputWriter failed = new FileOutputWriter(first, charset);
+
+            //
+            // Leave staged text and half of a surrogate pair behind, as a writer abandoned part way through would.
+            //
+            failed.write("abandoned");
+            failed.write('\uD83D');
+
+            final String text = createText(1000);
+
+            try (final Writer writer = new FileOutputWriter(second, charset)) {
+                writer.write(text);
+            }
+
+            assertArrayEquals(text.getBytes(charset), Files.readAllBytes(second.toPath()));
+        }
+        finally {
+            assertTrue(first.delete());
+            assertTrue(second.delete());
+        }
+    }
+
+    @Test
+    public void testWritingAfterCloseFails() throws Throwable {
+        final File file = File.createTempFile("procyon-output", ".java");
+
+        try {
+            final Writer writer = new FileOutputWriter(file, Charset.forName("UTF-8"));
+
+            writer.write("text");
+            writer.close();
+            writer.close();
+
+            try {
+                writer.write("more");
+                fail("Expected a closed writer to reject text.");
+            }
+            catch (final IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("closed"));
+            }
+
+            assertEquals("text", new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static void assertOutputMatchesOutputStreamWriter(final Charset charset) throws Throwable {
+        final File expected = File.createTempFile("procyon-output", ".java");
+        final File actual = File.createTempFile("procyon-output", ".java");
+
+        try {
+            try (final Writer writer = new OutputStreamWriter(new FileOutputStream(expected), charset)) {
+                writeText(writer);
+            }
+
+            try (final Writer writer = new FileOutputWriter(actual, charset)) {
+                writeText(writer);
+            }
+
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+        }
+        finally {
+            assertTrue(expected.delete());
+            assertTrue(actual.delete());
+        }
+    }
+
+    private static void writeText(final Writer writer) throws IOException {
+        final String text = createText(300 * 1024);
+
+        //
+        // Mix single characters, arrays, and strings, with chunks which straddle the staging buffers and
+        // split surrogate pairs between calls.
+        //
+        int position = 0;
+        int chunk = 1;
+
+        while (position < text.length()) {
+            final int end = Math.min(text.length(), position + chunk);
+
+            switch (chunk % 3) {
+                case 0:
+                    for (int i = position; i < end; i++) {
+                        writer.write(text.charAt(i));
+                    }
+                    break;
+
+                case 1:
+                    writer.write(text.toCharArray(), position, end - position);
+                    break;
+
+                default:
+                    writer.write(text, position, end - position);
+                    break;
+            }
+
+            if (chunk % 7 == 0) {
+                writer.flush();
+            }
+
+            position = end;
+            chunk = chunk * 5 % 70001;
+        }
+
+        //
+        // A lone high surrogate at the end of the input must be replaced the same way.
+        //
+        writer.write('\uD83D');
+    }
+
+    private static String createText(final int length) {
+        final String[] words = { "public ", "int ", "x", " = ", "42", ";\n", "é", "中", "😀", "\t", "// ", "\r\n" };
+        final StringBuilder text = new StringBuilder(length + 16);
+
+        for (int i = 0; text.length() < length; i++) {
+            text.append(words[(i * 7 + i / 3) % words.length]);
+        }
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,307 @@
+package com.strobel.decompiler;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+
+public class SourceArchiveWriterTests {
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testEntriesWrittenFromSeveralThreadsCanBeReadBack() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8);
+            final List<Future<Map<String, String>>> results = new ArrayList<>();
+
+            for (int i = 0; i < 8; i++) {
+                final int thread = i;
+
+                results.add(
+                    executor.submit(
+                        new Callable<Map<String, String>>() {
+                            @Override
+                            public Map<String, String> call() throws IOException {
+                                final Map<String, String> written = new LinkedHashMap<>();
+
+                                for (int j = 0; j < 100; j++) {
+                                    final String name = "p" + thread + "/T" + j + ".java";
+                                    final String text = createSource(thread * 1000 + j, j % 3 == 0 ? 1 : 200);
+
+                                    writeEntry(archive, name, text);
+                                    written.put(name, text);
+                                }
+
+                                return written;
+                            }
+                        }
+                    )
+                );
+            }
+
+            final Map<String, String> expected = new LinkedHashMap<>();
+
+            for (final Future<Map<String, String>> result : results) {
+                expected.putAll(result.get());
+            }
+
+            archive.close();
+
+            assertEquals(expected.size(), archive.getEntryCount());
+            assertEquals(expected, readEntries(file));
+        }
+        finally {
+            executor.shutdownNow();
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testShortEntriesAreStoredAndLongEntriesAreDeflated() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+
+        try {
+            final String shortText = "x";
+            final String longText = createSource(0, 500);
+            final String unicodeText = createSource(1, 50) + "// é中\n";
+
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8);
+
+            writeEntry(archive, "Short.java", shortText);
+            writeEntry(archive, "Long.java", longText);
+            writeEntry(archive, "unicode/Été.java", unicodeText);
+            archive.close();
+
+            try (final ZipFile zip = new ZipFile(file)) {
+                final ZipEntry shortEntry = zip.getEntry("Short.java");
+                final ZipEntry longEntry = zip.getEntry("Long.java");
+                final ZipEntry unicodeEntry = zip.getEntry("unicode/Été.java");
+
+                assertEquals(ZipEntry.STORED, shortEntry.getMethod());
+                assertEquals(ZipEntry.DEFLATED, longEntry.getMethod());
+                assertEquals(ZipEntry.DEFLATED, unicodeEntry.getMethod());
+
+                assertEquals(shortEntry.getSize(), shortEntry.getCompressedSize());
+                assertTrue(longEntry.getCompressedSize() < longEntry.getSize());
+
+                assertEntry(zip, shortEntry, shortText);
+                assertEntry(zip, longEntry, longText);
+                assertEntry(zip, unicodeEntry, unicodeText);
+            }
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testDuplicateEntriesAreSkipped() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+
+        try {
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8);
+
+            writeEntry(archive, "a/B.java", "first");
+            writeEntry(archive, "a/C.java", "other");
+            writeEntry(archive, "a/B.java", "second");
+            archive.close();
+
+            assertEquals(2, archive.getEntryCount());
+
+            final Map<String, String> entries = readEntries(file);
+
+            assertEquals(2, entries.size());
+            assertEquals("first", entries.get("a/B.java"));
+            assertEquals("other", entries.get("a/C.java"));
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testArchivesAreLimitedTo65535Entries() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+
+        try {
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8);
+
+            for (int i = 0; i < 0xFFFF; i++) {
+                writeEntry(archive, "T" + i + ".java", "");
+            }
+
+            try {
+                writeEntry(archive, "Overflow.java", "");
+                fail("Expected the 65536th entry to be rejected.");
+            }
+            catch (final IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("65535 entries"));
+            }
+
+            archive.close();
+
+            try (final ZipFile zip = new ZipFile(file)) {
+                assertEquals(0xFFFF, zip.size());
+                assertNotNull(zip.getEntry("T65534.java"));
+                assertNull(zip.getEntry("Overflow.java"));
+            }
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testEntriesBeyondTheSizeLimitAreRejected() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+
+        try {
+            //
+            // Stand-in for the 4 GB limit: the same checks apply to any maximum size.
+            //
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8, 0xFFFF, 1024);
+            final String text = createSource(0, 5);
+
+            writeEntry(archive, "A.java", text);
+
+            try {
+                writeEntry(archive, "B.java", createIncompressibleText(2048));
+                fail("Expected an entry beyond the size limit to be rejected.");
+            }
+            catch (final IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("4 GB"));
+            }
+
+            archive.close();
+
+            final Map<String, String> entries = readEntries(file);
+
+            assertEquals(1, entries.size());
+            assertEquals(text, entries.get("A.java"));
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testCentralDirectoryBeyondTheSizeLimitIsRejected() throws Throwable {
+        final File file = File.createTempFile("procyon-sources", ".jar");
+
+        try {
+            final SourceArchiveWriter archive = new SourceArchiveWriter(file, UTF_8, 0xFFFF, 60);
+
+            writeEntry(archive, "A.java", "");
+
+            try {
+                archive.close();
+                fail("Expected a central directory beyond the size limit to be rejected.");
+            }
+            catch (final IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("4 GB"));
+            }
+
+            try {
+                writeEntry(archive, "B.java", "");
+                fail("Expected the archive to be closed.");
+            }
+            catch (final IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("closed"));
+            }
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static String createSource(final int seed, final int lineCount) {
+        final StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < lineCount; i++) {
+            text.append("    public int field").append(seed).append('_').append(i).append(" = ").append(i * seed).append(";\n");
+        }
+
+        return text.toString();
+    }
+
+    private static String createIncompressibleText(final int length) {
+        final Random random = new Random(42);
+        final StringBuilder text = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('!' + random.nextInt(94)));
+        }
+
+        return text.toString();
+    }
+
+    private static void writeEntry(final SourceArchiveWriter archive, final String name, final String text) throws IOException {
+        try (final Writer writer = archive.createEntryWriter(name)) {
+            writer.write(text);
+        }
+    }
+
+    private static Map<String, String> readEntries(final File file) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+
+        try (final ZipFile zip = new ZipFile(file)) {
+            final Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+
+            while (zipEntries.hasMoreElements()) {
+                final ZipEntry entry = zipEntries.nextElement();
+                entries.put(entry.getName(), new String(readEntry(zip, entry), UTF_8));
+            }
+        }
+
+        return entries;
+    }
+
+    private static void assertEntry(final ZipFile zip, final ZipEntry entry, final String expectedText) throws IOException {
+        final byte[] expected = expectedText.getBytes(UTF_8);
+        final byte[] actual = readEntry(zip, entry);
+        final CRC32 crc = new CRC32();
+
+        crc.update(expected);
+
+        assertEquals(expected.length, entry.getSize());
+        assertEquals(crc.getValue(), entry.getCrc());
+        assertEquals(expectedText, new String(actual, UTF_8));
+    }
+
+    private static byte[] readEntry(final ZipFile zip, final ZipEntry entry) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+
+        try (final InputStream stream = zip.getInputStream(entry)) {
+            int count;
+
+            while ((count = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, count);
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -17,12 +17,14 @@
 package com.strobel.expressions;
 
 import com.strobel.compilerservices.DebugInfoGenerator;
+import com.strobel.reflection.GeneratedClassLoader;
 
 import java.util.HashMap;
 import java.util.Map;
 
 final class AnalyzedTree {
     private DebugInfoGenerator _debugInfoGenerator;
+    private GeneratedClassLoader _classLoader;
 
     final Map<Object, CompilerScope> scopes = new HashMap<>();
     final Map<LambdaExpression, BoundConstants> constants = new HashMap<>();
@@ -37,5 +39,17 @@ final class AnalyzedTree {
     void setDebugInfoGenerator(final DebugInfoGenerator debugInfoGenerator) {
         _debugInfoGenerator = debugInfoGenerator;
     }
+
+    /**
+     * The loader shared by the classes of a lambda and its nested lambdas, which reference each
+     * other by name, or {@code null} if the classes are to be defined into the context class loader.
+     */
+    GeneratedClassLoader getClassLoader() {
+        return _classLoader;
+    }
+
+    void setClassLoader(final GeneratedClassLoader classLoader) {
+        _classLoader = classLoader;
+    }
 }
 
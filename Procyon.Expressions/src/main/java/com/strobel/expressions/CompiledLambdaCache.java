@@ -0,0 +1,164 @@
+/*
+ * CompiledLambdaCache.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.compilerservices.Closure;
+import com.strobel.core.VerifyArgument;
+import com.strobel.reflection.MethodInfo;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares generated classes between lambdas which differ only in the values of their constants.
+ * <p>
+ * Constants are lifted out of the tree into the delegate's closure, so compiling a lambda whose
+ * shape has been seen before costs one walk over the tree and an allocation, rather than code
+ * generation and class loading.  Lambdas containing nested lambdas or extension nodes are compiled
+ * as usual, without being cached.  Once the cache holds {@code capacity} classes, new shapes are
+ * compiled without being cached.
+ * <p>
+ * Classes remain reachable for as long as the cache is, so a cache should be scoped to a workload
+ * which compiles the same few shapes many times.
+ */
+public final class CompiledLambdaCache {
+    private final static int DEFAULT_CAPACITY = 256;
+
+    private final ConcurrentHashMap<LambdaShape, Entry> _entries = new ConcurrentHashMap<>();
+    private final int _capacity;
+
+    public CompiledLambdaCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompiledLambdaCache(final int capacity) {
+        _capacity = VerifyArgument.isPositive(capacity, "capacity");
+    }
+
+    public int size() {
+        return _entries.size();
+    }
+
+    public void clear() {
+        _entries.clear();
+    }
+
+    public <T> T compile(final LambdaExpression<T> lambda) {
+        return compileDelegate(lambda).getInstance();
+    }
+
+    public <T> Delegate<T> compileDelegate(final LambdaExpression<T> lambda) {
+        VerifyArgument.notNull(lambda, "lambda");
+
+        final ArrayList<Object> liftedValues = new ArrayList<>();
+        final LambdaShape shape = LambdaShape.of(lambda, liftedValues);
+
+        if (shape == null) {
+            return lambda.compileDelegate();
+        }
+
+        final Object[] values = liftedValues.toArray();
+
+        Entry entry = _entries.get(shape);
+
+        if (entry == null) {
+            entry = LambdaCompiler.compileShared(LambdaShape.liftConstants(lambda, values), values);
+
+            if (_entries.size() < _capacity) {
+                final Entry existing = _entries.putIfAbsent(shape, entry);
+
+                if (existing != null) {
+                    entry = existing;
+                }
+            }
+        }
+
+        return entry.createDelegate(values);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Entry Class">
+
+    final static class Entry {
+        private final Constructor<?> _constructor;
+        private final MethodInfo _method;
+        private final Object[] _constants;
+        private final int _valuesIndex;
+
+        /**
+         * @param constants the closure constants of the generated class, or {@code null} if it takes no closure.
+         * @param values the lifted values array the class was generated with.
+         */
+        Entry(final Class<?> generatedClass, final MethodInfo method, final Object[] constants, final Object[] values) {
+            try {
+                _constructor = constants != null ? generatedClass.getConstructor(Closure.class)
+                                                 : generatedClass.getConstructor();
+            }
+            catch (final ReflectiveOperationException e) {
+                throw Error.couldNotCreateDelegate(e);
+            }
+
+            _method = method;
+
+            int valuesIndex = -1;
+
+            if (constants != null) {
+                for (int i = 0; i < constants.length; i++) {
+                    if (constants[i] == values) {
+                        valuesIndex = i;
+                        break;
+                    }
+                }
+            }
+
+            _valuesIndex = valuesIndex;
+
+            //
+            // Don't keep the constants of whichever lambda happened to be compiled first alive.
+            //
+            if (valuesIndex >= 0) {
+                _constants = constants.clone();
+                _constants[valuesIndex] = null;
+            }
+            else {
+                _constants = constants;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> Delegate<T> createDelegate(final Object[] values) {
+            try {
+                final T instance;
+
+                if (_constants != null) {
+                    final Object[] constants = _constants.clone();
+
+                    if (_valuesIndex >= 0) {
+                        constants[_valuesIndex] = values;
+                    }
+
+                    instance = (T) _constructor.newInstance(new Closure(constants, null));
+                }
+                else {
+                    instance = (T) _constructor.newInstance();
+                }
+
+                return new Delegate<>(instance, _method);
+            }
+            catch (final ReflectiveOperationException e) {
+                throw Error.couldNotCreateDelegate(e);
+            }
+        }
+    }
+
+    // </editor-fold>
+}
@@ -669,6 +669,13 @@ final class Error {
         );
     }
 
+    public static IllegalStateException couldNotInterpret(final Throwable t) {
+        return new IllegalStateException(
+            "Could not interpret expression.",
+            t
+        );
+    }
+
     public static IllegalStateException labelTargetAlreadyDefined(final String name) {
         return new IllegalStateException(
             format("Target already defined for label '%s'.", name)
@@ -29,8 +29,10 @@ import com.strobel.util.TypeUtils;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -69,6 +71,8 @@ final class LambdaCompiler {
             Type.list(lambda.getType())
         );
 
+        typeBuilder.setDefiningClassLoader(tree.getClassLoader());
+
         final MethodInfo interfaceMethod = Expression.getInvokeMethod(lambda.getType(), true);
 
         methodBuilder = typeBuilder.defineMethod(
@@ -136,6 +140,37 @@ final class LambdaCompiler {
         initializeMethod();
     }
 
+    private LambdaCompiler(
+        final AnalyzedTree tree,
+        final LambdaExpression<?> lambda,
+        final MethodBuilder method,
+        final FieldBuilder closureField,
+        final ConstructorBuilder constructor) {
+
+        this.lambda = lambda;
+
+        final ParameterExpressionList lambdaParameters = lambda.getParameters();
+
+        for (int i = 0, n = lambdaParameters.size(); i < n; i++) {
+            method.defineParameter(i, lambdaParameters.get(i).getName());
+        }
+
+        this.typeBuilder = method.getDeclaringType();
+        this.methodBuilder = method;
+        this._hasClosureArgument = true;
+        this._closureField = closureField;
+        this._constructorBuilder = constructor;
+
+        this.generator = methodBuilder.getCodeGenerator();
+
+        _freeLocals = new KeyedQueue<>();
+        _tree = tree;
+        _scope = tree.scopes.get(lambda);
+        _boundConstants = tree.constants.get(lambda);
+
+        initializeMethod();
+    }
+
     private LambdaCompiler(final LambdaCompiler parent, final LambdaExpression lambda) {
         _tree = parent._tree;
         _freeLocals = parent._freeLocals;
@@ -285,6 +320,7 @@ final class LambdaCompiler {
         final LambdaExpression<T> analyzedLambda = result.getSecond();
 
         tree.setDebugInfoGenerator(debugInfoGenerator);
+        useCollectableClassLoader(tree, analyzedLambda);
 
         // 2. Create lambda compiler
         final LambdaCompiler c = new LambdaCompiler(tree, analyzedLambda);
@@ -298,6 +334,34 @@ final class LambdaCompiler {
         return c.createDelegate(generatedClass);
     }
 
+    /**
+     * Compiles a lambda whose constants have been lifted into {@code liftedValues}, such that its
+     * generated class can be instantiated again for other values; see {@link CompiledLambdaCache}.
+     */
+    static <T> CompiledLambdaCache.Entry compileShared(
+        final LambdaExpression<T> lambda,
+        final Object[] liftedValues) {
+
+        final Pair<AnalyzedTree, LambdaExpression<T>> result = analyzeLambda(lambda);
+        final AnalyzedTree tree = result.getFirst();
+
+        tree.setDebugInfoGenerator(DebugInfoGenerator.empty());
+        useCollectableClassLoader(tree, result.getSecond());
+
+        final LambdaCompiler c = new LambdaCompiler(tree, result.getSecond());
+
+        c.emitLambdaBody();
+
+        final Class<?> generatedClass = c.typeBuilder.createType().getErasedClass();
+
+        return new CompiledLambdaCache.Entry(
+            generatedClass,
+            c.findInvokeMethod(generatedClass),
+            c._hasClosureArgument ? c._boundConstants.toArray() : null,
+            liftedValues
+        );
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Delegate<T> createDelegate(final Class<T> generatedClass) {
         try {
@@ -312,16 +376,9 @@ final class LambdaCompiler {
                 instance = generatedClass.newInstance();
             }
 
-            final MemberList<? extends MemberInfo> method = Type.of(generatedClass).findMembers(
-                MemberType.methodsOnly(),
-                BindingFlags.PublicInstanceDeclared,
-                Type.FilterMethodOverride,
-                Expression.getInvokeMethod(lambda.getType(), true)
-            );
-
             return new Delegate<>(
                 instance,
-                (MethodInfo) method.get(0)
+                findInvokeMethod(generatedClass)
             );
         }
         catch (final ReflectiveOperationException e) {
@@ -329,6 +386,17 @@ final class LambdaCompiler {
         }
     }
 
+    private MethodInfo findInvokeMethod(final Class<?> generatedClass) {
+        final MemberList<? extends MemberInfo> method = Type.of(generatedClass).findMembers(
+            MemberType.methodsOnly(),
+            BindingFlags.PublicInstanceDeclared,
+            Type.FilterMethodOverride,
+            Expression.getInvokeMethod(lambda.getType(), true)
+        );
+
+        return (MethodInfo) method.get(0);
+    }
+
     static <T> void compile(
         final LambdaExpression<T> lambda,
         final MethodBuilder methodBuilder,
@@ -348,6 +416,16 @@ final class LambdaCompiler {
         c.emitLambdaBody();
     }
 
+    /**
+     * Defines the classes generated for {@code lambda} into a loader of their own, which can be
+     * collected along with them, unless they need access to their package.
+     */
+    private static void useCollectableClassLoader(final AnalyzedTree tree, final LambdaExpression<?> lambda) {
+        if (!PackageAccessFinder.requiresPackageAccess(lambda)) {
+            tree.setClassLoader(new GeneratedClassLoader());
+        }
+    }
+
     private static <T> Pair<AnalyzedTree, LambdaExpression<T>> analyzeLambda(final LambdaExpression<T> lambda) {
         // Spill the stack for any exception handling blocks or other
         // constructs which require entering with an empty stack.
@@ -4132,6 +4210,256 @@ final class LambdaCompiler {
     }
 
     // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Batch Compilation">
+
+    //
+    // Bounds the constant pool and the dispatch method of each generated class.
+    //
+    private final static int MAX_BATCH_CLASS_SIZE = 512;
+
+    /**
+     * Compiles {@code lambdas} into as few classes as possible: lambdas of the same delegate type and
+     * creation context become methods of one class, whose instances each carry the index of their
+     * lambda and its closure, and whose interface method dispatches on that index.
+     */
+    static List<Delegate<?>> compileBatch(final List<? extends LambdaExpression<?>> lambdas) {
+        final int count = lambdas.size();
+        final AnalyzedTree[] trees = new AnalyzedTree[count];
+        final LambdaExpression<?>[] analyzedLambdas = new LambdaExpression<?>[count];
+
+        boolean requiresPackageAccess = false;
+
+        for (int i = 0; i < count; i++) {
+            final Pair<AnalyzedTree, ? extends LambdaExpression<?>> result = analyzeLambda(lambdas.get(i));
+
+            trees[i] = result.getFirst();
+            analyzedLambdas[i] = result.getSecond();
+
+            requiresPackageAccess |= PackageAccessFinder.requiresPackageAccess(analyzedLambdas[i]);
+        }
+
+        //
+        // Nested lambdas are compiled into classes of their own, which must share a loader with
+        // the batch classes referencing them.
+        //
+        final GeneratedClassLoader classLoader = requiresPackageAccess ? null : new GeneratedClassLoader();
+
+        final Map<BatchKey, BatchClass> openClasses = new HashMap<>();
+        final BatchClass[] batchClasses = new BatchClass[count];
+        final int[] indices = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            final LambdaExpression<?> lambda = analyzedLambdas[i];
+            final BatchKey key = new BatchKey(lambda);
+
+            BatchClass batchClass = openClasses.get(key);
+
+            if (batchClass == null || batchClass.size() == MAX_BATCH_CLASS_SIZE) {
+                openClasses.put(key, batchClass = new BatchClass(lambda, classLoader));
+            }
+
+            trees[i].setDebugInfoGenerator(DebugInfoGenerator.empty());
+            trees[i].setClassLoader(classLoader);
+
+            batchClasses[i] = batchClass;
+            indices[i] = batchClass.add(trees[i], lambda);
+        }
+
+        final ArrayList<Delegate<?>> delegates = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            delegates.add(batchClasses[i].createDelegate(indices[i]));
+        }
+
+        return delegates;
+    }
+
+    private final static class BatchKey {
+        private final Type<?> _type;
+        private final Class<?> _creationContext;
+
+        BatchKey(final LambdaExpression<?> lambda) {
+            _type = lambda.getType();
+            _creationContext = lambda.getCreationContext();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o ||
+                   o instanceof BatchKey &&
+                   _type.equals(((BatchKey) o)._type) &&
+                   _creationContext == ((BatchKey) o)._creationContext;
+        }
+
+        @Override
+        public int hashCode() {
+            return _type.hashCode() * 31 + (_creationContext != null ? _creationContext.hashCode() : 0);
+        }
+    }
+
+    private final static class BatchClass {
+        private final TypeBuilder<?> _typeBuilder;
+        private final MethodInfo _interfaceMethod;
+        private final FieldBuilder _indexField;
+        private final FieldBuilder _closureField;
+        private final ConstructorBuilder _constructorBuilder;
+        private final ArrayList<LambdaCompiler> _compilers = new ArrayList<>();
+
+        private Constructor<?> _constructor;
+        private MethodInfo _invokeMethod;
+
+        BatchClass(final LambdaExpression<?> lambda, final GeneratedClassLoader classLoader) {
+            _typeBuilder = new TypeBuilder<>(
+                getUniqueLambdaName(null, lambda.getCreationContext()),
+                Modifier.PUBLIC | Modifier.FINAL,
+                Types.Object,
+                Type.list(lambda.getType())
+            );
+
+            _typeBuilder.setDefiningClassLoader(classLoader);
+
+            _interfaceMethod = Expression.getInvokeMethod(lambda.getType(), true);
+
+            _indexField = _typeBuilder.defineField(
+                "$__index",
+                PrimitiveTypes.Integer,
+                Modifier.PRIVATE | Modifier.FINAL
+            );
+
+            _closureField = _typeBuilder.defineField(
+                "$__closure",
+                closureType,
+                Modifier.PRIVATE | Modifier.FINAL
+            );
+
+            _constructorBuilder = _typeBuilder.defineConstructor(
+                Modifier.PUBLIC,
+                Type.list(PrimitiveTypes.Integer, closureType)
+            );
+
+            final CodeGenerator ctor = _constructorBuilder.getCodeGenerator();
+
+            ctor.emitThis();
+            ctor.call(Types.Object.getConstructors().get(0));
+            ctor.emitThis();
+            ctor.emitLoadArgument(0);
+            ctor.putField(_indexField);
+            ctor.emitThis();
+            ctor.emitLoadArgument(1);
+            ctor.putField(_closureField);
+            ctor.emitReturn();
+        }
+
+        int size() {
+            return _compilers.size();
+        }
+
+        int add(final AnalyzedTree tree, final LambdaExpression<?> lambda) {
+            final MethodBuilder method = _typeBuilder.defineMethod(
+                getUniqueMethodName(),
+                Modifier.PRIVATE | Modifier.FINAL,
+                _interfaceMethod.getReturnType(),
+                _interfaceMethod.getParameters().getParameterTypes(),
+                _interfaceMethod.getThrownTypes()
+            );
+
+            final LambdaCompiler c = new LambdaCompiler(tree, lambda, method, _closureField, _constructorBuilder);
+
+            c.emitLambdaBody();
+            _compilers.add(c);
+
+            return _compilers.size() - 1;
+        }
+
+        Delegate<?> createDelegate(final int index) {
+            if (_constructor == null) {
+                createType();
+            }
+
+            final LambdaCompiler c = _compilers.get(index);
+
+            try {
+                return new Delegate<>(
+                    _constructor.newInstance(index, new Closure(c._boundConstants.toArray(), null)),
+                    _invokeMethod
+                );
+            }
+            catch (final ReflectiveOperationException e) {
+                throw Error.couldNotCreateDelegate(e);
+            }
+        }
+
+        private void createType() {
+            emitDispatchMethod();
+
+            final Class<?> generatedClass = _typeBuilder.createType().getErasedClass();
+
+            try {
+                _constructor = generatedClass.getConstructor(int.class, Closure.class);
+            }
+            catch (final ReflectiveOperationException e) {
+                throw Error.couldNotCreateDelegate(e);
+            }
+
+            _invokeMethod = _compilers.get(0).findInvokeMethod(generatedClass);
+        }
+
+        private void emitDispatchMethod() {
+            final TypeList parameterTypes = _interfaceMethod.getParameters().getParameterTypes();
+            final Type<?> returnType = _interfaceMethod.getReturnType();
+
+            final MethodBuilder dispatchMethod = _typeBuilder.defineMethod(
+                _interfaceMethod.getName(),
+                Modifier.PUBLIC | Modifier.FINAL,
+                returnType,
+                parameterTypes,
+                _interfaceMethod.getThrownTypes()
+            );
+
+            _typeBuilder.defineMethodOverride(dispatchMethod, _interfaceMethod);
+
+            final CodeGenerator code = dispatchMethod.getCodeGenerator();
+            final int[] keys = new int[_compilers.size()];
+
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = i;
+            }
+
+            code.emitThis();
+            code.getField(_indexField);
+
+            code.emitSwitch(
+                keys,
+                new SwitchCallback() {
+                    @Override
+                    public void emitCase(final int key, final Label breakTarget) {
+                        code.emitThis();
+
+                        for (int i = 0, n = parameterTypes.size(); i < n; i++) {
+                            code.emitLoadArgument(i);
+                        }
+
+                        code.call(_compilers.get(key).methodBuilder);
+                        code.emitReturn(returnType);
+                    }
+
+                    @Override
+                    public void emitDefault(final Label breakTarget) {
+                        final Type<IllegalStateException> exceptionType = Type.of(IllegalStateException.class);
+
+                        code.emitNew(exceptionType);
+                        code.dup();
+                        code.call(exceptionType.getConstructor());
+                        code.emit(OpCode.ATHROW);
+                    }
+                },
+                SwitchOptions.PreferTable
+            );
+        }
+    }
+
+    // </editor-fold>
 }
 
 enum LabelScopeKind {
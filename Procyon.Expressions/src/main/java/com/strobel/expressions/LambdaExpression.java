@@ -27,6 +27,7 @@ import com.strobel.reflection.emit.TypeBuilder;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Modifier;
+import java.util.List;
 
 /**
  * @author Mike Strobel
@@ -141,6 +142,44 @@ public final class LambdaExpression<T> extends Expression {
         return LambdaCompiler.compile(this, DebugInfoGenerator.empty());
     }
 
+    /**
+     * Returns a delegate which interprets this lambda for its first {@code compilationThreshold}
+     * invocations, and compiles it once invoked more often.  This avoids generating a class for
+     * lambdas which only run a few times.  Lambdas which cannot be interpreted are compiled right away.
+     */
+    public final T compileTiered(final int compilationThreshold) {
+        return compileTieredDelegate(compilationThreshold).getInstance();
+    }
+
+    public final Delegate<T> compileTieredDelegate(final int compilationThreshold) {
+        VerifyArgument.isNonNegative(compilationThreshold, "compilationThreshold");
+        return TieredLambdaHandler.createDelegate(this, compilationThreshold);
+    }
+
+    /**
+     * Compiles this lambda, sharing a generated class with previously compiled lambdas in {@code cache}
+     * which differ from it only in the values of their constants.
+     */
+    public final T compile(final CompiledLambdaCache cache) {
+        return VerifyArgument.notNull(cache, "cache").compile(this);
+    }
+
+    public final Delegate<T> compileDelegate(final CompiledLambdaCache cache) {
+        return VerifyArgument.notNull(cache, "cache").compileDelegate(this);
+    }
+
+    /**
+     * Compiles {@code lambdas} together, such that lambdas of the same delegate type share a generated
+     * class rather than each getting one of their own.  This makes compiling many small lambdas much
+     * cheaper, at the cost of an extra dispatch on each invocation.
+     *
+     * @return a delegate for each lambda, in the order given.
+     */
+    public static List<Delegate<?>> compileBatch(final List<? extends LambdaExpression<?>> lambdas) {
+        VerifyArgument.noNullElements(lambdas, "lambdas");
+        return LambdaCompiler.compileBatch(lambdas);
+    }
+
     public final MethodHandle compileHandle() {
         return LambdaCompiler.compile(this, DebugInfoGenerator.empty()).getMethodHandle();
     }
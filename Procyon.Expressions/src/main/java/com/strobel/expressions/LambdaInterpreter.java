@@ -0,0 +1,1246 @@
+/*
+ * LambdaInterpreter.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.ExceptionUtilities;
+import com.strobel.core.VerifyArgument;
+import com.strobel.reflection.ConstructorInfo;
+import com.strobel.reflection.FieldInfo;
+import com.strobel.reflection.MemberInfo;
+import com.strobel.reflection.MethodInfo;
+import com.strobel.reflection.PrimitiveTypes;
+import com.strobel.reflection.Type;
+import com.strobel.util.TypeUtils;
+
+import javax.lang.model.type.TypeKind;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+/**
+ * Executes a lambda expression by walking its tree, without generating any code.
+ * <p>
+ * Interpreting is much slower than running a compiled delegate, but starts instantly and occupies no
+ * metaspace, which makes it the better choice for lambdas which only run a few times.  Not every tree
+ * can be interpreted: nested lambdas, runtime variables, exception filters, and jumps to labels other
+ * than those of an enclosing block or loop are not supported, and {@link #tryCreate} returns
+ * {@code null} for trees which use them.
+ */
+final class LambdaInterpreter {
+    private final LambdaExpression<?> _lambda;
+    private final Expression _body;
+    private final Type<?> _returnType;
+
+    private LambdaInterpreter(final LambdaExpression<?> lambda, final Expression body) {
+        _lambda = lambda;
+        _body = body;
+        _returnType = lambda.getReturnType();
+    }
+
+    /**
+     * Prepares {@code lambda} for interpretation.
+     *
+     * @return an interpreter for {@code lambda}, or {@code null} if it cannot be interpreted.
+     */
+    static LambdaInterpreter tryCreate(final LambdaExpression<?> lambda) {
+        VerifyArgument.notNull(lambda, "lambda");
+
+        //
+        // Reduce compound assignments, increments, loops and the like up front, so the
+        // evaluator only has to deal with the core node types.
+        //
+        final Expression body = new Reducer().visit(lambda.getBody());
+        final Validator validator = new Validator();
+
+        validator.visitRoot(body);
+
+        if (!validator.isSupported()) {
+            return null;
+        }
+
+        return new LambdaInterpreter(lambda, body);
+    }
+
+    /**
+     * Runs the lambda with the given arguments, returning its result.  Exceptions thrown by the
+     * lambda are propagated as-is.
+     */
+    Object invoke(final Object... args) {
+        final ParameterExpressionList parameters = _lambda.getParameters();
+        final Evaluator evaluator = new Evaluator();
+
+        for (int i = 0, n = parameters.size(); i < n; i++) {
+            evaluator._variables.put(parameters.get(i), args[i]);
+        }
+
+        Object result;
+
+        try {
+            result = evaluator.evaluate(_body);
+        }
+        catch (final Jump jump) {
+            //
+            // The validator only admits jumps to labels which are in scope, so this must be
+            // a 'return' to a label wrapping the whole body.
+            //
+            assert _body instanceof LabelExpression && ((LabelExpression) _body).getTarget() == jump.target;
+            result = jump.value;
+        }
+
+        if (_returnType == PrimitiveTypes.Void) {
+            return null;
+        }
+
+        if (_returnType.isPrimitive()) {
+            return convertPrimitive(result, _returnType.getKind());
+        }
+
+        return result;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Preparation">
+
+    private final static class Reducer extends ExpressionVisitor {
+        @Override
+        public Expression visit(final Expression node) {
+            //
+            // Switches on strings and enums reduce to lookups on hash codes and ordinals, which
+            // only pay off when compiled; the evaluator handles switches directly.
+            //
+            if (node != null && node.canReduce() && !(node instanceof SwitchExpression)) {
+                return visit(node.reduceAndCheck());
+            }
+            return super.visit(node);
+        }
+
+        @Override
+        protected <T> LambdaExpression<T> visitLambda(final LambdaExpression<T> node) {
+            return node;
+        }
+
+        @Override
+        protected Expression visitInvocation(final InvocationExpression node) {
+            //
+            // The base implementation assumes the target is a lambda, which need not be the case.
+            //
+            final Expression expression = visit(node.getExpression());
+            final ExpressionList<? extends Expression> arguments = visitArguments(node);
+
+            if (expression == node.getExpression() && arguments == null) {
+                return node;
+            }
+
+            return Expression.invoke(expression, arguments != null ? arguments : node.getArguments());
+        }
+    }
+
+    private final static class Validator extends ExpressionVisitor {
+        private final ArrayDeque<LabelTarget> _labelsInScope = new ArrayDeque<>();
+        private boolean _supported = true;
+
+        boolean isSupported() {
+            return _supported;
+        }
+
+        void visitRoot(final Expression body) {
+            if (body instanceof LabelExpression) {
+                _labelsInScope.push(((LabelExpression) body).getTarget());
+            }
+            visit(body);
+        }
+
+        private void requireAccess(final MemberInfo member) {
+            if (!_supported) {
+                return;
+            }
+
+            final AccessibleObject raw;
+
+            if (member instanceof MethodInfo) {
+                raw = ((MethodInfo) member).getRawMethod();
+            }
+            else if (member instanceof ConstructorInfo) {
+                raw = ((ConstructorInfo) member).getRawConstructor();
+            }
+            else if (member instanceof FieldInfo) {
+                raw = ((FieldInfo) member).getRawField();
+            }
+            else {
+                raw = null;
+            }
+
+            if (raw == null) {
+                _supported = false;
+                return;
+            }
+
+            final Member rawMember = (Member) raw;
+
+            if (Modifier.isPublic(rawMember.getModifiers()) &&
+                Modifier.isPublic(rawMember.getDeclaringClass().getModifiers())) {
+
+                return;
+            }
+
+            try {
+                raw.setAccessible(true);
+            }
+            catch (final SecurityException ignored) {
+                _supported = false;
+            }
+        }
+
+        @Override
+        public Expression visit(final Expression node) {
+            if (node != null && (node.canReduce() && !(node instanceof SwitchExpression) ||
+                                 node instanceof SelfExpression ||
+                                 node instanceof SuperExpression)) {
+
+                _supported = false;
+            }
+
+            if (!_supported) {
+                return node;
+            }
+
+            return super.visit(node);
+        }
+
+        @Override
+        protected Expression visitExtension(final Expression node) {
+            _supported = false;
+            return node;
+        }
+
+        @Override
+        protected <T> LambdaExpression<T> visitLambda(final LambdaExpression<T> node) {
+            _supported = false;
+            return node;
+        }
+
+        @Override
+        protected Expression visitRuntimeVariables(final RuntimeVariablesExpression node) {
+            _supported = false;
+            return node;
+        }
+
+        @Override
+        protected Expression visitUnary(final UnaryExpression node) {
+            if (node.getNodeType() == ExpressionType.Quote) {
+                _supported = false;
+                return node;
+            }
+
+            if (node.getMethod() != null) {
+                requireAccess(node.getMethod());
+            }
+
+            return super.visitUnary(node);
+        }
+
+        @Override
+        protected Expression visitBinary(final BinaryExpression node) {
+            final MethodInfo method = node.getMethod();
+
+            if (method != null) {
+                if (node.getNodeType() == ExpressionType.AndAlso || node.getNodeType() == ExpressionType.OrElse) {
+                    _supported = false;
+                    return node;
+                }
+                requireAccess(method);
+            }
+
+            if (node.getNodeType() == ExpressionType.Assign) {
+                switch (node.getLeft().getNodeType()) {
+                    case Parameter:
+                    case MemberAccess:
+                    case ArrayIndex:
+                        break;
+                    default:
+                        _supported = false;
+                        return node;
+                }
+            }
+
+            return super.visitBinary(node);
+        }
+
+        @Override
+        protected Expression visitMember(final MemberExpression node) {
+            if (!(node.getMember() instanceof FieldInfo)) {
+                _supported = false;
+                return node;
+            }
+            requireAccess(node.getMember());
+            return super.visitMember(node);
+        }
+
+        @Override
+        protected Expression visitMethodCall(final MethodCallExpression node) {
+            requireAccess(node.getMethod());
+            return super.visitMethodCall(node);
+        }
+
+        @Override
+        protected Expression visitNew(final NewExpression node) {
+            if (node.getConstructor() != null) {
+                requireAccess(node.getConstructor());
+            }
+            return super.visitNew(node);
+        }
+
+        @Override
+        protected Expression visitInvocation(final InvocationExpression node) {
+            visit(node.getExpression());
+            visitArguments(node);
+            return node;
+        }
+
+        @Override
+        protected Expression visitSwitch(final SwitchExpression node) {
+            if (node.getComparison() != null) {
+                requireAccess(node.getComparison());
+            }
+            return super.visitSwitch(node);
+        }
+
+        @Override
+        protected CatchBlock visitCatchBlock(final CatchBlock node) {
+            if (node.getFilter() != null) {
+                _supported = false;
+                return node;
+            }
+            return super.visitCatchBlock(node);
+        }
+
+        @Override
+        protected Expression visitBlock(final BlockExpression node) {
+            int labelCount = 0;
+
+            for (int i = 0, n = node.getExpressionCount(); i < n; i++) {
+                final Expression e = node.getExpression(i);
+
+                if (e instanceof LabelExpression) {
+                    _labelsInScope.push(((LabelExpression) e).getTarget());
+                    ++labelCount;
+                }
+            }
+
+            try {
+                return super.visitBlock(node);
+            }
+            finally {
+                while (labelCount-- > 0) {
+                    _labelsInScope.pop();
+                }
+            }
+        }
+
+        @Override
+        protected Expression visitLoop(final LoopExpression node) {
+            int labelCount = 0;
+
+            if (node.getBreakTarget() != null) {
+                _labelsInScope.push(node.getBreakTarget());
+                ++labelCount;
+            }
+
+            if (node.getContinueTarget() != null) {
+                _labelsInScope.push(node.getContinueTarget());
+                ++labelCount;
+            }
+
+            try {
+                return super.visitLoop(node);
+            }
+            finally {
+                while (labelCount-- > 0) {
+                    _labelsInScope.pop();
+                }
+            }
+        }
+
+        @Override
+        protected Expression visitGoto(final GotoExpression node) {
+            if (!_labelsInScope.contains(node.getTarget())) {
+                _supported = false;
+                return node;
+            }
+            return super.visitGoto(node);
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Evaluation">
+
+    @SuppressWarnings("serial")
+    private final static class Jump extends RuntimeException {
+        final LabelTarget target;
+        final Object value;
+
+        Jump(final LabelTarget target, final Object value) {
+            super(null, null, false, false);
+            this.target = target;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Evaluates the nodes of one invocation.  Each visit method leaves the value of the node it
+     * visited in {@code _result}.
+     */
+    private final static class Evaluator extends ExpressionVisitor {
+        final IdentityHashMap<ParameterExpression, Object> _variables = new IdentityHashMap<>();
+        final ArrayDeque<Throwable> _caughtExceptions = new ArrayDeque<>();
+
+        Object _result;
+
+        Object evaluate(final Expression node) {
+            _result = null;
+            visit(node);
+            return _result;
+        }
+
+        @Override
+        protected Expression visitConstant(final ConstantExpression node) {
+            _result = node.getValue();
+            return node;
+        }
+
+        @Override
+        protected Expression visitDefaultValue(final DefaultValueExpression node) {
+            _result = defaultValue(node.getType());
+            return node;
+        }
+
+        @Override
+        protected Expression visitParameter(final ParameterExpression node) {
+            _result = _variables.get(node);
+            return node;
+        }
+
+        @Override
+        protected Expression visitMember(final MemberExpression node) {
+            final Expression target = node.getTarget();
+            final Object instance = target != null ? evaluate(target) : null;
+
+            _result = getField((FieldInfo) node.getMember(), instance);
+            return node;
+        }
+
+        @Override
+        protected Expression visitUnary(final UnaryExpression node) {
+            final ExpressionType nodeType = node.getNodeType();
+
+            if (nodeType == ExpressionType.Throw) {
+                final Expression operand = node.getOperand();
+                final Throwable exception = operand != null ? (Throwable) evaluate(operand)
+                                                            : _caughtExceptions.peek();
+
+                throw ExceptionUtilities.<RuntimeException>rethrow(exception);
+            }
+
+            final Object operand = evaluate(node.getOperand());
+            final MethodInfo method = node.getMethod();
+
+            if (method != null) {
+                _result = method.isStatic() ? invoke(method, null, operand)
+                                            : invoke(method, operand);
+                return node;
+            }
+
+            final Type<?> type = node.getType();
+
+            switch (nodeType) {
+                case Convert:
+                case ConvertChecked:
+                case Unbox:
+                    _result = convert(operand, type);
+                    break;
+
+                case IsNull:
+                    _result = operand == null;
+                    break;
+
+                case IsNotNull:
+                    _result = operand != null;
+                    break;
+
+                case IsTrue:
+                    _result = (Boolean) operand;
+                    break;
+
+                case IsFalse:
+                    _result = !(Boolean) operand;
+                    break;
+
+                case ArrayLength:
+                    _result = Array.getLength(operand);
+                    break;
+
+                default:
+                    _result = unaryOperation(nodeType, operand, type);
+                    break;
+            }
+
+            return node;
+        }
+
+        @Override
+        protected Expression visitBinary(final BinaryExpression node) {
+            final ExpressionType nodeType = node.getNodeType();
+            final Expression left = node.getLeft();
+
+            switch (nodeType) {
+                case Assign:
+                    _result = assign(left, node.getRight());
+                    return node;
+
+                case AndAlso:
+                    _result = (Boolean) evaluate(left) && (Boolean) evaluate(node.getRight());
+                    return node;
+
+                case OrElse:
+                    _result = (Boolean) evaluate(left) || (Boolean) evaluate(node.getRight());
+                    return node;
+
+                case Coalesce: {
+                    final Object value = evaluate(left);
+                    _result = value != null ? value : evaluate(node.getRight());
+                    return node;
+                }
+            }
+
+            final Object leftValue = evaluate(left);
+            final Object rightValue = evaluate(node.getRight());
+            final MethodInfo method = node.getMethod();
+
+            if (method != null) {
+                if (method.isStatic()) {
+                    _result = invoke(method, null, leftValue, rightValue);
+                }
+                else if (TypeUtils.isSameOrSubType(method.getDeclaringType(), left.getType())) {
+                    _result = invoke(method, leftValue, rightValue);
+                }
+                else {
+                    _result = invoke(method, rightValue, leftValue);
+                }
+                return node;
+            }
+
+            switch (nodeType) {
+                case ArrayIndex:
+                    _result = Array.get(leftValue, (Integer) rightValue);
+                    break;
+
+                case ReferenceEqual:
+                    _result = leftValue == rightValue;
+                    break;
+
+                case ReferenceNotEqual:
+                    _result = leftValue != rightValue;
+                    break;
+
+                case Equal:
+                case NotEqual:
+                    if (!left.getType().isPrimitive() && !node.getRight().getType().isPrimitive()) {
+                        _result = (leftValue == rightValue) == (nodeType == ExpressionType.Equal);
+                    }
+                    else {
+                        _result = comparison(nodeType, leftValue, rightValue, kindOf(left.getType()));
+                    }
+                    break;
+
+                case LessThan:
+                case LessThanOrEqual:
+                case GreaterThan:
+                case GreaterThanOrEqual:
+                    _result = comparison(nodeType, leftValue, rightValue, kindOf(left.getType()));
+                    break;
+
+                default:
+                    _result = arithmetic(nodeType, leftValue, rightValue, node.getType());
+                    break;
+            }
+
+            return node;
+        }
+
+        private Object assign(final Expression left, final Expression right) {
+            switch (left.getNodeType()) {
+                case Parameter: {
+                    final Object value = evaluate(right);
+                    _variables.put((ParameterExpression) left, value);
+                    return value;
+                }
+
+                case MemberAccess: {
+                    final MemberExpression member = (MemberExpression) left;
+                    final Object instance = member.getTarget() != null ? evaluate(member.getTarget()) : null;
+                    final Object value = evaluate(right);
+
+                    setField((FieldInfo) member.getMember(), instance, value);
+                    return value;
+                }
+
+                default: {
+                    final BinaryExpression arrayIndex = (BinaryExpression) left;
+                    final Object array = evaluate(arrayIndex.getLeft());
+                    final Integer index = (Integer) evaluate(arrayIndex.getRight());
+                    final Object value = evaluate(right);
+
+                    Array.set(array, index, value);
+                    return value;
+                }
+            }
+        }
+
+        @Override
+        protected Expression visitTypeBinary(final TypeBinaryExpression node) {
+            final Object value = evaluate(node.getOperand());
+
+            _result = value != null && node.getTypeOperand().getErasedClass().isInstance(value);
+            return node;
+        }
+
+        @Override
+        protected Expression visitConditional(final ConditionalExpression node) {
+            final Object result = (Boolean) evaluate(node.getTest()) ? evaluate(node.getIfTrue())
+                                                                     : evaluate(node.getIfFalse());
+
+            _result = node.getType() == PrimitiveTypes.Void ? null : result;
+            return node;
+        }
+
+        @Override
+        protected Expression visitBlock(final BlockExpression node) {
+            for (int i = 0, n = node.getVariableCount(); i < n; i++) {
+                final ParameterExpression variable = node.getVariable(i);
+                _variables.put(variable, defaultValue(variable.getType()));
+            }
+
+            final int count = node.getExpressionCount();
+
+            Object result = null;
+            int i = 0;
+
+            while (i < count) {
+                try {
+                    for (; i < count; i++) {
+                        result = evaluate(node.getExpression(i));
+                    }
+                }
+                catch (final Jump jump) {
+                    final int target = indexOfLabel(node, jump.target);
+
+                    if (target < 0) {
+                        throw jump;
+                    }
+
+                    result = jump.value;
+                    i = target + 1;
+                }
+            }
+
+            _result = node.getType() == PrimitiveTypes.Void ? null : result;
+            return node;
+        }
+
+        @Override
+        protected Expression visitLabel(final LabelExpression node) {
+            evaluate(node.getDefaultValue());
+            return node;
+        }
+
+        @Override
+        protected Expression visitGoto(final GotoExpression node) {
+            throw new Jump(node.getTarget(), evaluate(node.getValue()));
+        }
+
+        @Override
+        protected Expression visitLoop(final LoopExpression node) {
+            final LabelTarget breakTarget = node.getBreakTarget();
+            final LabelTarget continueTarget = node.getContinueTarget();
+
+            while (true) {
+                try {
+                    evaluate(node.getBody());
+                }
+                catch (final Jump jump) {
+                    if (jump.target == breakTarget) {
+                        _result = jump.value;
+                        return node;
+                    }
+
+                    if (jump.target != continueTarget) {
+                        throw jump;
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected Expression visitSwitch(final SwitchExpression node) {
+            final Object value = evaluate(node.getSwitchValue());
+            final MethodInfo comparison = node.getComparison();
+            final TypeKind kind = kindOf(node.getSwitchValue().getType());
+
+            Expression body = node.getDefaultBody();
+
+        cases:
+            for (final SwitchCase switchCase : node.getCases()) {
+                for (final Expression testValue : switchCase.getTestValues()) {
+                    final Object test = evaluate(testValue);
+
+                    final boolean matches;
+
+                    if (comparison != null) {
+                        matches = (Boolean) (comparison.isStatic() ? invoke(comparison, null, value, test)
+                                                                   : invoke(comparison, value, test));
+                    }
+                    else if (kind.isPrimitive()) {
+                        matches = (Boolean) comparison(ExpressionType.Equal, value, test, kind);
+                    }
+                    else {
+                        matches = value == null ? test == null : value.equals(test);
+                    }
+
+                    if (matches) {
+                        body = switchCase.getBody();
+                        break cases;
+                    }
+                }
+            }
+
+            final Object result = body != null ? evaluate(body) : null;
+
+            _result = node.getType() == PrimitiveTypes.Void ? null : result;
+            return node;
+        }
+
+        @Override
+        protected Expression visitTry(final TryExpression node) {
+            try {
+                _result = evaluate(node.getBody());
+            }
+            catch (final Jump jump) {
+                throw jump;
+            }
+            catch (final Throwable t) {
+                final CatchBlock handler = findHandler(node, t);
+
+                if (handler == null) {
+                    throw t;
+                }
+
+                if (handler.getVariable() != null) {
+                    _variables.put(handler.getVariable(), t);
+                }
+
+                _caughtExceptions.push(t);
+
+                try {
+                    _result = evaluate(handler.getBody());
+                }
+                finally {
+                    _caughtExceptions.pop();
+                }
+            }
+            finally {
+                if (node.getFinallyBlock() != null) {
+                    final Object result = _result;
+                    evaluate(node.getFinallyBlock());
+                    _result = result;
+                }
+            }
+
+            if (node.getType() == PrimitiveTypes.Void) {
+                _result = null;
+            }
+
+            return node;
+        }
+
+        @Override
+        protected Expression visitMethodCall(final MethodCallExpression node) {
+            final Expression target = node.getTarget();
+            final Object instance = target != null ? evaluate(target) : null;
+
+            _result = invoke(node.getMethod(), instance, evaluateArguments(node));
+            return node;
+        }
+
+        @Override
+        protected Expression visitInvocation(final InvocationExpression node) {
+            final Object instance = evaluate(node.getExpression());
+            final MethodInfo method = Expression.getInvokeMethod(node.getExpression().getType(), true);
+
+            _result = invoke(method, instance, evaluateArguments(node));
+            return node;
+        }
+
+        @Override
+        protected Expression visitNew(final NewExpression node) {
+            final ConstructorInfo constructor = node.getConstructor();
+
+            if (constructor == null) {
+                _result = defaultValue(node.getType());
+                return node;
+            }
+
+            final Constructor<?> rawConstructor = constructor.getRawConstructor();
+            final Object[] args = evaluateArguments(node);
+
+            try {
+                _result = rawConstructor.newInstance(args);
+            }
+            catch (final InvocationTargetException e) {
+                throw ExceptionUtilities.<RuntimeException>rethrow(e.getCause());
+            }
+            catch (final InstantiationException | IllegalAccessException e) {
+                throw Error.couldNotInterpret(e);
+            }
+
+            return node;
+        }
+
+        @Override
+        protected Expression visitNewArray(final NewArrayExpression node) {
+            final ExpressionList<? extends Expression> expressions = node.getExpressions();
+            final int count = expressions.size();
+
+            Class<?> elementClass = node.getType().getErasedClass();
+
+            if (node.getNodeType() == ExpressionType.NewArrayBounds) {
+                final int[] dimensions = new int[count];
+
+                for (int i = 0; i < count; i++) {
+                    dimensions[i] = (Integer) convert(evaluate(expressions.get(i)), PrimitiveTypes.Integer);
+                    elementClass = elementClass.getComponentType();
+                }
+
+                _result = Array.newInstance(elementClass, dimensions);
+                return node;
+            }
+
+            final Object array = Array.newInstance(elementClass.getComponentType(), count);
+
+            for (int i = 0; i < count; i++) {
+                Array.set(array, i, evaluate(expressions.get(i)));
+            }
+
+            _result = array;
+            return node;
+        }
+
+        private Object[] evaluateArguments(final IArgumentProvider node) {
+            final Object[] args = new Object[node.getArgumentCount()];
+
+            for (int i = 0; i < args.length; i++) {
+                args[i] = evaluate(node.getArgument(i));
+            }
+
+            return args;
+        }
+
+        private static int indexOfLabel(final BlockExpression node, final LabelTarget target) {
+            for (int i = 0, n = node.getExpressionCount(); i < n; i++) {
+                final Expression e = node.getExpression(i);
+
+                if (e instanceof LabelExpression && ((LabelExpression) e).getTarget() == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static CatchBlock findHandler(final TryExpression node, final Throwable t) {
+            for (final CatchBlock handler : node.getHandlers()) {
+                if (handler.getTest().getErasedClass().isInstance(t)) {
+                    return handler;
+                }
+            }
+            return null;
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Operations">
+
+    private static Object invoke(final MethodInfo method, final Object instance, final Object... args) {
+        final Method rawMethod = method.getRawMethod();
+
+        try {
+            return rawMethod.invoke(instance, args);
+        }
+        catch (final InvocationTargetException e) {
+            throw ExceptionUtilities.<RuntimeException>rethrow(e.getCause());
+        }
+        catch (final IllegalAccessException e) {
+            throw Error.couldNotInterpret(e);
+        }
+    }
+
+    private static Object getField(final FieldInfo field, final Object instance) {
+        final Field rawField = field.getRawField();
+
+        try {
+            return rawField.get(instance);
+        }
+        catch (final IllegalAccessException e) {
+            throw Error.couldNotInterpret(e);
+        }
+    }
+
+    private static void setField(final FieldInfo field, final Object instance, final Object value) {
+        final Field rawField = field.getRawField();
+
+        try {
+            rawField.set(instance, value);
+        }
+        catch (final IllegalAccessException e) {
+            throw Error.couldNotInterpret(e);
+        }
+    }
+
+    private static TypeKind kindOf(final Type<?> type) {
+        return TypeUtils.getUnderlyingPrimitiveOrSelf(type).getKind();
+    }
+
+    private static Object defaultValue(final Type<?> type) {
+        if (!type.isPrimitive() || type == PrimitiveTypes.Void) {
+            return null;
+        }
+        if (type == PrimitiveTypes.Boolean) {
+            return Boolean.FALSE;
+        }
+        return convertPrimitive(0, type.getKind());
+    }
+
+    private static Object convert(final Object value, final Type<?> type) {
+        if (type.isPrimitive()) {
+            return convertPrimitive(value, type.getKind());
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        if (TypeUtils.getUnderlyingPrimitive(type) != null) {
+            return convertPrimitive(value, kindOf(type));
+        }
+
+        return type.getErasedClass().cast(value);
+    }
+
+    private static Object convertPrimitive(final Object value, final TypeKind kind) {
+        if (kind == TypeKind.BOOLEAN) {
+            return (Boolean) value;
+        }
+
+        if (value instanceof Double || value instanceof Float) {
+            final double d = ((Number) value).doubleValue();
+
+            switch (kind) {
+                case BYTE:
+                    return (byte) d;
+                case SHORT:
+                    return (short) d;
+                case CHAR:
+                    return (char) d;
+                case INT:
+                    return (int) d;
+                case LONG:
+                    return (long) d;
+                case FLOAT:
+                    return (float) d;
+                default:
+                    return d;
+            }
+        }
+
+        final long l = value instanceof Character ? (long) (Character) value
+                                                  : ((Number) value).longValue();
+
+        switch (kind) {
+            case BYTE:
+                return (byte) l;
+            case SHORT:
+                return (short) l;
+            case CHAR:
+                return (char) l;
+            case INT:
+                return (int) l;
+            case LONG:
+                return l;
+            case FLOAT:
+                return (float) l;
+            default:
+                return (double) l;
+        }
+    }
+
+    private static long longValue(final Object value) {
+        return value instanceof Character ? (Character) value : ((Number) value).longValue();
+    }
+
+    private static double doubleValue(final Object value) {
+        return value instanceof Character ? (Character) value : ((Number) value).doubleValue();
+    }
+
+    private static Object unaryOperation(final ExpressionType op, final Object operand, final Type<?> type) {
+        final TypeKind kind = kindOf(type);
+
+        switch (kind) {
+            case BOOLEAN:
+                if (op == ExpressionType.Not || op == ExpressionType.OnesComplement) {
+                    return !(Boolean) operand;
+                }
+                break;
+
+            case FLOAT:
+            case DOUBLE: {
+                final double d = doubleValue(operand);
+
+                switch (op) {
+                    case Negate:
+                        return convertPrimitive(-d, kind);
+                    case UnaryPlus:
+                        return convertPrimitive(d, kind);
+                    case Increment:
+                        return convertPrimitive(d + 1, kind);
+                    case Decrement:
+                        return convertPrimitive(d - 1, kind);
+                }
+                break;
+            }
+
+            default: {
+                final long l = longValue(operand);
+
+                switch (op) {
+                    case Negate:
+                        return convertPrimitive(-l, kind);
+                    case UnaryPlus:
+                        return convertPrimitive(l, kind);
+                    case Increment:
+                        return convertPrimitive(l + 1, kind);
+                    case Decrement:
+                        return convertPrimitive(l - 1, kind);
+                    case Not:
+                    case OnesComplement:
+                        return convertPrimitive(~l, kind);
+                }
+                break;
+            }
+        }
+
+        throw Error.unaryOperatorNotDefined(op, type);
+    }
+
+    private static Object comparison(final ExpressionType op, final Object left, final Object right, final TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return (op == ExpressionType.Equal) == left.equals(right);
+
+            case FLOAT:
+            case DOUBLE: {
+                final double l = doubleValue(left);
+                final double r = doubleValue(right);
+
+                switch (op) {
+                    case Equal:
+                        return l == r;
+                    case NotEqual:
+                        return l != r;
+                    case LessThan:
+                        return l < r;
+                    case LessThanOrEqual:
+                        return l <= r;
+                    case GreaterThan:
+                        return l > r;
+                    default:
+                        return l >= r;
+                }
+            }
+
+            default: {
+                final long l = longValue(left);
+                final long r = longValue(right);
+
+                switch (op) {
+                    case Equal:
+                        return l == r;
+                    case NotEqual:
+                        return l != r;
+                    case LessThan:
+                        return l < r;
+                    case LessThanOrEqual:
+                        return l <= r;
+                    case GreaterThan:
+                        return l > r;
+                    default:
+                        return l >= r;
+                }
+            }
+        }
+    }
+
+    private static Object arithmetic(final ExpressionType op, final Object left, final Object right, final Type<?> type) {
+        final TypeKind kind = kindOf(type);
+
+        switch (kind) {
+            case BOOLEAN: {
+                final boolean l = (Boolean) left;
+                final boolean r = (Boolean) right;
+
+                switch (op) {
+                    case And:
+                        return l & r;
+                    case Or:
+                        return l | r;
+                    case ExclusiveOr:
+                        return l ^ r;
+                }
+                break;
+            }
+
+            case FLOAT: {
+                final float l = (float) doubleValue(left);
+                final float r = (float) doubleValue(right);
+
+                switch (op) {
+                    case Add:
+                        return l + r;
+                    case Subtract:
+                        return l - r;
+                    case Multiply:
+                        return l * r;
+                    case Divide:
+                        return l / r;
+                    case Modulo:
+                        return l % r;
+                }
+                break;
+            }
+
+            case DOUBLE: {
+                final double l = doubleValue(left);
+                final double r = doubleValue(right);
+
+                switch (op) {
+                    case Add:
+                        return l + r;
+                    case Subtract:
+                        return l - r;
+                    case Multiply:
+                        return l * r;
+                    case Divide:
+                        return l / r;
+                    case Modulo:
+                        return l % r;
+                }
+                break;
+            }
+
+            case LONG: {
+                final long l = longValue(left);
+                final long r = longValue(right);
+
+                switch (op) {
+                    case Add:
+                        return l + r;
+                    case Subtract:
+                        return l - r;
+                    case Multiply:
+                        return l * r;
+                    case Divide:
+                        return l / r;
+                    case Modulo:
+                        return l % r;
+                    case And:
+                        return l & r;
+                    case Or:
+                        return l | r;
+                    case ExclusiveOr:
+                        return l ^ r;
+                    case LeftShift:
+                        return l << r;
+                    case RightShift:
+                        return l >> r;
+                    case UnsignedRightShift:
+                        return l >>> r;
+                }
+                break;
+            }
+
+            default: {
+                final int l = (int) longValue(left);
+                final int r = (int) longValue(right);
+                final int result;
+
+                switch (op) {
+                    case Add:
+                        result = l + r;
+                        break;
+                    case Subtract:
+                        result = l - r;
+                        break;
+                    case Multiply:
+                        result = l * r;
+                        break;
+                    case Divide:
+                        result = l / r;
+                        break;
+                    case Modulo:
+                        result = l % r;
+                        break;
+                    case And:
+                        result = l & r;
+                        break;
+                    case Or:
+                        result = l | r;
+                        break;
+                    case ExclusiveOr:
+                        result = l ^ r;
+                        break;
+                    case LeftShift:
+                        result = l << r;
+                        break;
+                    case RightShift:
+                        result = l >> r;
+                        break;
+                    case UnsignedRightShift:
+                        result = l >>> r;
+                        break;
+                    default:
+                        throw Error.binaryOperatorNotDefined(op, type, type);
+                }
+
+                return convertPrimitive(result, kind);
+            }
+        }
+
+        throw Error.binaryOperatorNotDefined(op, type, type);
+    }
+
+    // </editor-fold>
+}
@@ -0,0 +1,362 @@
+/*
+ * LambdaShape.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.VerifyArgument;
+import com.strobel.reflection.Type;
+import com.strobel.reflection.Types;
+import com.strobel.util.TypeUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The structure of a lambda expression tree, with the values of its constants left out.  Two lambdas
+ * with equal shapes compile to the same code once their constants are lifted out of the tree (see
+ * {@link #liftConstants(LambdaExpression, Object[])}), so they can share one generated class.
+ * <p>
+ * Parameters and labels are identified by their order of appearance rather than by identity.  The
+ * values of {@code null} and {@code boolean} constants, and of switch case test values, are part of
+ * the shape, since the compiler generates different code for them.  Trees containing nested lambdas
+ * or extension nodes have no shape.
+ */
+final class LambdaShape {
+    private final Object[] _tokens;
+    private final int _hashCode;
+
+    private LambdaShape(final Object[] tokens) {
+        _tokens = tokens;
+        _hashCode = Arrays.hashCode(tokens);
+    }
+
+    /**
+     * Computes the shape of {@code lambda}, adding the values of its liftable constants to
+     * {@code liftedValues} in the order {@link #liftConstants} expects them.
+     *
+     * @return the shape of {@code lambda}, or {@code null} if it cannot be shared.
+     */
+    static LambdaShape of(final LambdaExpression<?> lambda, final List<Object> liftedValues) {
+        VerifyArgument.notNull(lambda, "lambda");
+        VerifyArgument.notNull(liftedValues, "liftedValues");
+
+        final ShapeVisitor visitor = new ShapeVisitor(liftedValues, null);
+
+        visitor.visitRoot(lambda);
+
+        if (!visitor.isShareable()) {
+            return null;
+        }
+
+        return new LambdaShape(visitor.getTokens());
+    }
+
+    /**
+     * Rewrites {@code lambda} such that each liftable constant is read from {@code liftedValues},
+     * which is itself embedded as a single constant.
+     */
+    static <T> LambdaExpression<T> liftConstants(final LambdaExpression<T> lambda, final Object[] liftedValues) {
+        VerifyArgument.notNull(lambda, "lambda");
+        VerifyArgument.notNull(liftedValues, "liftedValues");
+
+        return new ShapeVisitor(new ArrayList<>(), liftedValues).visitRoot(lambda);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return this == o ||
+               o instanceof LambdaShape &&
+               _hashCode == ((LambdaShape) o)._hashCode &&
+               Arrays.equals(_tokens, ((LambdaShape) o)._tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return _hashCode;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="ShapeVisitor Class">
+
+    private final static class ShapeVisitor extends ExpressionVisitor {
+        private final static Object LIFTED = new Object();
+
+        private final ArrayList<Object> _tokens = new ArrayList<>();
+        private final IdentityHashMap<ParameterExpression, Integer> _parameters = new IdentityHashMap<>();
+        private final IdentityHashMap<LabelTarget, Integer> _labels = new IdentityHashMap<>();
+        private final List<Object> _liftedValues;
+        private final ConstantExpression _liftedValuesConstant;
+
+        private boolean _keepConstantValues;
+        private boolean _shareable = true;
+
+        ShapeVisitor(final List<Object> liftedValues, final Object[] rewriteTo) {
+            _liftedValues = liftedValues;
+            _liftedValuesConstant = rewriteTo != null ? Expression.constant(rewriteTo, Types.Object.makeArrayType())
+                                                      : null;
+        }
+
+        boolean isShareable() {
+            return _shareable;
+        }
+
+        Object[] getTokens() {
+            return _tokens.toArray();
+        }
+
+        <T> LambdaExpression<T> visitRoot(final LambdaExpression<T> lambda) {
+            _tokens.add(lambda.getType());
+            _tokens.add(lambda.getName());
+            _tokens.add(lambda.isTailCall());
+            _tokens.add(lambda.getCreationContext());
+            _tokens.add(lambda.getParameters().size());
+
+            final ParameterExpressionList parameters = visitAndConvertList(lambda.getParameters(), "visitLambda");
+            final Expression body = visit(lambda.getBody());
+
+            return lambda.update(body, parameters);
+        }
+
+        @Override
+        public Expression visit(final Expression node) {
+            if (node == null) {
+                _tokens.add(null);
+                return null;
+            }
+
+            _tokens.add(node.getClass());
+            _tokens.add(node.getNodeType());
+            _tokens.add(node.getType());
+
+            return node.accept(this);
+        }
+
+        @Override
+        protected <T extends Expression> T visitAndConvert(final T node, final String callerName) {
+            if (node == null) {
+                _tokens.add(null);
+            }
+            return super.visitAndConvert(node, callerName);
+        }
+
+        @Override
+        protected Expression visitExtension(final Expression node) {
+            _shareable = false;
+            return node;
+        }
+
+        @Override
+        protected <T> LambdaExpression<T> visitLambda(final LambdaExpression<T> node) {
+            //
+            // Nested lambdas are compiled into classes of their own, which would need lifting too.
+            //
+            _shareable = false;
+            return node;
+        }
+
+        @Override
+        protected Expression visitConstant(final ConstantExpression node) {
+            final Object value = node.getValue();
+
+            if (_keepConstantValues || value == null || value instanceof Boolean) {
+                _tokens.add(value);
+                return node;
+            }
+
+            final int index = _liftedValues.size();
+
+            _tokens.add(LIFTED);
+            _liftedValues.add(value);
+
+            if (_liftedValuesConstant == null) {
+                return node;
+            }
+
+            final Type<?> type = node.getType();
+            final Expression read = Expression.arrayIndex(_liftedValuesConstant, Expression.constant(index));
+
+            if (type.isPrimitive()) {
+                return Expression.unbox(Expression.convert(read, TypeUtils.getBoxedType(type)));
+            }
+
+            if (type == Types.Object) {
+                return read;
+            }
+
+            return Expression.convert(read, type);
+        }
+
+        @Override
+        protected Expression visitParameter(final ParameterExpression node) {
+            Integer index = _parameters.get(node);
+
+            if (index == null) {
+                _parameters.put(node, index = _parameters.size());
+            }
+
+            _tokens.add(index);
+            _tokens.add(node.getName());
+
+            return node;
+        }
+
+        @Override
+        protected LabelTarget visitLabelTarget(final LabelTarget node) {
+            if (node == null) {
+                _tokens.add(null);
+                return null;
+            }
+
+            Integer index = _labels.get(node);
+
+            if (index == null) {
+                _labels.put(node, index = _labels.size());
+            }
+
+            _tokens.add(index);
+            _tokens.add(node.getName());
+            _tokens.add(node.getType());
+
+            return node;
+        }
+
+        @Override
+        protected Expression visitMember(final MemberExpression node) {
+            _tokens.add(node.getMember());
+            return super.visitMember(node);
+        }
+
+        @Override
+        protected Expression visitUnary(final UnaryExpression node) {
+            _tokens.add(node.getMethod());
+            return super.visitUnary(node);
+        }
+
+        @Override
+        protected Expression visitBinary(final BinaryExpression node) {
+            _tokens.add(node.getMethod());
+            return super.visitBinary(node);
+        }
+
+        @Override
+        protected Expression visitTypeBinary(final TypeBinaryExpression node) {
+            _tokens.add(node.getTypeOperand());
+            return super.visitTypeBinary(node);
+        }
+
+        @Override
+        protected Expression visitBlock(final BlockExpression node) {
+            _tokens.add(node.getExpressionCount());
+            _tokens.add(node.getVariables().size());
+            return super.visitBlock(node);
+        }
+
+        @Override
+        protected Expression visitConcat(final ConcatExpression node) {
+            _tokens.add(node.getOperands().size());
+            return super.visitConcat(node);
+        }
+
+        @Override
+        protected Expression visitGoto(final GotoExpression node) {
+            _tokens.add(node.getKind());
+            return super.visitGoto(node);
+        }
+
+        @Override
+        protected Expression visitInvocation(final InvocationExpression node) {
+            _tokens.add(node.getArgumentCount());
+
+            //
+            // The base implementation assumes the target is a lambda, which cannot be the case here.
+            //
+            final Expression expression = visit(node.getExpression());
+            final ExpressionList<? extends Expression> arguments = visitArguments(node);
+
+            if (expression == node.getExpression() && arguments == null) {
+                return node;
+            }
+
+            return Expression.invoke(expression, arguments != null ? arguments : node.getArguments());
+        }
+
+        @Override
+        protected Expression visitMethodCall(final MethodCallExpression node) {
+            _tokens.add(node.getMethod());
+            _tokens.add(node.getArgumentCount());
+            return super.visitMethodCall(node);
+        }
+
+        @Override
+        protected Expression visitNew(final NewExpression node) {
+            _tokens.add(node.getConstructor());
+            _tokens.add(node.getArguments().size());
+            return super.visitNew(node);
+        }
+
+        @Override
+        protected Expression visitNewArray(final NewArrayExpression node) {
+            _tokens.add(node.getExpressions().size());
+            return super.visitNewArray(node);
+        }
+
+        @Override
+        protected Expression visitRuntimeVariables(final RuntimeVariablesExpression node) {
+            _tokens.add(node.getVariables().size());
+            return super.visitRuntimeVariables(node);
+        }
+
+        @Override
+        protected Expression visitTry(final TryExpression node) {
+            _tokens.add(node.getHandlers().size());
+            return super.visitTry(node);
+        }
+
+        @Override
+        protected CatchBlock visitCatchBlock(final CatchBlock node) {
+            _tokens.add(node.getTest());
+            return super.visitCatchBlock(node);
+        }
+
+        @Override
+        protected Expression visitSwitch(final SwitchExpression node) {
+            _tokens.add(node.getComparison());
+            _tokens.add(node.getOptions());
+            _tokens.add(node.getCases().size());
+            return super.visitSwitch(node);
+        }
+
+        @Override
+        protected SwitchCase visitSwitchCase(final SwitchCase node) {
+            _tokens.add(node.getTestValues().size());
+
+            //
+            // Test values select the switch strategy and become part of the emitted code.
+            //
+            final boolean keepConstantValues = _keepConstantValues;
+            final ExpressionList<? extends Expression> testValues;
+
+            _keepConstantValues = true;
+
+            try {
+                testValues = visit(node.getTestValues());
+            }
+            finally {
+                _keepConstantValues = keepConstantValues;
+            }
+
+            return node.update(testValues, visit(node.getBody()));
+        }
+    }
+
+    // </editor-fold>
+}
@@ -0,0 +1,153 @@
+/*
+ * PackageAccessFinder.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.reflection.MemberInfo;
+import com.strobel.reflection.Type;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * Determines whether the code generated for a lambda may refer to types or members which are not
+ * public.  Such code only links when its class is defined by the same loader as the classes it
+ * refers to, so it cannot be given a collectable loader of its own.
+ */
+final class PackageAccessFinder extends ExpressionVisitor {
+    private boolean _requiresPackageAccess;
+
+    private PackageAccessFinder() {
+    }
+
+    static boolean requiresPackageAccess(final LambdaExpression<?> lambda) {
+        final PackageAccessFinder finder = new PackageAccessFinder();
+
+        finder.visit(lambda);
+
+        return finder._requiresPackageAccess;
+    }
+
+    @Override
+    public Expression visit(final Expression node) {
+        if (node == null || _requiresPackageAccess) {
+            return node;
+        }
+
+        checkType(node.getType());
+
+        return super.visit(node);
+    }
+
+    @Override
+    protected Expression visitExtension(final Expression node) {
+        //
+        // Extensions may reduce to anything; don't second-guess them.
+        //
+        _requiresPackageAccess = true;
+        return node;
+    }
+
+    @Override
+    protected <T> LambdaExpression<T> visitLambda(final LambdaExpression<T> node) {
+        checkType(node.getType());
+        return super.visitLambda(node);
+    }
+
+    @Override
+    protected Expression visitMember(final MemberExpression node) {
+        checkMember(node.getMember());
+        return super.visitMember(node);
+    }
+
+    @Override
+    protected Expression visitUnary(final UnaryExpression node) {
+        checkMember(node.getMethod());
+        return super.visitUnary(node);
+    }
+
+    @Override
+    protected Expression visitBinary(final BinaryExpression node) {
+        checkMember(node.getMethod());
+        return super.visitBinary(node);
+    }
+
+    @Override
+    protected Expression visitTypeBinary(final TypeBinaryExpression node) {
+        checkType(node.getTypeOperand());
+        return super.visitTypeBinary(node);
+    }
+
+    @Override
+    protected Expression visitInvocation(final InvocationExpression node) {
+        //
+        // The base implementation assumes the target is a lambda, which need not be the case.
+        //
+        visit(node.getExpression());
+        visit(node.getArguments());
+        return node;
+    }
+
+    @Override
+    protected Expression visitMethodCall(final MethodCallExpression node) {
+        checkMember(node.getMethod());
+        return super.visitMethodCall(node);
+    }
+
+    @Override
+    protected Expression visitNew(final NewExpression node) {
+        checkMember(node.getConstructor());
+        return super.visitNew(node);
+    }
+
+    @Override
+    protected CatchBlock visitCatchBlock(final CatchBlock node) {
+        checkType(node.getTest());
+        return super.visitCatchBlock(node);
+    }
+
+    @Override
+    protected Expression visitSwitch(final SwitchExpression node) {
+        checkMember(node.getComparison());
+        return super.visitSwitch(node);
+    }
+
+    private void checkMember(final MemberInfo member) {
+        if (member == null) {
+            return;
+        }
+
+        if (!Modifier.isPublic(member.getModifiers())) {
+            _requiresPackageAccess = true;
+            return;
+        }
+
+        checkType(member.getDeclaringType());
+    }
+
+    private void checkType(final Type<?> type) {
+        if (type == null || type.isPrimitive()) {
+            return;
+        }
+
+        Class<?> c = type.getErasedClass();
+
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+
+        for (; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                _requiresPackageAccess = true;
+                return;
+            }
+        }
+    }
+}
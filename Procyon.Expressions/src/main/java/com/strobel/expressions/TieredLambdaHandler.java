@@ -0,0 +1,126 @@
+/*
+ * TieredLambdaHandler.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.reflection.MethodInfo;
+import com.strobel.reflection.Type;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implements a delegate interface by interpreting a lambda until it has been invoked a given number
+ * of times, and by calling into its compiled form from then on.
+ */
+final class TieredLambdaHandler<T> implements InvocationHandler {
+    private final LambdaExpression<T> _lambda;
+    private final LambdaInterpreter _interpreter;
+    private final Method _invokeMethod;
+    private final int _compilationThreshold;
+    private final AtomicInteger _invocationCount = new AtomicInteger();
+
+    private volatile Delegate<T> _compiledDelegate;
+
+    private TieredLambdaHandler(
+        final LambdaExpression<T> lambda,
+        final LambdaInterpreter interpreter,
+        final Method invokeMethod,
+        final int compilationThreshold) {
+
+        _lambda = lambda;
+        _interpreter = interpreter;
+        _invokeMethod = invokeMethod;
+        _compilationThreshold = compilationThreshold;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Delegate<T> createDelegate(final LambdaExpression<T> lambda, final int compilationThreshold) {
+        final LambdaInterpreter interpreter = compilationThreshold > 0 ? LambdaInterpreter.tryCreate(lambda)
+                                                                       : null;
+
+        if (interpreter == null) {
+            return lambda.compileDelegate();
+        }
+
+        final Type<T> interfaceType = lambda.getType();
+        final MethodInfo invokeMethod = Expression.getInvokeMethod(interfaceType, true);
+        final Class<T> interfaceClass = interfaceType.getErasedClass();
+
+        final T instance = (T) Proxy.newProxyInstance(
+            interfaceClass.getClassLoader(),
+            new Class<?>[] { interfaceClass },
+            new TieredLambdaHandler<>(lambda, interpreter, invokeMethod.getRawMethod(), compilationThreshold)
+        );
+
+        return new Delegate<>(instance, invokeMethod);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return _lambda.getType().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+        }
+
+        Delegate<T> compiledDelegate = _compiledDelegate;
+
+        if (compiledDelegate == null) {
+            if (isInvokeMethod(method) && _invocationCount.incrementAndGet() <= _compilationThreshold) {
+                return _interpreter.invoke(args != null ? args : new Object[0]);
+            }
+            compiledDelegate = compile();
+        }
+
+        try {
+            if (isInvokeMethod(method)) {
+                return compiledDelegate.getMethod().getRawMethod().invoke(compiledDelegate.getInstance(), args);
+            }
+
+            //
+            // Default methods, e.g., Function.andThen(), run against the compiled delegate.
+            //
+            return method.invoke(compiledDelegate.getInstance(), args);
+        }
+        catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    boolean isCompiled() {
+        return _compiledDelegate != null;
+    }
+
+    private boolean isInvokeMethod(final Method method) {
+        return method.equals(_invokeMethod) ||
+               method.getName().equals(_invokeMethod.getName()) &&
+               Arrays.equals(method.getParameterTypes(), _invokeMethod.getParameterTypes());
+    }
+
+    private Delegate<T> compile() {
+        synchronized (this) {
+            if (_compiledDelegate == null) {
+                _compiledDelegate = _lambda.compileDelegate();
+            }
+            return _compiledDelegate;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * BatchCompilationTests.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.delegates.Func1;
+import com.strobel.reflection.GeneratedClassLoader;
+import com.strobel.reflection.Type;
+import com.strobel.reflection.Types;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.strobel.expressions.Expression.*;
+import static org.junit.Assert.*;
+
+public class BatchCompilationTests extends AbstractExpressionTest {
+    private final static Type<Func1<Integer, Integer>> INT_FUNC_TYPE = Type.of(Func1.class).makeGenericType(Types.Integer, Types.Integer);
+    private final static Type<Func1<Integer, String>> STRING_FUNC_TYPE = Type.of(Func1.class).makeGenericType(Types.Integer, Types.String);
+
+    @SuppressWarnings("UnusedDeclaration")
+    static class PackagePrivateCounter {
+        static int twice(final int value) {
+            return value * 2;
+        }
+    }
+
+    private static LambdaExpression<Func1<Integer, Integer>> multiplyBy(final int factor) {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        return lambda(
+            INT_FUNC_TYPE,
+            convert(multiply(unbox(number), constant(factor)), Types.Integer),
+            number
+        );
+    }
+
+    private static LambdaExpression<Func1<Integer, String>> describe(final String prefix) {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        return lambda(
+            STRING_FUNC_TYPE,
+            concat(constant(prefix), number),
+            number
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T instance(final Delegate<?> delegate) {
+        return (T) delegate.getInstance();
+    }
+
+    @Test
+    public void testLambdasOfOneTypeShareClasses() {
+        final List<LambdaExpression<?>> lambdas = new ArrayList<>();
+
+        for (int i = 0; i < 1200; i++) {
+            lambdas.add(multiplyBy(i));
+        }
+
+        final List<Delegate<?>> delegates = LambdaExpression.compileBatch(lambdas);
+        final Set<Class<?>> classes = new HashSet<>();
+
+        assertEquals(lambdas.size(), delegates.size());
+
+        for (int i = 0; i < delegates.size(); i++) {
+            final Func1<Integer, Integer> f = instance(delegates.get(i));
+
+            assertEquals(Integer.valueOf(i * 3), f.apply(3));
+            classes.add(f.getClass());
+        }
+
+        assertEquals(3, classes.size());
+    }
+
+    @Test
+    public void testLambdasOfDifferentTypesGetClassesOfTheirOwn() {
+        final List<LambdaExpression<?>> lambdas = new ArrayList<>();
+
+        lambdas.add(multiplyBy(2));
+        lambdas.add(describe("n = "));
+        lambdas.add(multiplyBy(5));
+        lambdas.add(describe("m = "));
+
+        final List<Delegate<?>> delegates = LambdaExpression.compileBatch(lambdas);
+
+        final Func1<Integer, Integer> twice = instance(delegates.get(0));
+        final Func1<Integer, String> n = instance(delegates.get(1));
+        final Func1<Integer, Integer> fiveTimes = instance(delegates.get(2));
+        final Func1<Integer, String> m = instance(delegates.get(3));
+
+        assertEquals(Integer.valueOf(14), twice.apply(7));
+        assertEquals("n = 7", n.apply(7));
+        assertEquals(Integer.valueOf(35), fiveTimes.apply(7));
+        assertEquals("m = 7", m.apply(7));
+
+        assertSame(twice.getClass(), fiveTimes.getClass());
+        assertSame(n.getClass(), m.getClass());
+        assertNotSame(twice.getClass(), n.getClass());
+        assertTrue(twice.getClass().getClassLoader() instanceof GeneratedClassLoader);
+    }
+
+    @Test
+    public void testBatchWithClosuresAndNestedLambdas() {
+        final ParameterExpression x = parameter(Types.Integer, "x");
+        final ParameterExpression y = parameter(Types.Integer, "y");
+
+        final LambdaExpression<Func1<Integer, Integer>> sumOfSelf = lambda(
+            INT_FUNC_TYPE,
+            invoke(
+                lambda(
+                    INT_FUNC_TYPE,
+                    convert(add(unbox(x), unbox(y)), Types.Integer),
+                    y
+                ),
+                x
+            ),
+            x
+        );
+
+        final LambdaExpression<Func1<Integer, Func1<Integer, Integer>>> adderFactory = lambda(
+            Type.of(Func1.class).makeGenericType(Types.Integer, INT_FUNC_TYPE),
+            lambda(
+                INT_FUNC_TYPE,
+                convert(add(unbox(x), unbox(y)), Types.Integer),
+                y
+            ),
+            x
+        );
+
+        final List<Integer> list = new ArrayList<>();
+
+        list.add(10);
+        list.add(20);
+
+        final ParameterExpression index = parameter(Types.Integer, "index");
+
+        final LambdaExpression<Func1<Integer, Integer>> lookup = lambda(
+            INT_FUNC_TYPE,
+            convert(
+                call(constant(list, Types.List.makeGenericType(Types.Integer)), "get", unbox(index)),
+                Types.Integer
+            ),
+            index
+        );
+
+        final List<LambdaExpression<?>> lambdas = new ArrayList<>();
+
+        lambdas.add(sumOfSelf);
+        lambdas.add(lookup);
+        lambdas.add(multiplyBy(4));
+        lambdas.add(adderFactory);
+
+        final List<Delegate<?>> delegates = LambdaExpression.compileBatch(lambdas);
+
+        final Func1<Integer, Integer> doubled = instance(delegates.get(0));
+        final Func1<Integer, Integer> fromList = instance(delegates.get(1));
+        final Func1<Integer, Integer> fourTimes = instance(delegates.get(2));
+        final Func1<Integer, Func1<Integer, Integer>> adders = instance(delegates.get(3));
+
+        assertEquals(Integer.valueOf(42), doubled.apply(21));
+        assertEquals(Integer.valueOf(20), fromList.apply(1));
+        assertEquals(Integer.valueOf(12), fourTimes.apply(3));
+        assertEquals(Integer.valueOf(5), adders.apply(2).apply(3));
+        assertSame(adders.getClass().getClassLoader(), adders.apply(2).getClass().getClassLoader());
+    }
+
+    @Test
+    public void testBatchRequiringPackageAccess() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        final List<LambdaExpression<?>> lambdas = new ArrayList<>();
+
+        lambdas.add(multiplyBy(3));
+        lambdas.add(
+            lambda(
+                INT_FUNC_TYPE,
+                convert(call(Type.of(PackagePrivateCounter.class), "twice", unbox(number)), Types.Integer),
+                number
+            )
+        );
+
+        final List<Delegate<?>> delegates = LambdaExpression.compileBatch(lambdas);
+
+        final Func1<Integer, Integer> thrice = instance(delegates.get(0));
+        final Func1<Integer, Integer> twice = instance(delegates.get(1));
+
+        assertEquals(Integer.valueOf(9), thrice.apply(3));
+        assertEquals(Integer.valueOf(6), twice.apply(3));
+        assertFalse(twice.getClass().getClassLoader() instanceof GeneratedClassLoader);
+    }
+}
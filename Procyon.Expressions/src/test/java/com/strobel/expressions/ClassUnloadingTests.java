@@ -0,0 +1,117 @@
+/*
+ * ClassUnloadingTests.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.delegates.Func1;
+import com.strobel.reflection.GeneratedClassLoader;
+import com.strobel.reflection.Type;
+import com.strobel.reflection.Types;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static com.strobel.expressions.Expression.*;
+import static org.junit.Assert.*;
+
+public class ClassUnloadingTests extends AbstractExpressionTest {
+    private final static Type<Func1<Integer, Integer>> FUNC_TYPE = Type.of(Func1.class).makeGenericType(Types.Integer, Types.Integer);
+
+    @SuppressWarnings("UnusedDeclaration")
+    static class PackagePrivateCounter {
+        static int twice(final int value) {
+            return value * 2;
+        }
+    }
+
+    private static LambdaExpression<Func1<Integer, Integer>> increment() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        return lambda(
+            FUNC_TYPE,
+            convert(add(unbox(number), constant(1)), Types.Integer),
+            number
+        );
+    }
+
+    private static WeakReference<ClassLoader> compileAndRelease() {
+        final Func1<Integer, Integer> delegate = increment().compile();
+
+        assertEquals(Integer.valueOf(42), delegate.apply(41));
+
+        return new WeakReference<>(delegate.getClass().getClassLoader());
+    }
+
+    private static boolean awaitCollection(final WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return reference.get() == null;
+    }
+
+    @Test
+    public void testLambdaClassIsDefinedByCollectableLoader() {
+        final Func1<Integer, Integer> delegate = increment().compile();
+
+        assertTrue(delegate.getClass().getClassLoader() instanceof GeneratedClassLoader);
+        assertEquals(Integer.valueOf(8), delegate.apply(7));
+    }
+
+    @Test
+    public void testNestedLambdasShareLoader() {
+        final ParameterExpression x = parameter(Types.Integer, "x");
+        final ParameterExpression y = parameter(Types.Integer, "y");
+
+        final LambdaExpression<Func1<Integer, Integer>> inner = lambda(
+            FUNC_TYPE,
+            convert(add(unbox(x), unbox(y)), Types.Integer),
+            y
+        );
+
+        final LambdaExpression<Func1<Integer, Func1<Integer, Integer>>> outer = lambda(
+            Type.of(Func1.class).makeGenericType(Types.Integer, FUNC_TYPE),
+            inner,
+            x
+        );
+
+        final Func1<Integer, Func1<Integer, Integer>> adder = outer.compile();
+        final Func1<Integer, Integer> addTwo = adder.apply(2);
+
+        assertEquals(Integer.valueOf(5), addTwo.apply(3));
+        assertTrue(adder.getClass().getClassLoader() instanceof GeneratedClassLoader);
+        assertSame(adder.getClass().getClassLoader(), addTwo.getClass().getClassLoader());
+    }
+
+    @Test
+    public void testLambdaRequiringPackageAccessUsesContextLoader() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        final LambdaExpression<Func1<Integer, Integer>> lambda = lambda(
+            FUNC_TYPE,
+            convert(
+                call(Type.of(PackagePrivateCounter.class), "twice", unbox(number)),
+                Types.Integer
+            ),
+            number
+        );
+
+        final Func1<Integer, Integer> delegate = lambda.compile();
+
+        assertFalse(delegate.getClass().getClassLoader() instanceof GeneratedClassLoader);
+        assertEquals(Integer.valueOf(42), delegate.apply(21));
+    }
+
+    @Test
+    public void testUnreachableLambdaClassIsUnloaded() throws InterruptedException {
+        assertTrue(awaitCollection(compileAndRelease()));
+    }
+}
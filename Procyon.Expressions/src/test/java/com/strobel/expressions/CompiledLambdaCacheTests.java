@@ -0,0 +1,98 @@
+/*
+ * CompiledLambdaCacheTests.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.delegates.Func1;
+import com.strobel.reflection.Type;
+import com.strobel.reflection.Types;
+import com.strobel.reflection.emit.SwitchOptions;
+import org.junit.Test;
+
+import static com.strobel.expressions.Expression.*;
+import static org.junit.Assert.*;
+
+public class CompiledLambdaCacheTests extends AbstractExpressionTest {
+    private final static Type<Func1<Integer, String>> FUNC_TYPE = Type.of(Func1.class).makeGenericType(Types.Integer, Types.String);
+
+    private static LambdaExpression<Func1<Integer, String>> scale(final String prefix, final int factor) {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        return lambda(
+            FUNC_TYPE,
+            concat(constant(prefix), multiply(unbox(number), constant(factor))),
+            number
+        );
+    }
+
+    private static LambdaExpression<Func1<Integer, String>> select(final int match, final String result) {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        return lambda(
+            FUNC_TYPE,
+            makeSwitch(
+                unbox(number),
+                SwitchOptions.Default,
+                constant("no match"),
+                switchCase(constant(result), constant(match))
+            ),
+            number
+        );
+    }
+
+    @Test
+    public void testLambdasDifferingOnlyInConstantsShareClass() {
+        final CompiledLambdaCache cache = new CompiledLambdaCache();
+
+        final Func1<Integer, String> twice = scale("x = ", 2).compile(cache);
+        final Func1<Integer, String> thrice = scale("y = ", 3).compile(cache);
+
+        assertEquals("x = 42", twice.apply(21));
+        assertEquals("y = 63", thrice.apply(21));
+        assertSame(twice.getClass(), thrice.getClass());
+        assertEquals(1, cache.size());
+
+        assertEquals("x = 42", twice.apply(21));
+    }
+
+    @Test
+    public void testSwitchTestValuesArePartOfShape() {
+        final CompiledLambdaCache cache = new CompiledLambdaCache();
+
+        final Func1<Integer, String> one = select(1, "one").compile(cache);
+        final Func1<Integer, String> uno = select(1, "uno").compile(cache);
+        final Func1<Integer, String> two = select(2, "two").compile(cache);
+
+        assertEquals("one", one.apply(1));
+        assertEquals("uno", uno.apply(1));
+        assertEquals("no match", uno.apply(2));
+        assertEquals("two", two.apply(2));
+        assertEquals("no match", two.apply(1));
+        assertSame(one.getClass(), uno.getClass());
+        assertNotSame(one.getClass(), two.getClass());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLambdasWithNestedLambdasAreNotCached() {
+        final CompiledLambdaCache cache = new CompiledLambdaCache();
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        final LambdaExpression<Func1<Integer, String>> lambda = lambda(
+            FUNC_TYPE,
+            invoke(scale("z = ", 4), number),
+            number
+        );
+
+        assertEquals("z = 8", lambda.compile(cache).apply(2));
+        assertEquals(0, cache.size());
+    }
+}
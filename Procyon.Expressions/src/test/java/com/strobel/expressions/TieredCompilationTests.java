@@ -0,0 +1,153 @@
+/*
+ * TieredCompilationTests.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.expressions;
+
+import com.strobel.core.delegates.Func1;
+import com.strobel.reflection.PrimitiveTypes;
+import com.strobel.reflection.Type;
+import com.strobel.reflection.Types;
+import com.strobel.reflection.emit.SwitchOptions;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static com.strobel.expressions.Expression.*;
+import static org.junit.Assert.*;
+
+public class TieredCompilationTests extends AbstractExpressionTest {
+    private static <T, R> Type<Func1<T, R>> funcType(final Type<T> argumentType, final Type<R> resultType) {
+        return Type.of(Func1.class).makeGenericType(argumentType, resultType);
+    }
+
+    private static void assertInterpretedMatchesCompiled(final LambdaExpression<?> lambda, final Object... arguments) {
+        final LambdaInterpreter interpreter = LambdaInterpreter.tryCreate(lambda);
+        final Delegate<?> compiled = lambda.compileDelegate();
+
+        assertNotNull(interpreter);
+
+        for (final Object argument : arguments) {
+            assertEquals(compiled.invokeDynamic(argument), interpreter.invoke(argument));
+        }
+    }
+
+    @Test
+    public void testArithmeticAndConcat() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        final LambdaExpression<Func1<Integer, String>> lambda = lambda(
+            funcType(Types.Integer, Types.String),
+            concat(
+                constant("n = "),
+                add(multiply(unbox(number), constant(3)), constant(1)),
+                constant(", m = "),
+                modulo(unbox(number), constant(4))
+            ),
+            number
+        );
+
+        assertInterpretedMatchesCompiled(lambda, -7, 0, 5, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testLoopWithBreak() {
+        final ParameterExpression count = parameter(Types.Integer, "count");
+        final ParameterExpression i = variable(PrimitiveTypes.Integer, "i");
+        final ParameterExpression sum = variable(PrimitiveTypes.Long, "sum");
+        final LabelTarget breakLabel = label(PrimitiveTypes.Long, "done");
+
+        final LambdaExpression<Func1<Integer, Long>> lambda = lambda(
+            funcType(Types.Integer, Types.Long),
+            convert(
+                block(
+                    new ParameterExpression[] { i, sum },
+                    assign(i, constant(0)),
+                    assign(sum, constant(0L)),
+                    loop(
+                        ifThenElse(
+                            lessThan(i, unbox(count)),
+                            addAssign(sum, convert(postIncrementAssign(i), PrimitiveTypes.Long)),
+                            makeBreak(breakLabel, sum)
+                        ),
+                        breakLabel
+                    )
+                ),
+                Types.Long
+            ),
+            count
+        );
+
+        assertInterpretedMatchesCompiled(lambda, 0, 1, 10, 1000);
+    }
+
+    @Test
+    public void testTryCatchAndStringSwitch() {
+        final ParameterExpression text = parameter(Types.String, "text");
+
+        final LambdaExpression<Func1<String, Integer>> lambda = lambda(
+            funcType(Types.String, Types.Integer),
+            convert(
+                makeSwitch(
+                    text,
+                    SwitchOptions.Default,
+                    tryCatch(
+                        call(Types.Integer, "parseInt", text),
+                        makeCatch(Type.of(NumberFormatException.class), constant(-1))
+                    ),
+                    switchCase(constant(100), constant("hundred")),
+                    switchCase(constant(0), constant("zero"), constant("none"))
+                ),
+                Types.Integer
+            ),
+            text
+        );
+
+        assertInterpretedMatchesCompiled(lambda, "hundred", "none", "zero", "42", "forty-two");
+    }
+
+    @Test
+    public void testNestedLambdasAreNotInterpreted() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+        final ParameterExpression inner = parameter(Types.Integer, "inner");
+
+        final LambdaExpression<Func1<Integer, Integer>> lambda = lambda(
+            funcType(Types.Integer, Types.Integer),
+            invoke(lambda(funcType(Types.Integer, Types.Integer), inner, inner), number),
+            number
+        );
+
+        assertNull(LambdaInterpreter.tryCreate(lambda));
+        assertFalse(Proxy.isProxyClass(lambda.compileTiered(10).getClass()));
+    }
+
+    @Test
+    public void testTieredDelegateCompilesAfterThreshold() {
+        final ParameterExpression number = parameter(Types.Integer, "number");
+
+        final LambdaExpression<Func1<Integer, Integer>> lambda = lambda(
+            funcType(Types.Integer, Types.Integer),
+            convert(negate(unbox(number)), Types.Integer),
+            number
+        );
+
+        final Func1<Integer, Integer> delegate = lambda.compileTiered(3);
+        final TieredLambdaHandler<?> handler = (TieredLambdaHandler<?>) Proxy.getInvocationHandler(delegate);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(-i), delegate.apply(i));
+            assertFalse(handler.isCompiled());
+        }
+
+        assertEquals(Integer.valueOf(-42), delegate.apply(42));
+        assertTrue(handler.isCompiled());
+        assertEquals(Integer.valueOf(7), delegate.apply(-7));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * GeneratedClassLoader.java
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.reflection;
+
+import com.strobel.core.VerifyArgument;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.ProtectionDomain;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class loader for a batch of generated classes, which are unloaded together once none of them,
+ * their instances, or the loader itself are reachable any longer.
+ * <p>
+ * The reflected types of classes defined here are cached by the loader rather than in the global
+ * type cache, so they do not keep the classes alive.  Classes of one loader may refer to classes
+ * generated into other loaders by name; such references are resolved for as long as the other
+ * loader is alive, and keep it alive from then on.
+ *
+ * @see com.strobel.reflection.emit.TypeBuilder#setDefiningClassLoader(GeneratedClassLoader)
+ */
+public final class GeneratedClassLoader extends ClassLoader {
+    private final static ConcurrentHashMap<String, LoaderReference> DefiningLoaders = new ConcurrentHashMap<>();
+    private final static ReferenceQueue<GeneratedClassLoader> CollectedLoaders = new ReferenceQueue<>();
+
+    final TypeCache types = new TypeCache();
+
+    public GeneratedClassLoader() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    public GeneratedClassLoader(final ClassLoader parent) {
+        super(parent);
+    }
+
+    public Class<?> defineClass(final String name, final byte[] classBytes, final ProtectionDomain protectionDomain) {
+        VerifyArgument.notNull(name, "name");
+        VerifyArgument.notNull(classBytes, "classBytes");
+
+        expungeCollectedLoaders();
+
+        final Class<?> generatedClass = defineClass(name, classBytes, 0, classBytes.length, protectionDomain);
+        final String internalName = name.replace('.', '/');
+
+        DefiningLoaders.put(internalName, new LoaderReference(internalName, this));
+
+        return generatedClass;
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        final GeneratedClassLoader loader = forInternalName(name.replace('.', '/'));
+
+        if (loader != null && loader != this) {
+            final Class<?> generatedClass = loader.findLoadedClass(name);
+
+            if (generatedClass != null) {
+                return generatedClass;
+            }
+        }
+
+        throw new ClassNotFoundException(name);
+    }
+
+    static boolean hasGeneratedClasses() {
+        return !DefiningLoaders.isEmpty();
+    }
+
+    /**
+     * @return the live loader which defined the generated class with the given internal name, or
+     *         {@code null} if there is none.
+     */
+    static GeneratedClassLoader forInternalName(final String internalName) {
+        final LoaderReference reference = DefiningLoaders.get(internalName);
+
+        return reference != null ? reference.get() : null;
+    }
+
+    private static void expungeCollectedLoaders() {
+        LoaderReference reference;
+
+        while ((reference = (LoaderReference) CollectedLoaders.poll()) != null) {
+            DefiningLoaders.remove(reference.internalName, reference);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="LoaderReference Class">
+
+    private final static class LoaderReference extends WeakReference<GeneratedClassLoader> {
+        final String internalName;
+
+        LoaderReference(final String internalName, final GeneratedClassLoader loader) {
+            super(loader, CollectedLoaders);
+            this.internalName = internalName;
+        }
+    }
+
+    // </editor-fold>
+}
@@ -44,9 +44,16 @@ final class Resolver {
     final static byte FLAG_RESOLVE_NESTED_TYPES = 0x08;
 
     void resolveMembers(final ReflectedType<?> type, final int flags) {
-        final Frame frame = new Frame(type, null);
+        Type.CACHE.beginResolution();
 
-        this.visit(type, frame, flags);
+        try {
+            final Frame frame = new Frame(type, null);
+
+            this.visit(type, frame, flags);
+        }
+        finally {
+            Type.CACHE.endResolution();
+        }
     }
 
     public final class Frame {
@@ -402,7 +409,14 @@ final class Resolver {
     }
 
     public Type<?> resolve(final java.lang.reflect.Type type) {
-        return resolveExisting(null, type, true);
+        Type.CACHE.beginResolution();
+
+        try {
+            return resolveExisting(null, type, true);
+        }
+        finally {
+            Type.CACHE.endResolution();
+        }
     }
 
     private Type<?> visit(final java.lang.reflect.Type type, final Frame frame) {
@@ -1274,9 +1288,7 @@ class ReflectedType<T> extends Type<T> {
 
     @Override
     protected Type makeGenericTypeCore(final TypeList typeArguments) {
-        synchronized (CACHE_LOCK) {
-            return CACHE.getGenericType(getGenericTypeDefinition(), typeArguments);
-        }
+        return CACHE.getGenericType(getGenericTypeDefinition(), typeArguments);
     }
 
     @Override
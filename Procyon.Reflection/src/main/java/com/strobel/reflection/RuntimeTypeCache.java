@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 enum MemberListType {
     All,
@@ -69,11 +70,11 @@ final class RuntimeTypeCache<T> {
     private String _internalName;
     private String _genericSignature;
     private Package _package;
-    private MemberInfoCache<RuntimeMethodInfo> _methodCache;
-    private MemberInfoCache<RuntimeConstructorInfo> _constructorCache;
-    private MemberInfoCache<RuntimeFieldInfo> _fieldCache;
-    private MemberInfoCache<Type<?>> _interfaceCache;
-    private MemberInfoCache<Type<?>> _nestedTypeCache;
+    private volatile MemberInfoCache<RuntimeMethodInfo> _methodCache;
+    private volatile MemberInfoCache<RuntimeConstructorInfo> _constructorCache;
+    private volatile MemberInfoCache<RuntimeFieldInfo> _fieldCache;
+    private volatile MemberInfoCache<Type<?>> _interfaceCache;
+    private volatile MemberInfoCache<Type<?>> _nestedTypeCache;
 
 //    private static HashMap<RuntimeMethodInfo, RuntimeMethodInfo> _methodInstantiations;
 
@@ -234,7 +235,7 @@ final class RuntimeTypeCache<T> {
 
     ArrayList<RuntimeMethodInfo> getMethodList(final MemberListType listType, final String name) {
         if (_methodCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_methodCache == null) {
                     _methodCache = new MemberInfoCache<>(this);
                 }
@@ -246,7 +247,7 @@ final class RuntimeTypeCache<T> {
 
     ArrayList<RuntimeConstructorInfo> getConstructorList(final MemberListType listType, final String name) {
         if (_constructorCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_constructorCache == null) {
                     _constructorCache = new MemberInfoCache<>(this);
                 }
@@ -258,7 +259,7 @@ final class RuntimeTypeCache<T> {
 
     ArrayList<RuntimeFieldInfo> getFieldList(final MemberListType listType, final String name) {
         if (_fieldCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_fieldCache == null) {
                     _fieldCache = new MemberInfoCache<>(this);
                 }
@@ -270,7 +271,7 @@ final class RuntimeTypeCache<T> {
 
     ArrayList<Type<?>> getInterfaceList(final MemberListType listType, final String name) {
         if (_interfaceCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_interfaceCache == null) {
                     _interfaceCache = new MemberInfoCache<>(this);
                 }
@@ -282,7 +283,7 @@ final class RuntimeTypeCache<T> {
 
     ArrayList<Type<?>> getNestedTypeList(final MemberListType listType, final String name) {
         if (_nestedTypeCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_nestedTypeCache == null) {
                     _nestedTypeCache = new MemberInfoCache<>(this);
                 }
@@ -294,7 +295,7 @@ final class RuntimeTypeCache<T> {
 
     MethodBase getMethod(final Type<? super T> declaringType, final MethodInfo method) {
         if (_methodCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_methodCache == null) {
                     _methodCache = new MemberInfoCache<>(this);
                 }
@@ -306,7 +307,7 @@ final class RuntimeTypeCache<T> {
 
     MethodBase getConstructor(final Type<? super T> declaringType, final MethodInfo constructor) {
         if (_constructorCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_constructorCache == null) {
                     _constructorCache = new MemberInfoCache<>(this);
                 }
@@ -318,7 +319,7 @@ final class RuntimeTypeCache<T> {
 
     FieldInfo getField(final FieldInfo field) {
         if (_fieldCache == null) {
-            synchronized (Type.CACHE_LOCK) {
+            synchronized (this) {
                 if (_fieldCache == null) {
                     _fieldCache = new MemberInfoCache<>(this);
                 }
@@ -329,17 +330,17 @@ final class RuntimeTypeCache<T> {
 
     @SuppressWarnings("unchecked")
     final static class MemberInfoCache<T extends MemberInfo> {
-        private HashMap<String, ArrayList<T>> _caseSensitiveMembers;
-        private HashMap<String, ArrayList<T>> _caseInsensitiveMembers;
+        // Written under 'this'; the lists are never modified once published.
+        private volatile ConcurrentHashMap<String, ArrayList<T>> _caseSensitiveMembers;
+        private volatile ConcurrentHashMap<String, ArrayList<T>> _caseInsensitiveMembers;
+        private volatile ArrayList<T> _allMembers;
         private ArrayList<T> _root;
-        private boolean _cacheComplete;
 
         // This is the strong reference back to the cache
         private final RuntimeTypeCache<?> _typeCache;
 
         private MemberInfoCache(final RuntimeTypeCache<?> typeCache) {
             _typeCache = VerifyArgument.notNull(typeCache, "typeCache");
-            _cacheComplete = false;
         }
 
         Type<?> getReflectedType() {
@@ -373,38 +374,46 @@ final class RuntimeTypeCache<T> {
             final ArrayList<T> list;
 
             switch (listType) {
-                case CaseSensitive:
-                    if (_caseSensitiveMembers == null) {
+                case CaseSensitive: {
+                    final ConcurrentHashMap<String, ArrayList<T>> members = _caseSensitiveMembers;
+
+                    if (members == null) {
                         return populate(name, listType, cacheType);
                     }
 
-                    list = _caseSensitiveMembers.get(name);
+                    list = members.get(name);
 
                     if (list == null) {
                         return populate(name, listType, cacheType);
                     }
 
                     return list;
+                }
 
                 case All:
-                    if (_cacheComplete) {
-                        return _root;
+                    list = _allMembers;
+
+                    if (list != null) {
+                        return list;
                     }
 
                     return populate(null, listType, cacheType);
 
-                default:
-                    if (_caseInsensitiveMembers == null) {
+                default: {
+                    final ConcurrentHashMap<String, ArrayList<T>> members = _caseInsensitiveMembers;
+
+                    if (members == null) {
                         return populate(name, listType, cacheType);
                     }
 
-                    list = _caseInsensitiveMembers.get(name);
+                    list = members.get(name);
 
                     if (list == null) {
                         return populate(name, listType, cacheType);
                     }
 
                     return list;
+                }
             }
         }
 
@@ -418,12 +427,12 @@ final class RuntimeTypeCache<T> {
 
                     if (listType == MemberListType.CaseSensitive) {
                         if (_caseSensitiveMembers == null) {
-                            _caseSensitiveMembers = new HashMap<>(1);
+                            _caseSensitiveMembers = new ConcurrentHashMap<>(1);
                         }
                     }
                     else if (listType == MemberListType.CaseInsensitive) {
                         if (_caseInsensitiveMembers == null) {
-                            _caseInsensitiveMembers = new HashMap<>(1);
+                            _caseInsensitiveMembers = new ConcurrentHashMap<>(1);
                         }
                     }
 
@@ -462,7 +471,12 @@ final class RuntimeTypeCache<T> {
                         }
 
                         if (listType == MemberListType.All) {
-                            _cacheComplete = true;
+                            if (_allMembers == null) {
+                                _allMembers = list;
+                            }
+                            else {
+                                result = _allMembers;
+                            }
                         }
                     }
                 }
@@ -1449,12 +1463,12 @@ final class RuntimeType<T> extends Type<T> {
     private final TypeBindings _typeBindings;
     private final TypeBindings _allBindings;
 
-    private Type<? super T> _baseType;
-    private TypeList _interfaces;
-    private FieldList _fields;
-    private ConstructorList _constructors;
-    private MethodList _methods;
-    private TypeList _nestedTypes;
+    private volatile Type<? super T> _baseType;
+    private volatile TypeList _interfaces;
+    private volatile FieldList _fields;
+    private volatile ConstructorList _constructors;
+    private volatile MethodList _methods;
+    private volatile TypeList _nestedTypes;
 
     RuntimeType(final Type<?> reflectedType, final Type<T> basedOn, final TypeBindings allBindings) {
         _reflectedType = VerifyArgument.notNull(reflectedType, "reflectedType");
@@ -1655,4 +1669,4 @@ final class RuntimeType<T> extends Type<T> {
         }
         return _basedOn.isEquivalentTo(other);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -165,7 +165,7 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
         return Type.of(Object.class);
     }
 
-    private TypeList _interfaces;
+    private volatile TypeList _interfaces;
 
     public TypeList getInterfaces() {
         if (_interfaces == null) {
@@ -1122,9 +1122,7 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     public final Type<T[]> makeArrayType() {
-        synchronized (CACHE_LOCK) {
-            return CACHE.getArrayType(this);
-        }
+        return CACHE.getArrayType(this);
     }
 
     protected Type<T[]> createArrayType() {
@@ -1144,7 +1142,7 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
         );
     }
 
-    private ErasedType<T> _erasedType;
+    private volatile ErasedType<T> _erasedType;
 
     public final Type<?> getErasedType() {
         if (isArray()) {
@@ -1558,6 +1556,12 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
     }
 
     public static <T> Type<T> of(final Class<T> clazz) {
+        final Type<T> cachedType = CACHE.find(clazz);
+
+        if (cachedType != null) {
+            return cachedType;
+        }
+
         synchronized (CACHE_LOCK) {
             final Type<T> reflectedType = CACHE.find(clazz);
 
@@ -1753,9 +1757,7 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
                 return of(classType);
             }
 
-            synchronized (CACHE_LOCK) {
-                return CACHE.find(classType);
-            }
+            return CACHE.find(classType);
         }
 
         return null;
@@ -1867,7 +1869,7 @@ public abstract class Type<T> extends MemberInfo implements java.lang.reflect.Ty
     // TYPE HIERARCHY AND MEMBER RESOLUTION INFO                                                                          //
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private RuntimeTypeCache<T> _cache;
+    private volatile RuntimeTypeCache<T> _cache;
 
     final RuntimeTypeCache<T> getCache() {
         if (_cache == null) {
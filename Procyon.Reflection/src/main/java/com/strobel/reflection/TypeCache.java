@@ -17,16 +17,34 @@ import com.strobel.core.Comparer;
 import com.strobel.core.HashUtilities;
 import com.strobel.util.TypeUtils;
 
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Lookups never block: all maps are concurrent, and generic and array instantiations are created
+ * without holding {@link Type#CACHE_LOCK}, with the first instance added for a key winning.
+ * <p>
+ * Reflected type definitions are still resolved under {@link Type#CACHE_LOCK}, and a definition is
+ * reachable through the resolver before its base type, interfaces, and generic bounds are set.  So
+ * definitions added while a resolution is in progress are only visible to the resolving thread until
+ * the outermost resolution completes; only then are they published to lock-free readers.
+ * <p>
+ * Types of classes defined by a {@link GeneratedClassLoader}, along with their generic and array
+ * instantiations, are kept in a cache owned by that loader, so the global cache does not prevent the
+ * loader from being collected.
+ *
  * @author strobelm
  */
 @SuppressWarnings("unchecked")
 final class TypeCache {
-    private final LinkedHashMap<Key, Type<?>> _map = new LinkedHashMap<>();
-    private final LinkedHashMap<String, Type<?>> _definitionMap = new LinkedHashMap<>();
-    private final LinkedHashMap<Type<?>, Type<?>> _arrayMap = new LinkedHashMap<>();
+    private final ConcurrentHashMap<Key, Type<?>> _map = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Type<?>> _definitionMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Type<?>, Type<?>> _arrayMap = new ConcurrentHashMap<>();
+
+    // Guarded by Type.CACHE_LOCK.
+    private final HashMap<String, Type<?>> _pendingDefinitions = new HashMap<>();
+    private int _resolutionDepth;
 
     public Key key(final Type<?> type) {
         return key(type, TypeList.empty());
@@ -37,17 +55,24 @@ final class TypeCache {
     }
 
     public Type find(final Key key) {
-        return _map.get(key);
+        return cacheFor(key)._map.get(key);
     }
 
     public <T> Type<T[]> getArrayType(final Type<T> elementType) {
-        Type<T[]> arrayType = (Type<T[]>) _arrayMap.get(elementType);
+        final ConcurrentHashMap<Type<?>, Type<?>> arrayMap = cacheFor(elementType)._arrayMap;
+        final Type<T[]> cachedType = (Type<T[]>) arrayMap.get(elementType);
+
+        if (cachedType != null) {
+            return cachedType;
+        }
+
+        final Type<T[]> arrayType = elementType.createArrayType();
+        final Type<T[]> existing = (Type<T[]>) arrayMap.putIfAbsent(elementType, arrayType);
 
-        if (arrayType != null) {
-            return arrayType;
+        if (existing != null) {
+            return existing;
         }
 
-        arrayType = elementType.createArrayType();
         add(arrayType);
 
         return arrayType;
@@ -59,55 +84,177 @@ final class TypeCache {
             typeArguments
         );
 
-        Type genericType = _map.get(key);
+        final ConcurrentHashMap<Key, Type<?>> map = cacheFor(key)._map;
+        final Type cachedType = map.get(key);
 
-        if (genericType == null) {
-            genericType = new GenericType(
-                type.getGenericTypeDefinition(),
-                typeArguments
-            );
+        if (cachedType != null) {
+            return cachedType;
+        }
 
-            final Type existing = _map.put(key, genericType);
+        final Type genericType = new GenericType(
+            type.getGenericTypeDefinition(),
+            typeArguments
+        );
 
-            if (existing != null) {
-                return existing;
-            }
-        }
+        final Type existing = map.putIfAbsent(key, genericType);
 
-        return genericType;
+        return existing != null ? existing : genericType;
     }
 
     public <T> Type<T> find(final Class<T> clazz) {
-        return (Type<T>) _definitionMap.get(TypeUtils.getInternalName(clazz));
+        final ClassLoader loader = clazz.getClassLoader();
+        final TypeCache cache = loader instanceof GeneratedClassLoader ? ((GeneratedClassLoader) loader).types : this;
+
+        return (Type<T>) findDefinition(cache, TypeUtils.getInternalName(clazz));
     }
 
     public int size() {
         return _map.size();
     }
 
-    public void put(final Key key, final Type type) {
-        final String descriptor = key.descriptor;
+    /**
+     * Marks the start of a resolution on the current thread, which must hold {@link Type#CACHE_LOCK}.
+     */
+    void beginResolution() {
+        ++_resolutionDepth;
+    }
+
+    /**
+     * Marks the end of a resolution; once the outermost resolution ends, the definitions it added
+     * become visible to lock-free lookups.
+     */
+    void endResolution() {
+        if (--_resolutionDepth > 0) {
+            return;
+        }
+
+        for (final Map.Entry<String, Type<?>> entry : _pendingDefinitions.entrySet()) {
+            cacheFor(entry.getKey())._definitionMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+
+        _pendingDefinitions.clear();
+    }
+
+    private boolean isResolving() {
+        return Thread.holdsLock(Type.CACHE_LOCK) && _resolutionDepth > 0;
+    }
+
+    private Type<?> findDefinition(final TypeCache cache, final String descriptor) {
+        final Type<?> type = cache._definitionMap.get(descriptor);
+
+        if (type != null || !isResolving()) {
+            return type;
+        }
+
+        return _pendingDefinitions.get(descriptor);
+    }
+
+    private void putDefinition(final String descriptor, final Type<?> type) {
+        final TypeCache cache = cacheFor(descriptor);
+
+        if (findDefinition(cache, descriptor) != null) {
+            return;
+        }
+
+        if (isResolving()) {
+            _pendingDefinitions.put(descriptor, type);
+        }
+        else {
+            cache._definitionMap.putIfAbsent(descriptor, type);
+        }
+    }
 
-        if (!_definitionMap.containsKey(descriptor)) {
-            if (type.isGenericType() && !type.isGenericTypeDefinition()) {
-                _definitionMap.put(descriptor, type.getGenericTypeDefinition());
+    /**
+     * @return the cache owned by the {@link GeneratedClassLoader} which defined the class (or array
+     *         element class) with the given descriptor, or this cache if there is no such loader.
+     */
+    private TypeCache cacheFor(final String descriptor) {
+        if (!GeneratedClassLoader.hasGeneratedClasses()) {
+            return this;
+        }
+
+        int start = 0;
+        int end = descriptor.length();
+
+        while (start < end && descriptor.charAt(start) == '[') {
+            ++start;
+        }
+
+        if (start > 0) {
+            if (end - start < 2 || descriptor.charAt(start) != 'L') {
+                return this;
             }
-            else {
-                _definitionMap.put(descriptor, type);
+            ++start;
+            --end;
+        }
+
+        final GeneratedClassLoader loader = GeneratedClassLoader.forInternalName(descriptor.substring(start, end));
+
+        return loader != null ? loader.types : this;
+    }
+
+    /**
+     * @return the cache of a {@link GeneratedClassLoader} whose classes are referenced by the given
+     *         key's definition or type arguments, or this cache if there is no such loader.
+     */
+    private TypeCache cacheFor(final Key key) {
+        final TypeCache cache = cacheFor(key.descriptor);
+
+        if (cache != this || key.typeArguments == null) {
+            return cache;
+        }
+
+        return cacheFor(key.typeArguments);
+    }
+
+    private TypeCache cacheFor(final TypeList types) {
+        for (int i = 0, n = types.size(); i < n; i++) {
+            final TypeCache cache = cacheFor(types.get(i));
+
+            if (cache != this) {
+                return cache;
             }
         }
 
-        if (type.isPrimitive() && !_definitionMap.containsKey(type.getName())) {
-            _definitionMap.put(type.getName(), type);
+        return this;
+    }
+
+    private TypeCache cacheFor(final Type<?> type) {
+        if (!GeneratedClassLoader.hasGeneratedClasses() || type == null || type.isPrimitive() || type.isGenericParameter()) {
+            return this;
+        }
+
+        if (type.isWildcardType()) {
+            return type.hasSuperBound() ? cacheFor(type.getSuperBound()) : cacheFor(type.getExtendsBound());
         }
 
-        _map.put(key, type);
+        final TypeCache cache = cacheFor(type.getInternalName());
+
+        if (cache != this || !type.isGenericType() || type.isGenericTypeDefinition()) {
+            return cache;
+        }
+
+        return cacheFor(type.getTypeArguments());
+    }
+
+    public void put(final Key key, final Type type) {
+        if (type.isGenericType() && !type.isGenericTypeDefinition()) {
+            putDefinition(key.descriptor, type.getGenericTypeDefinition());
+        }
+        else {
+            putDefinition(key.descriptor, type);
+        }
+
+        if (type.isPrimitive()) {
+            putDefinition(type.getName(), type);
+        }
+
+        final TypeCache cache = cacheFor(key);
+
+        cache._map.put(key, type);
 
         if (type.isArray()) {
-            final Type elementType = type.getElementType();
-            if (!_arrayMap.containsKey(elementType)) {
-                _arrayMap.put(elementType, type);
-            }
+            cache._arrayMap.putIfAbsent(type.getElementType(), type);
         }
     }
 
@@ -22,7 +22,7 @@ import javax.lang.model.type.TypeKind;
 class WildcardType<T> extends Type<T> {
     private final Type<T> _extendsBound;
     private final Type _superBound;
-    private Class<T> _erasedClass;
+    private volatile Class<T> _erasedClass;
 
     WildcardType(final Type<T> extendsBound, final Type superBound) {
         _extendsBound = extendsBound != null ? extendsBound : (Type<T>)Types.Object;
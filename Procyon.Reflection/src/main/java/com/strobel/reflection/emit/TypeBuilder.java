@@ -79,6 +79,7 @@ public final class TypeBuilder<T> extends Type<T> {
     private ReadOnlyList<AnnotationBuilder<? extends Annotation>> _annotations;
     private Map<Class<? extends Annotation>, AnnotationBuilder<? extends Annotation>> _annotationMap;
     private final ProtectionDomain _protectionDomain;
+    private GeneratedClassLoader _definingClassLoader;
 
     // <editor-fold defaultstate="collapsed" desc="Constructors and Initializers">
 
@@ -710,6 +711,19 @@ public final class TypeBuilder<T> extends Type<T> {
         return _hasBeenCreated;
     }
 
+    public GeneratedClassLoader getDefiningClassLoader() {
+        return _definingClassLoader;
+    }
+
+    /**
+     * Sets the loader into which the generated class will be defined.  By default, generated classes
+     * are defined into the thread's context class loader, and are never unloaded.
+     */
+    public void setDefiningClassLoader(final GeneratedClassLoader definingClassLoader) {
+        verifyNotCreated();
+        _definingClassLoader = definingClassLoader;
+    }
+
     public synchronized Type<T> createType() {
         try {
             return createTypeNoLock(null);
@@ -1231,14 +1245,23 @@ public final class TypeBuilder<T> extends Type<T> {
 
             _hasBeenCreated = true;
 
-            _generatedClass = (Class<T>) getUnsafeInstance().defineClass(
-                fullName,
-                classBytes,
-                0,
-                classBytes.length,
-                Thread.currentThread().getContextClassLoader(),
-                _protectionDomain
-            );
+            if (_definingClassLoader != null) {
+                _generatedClass = (Class<T>) _definingClassLoader.defineClass(
+                    fullName,
+                    classBytes,
+                    _protectionDomain
+                );
+            }
+            else {
+                _generatedClass = (Class<T>) getUnsafeInstance().defineClass(
+                    fullName,
+                    classBytes,
+                    0,
+                    classBytes.length,
+                    Thread.currentThread().getContextClassLoader(),
+                    _protectionDomain
+                );
+            }
 
             RuntimeHelpers.ensureClassInitialized(_generatedClass);
 
@@ -18,6 +18,11 @@ import org.junit.Test;
 import javax.lang.model.type.TypeKind;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.strobel.core.CollectionUtilities.first;
 import static java.lang.String.format;
@@ -318,6 +323,61 @@ public final class TypeTests {
         assertEquals(gn.makeGenericType(fn), fn.getBaseType());
     }
 
+    @Test
+    public void testConcurrentLookupsAgree() throws Throwable {
+        final int threadCount = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Type<?>[]>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                results.add(
+                    executor.submit(
+                        new Callable<Type<?>[]>() {
+                            @Override
+                            public Type<?>[] call() throws Exception {
+                                start.await();
+
+                                final Type<Concurrent.Tree> tree = Type.of(Concurrent.Tree.class);
+                                final Type<Concurrent.Node> node = Type.of(Concurrent.Node.class);
+
+                                assertNotNull(tree.getBaseType());
+                                assertFalse(tree.getMethods().isEmpty());
+
+                                return new Type<?>[] {
+                                    tree,
+                                    node,
+                                    tree.getBaseType(),
+                                    Type.of(Concurrent.Node[].class),
+                                    node.makeArrayType(),
+                                    Types.List.makeGenericType(node)
+                                };
+                            }
+                        }
+                    )
+                );
+            }
+
+            start.countDown();
+
+            final Type<?>[] expected = results.get(0).get();
+
+            assertSame(expected[3], expected[4]);
+
+            for (final Future<Type<?>[]> result : results) {
+                final Type<?>[] actual = result.get();
+
+                for (int i = 0; i < expected.length; i++) {
+                    assertSame(expected[i], actual[i]);
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     private void testSignatureRoundTrip(final Type<?> t) {
         final String signature = t.getSignature();
         final Type<?> resolvedType = Type.forName(signature);
@@ -355,4 +415,23 @@ public final class TypeTests {
         static class MyNode extends G.Node<MyNode> {
         }
     }
+
+    private static class Concurrent {
+        static class Node<N extends Node<N>> {
+            N parent;
+
+            N getParent() {
+                return parent;
+            }
+        }
+
+        static class Tree extends Node<Tree> implements Comparable<Tree> {
+            List<Tree> children;
+
+            @Override
+            public int compareTo(final Tree o) {
+                return 0;
+            }
+        }
+    }
 }